@@ -0,0 +1,53 @@
+package org.aion.tetryon;
+
+import java.math.BigInteger;
+
+/**
+ * Fixed inputs shared by the benchmarks, computed with the pure-Java backend so that setup does not depend on the
+ * backend under test.
+ */
+final class BenchmarkPoints {
+    static final G1Point P1 = Pairing.P1();
+
+    // a G2 point in the encoding the backends expect (real part first)
+    static final G2Point P2 = new G2Point(
+            new Fp2(
+                    new BigInteger("10857046999023057135944570762232829481370756359578518086990519993285655852781"),
+                    new BigInteger("11559732032986387107991004021392285783925812861821192530917403151452391805634")
+            ),
+            new Fp2(
+                    new BigInteger("8495653923123431417604973247489272438418190587263600148770280649306958101930"),
+                    new BigInteger("4082367875863433681332203403145435568316851327593401208105741076214120093531")
+            )
+    );
+
+    static final BigInteger SCALAR = new BigInteger("30586f85e8fcea91c0db1ed30aacf7350e72efd4cf756b3ce309f2159e275ff9", 16);
+
+    private static final Bn128Backend JAVA = new JavaBn128Backend();
+
+    private BenchmarkPoints() { }
+
+    static byte[] g1(int k) throws Exception {
+        return JAVA.g1EcMul(Util.serializeG1(P1), Util.serializeScalar(BigInteger.valueOf(k)));
+    }
+
+    /**
+     * n pairs (k P1, P2) with the G1 multiples chosen so that the pairing product is one for even n,
+     * which makes every check run to completion with a true result.
+     */
+    static byte[][] pairs(int n) throws Exception {
+        byte[] g1List = new byte[n * 64];
+        byte[] g2List = new byte[n * 128];
+        byte[] p2 = Util.serializeG2(P2);
+        for (int i = 0; i < n; i++) {
+            int k = i / 2 + 1;
+            byte[] p = g1(k);
+            if (i % 2 == 1) {
+                p = Util.serializeG1(G1.negate(Util.deserializeG1(p)));
+            }
+            System.arraycopy(p, 0, g1List, i * 64, 64);
+            System.arraycopy(p2, 0, g2List, i * 128, 128);
+        }
+        return new byte[][]{g1List, g2List};
+    }
+}
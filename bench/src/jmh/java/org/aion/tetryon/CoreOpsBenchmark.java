@@ -0,0 +1,40 @@
+package org.aion.tetryon;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-operation latency of the core operations, native (through JNI) against pure Java.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CoreOpsBenchmark {
+
+    @Param({"jni", "java"})
+    public String backend;
+
+    private Bn128Backend impl;
+    private byte[] a;
+    private byte[] b;
+    private byte[] scalar;
+
+    @Setup
+    public void setup() throws Exception {
+        impl = "jni".equals(backend) ? new JniBn128Backend() : new JavaBn128Backend();
+        a = BenchmarkPoints.g1(3);
+        b = BenchmarkPoints.g1(5);
+        scalar = Util.serializeScalar(BenchmarkPoints.SCALAR);
+    }
+
+    @Benchmark
+    public byte[] g1EcAdd() throws Exception {
+        return impl.g1EcAdd(a, b);
+    }
+
+    @Benchmark
+    public byte[] g1EcMul() throws Exception {
+        return impl.g1EcMul(a, scalar);
+    }
+}
@@ -0,0 +1,37 @@
+package org.aion.tetryon;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pairing checks over a growing number of pairs, native (through JNI) against pure Java.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EcPairBenchmark {
+
+    @Param({"jni", "java"})
+    public String backend;
+
+    @Param({"1", "2", "4", "8", "32"})
+    public int pairs;
+
+    private Bn128Backend impl;
+    private byte[] g1List;
+    private byte[] g2List;
+
+    @Setup
+    public void setup() throws Exception {
+        impl = "jni".equals(backend) ? new JniBn128Backend() : new JavaBn128Backend();
+        byte[][] data = BenchmarkPoints.pairs(pairs);
+        g1List = data[0];
+        g2List = data[1];
+    }
+
+    @Benchmark
+    public boolean ecPair() throws Exception {
+        return impl.ecPair(g1List, g2List);
+    }
+}
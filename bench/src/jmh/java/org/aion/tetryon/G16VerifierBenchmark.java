@@ -0,0 +1,42 @@
+package org.aion.tetryon;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end verification of the square pre-image proof from {@link G16SquarePreimageTest}: input validation,
+ * the multi-exponentiation over the public inputs and a four-pair pairing check.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class G16VerifierBenchmark {
+
+    private G16SquarePreimageTest.G16Verifier.Proof proof;
+    private BigInteger[] input;
+
+    @Setup
+    public void setup() {
+        G1Point a = new G1Point(
+                new Fp(new BigInteger("07f4a1ab12b1211149fa0aed8ade3442b774893dcd1caffb8693ade54999c164", 16)),
+                new Fp(new BigInteger("23b7f10c5e1aeaffafa088f1412c0f307969ba3f8f9d5920214a4cb91693fab5", 16)));
+        G2Point b = new G2Point(
+                new Fp2(new BigInteger("1f6cc814cf1df1ceb663378c496f168bcd21e19bb529e90fcf3721f8df6b4128", 16),
+                        new BigInteger("079ee30e2c79e15be67645838a3177f681ab111edacf6f4867e8eed753ed9681", 16)),
+                new Fp2(new BigInteger("2779dd0accaa1391e29ad54bf065819cac3129edda4eaf909d6ea2c7495a47f7", 16),
+                        new BigInteger("20105b11ae5fbdc7067102d4260c8913cdcb512632680221d7644f9928a7e51d", 16)));
+        G1Point c = new G1Point(
+                new Fp(new BigInteger("153c3a313679a5c11010c3339ff4f787246ed2e8d736efb615aeb321f5a22432", 16)),
+                new Fp(new BigInteger("06691d8441c35768a4ca87a5f5ee7d721bf13115d2a16726c12cda295a19bf09", 16)));
+
+        proof = new G16SquarePreimageTest.G16Verifier.Proof(a, b, c);
+        input = new BigInteger[]{BigInteger.valueOf(0x1bba1), BigInteger.ONE};
+    }
+
+    @Benchmark
+    public boolean verify() throws Exception {
+        return G16SquarePreimageTest.G16Verifier.verify(input, proof);
+    }
+}
@@ -0,0 +1,24 @@
+package org.aion.tetryon;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scalar multiplication on G2, pure-Java reference against native.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class G2Benchmark {
+
+    @Benchmark
+    public G2Point ecTwistMul() {
+        return G2.ECTwistMul(BenchmarkPoints.P2, BenchmarkPoints.SCALAR);
+    }
+
+    @Benchmark
+    public G2Point nativeMul() throws Exception {
+        return G2.mul(BenchmarkPoints.P2, BenchmarkPoints.SCALAR);
+    }
+}
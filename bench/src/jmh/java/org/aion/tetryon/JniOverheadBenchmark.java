@@ -0,0 +1,20 @@
+package org.aion.tetryon;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of a bare JNI transition: {@code ping} does no work on the native side, so its latency is the floor under
+ * every native call. Subtract it from the JNI numbers of the other benchmarks to get the native work itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JniOverheadBenchmark {
+
+    @Benchmark
+    public int ping() {
+        return AltBn128.ping();
+    }
+}
@@ -0,0 +1,33 @@
+package org.aion.tetryon;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding between point objects and the byte layout passed to the backends.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SerializationBenchmark {
+
+    private G1Point point;
+    private byte[] data;
+
+    @Setup
+    public void setup() throws Exception {
+        data = BenchmarkPoints.g1(7);
+        point = Util.deserializeG1(data);
+    }
+
+    @Benchmark
+    public byte[] serializeG1() {
+        return Util.serializeG1(point);
+    }
+
+    @Benchmark
+    public G1Point deserializeG1() {
+        return Util.deserializeG1(data);
+    }
+}
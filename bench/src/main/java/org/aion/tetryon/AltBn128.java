@@ -1,20 +1,53 @@
 package org.aion.tetryon;
 
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.util.Iterator;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
 
 /**
  * Java wrapper for alt-bn128 curve implemented here: https://github.com/paritytech/bn
  *
- * todo: the three functions have different failure mode. fix for production.
+ * Calls to g1EcAdd, g1EcMul and ecPair are counted and timed in {@link AltBn128Metrics}, and are reported to JDK
+ * Flight Recorder as {@link CurveOperationEvent}s.
+ *
+ * todo: the three functions have different failure mode. fix for production. Their status-code variants,
+ * {@link #g1EcAddInto}, {@link #g1EcMulInto} and {@link #ecPairStatus}, already share one.
  * todo: move more of the point validation logic into the JNI wrapper. fix for production.
  */
 public class AltBn128 {
 
-    static {
-      System.loadLibrary("bn_jni");
+    /**
+     * System property that selects the {@link Bn128Backend} behind the core operations: "jni", "java", or the name
+     * or class name of a backend registered through {@link ServiceLoader}. When unset, the first registered backend
+     * that loads wins, which is the native one if the library is available and the pure-Java one otherwise.
+     */
+    public static final String BACKEND_PROPERTY = "org.aion.tetryon.backend";
+
+    // Statuses of the status-code variants, the same codes the native alt_bn128_* functions return
+
+    public static final int STATUS_OK = 0;
+    // an internal arithmetic failure of the native library
+    public static final int STATUS_ARITHMETIC_ERROR = -1;
+    // a coordinate not below the field modulus, or a scalar not below the group order ("NotMember")
+    public static final int STATUS_NOT_MEMBER = -2;
+    // a point not on the curve ("NotOnCurve"), or for G2 not in the order-r subgroup ("NotInSubgroup")
+    public static final int STATUS_INVALID_POINT = -3;
+    // an operand array too short, or no room for the result at the given offset ("InvalidInputLength")
+    public static final int STATUS_INVALID_LENGTH = -4;
+
+    private static final class Backend {
+        protected static final Bn128Backend INSTANCE = loadBackend();
     }
 
+    // operations that only the native library provides
     private static final class Holder {
+        static {
+            JniBn128Backend.loadLibrary();
+        }
+
         protected static final AltBn128Jni INSTANCE = new AltBn128Jni();
     }
 
@@ -26,6 +59,12 @@ public class AltBn128 {
     private static int G1_POINT_SIZE = 2 * WORD_SIZE;
     // points in G2, encoded like so: [p1[0].x || p1[0].y || p1[1].x || p2[1].y || p2[0].x]. Each coordinate is 32-byte aligned.
     private static int G2_POINT_SIZE = 4 * WORD_SIZE;
+    // elements of F_p^12, encoded as their six F_p^2 coefficients in tower order. Each coordinate is 32-byte aligned.
+    private static int GT_SIZE = 12 * WORD_SIZE;
+    // multi-exponentiations with at least this many terms spread their windows over native threads
+    private static int MULTIEXP_PARALLEL_THRESHOLD = 512;
+    // pairing checks with at least this many pairs run their Miller loops on native threads
+    private static int PAIRING_PARALLEL_THRESHOLD = 8;
 
     // Runtime-facing implementation
     /**
@@ -45,8 +84,13 @@ public class AltBn128 {
         assert (point1 != null && point2 != null &&
                 point1.length == G1_POINT_SIZE && point2.length == G1_POINT_SIZE);
 
-        // call jni
-        return Holder.INSTANCE.g1EcAdd(point1, point2);
+        // counted by g1EcAddInto, whose status tells illegal input apart from other failures
+        byte[] result = new byte[G1_POINT_SIZE];
+        int status = g1EcAddInto(point1, point2, result, 0);
+        if (status != STATUS_OK) {
+            throw new Exception(statusMessage(status));
+        }
+        return result;
     }
 
     /**
@@ -65,14 +109,231 @@ public class AltBn128 {
         assert (point != null && scalar != null &&
                 point.length == G1_POINT_SIZE && scalar.signum() != -1); // scalar can't be negative (it can be zero or positive)
 
-        byte[] sdata = scalar.toByteArray();
-        assert (sdata.length <= WORD_SIZE);
-
         byte[] sdata_aligned = new byte[WORD_SIZE];
-        System.arraycopy(sdata, 0, sdata_aligned, WORD_SIZE - sdata.length, sdata.length);
+        PointCodec.encodeScalar(scalar, sdata_aligned, 0);
+
+        return g1EcMulAligned(point, sdata_aligned);
+    }
+
+    /**
+     * Computes EC multiplication in G1 by a scalar already in field form, skipping the conversion of a BigInteger.
+     *
+     * Failure Mode: Any illegal points as input yields an Exception with message "NotOnCurve".
+     *
+     * @see #g1EcMul(byte[], BigInteger)
+     */
+    public static byte[] g1EcMul(byte[] point, Fr scalar) throws Exception {
+        // assert valid data.
+        // todo: convert assert to runtime assertion in AVM
+        assert (point != null && scalar != null && point.length == G1_POINT_SIZE);
+
+        return g1EcMulAligned(point, scalar.toBytes());
+    }
+
+    private static byte[] g1EcMulAligned(byte[] point, byte[] sdata_aligned) {
+        // failure mode: illegal input yields zeros, which a failed call leaves in place; it is still counted as
+        // illegal input by g1EcMulInto
+        byte[] result = new byte[G1_POINT_SIZE];
+        g1EcMulInto(point, sdata_aligned, result, 0);
+        return result;
+    }
+
+    /**
+     * Computes many independent EC additions in G1 in one call: result[i] = lhs[i] + rhs[i].
+     *
+     * All results are converted to affine form with a single shared field inversion.
+     *
+     * We do buffer size validation here (not done in JNI wrapper).
+     *
+     * Failure Mode: Illegal points only fail their own item: its status is non-zero and its result is '0'.
+     *
+     * @param lhs list of points in G1, encoded like so: [p1.x || p1.y || p2.x || p2.y || ...].
+     *            Each coordinate is 32-byte aligned.
+     * @param rhs list of points in G1, encoded the same way, with as many points as lhs.
+     */
+    public static G1BatchResult g1EcAddBatch(byte[] lhs, byte[] rhs) throws Exception {
+        // assert valid data.
+        // todo: convert assert to runtime assertion in AVM
+        assert (lhs != null && rhs != null &&
+                lhs.length % G1_POINT_SIZE == 0 && lhs.length == rhs.length);
+
+        int[] status = new int[lhs.length / G1_POINT_SIZE];
+        // call jni
+        byte[] points = Holder.INSTANCE.g1EcAddBatch(lhs, rhs, status);
+        return new G1BatchResult(points, status);
+    }
+
+    /**
+     * Computes many independent scalar multiplications in G1 in one call: result[i] = scalars[i] * points[i].
+     *
+     * All results are converted to affine form with a single shared field inversion.
+     *
+     * We do buffer size validation here (not done in JNI wrapper).
+     *
+     * Failure Mode: Illegal points or scalars (>= group order) only fail their own item: its status is non-zero
+     * and its result is '0'.
+     *
+     * @param points list of points in G1, encoded like so: [p1.x || p1.y || p2.x || p2.y || ...].
+     *               Each coordinate is 32-byte aligned.
+     * @param scalars list of scalars, encoded like so: [s1 || s2 || ...]. Each scalar is byte aligned to 32 bytes.
+     */
+    public static G1BatchResult g1EcMulBatch(byte[] points, byte[] scalars) throws Exception {
+        // assert valid data.
+        // todo: convert assert to runtime assertion in AVM
+        assert (points != null && scalars != null &&
+                points.length % G1_POINT_SIZE == 0 && scalars.length % WORD_SIZE == 0 &&
+                points.length / G1_POINT_SIZE == scalars.length / WORD_SIZE);
+
+        int[] status = new int[points.length / G1_POINT_SIZE];
+        // call jni
+        byte[] results = Holder.INSTANCE.g1EcMulBatch(points, scalars, status);
+        return new G1BatchResult(results, status);
+    }
+
+    /**
+     * Decompresses many G1 points in one call; see {@link Util#compressG1(G1Point)} for the encoding. The square
+     * roots are spread over the native thread pool.
+     *
+     * Failure Mode: Malformed encodings and x coordinates off the curve only fail their own item: its status is
+     * non-zero and its result is '0'. The point at infinity decompresses to '0' with a zero status.
+     *
+     * @param compressed list of compressed points in G1, encoded like so: [p1 || p2 || ...]. Each point is 32 bytes.
+     */
+    public static G1BatchResult decompressG1Batch(byte[] compressed) throws Exception {
+        // assert valid data.
+        // todo: convert assert to runtime assertion in AVM
+        assert (compressed != null && compressed.length % Util.G1_COMPRESSED_SIZE == 0);
+
+        int[] status = new int[compressed.length / Util.G1_COMPRESSED_SIZE];
+        // call jni
+        byte[] points = Holder.INSTANCE.decompressG1Batch(compressed, status);
+        return new G1BatchResult(points, status);
+    }
+
+    /**
+     * Decompresses many G2 points in one call; see {@link Util#compressG2(G2Point)} for the encoding. The square
+     * roots are spread over the native thread pool.
+     *
+     * Failure Mode: Malformed encodings, and x coordinates off the curve or outside the order-r subgroup, only fail
+     * their own item: its status is non-zero and its result is '0'. The point at infinity decompresses to '0' with
+     * a zero status.
+     *
+     * @param compressed list of compressed points in G2, encoded like so: [p1 || p2 || ...]. Each point is 64 bytes.
+     */
+    public static G2BatchResult decompressG2Batch(byte[] compressed) throws Exception {
+        // assert valid data.
+        // todo: convert assert to runtime assertion in AVM
+        assert (compressed != null && compressed.length % Util.G2_COMPRESSED_SIZE == 0);
 
+        int[] status = new int[compressed.length / Util.G2_COMPRESSED_SIZE];
         // call jni
-        return Holder.INSTANCE.g1EcMul(point, sdata_aligned);
+        byte[] points = Holder.INSTANCE.decompressG2Batch(compressed, status);
+        return new G2BatchResult(points, status);
+    }
+
+    /**
+     * Computes the multi-scalar multiplication s1 * p1 + s2 * p2 + ... + sn * pn in G1, using Pippenger's
+     * bucket method. This is one JNI call and one affine conversion, regardless of the number of terms.
+     *
+     * Inputs with at least MULTIEXP_PARALLEL_THRESHOLD terms are computed on multiple native threads.
+     *
+     * We do buffer size validation here (not done in JNI wrapper).
+     *
+     * Failure Mode: Any illegal points or scalars (>= group order) as input yields an Exception.
+     *
+     * @param points list of points in G1, encoded like so: [p1.x || p1.y || p2.x || p2.y || ...].
+     *               Each coordinate is 32-byte aligned.
+     * @param scalars list of scalars, encoded like so: [s1 || s2 || ...]. Each scalar is byte aligned to 32 bytes.
+     */
+    public static byte[] g1MultiExp(byte[] points, byte[] scalars) throws Exception {
+        assert (points != null);
+        return g1MultiExp(points, scalars, points.length / G1_POINT_SIZE >= MULTIEXP_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Computes the multi-scalar multiplication in G1, explicitly choosing between the single-threaded
+     * and multi-threaded native implementation.
+     *
+     * @see #g1MultiExp(byte[], byte[])
+     */
+    public static byte[] g1MultiExp(byte[] points, byte[] scalars, boolean parallel) throws Exception {
+        // assert valid data.
+        // todo: convert assert to runtime assertion in AVM
+        assert (points != null && scalars != null &&
+                points.length % G1_POINT_SIZE == 0 && scalars.length % WORD_SIZE == 0 &&
+                points.length / G1_POINT_SIZE == scalars.length / WORD_SIZE);
+
+        // call jni
+        return Holder.INSTANCE.g1MultiExp(points, scalars, parallel);
+    }
+
+    /**
+     * Computes EC addition in G2
+     *
+     * We do buffer size validation here (not done in JNI wrapper).
+     *
+     * Failure Mode: Any illegal points (not on the twist, or not in the order-r subgroup) yield an Exception.
+     *
+     * @param point1 point in G2, encoded like so: [p[0].x || p[0].y || p[1].x || p[1].y]. An all-zero encoding is
+     *               the point at infinity. Each coordinate is 32-byte aligned.
+     * @param point2 point in G2, encoded the same way.
+     */
+    public static byte[] g2EcAdd(byte[] point1, byte[] point2) throws Exception {
+        // assert valid data.
+        // todo: convert assert to runtime assertion in AVM
+        assert (point1 != null && point2 != null &&
+                point1.length == G2_POINT_SIZE && point2.length == G2_POINT_SIZE);
+
+        return Backend.INSTANCE.g2EcAdd(point1, point2);
+    }
+
+    /**
+     * Computes scalar multiplication in G2
+     *
+     * We do buffer size validation here (not done in JNI wrapper).
+     *
+     * Failure Mode: Any illegal points, or scalars not below the group order, yield an Exception.
+     *
+     * @param point point in G2, encoded like so: [p[0].x || p[0].y || p[1].x || p[1].y]. Each coordinate is 32-byte aligned.
+     * @param scalar natural number below the group order, byte aligned to 32 bytes.
+     */
+    public static byte[] g2EcMul(byte[] point, BigInteger scalar) throws Exception {
+        // assert valid data.
+        // todo: convert assert to runtime assertion in AVM
+        assert (point != null && scalar != null &&
+                point.length == G2_POINT_SIZE && scalar.signum() != -1);
+
+        return Backend.INSTANCE.g2EcMul(point, Util.serializeScalar(scalar));
+    }
+
+    /**
+     * Computes EC multiplication in G2 by a scalar already in field form.
+     *
+     * Failure Mode: Any illegal points yield an Exception.
+     *
+     * @see #g2EcMul(byte[], BigInteger)
+     */
+    public static byte[] g2EcMul(byte[] point, Fr scalar) throws Exception {
+        // assert valid data.
+        // todo: convert assert to runtime assertion in AVM
+        assert (point != null && scalar != null && point.length == G2_POINT_SIZE);
+
+        return Backend.INSTANCE.g2EcMul(point, scalar.toBytes());
+    }
+
+    /**
+     * Computes the negation of a point in G2
+     *
+     * Failure Mode: Any illegal points yield an Exception.
+     *
+     * @param point point in G2, encoded like so: [p[0].x || p[0].y || p[1].x || p[1].y]. Each coordinate is 32-byte aligned.
+     */
+    public static byte[] g2Negate(byte[] point) throws Exception {
+        // assert valid data.
+        // todo: convert assert to runtime assertion in AVM
+        assert (point != null && point.length == G2_POINT_SIZE);
+
+        return Backend.INSTANCE.g2Negate(point);
     }
 
     /**
@@ -102,8 +363,699 @@ public class AltBn128 {
         int g2_list_size = g2_point_list.length / G2_POINT_SIZE;
         assert (g1_list_size == g2_list_size);
 
+        // failure mode: illegal input yields false; it is still counted as illegal input by ecPairStatus
+        return ecPairStatus(g1_point_list, g2_point_list) == 1;
+    }
+
+    /**
+     * Pairing check on the native library, explicitly choosing between the single-threaded and multi-threaded
+     * implementation. The multi-threaded one validates the pairs and runs partial Miller loops on the native
+     * thread pool, then multiplies the partial results and runs the final exponentiation once.
+     *
+     * @see #ecPair(byte[], byte[])
+     * @see #setThreadCount(int)
+     */
+    public static boolean ecPair(byte[] g1_point_list, byte[] g2_point_list, boolean parallel) throws Exception {
+        // assert valid data.
+        // todo: convert assert to runtime assertion in AVM
+        assert (g1_point_list != null && g2_point_list != null &&
+                g1_point_list.length % G1_POINT_SIZE == 0 && g2_point_list.length % G2_POINT_SIZE == 0 &&
+                g1_point_list.length / G1_POINT_SIZE == g2_point_list.length / G2_POINT_SIZE);
+
+        CurveOperationEvent event = new CurveOperationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        int status = STATUS_INVALID_LENGTH;
+        try {
+            // call jni
+            status = parallel ? Holder.INSTANCE.ecPairParallelStatus(g1_point_list, g2_point_list)
+                    : Holder.INSTANCE.ecPairStatus(g1_point_list, g2_point_list);
+            return status == 1;
+        } finally {
+            AltBn128Metrics.record(event, AltBn128Metrics.Operation.PAIRING, "jni", g1_point_list.length / G1_POINT_SIZE,
+                    g1_point_list.length + g2_point_list.length, start, AltBn128Metrics.outcomeOf(status));
+        }
+    }
+
+    /**
+     * Sizes the native thread pool used by parallel multi-exponentiations and pairing checks. Zero restores the
+     * default of one thread per core. Operations already running finish on the pool they started on.
+     *
+     * Failure Mode: A negative count, or a pool that cannot be started, yields an Exception.
+     */
+    public static void setThreadCount(int threads) throws Exception {
+        Holder.INSTANCE.setThreadCount(threads);
+    }
+
+    /**
+     * Sizes the native cache of validated points: up to about this many points of G2 that passed the curve and
+     * subgroup checks are kept by encoding, and dropped least recently used first. Points that come back, such as
+     * those of a verifying key, then skip validation. G1 points are not cached, since their curve check is cheaper
+     * than a lookup. Zero, the default, turns the cache off; every call empties it.
+     *
+     * Failure Mode: A negative count yields an Exception.
+     */
+    public static void setValidatedPointCache(int entries) throws Exception {
+        Holder.INSTANCE.setValidatedPointCache(entries);
+    }
+
+    /**
+     * Number of points found in the validated point cache since startup.
+     */
+    public static long validatedPointCacheHits() {
+        return Holder.INSTANCE.validatedPointCacheStats()[0];
+    }
+
+    /**
+     * Number of points looked up in the validated point cache and not found, since startup.
+     */
+    public static long validatedPointCacheMisses() {
+        return Holder.INSTANCE.validatedPointCacheStats()[1];
+    }
+
+    // Prepared G2 points
+
+    /**
+     * Validates a point in G2 and keeps it in native memory, returning a handle to it. The handle must be released
+     * with {@link #freePreparedG2(long)}; see {@link PreparedG2} for a managed wrapper.
+     *
+     * Failure Mode: Any illegal point yields an Exception.
+     *
+     * @param point point in G2, encoded like so: [p[0].x || p[0].y || p[1].x || p[1].y]. Each coordinate is 32-byte aligned.
+     */
+    public static long prepareG2(byte[] point) throws Exception {
+        // assert valid data.
+        // todo: convert assert to runtime assertion in AVM
+        assert (point != null && point.length == G2_POINT_SIZE);
+
+        // call jni
+        return Holder.INSTANCE.prepareG2(point);
+    }
+
+    /**
+     * Releases a handle returned by {@link #prepareG2(byte[])}. Each handle must be released exactly once.
+     */
+    public static void freePreparedG2(long handle) {
+        Holder.INSTANCE.freePreparedG2(handle);
+    }
+
+    /**
+     * Pairing check over a mix of raw and prepared G2 points.
+     *
+     * The first n points of g1_point_list pair with the n points of g2_point_list; the remaining ones pair, in order,
+     * with the prepared points.
+     *
+     * We do buffer size validation here (not done in JNI wrapper).
+     *
+     * Failure Mode: Any illegal points as input yield a result 'false'.
+     *
+     * @see #ecPair(byte[], byte[])
+     */
+    public static boolean ecPairPrepared(byte[] g1_point_list, byte[] g2_point_list, long[] prepared_g2_list) throws Exception {
+        // assert valid data.
+        // todo: convert assert to runtime assertion in AVM
+        assert (g1_point_list != null && g2_point_list != null && prepared_g2_list != null &&
+                g1_point_list.length % G1_POINT_SIZE == 0 && g2_point_list.length % G2_POINT_SIZE == 0);
+        int g1_list_size = g1_point_list.length / G1_POINT_SIZE;
+        int g2_list_size = g2_point_list.length / G2_POINT_SIZE;
+        assert (g1_list_size == g2_list_size + prepared_g2_list.length);
+
+        // call jni
+        return Holder.INSTANCE.ecPairPrepared(g1_point_list, g2_point_list, prepared_g2_list);
+    }
+
+    // Pairing values in Gt
+
+    /**
+     * Computes the pairing product e(p1, q1) * e(p2, q2) * ... in Gt and keeps it in native memory, returning a
+     * handle to it. The handle must be released with {@link #freeGt(long)}.
+     *
+     * Failure Mode: Any illegal points as input yield an Exception.
+     *
+     * @see #ecPair(byte[], byte[])
+     */
+    public static long pairingGt(byte[] g1_point_list, byte[] g2_point_list) throws Exception {
+        // assert valid data.
+        // todo: convert assert to runtime assertion in AVM
+        assert (g1_point_list != null && g2_point_list != null &&
+                g1_point_list.length % G1_POINT_SIZE == 0 && g2_point_list.length % G2_POINT_SIZE == 0 &&
+                g1_point_list.length / G1_POINT_SIZE == g2_point_list.length / G2_POINT_SIZE);
+
+        // call jni
+        return Holder.INSTANCE.pairingGt(g1_point_list, g2_point_list);
+    }
+
+    /**
+     * Releases a handle returned by {@link #pairingGt(byte[], byte[])}. Each handle must be released exactly once.
+     */
+    public static void freeGt(long handle) {
+        Holder.INSTANCE.freeGt(handle);
+    }
+
+    /**
+     * Checks that the pairing product over a mix of raw and prepared G2 points equals a given element of Gt,
+     * instead of one. This lets a constant factor of the product, such as e(alpha, beta) in a Groth16 verifying
+     * key, be computed once rather than paired on every check.
+     *
+     * Failure Mode: Any illegal points as input yield a result 'false'.
+     *
+     * @see #ecPairPrepared(byte[], byte[], long[])
+     */
+    public static boolean ecPairPreparedEquals(byte[] g1_point_list, byte[] g2_point_list, long[] prepared_g2_list, long gt) throws Exception {
+        // assert valid data.
+        // todo: convert assert to runtime assertion in AVM
+        assert (g1_point_list != null && g2_point_list != null && prepared_g2_list != null &&
+                g1_point_list.length % G1_POINT_SIZE == 0 && g2_point_list.length % G2_POINT_SIZE == 0);
+        int g1_list_size = g1_point_list.length / G1_POINT_SIZE;
+        int g2_list_size = g2_point_list.length / G2_POINT_SIZE;
+        assert (g1_list_size == g2_list_size + prepared_g2_list.length);
+
         // call jni
-        return Holder.INSTANCE.ecPair(g1_point_list, g2_point_list);
+        return Holder.INSTANCE.ecPairPreparedEquals(g1_point_list, g2_point_list, prepared_g2_list, gt);
+    }
+
+    /**
+     * Computes the product of the Miller loops of the pairs (p1, q1), (p2, q2), ... without the final
+     * exponentiation, and keeps it in native memory, returning a handle to it. The value is only meaningful through
+     * {@link #gtFinalExponentiation(long)}, which maps products of such values to the same element of Gt as the
+     * pairing of all their pairs. The handle must be released with {@link #freeGt(long)}.
+     *
+     * Failure Mode: Any illegal points as input yield an Exception.
+     */
+    public static long millerLoopGt(byte[] g1_point_list, byte[] g2_point_list) throws Exception {
+        // assert valid data.
+        // todo: convert assert to runtime assertion in AVM
+        assert (g1_point_list != null && g2_point_list != null &&
+                g1_point_list.length % G1_POINT_SIZE == 0 && g2_point_list.length % G2_POINT_SIZE == 0 &&
+                g1_point_list.length / G1_POINT_SIZE == g2_point_list.length / G2_POINT_SIZE);
+
+        // call jni
+        return Holder.INSTANCE.millerLoopGt(g1_point_list, g2_point_list);
+    }
+
+    public static long gtFinalExponentiation(long a) throws Exception {
+        return Holder.INSTANCE.gtFinalExponentiation(a);
+    }
+
+    public static long gtMul(long a, long b) throws Exception {
+        return Holder.INSTANCE.gtMul(a, b);
+    }
+
+    /**
+     * Failure Mode: An exponent outside [0, group order) yields an Exception.
+     */
+    public static long gtPow(long a, BigInteger exponent) throws Exception {
+        return Holder.INSTANCE.gtPow(a, Util.serializeScalar(exponent));
+    }
+
+    public static boolean gtEquals(long a, long b) throws Exception {
+        return Holder.INSTANCE.gtEquals(a, b);
+    }
+
+    /**
+     * Returns the 384-byte encoding of the element behind a handle: its six F_p^2 coefficients in tower order, each
+     * real part first, as 32-byte big-endian coordinates.
+     */
+    public static byte[] gtToBytes(long a) throws Exception {
+        return Holder.INSTANCE.gtToBytes(a);
+    }
+
+    /**
+     * Reads an element encoded by {@link #gtToBytes(long)} into native memory, returning a handle to it.
+     *
+     * Failure Mode: A coordinate not below the field modulus yields an Exception.
+     */
+    public static long gtFromBytes(byte[] gt) throws Exception {
+        // assert valid data.
+        // todo: convert assert to runtime assertion in AVM
+        assert (gt != null && gt.length == GT_SIZE);
+
+        // call jni
+        return Holder.INSTANCE.gtFromBytes(gt);
+    }
+
+    // Fixed-base tables
+
+    /**
+     * Validates a point in G1 and builds a table of its multiples in native memory, returning a handle to it. The
+     * table uses the widest window that fits in memory_budget bytes. The handle must be released with
+     * {@link #freeG1FixedBase(long)}; see {@link G1FixedBase} for a managed wrapper.
+     *
+     * Failure Mode: Any illegal point, or a budget too small for any table, yields an Exception.
+     *
+     * @param point point in G1, encoded like so: [p.x || p.y]. Each coordinate is 32-byte aligned.
+     */
+    public static long prepareG1FixedBase(byte[] point, long memory_budget) throws Exception {
+        // assert valid data.
+        // todo: convert assert to runtime assertion in AVM
+        assert (point != null && point.length == G1_POINT_SIZE);
+
+        // call jni
+        return Holder.INSTANCE.prepareG1FixedBase(point, memory_budget);
+    }
+
+    /**
+     * Releases a handle returned by {@link #prepareG1FixedBase(byte[], long)}. Each handle must be released exactly
+     * once.
+     */
+    public static void freeG1FixedBase(long handle) {
+        Holder.INSTANCE.freeG1FixedBase(handle);
+    }
+
+    /**
+     * Computes s1 * p1 + s2 * p2 + ... for the fixed bases behind the handles, using only additions.
+     *
+     * Failure Mode: Any illegal scalars (>= group order) as input yield an Exception.
+     *
+     * @param scalars list of scalars, encoded like so: [s1 || s2 || ...]. Each scalar is byte aligned to 32 bytes.
+     */
+    public static byte[] g1FixedBaseMul(long[] fixed_base_list, byte[] scalars) throws Exception {
+        // assert valid data.
+        // todo: convert assert to runtime assertion in AVM
+        assert (fixed_base_list != null && scalars != null && scalars.length == fixed_base_list.length * WORD_SIZE);
+
+        // call jni
+        return Holder.INSTANCE.g1FixedBaseMul(fixed_base_list, scalars);
+    }
+
+    // Point handles
+    //
+    // A point handle refers to a point kept natively in Jacobian form. Every operation returns a new handle, which
+    // must be released with the matching free function exactly once; see NativeG1 and NativeG2 for managed wrappers.
+    // Only creating a handle from bytes validates a point, and only reading one back performs an inversion.
+
+    /**
+     * Validates a point in G1 and keeps it natively. The all-zero encoding stands for the point at infinity.
+     *
+     * Failure Mode: Any illegal point yields an Exception.
+     */
+    public static long newG1Handle(byte[] point) throws Exception {
+        // assert valid data.
+        // todo: convert assert to runtime assertion in AVM
+        assert (point != null && point.length == G1_POINT_SIZE);
+
+        // call jni
+        return Holder.INSTANCE.newG1Handle(point);
+    }
+
+    public static long g1HandleAdd(long a, long b) throws Exception {
+        return Holder.INSTANCE.g1HandleAdd(a, b);
+    }
+
+    /**
+     * Failure Mode: A scalar outside [0, group order) yields an Exception.
+     */
+    public static long g1HandleMul(long a, BigInteger scalar) throws Exception {
+        return Holder.INSTANCE.g1HandleMul(a, Util.serializeScalar(scalar));
+    }
+
+    public static long g1HandleMul(long a, Fr scalar) throws Exception {
+        return Holder.INSTANCE.g1HandleMul(a, scalar.toBytes());
+    }
+
+    public static long g1HandleNeg(long a) throws Exception {
+        return Holder.INSTANCE.g1HandleNeg(a);
+    }
+
+    /**
+     * Returns the affine encoding [p.x || p.y] of the point behind a handle; the point at infinity is all zeros.
+     */
+    public static byte[] g1HandleToAffine(long a) throws Exception {
+        return Holder.INSTANCE.g1HandleToAffine(a);
+    }
+
+    public static void freeG1Handle(long handle) {
+        Holder.INSTANCE.freeG1Handle(handle);
+    }
+
+    /**
+     * Validates a point in G2 and keeps it natively. The all-zero encoding stands for the point at infinity.
+     *
+     * Failure Mode: Any illegal point yields an Exception.
+     */
+    public static long newG2Handle(byte[] point) throws Exception {
+        // assert valid data.
+        // todo: convert assert to runtime assertion in AVM
+        assert (point != null && point.length == G2_POINT_SIZE);
+
+        // call jni
+        return Holder.INSTANCE.newG2Handle(point);
+    }
+
+    public static long g2HandleAdd(long a, long b) throws Exception {
+        return Holder.INSTANCE.g2HandleAdd(a, b);
+    }
+
+    /**
+     * Failure Mode: A scalar outside [0, group order) yields an Exception.
+     */
+    public static long g2HandleMul(long a, BigInteger scalar) throws Exception {
+        return Holder.INSTANCE.g2HandleMul(a, Util.serializeScalar(scalar));
+    }
+
+    public static long g2HandleMul(long a, Fr scalar) throws Exception {
+        return Holder.INSTANCE.g2HandleMul(a, scalar.toBytes());
+    }
+
+    public static long g2HandleNeg(long a) throws Exception {
+        return Holder.INSTANCE.g2HandleNeg(a);
+    }
+
+    /**
+     * Returns the affine encoding [p[0].x || p[0].y || p[1].x || p[1].y] of the point behind a handle; the point at
+     * infinity is all zeros.
+     */
+    public static byte[] g2HandleToAffine(long a) throws Exception {
+        return Holder.INSTANCE.g2HandleToAffine(a);
+    }
+
+    public static void freeG2Handle(long handle) {
+        Holder.INSTANCE.freeG2Handle(handle);
+    }
+
+    // Pairing accumulators
+    //
+    // An accumulator handle refers to a running product of Miller loops, to which pairs are added in chunks; see
+    // PairingAccumulator for the managed wrapper. Calls on one handle must not overlap.
+
+    public static long newPairingAccumulator() {
+        return Holder.INSTANCE.newPairingAccumulator();
+    }
+
+    /**
+     * Folds the Miller loops of a chunk of pairs into an accumulator.
+     *
+     * Failure Mode: Any illegal points as input yield an Exception, and leave the accumulator unchanged.
+     *
+     * @see #ecPair(byte[], byte[])
+     */
+    public static void pairingAccumulatorAdd(long handle, byte[] g1_point_list, byte[] g2_point_list) throws Exception {
+        // assert valid data.
+        // todo: convert assert to runtime assertion in AVM
+        assert (g1_point_list != null && g2_point_list != null &&
+                g1_point_list.length % G1_POINT_SIZE == 0 && g2_point_list.length % G2_POINT_SIZE == 0 &&
+                g1_point_list.length / G1_POINT_SIZE == g2_point_list.length / G2_POINT_SIZE);
+
+        // call jni
+        Holder.INSTANCE.pairingAccumulatorAdd(handle, g1_point_list, g2_point_list);
+    }
+
+    /**
+     * Folds the pairs remaining in two direct buffers into an accumulator, reading them in place.
+     *
+     * Failure Mode: Any illegal points as input, or buffers that are not direct, yield an Exception, and leave the
+     * accumulator unchanged.
+     */
+    public static void pairingAccumulatorAdd(long handle, ByteBuffer g1_point_list, ByteBuffer g2_point_list) throws Exception {
+        // assert valid data.
+        // todo: convert assert to runtime assertion in AVM
+        assert (g1_point_list != null && g2_point_list != null &&
+                g1_point_list.remaining() % G1_POINT_SIZE == 0 && g2_point_list.remaining() % G2_POINT_SIZE == 0 &&
+                g1_point_list.remaining() / G1_POINT_SIZE == g2_point_list.remaining() / G2_POINT_SIZE);
+
+        // call jni
+        Holder.INSTANCE.pairingAccumulatorAddDirect(handle, g1_point_list, g1_point_list.position(),
+                g2_point_list, g2_point_list.position(), g1_point_list.remaining() / G1_POINT_SIZE);
+    }
+
+    /**
+     * Runs the final exponentiation over everything accumulated so far and checks that the product is one. An
+     * accumulator without pairs checks as 'true', like an empty {@link #ecPair(byte[], byte[])}.
+     */
+    public static boolean pairingAccumulatorCheck(long handle) throws Exception {
+        return Holder.INSTANCE.pairingAccumulatorCheck(handle);
+    }
+
+    public static void freePairingAccumulator(long handle) {
+        Holder.INSTANCE.freePairingAccumulator(handle);
+    }
+
+    // Status-code variants
+    //
+    // These report illegal input through a negative status instead of an Exception, so that rejecting input costs
+    // no exception, stack trace or message. Results are written into a caller-supplied array at an offset, which a
+    // failed call leaves untouched. Operand arrays may be longer than their operand; only the leading bytes are
+    // read. They run on the selected backend, like the throwing operations.
+
+    /**
+     * Computes EC addition in G1 into result[resultOffset .. resultOffset + 64).
+     *
+     * Failure Mode: Any illegal points yield a negative status, see {@link #STATUS_OK} and the codes after it.
+     *
+     * @return {@link #STATUS_OK}, or the negative status of the failure
+     * @see #g1EcAdd(byte[], byte[])
+     */
+    public static int g1EcAddInto(byte[] point1, byte[] point2, byte[] result, int resultOffset) {
+        CurveOperationEvent event = new CurveOperationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        int status = STATUS_INVALID_LENGTH;
+        try {
+            status = Backend.INSTANCE.g1EcAddInto(point1, point2, result, resultOffset);
+            return status;
+        } finally {
+            AltBn128Metrics.record(event, AltBn128Metrics.Operation.G1_ADD, Backend.INSTANCE.name(), 0, 2 * G1_POINT_SIZE,
+                    start, AltBn128Metrics.outcomeOf(status));
+        }
+    }
+
+    /**
+     * Computes scalar multiplication in G1 into result[resultOffset .. resultOffset + 64).
+     *
+     * Failure Mode: Any illegal points, or a scalar not below the group order, yield a negative status.
+     *
+     * @param scalar natural number, byte aligned to 32 bytes, e.g. from {@link PointCodec#encodeScalar}.
+     * @return {@link #STATUS_OK}, or the negative status of the failure
+     * @see #g1EcMul(byte[], BigInteger)
+     */
+    public static int g1EcMulInto(byte[] point, byte[] scalar, byte[] result, int resultOffset) {
+        CurveOperationEvent event = new CurveOperationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        int status = STATUS_INVALID_LENGTH;
+        try {
+            status = Backend.INSTANCE.g1EcMulInto(point, scalar, result, resultOffset);
+            return status;
+        } finally {
+            AltBn128Metrics.record(event, AltBn128Metrics.Operation.G1_MUL, Backend.INSTANCE.name(), 0,
+                    G1_POINT_SIZE + WORD_SIZE, start, AltBn128Metrics.outcomeOf(status));
+        }
+    }
+
+    /**
+     * Pairing check that tells an unsuccessful check apart from illegal input.
+     *
+     * Failure Mode: Any illegal points, or a G2 list shorter than the G1 list, yield a negative status.
+     *
+     * @return 1 if the pairing product is one, 0 if it is not, or the negative status of the failure
+     * @see #ecPair(byte[], byte[])
+     */
+    public static int ecPairStatus(byte[] g1_point_list, byte[] g2_point_list) {
+        int pairs = g1_point_list == null ? 0 : g1_point_list.length / G1_POINT_SIZE;
+        CurveOperationEvent event = new CurveOperationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        int status = STATUS_INVALID_LENGTH;
+        try {
+            if (pairs >= PAIRING_PARALLEL_THRESHOLD && Backend.INSTANCE instanceof JniBn128Backend) {
+                status = Holder.INSTANCE.ecPairParallelStatus(g1_point_list, g2_point_list);
+            } else {
+                status = Backend.INSTANCE.ecPairStatus(g1_point_list, g2_point_list);
+            }
+            return status;
+        } finally {
+            AltBn128Metrics.record(event, AltBn128Metrics.Operation.PAIRING, Backend.INSTANCE.name(), pairs,
+                    pairs * (G1_POINT_SIZE + G2_POINT_SIZE), start, AltBn128Metrics.outcomeOf(status));
+        }
+    }
+
+    /**
+     * The message that the throwing operations use for a status, e.g. "NotOnCurve" for {@link #STATUS_INVALID_POINT}.
+     * Statuses of G2 operations name the first of their possible causes.
+     */
+    public static String statusMessage(int status) {
+        switch (status) {
+            case STATUS_OK:
+                return "Ok";
+            case STATUS_ARITHMETIC_ERROR:
+                return "ArithmeticError";
+            case STATUS_NOT_MEMBER:
+                return "NotMember";
+            case STATUS_INVALID_POINT:
+                return "NotOnCurve";
+            case STATUS_INVALID_LENGTH:
+                return "InvalidInputLength";
+            default:
+                return "UnknownStatus(" + status + ")";
+        }
+    }
+
+    // Zero-copy variants
+    //
+    // These read their operands starting at each buffer's position and write the result starting at the result
+    // buffer's position; no buffer positions or limits are modified. All buffers must be direct, so the native
+    // side can address them without copying. Operands are read before the result is written, so the result may
+    // overlap an operand, e.g. to add into a point in place; it must not be read-only.
+
+    /**
+     * Computes EC addition in G1, reading and writing direct buffers.
+     *
+     * Failure Mode: Any illegal points, or buffers that are not direct or too small, yield an Exception; a
+     * read-only result buffer yields a {@link ReadOnlyBufferException}.
+     *
+     * @see #g1EcAdd(byte[], byte[])
+     */
+    public static void g1EcAdd(ByteBuffer point1, ByteBuffer point2, ByteBuffer result) throws Exception {
+        // assert valid data.
+        // todo: convert assert to runtime assertion in AVM
+        assert (point1 != null && point2 != null && result != null &&
+                point1.remaining() >= G1_POINT_SIZE && point2.remaining() >= G1_POINT_SIZE &&
+                result.remaining() >= G1_POINT_SIZE);
+        // the native side sees a writable address even for a read-only mapping, and would fault on it
+        if (result.isReadOnly()) {
+            throw new ReadOnlyBufferException();
+        }
+
+        CurveOperationEvent event = new CurveOperationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        AltBn128Metrics.Outcome outcome = AltBn128Metrics.Outcome.SUCCESS;
+        try {
+            // call jni
+            Holder.INSTANCE.g1EcAddDirect(point1, point1.position(), point2, point2.position(), result, result.position());
+        } catch (Exception e) {
+            outcome = AltBn128Metrics.outcomeOf(e);
+            throw e;
+        } finally {
+            AltBn128Metrics.record(event, AltBn128Metrics.Operation.G1_ADD, "jni", 0, 2 * G1_POINT_SIZE, start, outcome);
+        }
+    }
+
+    /**
+     * Computes scalar multiplication in G1, reading and writing direct buffers.
+     *
+     * Failure Mode: Any illegal points as input yield a '0' as result; buffers that are not direct or too small
+     * yield an Exception, and a read-only result buffer a {@link ReadOnlyBufferException}.
+     *
+     * @param scalar 32 bytes, big-endian, below the group order.
+     * @see #g1EcMul(byte[], BigInteger)
+     */
+    public static void g1EcMul(ByteBuffer point, ByteBuffer scalar, ByteBuffer result) throws Exception {
+        // assert valid data.
+        // todo: convert assert to runtime assertion in AVM
+        assert (point != null && scalar != null && result != null &&
+                point.remaining() >= G1_POINT_SIZE && scalar.remaining() >= WORD_SIZE &&
+                result.remaining() >= G1_POINT_SIZE);
+        if (result.isReadOnly()) {
+            throw new ReadOnlyBufferException();
+        }
+
+        CurveOperationEvent event = new CurveOperationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        int status = STATUS_INVALID_LENGTH;
+        try {
+            // call jni
+            status = Holder.INSTANCE.g1EcMulDirect(point, point.position(), scalar, scalar.position(),
+                    result, result.position());
+        } finally {
+            AltBn128Metrics.record(event, AltBn128Metrics.Operation.G1_MUL, "jni", 0, G1_POINT_SIZE + WORD_SIZE, start,
+                    AltBn128Metrics.outcomeOf(status));
+        }
+    }
+
+    /**
+     * Pairing check over all the points remaining in two direct buffers.
+     *
+     * Failure Mode: Any illegal points as input, or buffers that are not direct, yield a result 'false'.
+     *
+     * @see #ecPair(byte[], byte[])
+     */
+    public static boolean ecPair(ByteBuffer g1_point_list, ByteBuffer g2_point_list) throws Exception {
+        // assert valid data.
+        // todo: convert assert to runtime assertion in AVM
+        assert (g1_point_list != null && g2_point_list != null &&
+                g1_point_list.remaining() % G1_POINT_SIZE == 0 && g2_point_list.remaining() % G2_POINT_SIZE == 0);
+        int g1_list_size = g1_point_list.remaining() / G1_POINT_SIZE;
+        int g2_list_size = g2_point_list.remaining() / G2_POINT_SIZE;
+        assert (g1_list_size == g2_list_size);
+
+        CurveOperationEvent event = new CurveOperationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        int status = STATUS_INVALID_LENGTH;
+        try {
+            // call jni
+            status = Holder.INSTANCE.ecPairDirectStatus(g1_point_list, g1_point_list.position(),
+                    g2_point_list, g2_point_list.position(), g1_list_size);
+            return status == 1;
+        } finally {
+            AltBn128Metrics.record(event, AltBn128Metrics.Operation.PAIRING, "jni", g1_list_size,
+                    g1_point_list.remaining() + g2_point_list.remaining(), start, AltBn128Metrics.outcomeOf(status));
+        }
+    }
+
+    /**
+     * Multi-scalar multiplication over all the points remaining in a direct buffer, with the scalars read from
+     * another one.
+     *
+     * Failure Mode: Any illegal points or scalars (>= group order), or buffers that are not direct, yield an
+     * Exception.
+     *
+     * @see #g1MultiExp(byte[], byte[])
+     */
+    public static byte[] g1MultiExp(ByteBuffer points, ByteBuffer scalars) throws Exception {
+        // assert valid data.
+        // todo: convert assert to runtime assertion in AVM
+        assert (points != null && scalars != null &&
+                points.remaining() % G1_POINT_SIZE == 0 && scalars.remaining() >= points.remaining() / 2);
+        int count = points.remaining() / G1_POINT_SIZE;
+
+        // call jni
+        return Holder.INSTANCE.g1MultiExpDirect(points, points.position(), scalars, scalars.position(), count,
+                count >= MULTIEXP_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * The backend behind the core operations.
+     */
+    public static Bn128Backend backend() {
+        return Backend.INSTANCE;
+    }
+
+    static Bn128Backend loadBackend() {
+        String name = System.getProperty(BACKEND_PROPERTY);
+        if ("jni".equals(name)) {
+            return new JniBn128Backend();
+        } else if ("java".equals(name)) {
+            return new JavaBn128Backend();
+        }
+
+        Iterator<Bn128Backend> providers = ServiceLoader.load(Bn128Backend.class).iterator();
+        while (true) {
+            Bn128Backend backend;
+            try {
+                if (!providers.hasNext()) {
+                    break;
+                }
+                backend = providers.next();
+            } catch (ServiceConfigurationError e) {
+                // this provider failed to load, e.g. for lack of its native library; try the next one
+                continue;
+            }
+            if (name == null || name.equals(backend.name()) || name.equals(backend.getClass().getName())) {
+                return backend;
+            }
+        }
+
+        if (name != null) {
+            throw new IllegalStateException("No Bn128Backend named " + name);
+        }
+        try {
+            return new JniBn128Backend();
+        } catch (UnsatisfiedLinkError e) {
+            return new JavaBn128Backend();
+        }
     }
 
     public static int ping() {
@@ -0,0 +1,162 @@
+package org.aion.tetryon;
+
+import java.math.BigInteger;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Asynchronous variants of the {@link AltBn128} operations.
+ * <p>
+ * A native call cannot be unmounted from the thread that makes it, so a pairing check made from a virtual thread
+ * holds its carrier for the whole call. Here the work runs on a dedicated, bounded pool of platform threads instead,
+ * and callers wait on a {@link CompletableFuture}, which parks rather than pins.
+ * <p>
+ * The pool has {@link #THREADS_PROPERTY} threads (one per core by default) and a queue of {@link #QUEUE_PROPERTY}
+ * pending tasks. Once the queue is full, new tasks are rejected: the returned future fails with a
+ * {@link RejectedExecutionException} and {@link #rejectedCount()} goes up, so callers see backpressure instead of
+ * an unbounded backlog. Work this package overlaps with its own, such as {@link PairingAccumulator} reading a
+ * channel, runs on the calling thread instead when the queue is full, and is not counted as rejected.
+ */
+public final class AltBn128Async {
+
+    /**
+     * System property with the number of worker threads.
+     */
+    public static final String THREADS_PROPERTY = "org.aion.tetryon.async.threads";
+
+    /**
+     * System property with the number of tasks that may wait for a worker thread.
+     */
+    public static final String QUEUE_PROPERTY = "org.aion.tetryon.async.queue";
+
+    private static final LongAdder REJECTED = new LongAdder();
+
+    // a task that the rejection handler runs on the submitting thread rather than fail
+    private static final class CallerRuns implements Runnable {
+        private final Runnable task;
+
+        private CallerRuns(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+    }
+
+    private static final class Holder {
+        protected static final ThreadPoolExecutor EXECUTOR = newExecutor(
+                Integer.getInteger(THREADS_PROPERTY, Runtime.getRuntime().availableProcessors()),
+                Integer.getInteger(QUEUE_PROPERTY, 1024));
+    }
+
+    // non-instantiable class
+    private AltBn128Async() { }
+
+    /**
+     * @see AltBn128#g1EcAdd(byte[], byte[])
+     */
+    public static CompletableFuture<byte[]> g1EcAdd(byte[] point1, byte[] point2) {
+        return submit(Holder.EXECUTOR, () -> AltBn128.g1EcAdd(point1, point2));
+    }
+
+    /**
+     * @see AltBn128#g1EcMul(byte[], BigInteger)
+     */
+    public static CompletableFuture<byte[]> g1EcMul(byte[] point, BigInteger scalar) {
+        return submit(Holder.EXECUTOR, () -> AltBn128.g1EcMul(point, scalar));
+    }
+
+    /**
+     * @see AltBn128#ecPair(byte[], byte[])
+     */
+    public static CompletableFuture<Boolean> ecPair(byte[] g1_point_list, byte[] g2_point_list) {
+        return submit(Holder.EXECUTOR, () -> AltBn128.ecPair(g1_point_list, g2_point_list));
+    }
+
+    /**
+     * Number of tasks waiting for a worker thread.
+     */
+    public static int queueDepth() {
+        return Holder.EXECUTOR.getQueue().size();
+    }
+
+    /**
+     * Number of tasks rejected because the queue was full, since startup.
+     */
+    public static long rejectedCount() {
+        return REJECTED.sum();
+    }
+
+    /**
+     * Number of tasks that ran to completion, successfully or not, since startup.
+     */
+    public static long completedCount() {
+        return Holder.EXECUTOR.getCompletedTaskCount();
+    }
+
+    /**
+     * The worker pool, for callers in this package that overlap native work with their own.
+     */
+    static ThreadPoolExecutor executor() {
+        return Holder.EXECUTOR;
+    }
+
+    static ThreadPoolExecutor newExecutor(int threads, int queueCapacity) {
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory factory = r -> {
+            Thread t = new Thread(r, "bn128-async-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), factory, (r, executor) -> {
+                    if (r instanceof CallerRuns) {
+                        r.run();
+                        return;
+                    }
+                    REJECTED.increment();
+                    throw new RejectedExecutionException("bn128 worker queue is full");
+                });
+    }
+
+    static <T> CompletableFuture<T> submit(ThreadPoolExecutor executor, Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(task.call());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Like {@link #submit(ThreadPoolExecutor, Callable)}, but runs the task on the calling thread if the queue is
+     * full, so that backpressure from unrelated callers slows the caller down rather than failing it.
+     */
+    static <T> CompletableFuture<T> submitOrRun(ThreadPoolExecutor executor, Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(new CallerRuns(() -> {
+            try {
+                future.complete(task.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }));
+        return future;
+    }
+}
@@ -1,11 +1,79 @@
 package org.aion.tetryon;
 
+import java.nio.ByteBuffer;
+
 /**
  * We don't need a particular type of checked exception. The jni "driver" just sets the message.
  */
 public class AltBn128Jni {
     public native byte[] g1EcAdd(byte[] point1, byte[] point2) throws Exception;
     public native byte[] g1EcMul(byte[] point, byte[] scalar) throws Exception;
+    public native byte[] g1EcAddBatch(byte[] lhs, byte[] rhs, int[] status) throws Exception;
+    public native byte[] g1EcMulBatch(byte[] points, byte[] scalars, int[] status) throws Exception;
+    public native byte[] decompressG1Batch(byte[] compressed, int[] status) throws Exception;
+    public native byte[] decompressG2Batch(byte[] compressed, int[] status) throws Exception;
+    public native byte[] g1MultiExp(byte[] points, byte[] scalars, boolean parallel) throws Exception;
+    public native byte[] g2EcAdd(byte[] point1, byte[] point2) throws Exception;
+    public native byte[] g2EcMul(byte[] point, byte[] scalar) throws Exception;
+    public native byte[] g2Negate(byte[] point) throws Exception;
     public native boolean ecPair(byte[] g1_point_list, byte[] g2_point_list) throws Exception;
+    public native void setThreadCount(int threads) throws Exception;
+    public native void setValidatedPointCache(int entries) throws Exception;
+    public native long[] validatedPointCacheStats();
     public native int ping();
+
+    // status-code variants: 0 or a negative PairingErr code instead of an exception, results written in place
+    public native int g1EcAddInto(byte[] point1, byte[] point2, byte[] result, int resultOffset);
+    public native int g1EcMulInto(byte[] point, byte[] scalar, byte[] result, int resultOffset);
+    public native int ecPairStatus(byte[] g1_point_list, byte[] g2_point_list);
+    public native int ecPairParallelStatus(byte[] g1_point_list, byte[] g2_point_list);
+
+    // prepared G2 points, referenced by native handles
+    public native long prepareG2(byte[] point) throws Exception;
+    public native void freePreparedG2(long handle);
+    public native boolean ecPairPrepared(byte[] g1_point_list, byte[] g2_point_list, long[] prepared_g2_list) throws Exception;
+
+    // pairing values in Gt, referenced by native handles
+    public native long pairingGt(byte[] g1_point_list, byte[] g2_point_list) throws Exception;
+    public native void freeGt(long handle);
+    public native boolean ecPairPreparedEquals(byte[] g1_point_list, byte[] g2_point_list, long[] prepared_g2_list, long gt) throws Exception;
+    public native long millerLoopGt(byte[] g1_point_list, byte[] g2_point_list) throws Exception;
+    public native long gtFinalExponentiation(long a) throws Exception;
+    public native long gtMul(long a, long b) throws Exception;
+    public native long gtPow(long a, byte[] scalar) throws Exception;
+    public native boolean gtEquals(long a, long b) throws Exception;
+    public native byte[] gtToBytes(long a) throws Exception;
+    public native long gtFromBytes(byte[] gt) throws Exception;
+
+    // fixed-base tables for G1, referenced by native handles
+    public native long prepareG1FixedBase(byte[] point, long memoryBudget) throws Exception;
+    public native void freeG1FixedBase(long handle);
+    public native byte[] g1FixedBaseMul(long[] fixed_base_list, byte[] scalars) throws Exception;
+
+    // points in Jacobian form, referenced by native handles
+    public native long newG1Handle(byte[] point) throws Exception;
+    public native long g1HandleAdd(long a, long b) throws Exception;
+    public native long g1HandleMul(long a, byte[] scalar) throws Exception;
+    public native long g1HandleNeg(long a) throws Exception;
+    public native byte[] g1HandleToAffine(long a) throws Exception;
+    public native void freeG1Handle(long handle);
+    public native long newG2Handle(byte[] point) throws Exception;
+    public native long g2HandleAdd(long a, long b) throws Exception;
+    public native long g2HandleMul(long a, byte[] scalar) throws Exception;
+    public native long g2HandleNeg(long a) throws Exception;
+    public native byte[] g2HandleToAffine(long a) throws Exception;
+    public native void freeG2Handle(long handle);
+
+    // streaming pairing checks, referenced by native handles
+    public native long newPairingAccumulator();
+    public native void pairingAccumulatorAdd(long handle, byte[] g1_point_list, byte[] g2_point_list) throws Exception;
+    public native void pairingAccumulatorAddDirect(long handle, ByteBuffer g1_point_list, int g1Offset, ByteBuffer g2_point_list, int g2Offset, int pairCount) throws Exception;
+    public native boolean pairingAccumulatorCheck(long handle) throws Exception;
+    public native void freePairingAccumulator(long handle);
+
+    // zero-copy variants: operands are read from (and results written into) direct buffers at the given offsets
+    public native void g1EcAddDirect(ByteBuffer point1, int offset1, ByteBuffer point2, int offset2, ByteBuffer result, int resultOffset) throws Exception;
+    public native int g1EcMulDirect(ByteBuffer point, int pointOffset, ByteBuffer scalar, int scalarOffset, ByteBuffer result, int resultOffset) throws Exception;
+    public native int ecPairDirectStatus(ByteBuffer g1_point_list, int g1Offset, ByteBuffer g2_point_list, int g2Offset, int pairCount);
+    public native byte[] g1MultiExpDirect(ByteBuffer points, int pointsOffset, ByteBuffer scalars, int scalarsOffset, int count, boolean parallel) throws Exception;
 }
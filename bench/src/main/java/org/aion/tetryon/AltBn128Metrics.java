@@ -0,0 +1,213 @@
+package org.aion.tetryon;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counters and latency histograms for the {@link AltBn128} curve operations: {@code g1EcAdd}, {@code g1EcMul} and
+ * {@code ecPair}.
+ * <p>
+ * Metrics are always on, at the cost of a clock read and a few uncontended atomic increments per call, and are
+ * published as an MXBean under {@value #OBJECT_NAME}. Setting the {@link #METRICS_PROPERTY} system property to
+ * {@code false} turns them off. Independently, each call emits a {@link CurveOperationEvent} to JDK Flight Recorder
+ * when a recording enables it.
+ */
+public final class AltBn128Metrics implements AltBn128MetricsMXBean {
+
+    /**
+     * System property that turns the metrics off when set to "false".
+     */
+    public static final String METRICS_PROPERTY = "org.aion.tetryon.metrics";
+
+    public static final String OBJECT_NAME = "org.aion.tetryon:type=AltBn128Metrics";
+
+    enum Operation {
+        G1_ADD("g1EcAdd"),
+        G1_MUL("g1EcMul"),
+        PAIRING("ecPair");
+
+        private final String label;
+
+        Operation(String label) {
+            this.label = label;
+        }
+    }
+
+    enum Outcome {
+        SUCCESS,
+        INVALID_POINT,
+        EXCEPTION
+    }
+
+    static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty(METRICS_PROPERTY));
+
+    private static final AltBn128Metrics INSTANCE = new AltBn128Metrics();
+
+    static {
+        if (ENABLED) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+            } catch (JMException | SecurityException e) {
+                // another class loader registered it first; this copy still counts, it just is not published
+            }
+        }
+    }
+
+    private final LatencyHistogram[] latencies = new LatencyHistogram[Operation.values().length];
+    private final LongAdder pairs = new LongAdder();
+    private final LongAdder invalidPoints = new LongAdder();
+    private final LongAdder exceptions = new LongAdder();
+
+    private AltBn128Metrics() {
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    public static AltBn128Metrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Classifies a failed operation: the backends report illegal points through these messages.
+     */
+    static Outcome outcomeOf(Exception e) {
+        String message = e.getMessage();
+        if ("NotOnCurve".equals(message) || "NotInSubgroup".equals(message) || "NotMember".equals(message)) {
+            return Outcome.INVALID_POINT;
+        }
+        return Outcome.EXCEPTION;
+    }
+
+    /**
+     * Classifies an operation of the status-code variants by its status; a pairing check's 0 and 1 both succeed.
+     */
+    static Outcome outcomeOf(int status) {
+        if (status >= AltBn128.STATUS_OK) {
+            return Outcome.SUCCESS;
+        }
+        if (status == AltBn128.STATUS_NOT_MEMBER || status == AltBn128.STATUS_INVALID_POINT) {
+            return Outcome.INVALID_POINT;
+        }
+        return Outcome.EXCEPTION;
+    }
+
+    /**
+     * Records an operation that began at {@code startNanos}, and commits its event.
+     */
+    static void record(CurveOperationEvent event, Operation operation, String backend, int pairCount, int inputSize,
+                       long startNanos, Outcome outcome) {
+        if (ENABLED) {
+            INSTANCE.latencies[operation.ordinal()].record(System.nanoTime() - startNanos);
+            if (pairCount > 0) {
+                INSTANCE.pairs.add(pairCount);
+            }
+            if (outcome == Outcome.INVALID_POINT) {
+                INSTANCE.invalidPoints.increment();
+            } else if (outcome == Outcome.EXCEPTION) {
+                INSTANCE.exceptions.increment();
+            }
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation.label;
+            event.backend = backend;
+            event.pairs = pairCount;
+            event.inputSize = inputSize;
+            event.outcome = outcome.name();
+            event.commit();
+        }
+    }
+
+    private LatencyHistogram latency(Operation operation) {
+        return latencies[operation.ordinal()];
+    }
+
+    @Override
+    public long getG1AddCount() {
+        return latency(Operation.G1_ADD).count();
+    }
+
+    @Override
+    public long getG1AddP50Nanos() {
+        return latency(Operation.G1_ADD).percentile(0.5);
+    }
+
+    @Override
+    public long getG1AddP99Nanos() {
+        return latency(Operation.G1_ADD).percentile(0.99);
+    }
+
+    @Override
+    public long getG1AddMaxNanos() {
+        return latency(Operation.G1_ADD).max();
+    }
+
+    @Override
+    public long getG1MulCount() {
+        return latency(Operation.G1_MUL).count();
+    }
+
+    @Override
+    public long getG1MulP50Nanos() {
+        return latency(Operation.G1_MUL).percentile(0.5);
+    }
+
+    @Override
+    public long getG1MulP99Nanos() {
+        return latency(Operation.G1_MUL).percentile(0.99);
+    }
+
+    @Override
+    public long getG1MulMaxNanos() {
+        return latency(Operation.G1_MUL).max();
+    }
+
+    @Override
+    public long getPairingCount() {
+        return latency(Operation.PAIRING).count();
+    }
+
+    @Override
+    public long getPairingP50Nanos() {
+        return latency(Operation.PAIRING).percentile(0.5);
+    }
+
+    @Override
+    public long getPairingP99Nanos() {
+        return latency(Operation.PAIRING).percentile(0.99);
+    }
+
+    @Override
+    public long getPairingMaxNanos() {
+        return latency(Operation.PAIRING).max();
+    }
+
+    @Override
+    public long getPairCount() {
+        return pairs.sum();
+    }
+
+    @Override
+    public long getInvalidPointCount() {
+        return invalidPoints.sum();
+    }
+
+    @Override
+    public long getExceptionCount() {
+        return exceptions.sum();
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram h : latencies) {
+            h.reset();
+        }
+        pairs.reset();
+        invalidPoints.reset();
+        exceptions.reset();
+    }
+}
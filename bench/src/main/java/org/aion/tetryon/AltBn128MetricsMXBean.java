@@ -0,0 +1,53 @@
+package org.aion.tetryon;
+
+/**
+ * Management interface of {@link AltBn128Metrics}, registered as {@value AltBn128Metrics#OBJECT_NAME}.
+ * <p>
+ * Latencies are in nanoseconds, and percentiles are accurate to within 12.5%.
+ */
+public interface AltBn128MetricsMXBean {
+
+    long getG1AddCount();
+
+    long getG1AddP50Nanos();
+
+    long getG1AddP99Nanos();
+
+    long getG1AddMaxNanos();
+
+    long getG1MulCount();
+
+    long getG1MulP50Nanos();
+
+    long getG1MulP99Nanos();
+
+    long getG1MulMaxNanos();
+
+    long getPairingCount();
+
+    long getPairingP50Nanos();
+
+    long getPairingP99Nanos();
+
+    long getPairingMaxNanos();
+
+    /**
+     * Number of pairs checked, over all pairing checks.
+     */
+    long getPairCount();
+
+    /**
+     * Number of operations that failed on an illegal point.
+     */
+    long getInvalidPointCount();
+
+    /**
+     * Number of operations that failed for any other reason.
+     */
+    long getExceptionCount();
+
+    /**
+     * Clears every counter and histogram.
+     */
+    void reset();
+}
@@ -0,0 +1,71 @@
+package org.aion.tetryon;
+
+/**
+ * An implementation of the core alt_bn128 operations behind {@link AltBn128}.
+ * <p>
+ * All points use the encodings documented on {@link AltBn128}: 64 bytes [x || y] in G1 and 128 bytes
+ * [x.a || x.b || y.a || y.b] (real part first) in G2, with 32-byte big-endian coordinates. Scalars are 32-byte
+ * big-endian. Implementations must agree on results and on failure modes, so that callers can switch freely:
+ * <ul>
+ *     <li>g1EcAdd throws on illegal points ("NotMember", "NotOnCurve");</li>
+ *     <li>g1EcMul yields all zeros for an illegal point or a scalar not below the group order;</li>
+ *     <li>the G2 operations accept all zeros as the point at infinity and throw on anything else that is illegal;</li>
+ *     <li>ecPair yields false on any illegal input.</li>
+ * </ul>
+ * Implementations provide g1EcAdd, g1EcMul and ecPair in status-code form, which tells illegal input apart without
+ * an exception; the throwing forms above are a thin layer on top of them.
+ * <p>
+ * {@link AltBn128} picks the implementation once, see {@link AltBn128#BACKEND_PROPERTY}. Further implementations can be
+ * registered through {@link java.util.ServiceLoader}; they need a public no-argument constructor.
+ */
+public interface Bn128Backend {
+
+    /**
+     * A short name that the backend can be selected by, e.g. "jni".
+     */
+    String name();
+
+    /**
+     * Writes point1 + point2 at resultOffset and returns {@link AltBn128#STATUS_OK}, or returns the negative status
+     * of illegal input and leaves result untouched.
+     */
+    int g1EcAddInto(byte[] point1, byte[] point2, byte[] result, int resultOffset);
+
+    /**
+     * Writes scalar * point at resultOffset and returns {@link AltBn128#STATUS_OK}, or returns the negative status
+     * of illegal input and leaves result untouched.
+     */
+    int g1EcMulInto(byte[] point, byte[] scalar, byte[] result, int resultOffset);
+
+    /**
+     * Returns 1 if the pairing product is one, 0 if it is not, or the negative status of illegal input.
+     */
+    int ecPairStatus(byte[] g1_point_list, byte[] g2_point_list);
+
+    default byte[] g1EcAdd(byte[] point1, byte[] point2) throws Exception {
+        byte[] result = new byte[64];
+        int status = g1EcAddInto(point1, point2, result, 0);
+        if (status != AltBn128.STATUS_OK) {
+            throw new Exception(AltBn128.statusMessage(status));
+        }
+        return result;
+    }
+
+    default byte[] g1EcMul(byte[] point, byte[] scalar) throws Exception {
+        // failure mode: illegal input yields zeros, which a failed call leaves in place
+        byte[] result = new byte[64];
+        g1EcMulInto(point, scalar, result, 0);
+        return result;
+    }
+
+    byte[] g2EcAdd(byte[] point1, byte[] point2) throws Exception;
+
+    byte[] g2EcMul(byte[] point, byte[] scalar) throws Exception;
+
+    byte[] g2Negate(byte[] point) throws Exception;
+
+    default boolean ecPair(byte[] g1_point_list, byte[] g2_point_list) throws Exception {
+        // failure mode: illegal input yields false
+        return ecPairStatus(g1_point_list, g2_point_list) == 1;
+    }
+}
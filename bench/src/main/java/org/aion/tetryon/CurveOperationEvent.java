@@ -0,0 +1,42 @@
+package org.aion.tetryon;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for one {@link AltBn128} curve operation. Its duration is the time spent in the call.
+ * <p>
+ * The event is disabled unless a recording enables {@value #NAME}; a disabled event is not committed, and once the
+ * call is compiled the JIT removes it altogether.
+ */
+@Name(CurveOperationEvent.NAME)
+@Label("Curve Operation")
+@Category({"Aion", "alt_bn128"})
+@Description("A G1 addition, G1 multiplication or pairing check")
+@StackTrace(false)
+final class CurveOperationEvent extends jdk.jfr.Event {
+
+    static final String NAME = "org.aion.tetryon.CurveOperation";
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Backend")
+    String backend;
+
+    @Label("Pairs")
+    @Description("Number of pairs in a pairing check, zero otherwise")
+    int pairs;
+
+    @Label("Input Size")
+    @DataAmount
+    int inputSize;
+
+    @Label("Outcome")
+    @Description("SUCCESS, INVALID_POINT or EXCEPTION")
+    String outcome;
+}
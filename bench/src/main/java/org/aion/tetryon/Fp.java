@@ -26,7 +26,20 @@ public class Fp {
         return c0.equals(BigInteger.ZERO);
     }
 
-    // TODO: implement field operations
+    /**
+     * Returns a square root of this element, or null if it is not a square. The other root is its negation.
+     */
+    public Fp sqrt() {
+        MontgomeryField f = MontgomeryField.FP;
+        long[] a = new long[2 * MontgomeryField.LIMBS];
+        f.fromBigInteger(a, 0, c0);
+        if (!f.sqrt(a, 0, a, 0, a, MontgomeryField.LIMBS)) {
+            return null;
+        }
+        return new Fp(f.toBigInteger(a, 0));
+    }
+
+    // field operations on fixed-width limbs live in MontgomeryField, see Fp2
 
     @Override
     public boolean equals(Object o) {
@@ -0,0 +1,188 @@
+package org.aion.tetryon;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Arithmetic in F_p^12 = F_p^6[w]/(w^2 - v), on limb arrays. This is where pairing values live.
+ * <p>
+ * An element g + h w is stored as two {@link Fp6} elements in a row. Equivalently, with w^6 = xi, it is
+ * sum c_k w^k for c_k in F_p^2, where (c0, c2, c4) make up g and (c1, c3, c5) make up h.
+ * <p>
+ * Operations run in place and outputs may alias inputs. Temporaries come from a scratch array {@code t}, starting
+ * at {@code to}, of at least {@link #SCRATCH} limbs that must not overlap any operand.
+ */
+final class Fp12 {
+    static final int LIMBS = 2 * Fp6.LIMBS;
+    static final int SCRATCH = LIMBS + 4 * Fp6.LIMBS + Fp6.MUL_SCRATCH;
+
+    private static final int G = 0, H = Fp6.LIMBS;
+
+    // FROBENIUS[j - 1] holds xi^(k (p^j - 1) / 6) for k = 0..5, the factors that w^k picks up under x -> x^(p^j)
+    static final long[][] FROBENIUS = new long[3][];
+
+    static {
+        BigInteger p = Fp.FIELD_MODULUS;
+        Fp2 xi = new Fp2(BigInteger.valueOf(9), BigInteger.ONE);
+        for (int j = 1; j <= 3; j++) {
+            BigInteger e = p.pow(j).subtract(BigInteger.ONE).divide(BigInteger.valueOf(6));
+            long[] gamma = new long[6 * Fp2.LIMBS];
+            for (int k = 0; k < 6; k++) {
+                pow(xi, e.multiply(BigInteger.valueOf(k))).toLimbs(gamma, k * Fp2.LIMBS);
+            }
+            FROBENIUS[j - 1] = gamma;
+        }
+    }
+
+    private Fp12() { }
+
+    static void setOne(long[] r, int ro) {
+        Arrays.fill(r, ro, ro + LIMBS, 0);
+        MontgomeryField.FP.setOne(r, ro);
+    }
+
+    static boolean isOne(long[] a, int ao) {
+        for (int i = MontgomeryField.LIMBS; i < LIMBS; i++) {
+            if (a[ao + i] != 0) {
+                return false;
+            }
+        }
+        return MontgomeryField.FP.isOne(a, ao);
+    }
+
+    static boolean equal(long[] a, int ao, long[] b, int bo) {
+        return Fp6.equal(a, ao + G, b, bo + G) && Fp6.equal(a, ao + H, b, bo + H);
+    }
+
+    static void copy(long[] r, int ro, long[] a, int ao) {
+        System.arraycopy(a, ao, r, ro, LIMBS);
+    }
+
+    /**
+     * r = a * b, using Karatsuba over F_p^6:
+     * <pre>
+     * A = g1 g2, B = h1 h2
+     * r = (A + B v) + ((g1 + h1)(g2 + h2) - A - B) w
+     * </pre>
+     */
+    static void mul(long[] r, int ro, long[] a, int ao, long[] b, int bo, long[] t, int to) {
+        final int A = to, B = to + 24, s = to + 48, u = to + 72, next = to + 96;
+        Fp6.mul(t, A, a, ao + G, b, bo + G, t, next);
+        Fp6.mul(t, B, a, ao + H, b, bo + H, t, next);
+        Fp6.add(t, s, a, ao + G, a, ao + H);
+        Fp6.add(t, u, b, bo + G, b, bo + H);
+        Fp6.mul(t, s, t, s, t, u, t, next);
+        Fp6.sub(t, s, t, s, t, A);
+        Fp6.sub(r, ro + H, t, s, t, B);
+        Fp6.mulByV(t, B, t, B, t, next);
+        Fp6.add(r, ro + G, t, A, t, B);
+    }
+
+    /**
+     * r = a^2, using (g + h w)^2 = ((g + h)(g + h v) - gh - gh v) + 2 gh w.
+     */
+    static void square(long[] r, int ro, long[] a, int ao, long[] t, int to) {
+        final int gh = to, s = to + 24, u = to + 48, next = to + 96;
+        Fp6.mul(t, gh, a, ao + G, a, ao + H, t, next);
+        Fp6.add(t, s, a, ao + G, a, ao + H);
+        Fp6.mulByV(t, u, a, ao + H, t, next);
+        Fp6.add(t, u, a, ao + G, t, u);
+        Fp6.mul(t, s, t, s, t, u, t, next);
+        Fp6.sub(t, s, t, s, t, gh);
+        Fp6.mulByV(t, u, t, gh, t, next);
+        Fp6.sub(r, ro + G, t, s, t, u);
+        Fp6.add(r, ro + H, t, gh, t, gh);
+    }
+
+    /**
+     * r = g - h w, which is a^(p^6), and the inverse of a in the cyclotomic subgroup.
+     */
+    static void conjugate(long[] r, int ro, long[] a, int ao) {
+        System.arraycopy(a, ao + G, r, ro + G, Fp6.LIMBS);
+        Fp6.neg(r, ro + H, a, ao + H);
+    }
+
+    /**
+     * r = a^-1 = (g - h w) / (g^2 - h^2 v)
+     */
+    static void inverse(long[] r, int ro, long[] a, int ao, long[] t, int to) {
+        final int x = to, y = to + 24, next = to + 48;
+        Fp6.mul(t, x, a, ao + G, a, ao + G, t, next);
+        Fp6.mul(t, y, a, ao + H, a, ao + H, t, next);
+        Fp6.mulByV(t, y, t, y, t, next);
+        Fp6.sub(t, x, t, x, t, y);
+        Fp6.inverse(t, x, t, x, t, next);
+
+        Fp6.mul(r, ro + G, a, ao + G, t, x, t, next);
+        Fp6.mul(r, ro + H, a, ao + H, t, x, t, next);
+        Fp6.neg(r, ro + H, r, ro + H);
+    }
+
+    /**
+     * r = a^(p^j), for j = 1, 2 or 3.
+     */
+    static void frobenius(long[] r, int ro, long[] a, int ao, int j) {
+        long[] gamma = FROBENIUS[j - 1];
+        for (int k = 0; k < 6; k++) {
+            // c_k sits in h for odd k, at position k / 2
+            int offset = (k & 1) * Fp6.LIMBS + (k >> 1) * Fp2.LIMBS;
+            if ((j & 1) == 1) {
+                Fp2.conjugate(r, ro + offset, a, ao + offset);
+            } else if (r != a || ro != ao) {
+                System.arraycopy(a, ao + offset, r, ro + offset, Fp2.LIMBS);
+            }
+            if (k != 0) {
+                Fp2.mul(r, ro + offset, r, ro + offset, gamma, k * Fp2.LIMBS);
+            }
+        }
+    }
+
+    /**
+     * r = a * l for a sparse l = c0 + c1 w + c3 w^3, the shape of a Miller loop line evaluation.
+     * The coefficients are read from {@code line} at offsets 0, 8 and 16 and must not overlap r.
+     */
+    static void mulByLine(long[] r, int ro, long[] a, int ao, long[] line, int lo, long[] t, int to) {
+        final int A = to, B = to + 24, s = to + 48, e = to + 72, next = to + 80;
+        final int c0 = lo, c1 = lo + Fp2.LIMBS, c3 = lo + 2 * Fp2.LIMBS;
+
+        // in the tower, l = (c0, 0, 0) + (c1, c3, 0) w
+        Fp6.mulByFp2(t, A, a, ao + G, line, c0);
+        Fp6.mulBy01(t, B, a, ao + H, line, c1, line, c3, t, next);
+
+        Fp6.add(t, s, a, ao + G, a, ao + H);
+        Fp2.add(t, e, line, c0, line, c1);
+        Fp6.mulBy01(t, s, t, s, t, e, line, c3, t, next);
+        Fp6.sub(t, s, t, s, t, A);
+        Fp6.sub(r, ro + H, t, s, t, B);
+
+        Fp6.mulByV(t, B, t, B, t, next);
+        Fp6.add(r, ro + G, t, A, t, B);
+    }
+
+    /**
+     * r = a^e for a non-negative exponent that fits a long.
+     */
+    static void pow(long[] r, int ro, long[] a, int ao, long e, long[] t, int to) {
+        final int base = to, next = to + LIMBS;
+        copy(t, base, a, ao);
+        setOne(r, ro);
+        for (int i = 63 - Long.numberOfLeadingZeros(e); i >= 0; i--) {
+            square(r, ro, r, ro, t, next);
+            if (((e >>> i) & 1) != 0) {
+                mul(r, ro, r, ro, t, base, t, next);
+            }
+        }
+    }
+
+    // only used to derive the Frobenius constants
+    private static Fp2 pow(Fp2 base, BigInteger e) {
+        Fp2 result = Fp2.one();
+        for (int i = e.bitLength() - 1; i >= 0; i--) {
+            result = result.multiply(result);
+            if (e.testBit(i)) {
+                result = result.multiply(base);
+            }
+        }
+        return result;
+    }
+}
@@ -6,61 +6,105 @@ import java.math.BigInteger;
  * Represents an element of the field F_p^2 (F_p[i]/(i^2 + 1)).
  *
  * F_q2(a + bi, a is real coeff, b is imaginary)
+ * <p>
+ * Stored as eight Montgomery limbs ({@link MontgomeryField#FP}), real part first. Instances are immutable; the static
+ * methods operate in place on limb arrays for allocation-free callers such as {@link G2}.
  */
 public class Fp2 {
     public static final BigInteger FIELD_MODULUS = new BigInteger("30644e72e131a029b85045b68181585d97816a916871ca8d3c208c16d87cfd47", 16);
 
-    public final BigInteger a;
-    public final BigInteger b;
+    public static final int LIMBS = 2 * MontgomeryField.LIMBS;
+
+    private static final MontgomeryField F = MontgomeryField.FP;
+
+    // 1/2 in F_p
+    private static final long[] HALF = new long[MontgomeryField.LIMBS];
+
+    static {
+        F.fromBigInteger(HALF, 0, FIELD_MODULUS.add(BigInteger.ONE).shiftRight(1));
+    }
+
+    private final long[] limbs;
 
     // (a + bi, a is real coeff, b is imaginary)
     public Fp2(BigInteger a, BigInteger b) {
-        this.a = a;
-        this.b = b;
+        this.limbs = new long[LIMBS];
+        F.fromBigInteger(limbs, 0, a);
+        F.fromBigInteger(limbs, 4, b);
+    }
+
+    private Fp2(long[] limbs) {
+        this.limbs = limbs;
+    }
+
+    /**
+     * Wraps limbs copied out of {@code src} at {@code so}.
+     */
+    static Fp2 fromLimbs(long[] src, int so) {
+        long[] limbs = new long[LIMBS];
+        System.arraycopy(src, so, limbs, 0, LIMBS);
+        return new Fp2(limbs);
+    }
+
+    /**
+     * Copies the limbs of this element into {@code r} at {@code ro}.
+     */
+    void toLimbs(long[] r, int ro) {
+        System.arraycopy(limbs, 0, r, ro, LIMBS);
     }
 
     public static Fp2 zero() {
-        return new Fp2(BigInteger.ZERO, BigInteger.ZERO);
+        return new Fp2(new long[LIMBS]);
     }
 
     public static Fp2 one() {
-        return new Fp2(BigInteger.ONE, BigInteger.ZERO);
+        long[] limbs = new long[LIMBS];
+        F.setOne(limbs, 0);
+        return new Fp2(limbs);
+    }
+
+    /**
+     * The real coefficient.
+     */
+    public BigInteger a() {
+        return F.toBigInteger(limbs, 0);
+    }
+
+    /**
+     * The imaginary coefficient.
+     */
+    public BigInteger b() {
+        return F.toBigInteger(limbs, 4);
     }
 
     public boolean isZero() {
-        return a.equals(BigInteger.ZERO) && b.equals(BigInteger.ZERO);
+        return isZero(limbs, 0);
     }
 
     public Fp2 add(Fp2 that) {
-        return new Fp2(
-                addmod(this.a, that.a, FIELD_MODULUS),
-                addmod(this.b, that.b, FIELD_MODULUS)
-        );
+        long[] r = new long[LIMBS];
+        add(r, 0, this.limbs, 0, that.limbs, 0);
+        return new Fp2(r);
     }
 
     public Fp2 subtract(Fp2 that) {
-        return new Fp2(
-                submod(this.a, that.a, FIELD_MODULUS),
-                submod(this.b, that.b, FIELD_MODULUS)
-        );
+        long[] r = new long[LIMBS];
+        sub(r, 0, this.limbs, 0, that.limbs, 0);
+        return new Fp2(r);
     }
 
     public Fp2 multiply(Fp2 that) {
-        /*
-         * (a + bx) * (c + dx) // 1 + x^2
-         * = (ac - bd) + (ad + bc)x
-         */
-        return new Fp2(
-                submod(mulmod(this.a, that.a, FIELD_MODULUS), mulmod(this.b, that.b, FIELD_MODULUS), FIELD_MODULUS),
-                addmod(mulmod(this.a, that.b, FIELD_MODULUS), mulmod(this.b, that.a, FIELD_MODULUS), FIELD_MODULUS)
-        );
+        long[] r = new long[LIMBS];
+        mul(r, 0, this.limbs, 0, that.limbs, 0);
+        return new Fp2(r);
     }
 
     public Fp2 multiply(BigInteger s) {
-        return new Fp2(
-                mulmod(this.a, s, FIELD_MODULUS),
-                mulmod(this.b, s, FIELD_MODULUS)
-        );
+        long[] k = new long[MontgomeryField.LIMBS];
+        F.fromBigInteger(k, 0, s);
+        long[] r = new long[LIMBS];
+        mulScalar(r, 0, this.limbs, 0, k, 0);
+        return new Fp2(r);
     }
 
     public Fp2 divide(Fp2 other) {
@@ -68,25 +112,243 @@ public class Fp2 {
     }
 
     public Fp2 inverse() {
-        /*
-         * Assume this = a + bx and inverse = c + dx, then
-         * (ac - bd) + (ad + bc)x = 1, then
-         * ac - bd = 1
-         * ad + bc = 0.
-         * Solving the above linear equations, we get
-         * c = a * (a^2 + b^2)^-1
-         * d = -b * (a^2 + b^2)^-1
-         */
-        BigInteger inv = addmod(
-                mulmod(this.b, this.b, FIELD_MODULUS),
-                mulmod(this.a, this.a, FIELD_MODULUS),
-                FIELD_MODULUS
-        ).modInverse(FIELD_MODULUS);
-
-        return new Fp2(
-                mulmod(this.a, inv, FIELD_MODULUS),
-                FIELD_MODULUS.subtract(mulmod(this.b, inv, FIELD_MODULUS))
-        );
+        long[] r = new long[LIMBS];
+        inverse(r, 0, this.limbs, 0);
+        return new Fp2(r);
+    }
+
+    /**
+     * Returns a square root of this element, or null if it is not a square. The other root is its negation.
+     */
+    public Fp2 sqrt() {
+        long[] r = new long[LIMBS];
+        return sqrt(r, 0, this.limbs, 0) ? new Fp2(r) : null;
+    }
+
+    /**
+     * Serializes as 64 big-endian bytes, real part first.
+     */
+    public byte[] toBytes() {
+        byte[] data = new byte[64];
+        F.toBytes(data, 0, limbs, 0);
+        F.toBytes(data, 32, limbs, 4);
+        return data;
+    }
+
+    /**
+     * Deserializes 64 big-endian bytes, real part first.
+     *
+     * @throws IllegalArgumentException if a coefficient is not below the field modulus
+     */
+    public static Fp2 fromBytes(byte[] data, int offset) {
+        long[] limbs = new long[LIMBS];
+        if (!F.fromBytes(limbs, 0, data, offset) || !F.fromBytes(limbs, 4, data, offset + 32)) {
+            throw new IllegalArgumentException("Fp2 coefficient not in field");
+        }
+        return new Fp2(limbs);
+    }
+
+    public static boolean isZero(long[] a, int ao) {
+        return MontgomeryField.isZero(a, ao) && MontgomeryField.isZero(a, ao + 4);
+    }
+
+    public static boolean equal(long[] a, int ao, long[] b, int bo) {
+        return MontgomeryField.equal(a, ao, b, bo) && MontgomeryField.equal(a, ao + 4, b, bo + 4);
+    }
+
+    /**
+     * r = a + b
+     */
+    public static void add(long[] r, int ro, long[] a, int ao, long[] b, int bo) {
+        F.add(r, ro, a, ao, b, bo);
+        F.add(r, ro + 4, a, ao + 4, b, bo + 4);
+    }
+
+    /**
+     * r = a - b
+     */
+    public static void sub(long[] r, int ro, long[] a, int ao, long[] b, int bo) {
+        F.sub(r, ro, a, ao, b, bo);
+        F.sub(r, ro + 4, a, ao + 4, b, bo + 4);
+    }
+
+    /**
+     * r = -a
+     */
+    public static void neg(long[] r, int ro, long[] a, int ao) {
+        F.neg(r, ro, a, ao);
+        F.neg(r, ro + 4, a, ao + 4);
+    }
+
+    /**
+     * r = a0 - a1 i, which is also a^p
+     */
+    public static void conjugate(long[] r, int ro, long[] a, int ao) {
+        MontgomeryField.copy(r, ro, a, ao);
+        F.neg(r, ro + 4, a, ao + 4);
+    }
+
+    /**
+     * r = a * (9 + i), the non-residue that the F_p^6 and F_p^12 towers are built with.
+     */
+    public static void mulByNonResidue(long[] r, int ro, long[] a, int ao) {
+        long a00 = a[ao], a01 = a[ao + 1], a02 = a[ao + 2], a03 = a[ao + 3];
+        long a10 = a[ao + 4], a11 = a[ao + 5], a12 = a[ao + 6], a13 = a[ao + 7];
+
+        // r0 = 9 * a0 - a1
+        F.add(r, ro, a00, a01, a02, a03, a00, a01, a02, a03);
+        F.add(r, ro, r, ro, r, ro);
+        F.add(r, ro, r, ro, r, ro);
+        F.add(r, ro, r[ro], r[ro + 1], r[ro + 2], r[ro + 3], a00, a01, a02, a03);
+        F.sub(r, ro, r[ro], r[ro + 1], r[ro + 2], r[ro + 3], a10, a11, a12, a13);
+
+        // r1 = a0 + 9 * a1
+        F.add(r, ro + 4, a10, a11, a12, a13, a10, a11, a12, a13);
+        F.add(r, ro + 4, r, ro + 4, r, ro + 4);
+        F.add(r, ro + 4, r, ro + 4, r, ro + 4);
+        F.add(r, ro + 4, r[ro + 4], r[ro + 5], r[ro + 6], r[ro + 7], a10, a11, a12, a13);
+        F.add(r, ro + 4, r[ro + 4], r[ro + 5], r[ro + 6], r[ro + 7], a00, a01, a02, a03);
+    }
+
+    /**
+     * r = a * k for k in F_p
+     */
+    public static void mulScalar(long[] r, int ro, long[] a, int ao, long[] k, int ko) {
+        F.mul(r, ro, a, ao, k, ko);
+        F.mul(r, ro + 4, a, ao + 4, k, ko);
+    }
+
+    /**
+     * r = a * b, using Karatsuba with lazy reduction:
+     * <pre>
+     * v0 = a0 * b0, v1 = a1 * b1
+     * r0 = v0 - v1
+     * r1 = (a0 + a1) * (b0 + b1) - v0 - v1
+     * </pre>
+     * The sums a0 + a1 and b0 + b1 are left unreduced, which the Montgomery multiplication accepts.
+     */
+    public static void mul(long[] r, int ro, long[] a, int ao, long[] b, int bo) {
+        long a00 = a[ao], a01 = a[ao + 1], a02 = a[ao + 2], a03 = a[ao + 3];
+        long a10 = a[ao + 4], a11 = a[ao + 5], a12 = a[ao + 6], a13 = a[ao + 7];
+        long b00 = b[bo], b01 = b[bo + 1], b02 = b[bo + 2], b03 = b[bo + 3];
+        long b10 = b[bo + 4], b11 = b[bo + 5], b12 = b[bo + 6], b13 = b[bo + 7];
+
+        // sa = a0 + a1, sb = b0 + b1, both below 2p
+        long sa0 = a00 + a10;
+        long c = MontgomeryField.carry(sa0, a00);
+        long sa1 = a01 + a11 + c;
+        c = MontgomeryField.carryIn(a01, a11, sa1);
+        long sa2 = a02 + a12 + c;
+        c = MontgomeryField.carryIn(a02, a12, sa2);
+        long sa3 = a03 + a13 + c;
+
+        long sb0 = b00 + b10;
+        c = MontgomeryField.carry(sb0, b00);
+        long sb1 = b01 + b11 + c;
+        c = MontgomeryField.carryIn(b01, b11, sb1);
+        long sb2 = b02 + b12 + c;
+        c = MontgomeryField.carryIn(b02, b12, sb2);
+        long sb3 = b03 + b13 + c;
+
+        // the inputs are all in locals now, so r may alias a or b
+        F.mul(r, ro, a00, a01, a02, a03, b00, b01, b02, b03);
+        F.mul(r, ro + 4, a10, a11, a12, a13, b10, b11, b12, b13);
+        long v10 = r[ro + 4], v11 = r[ro + 5], v12 = r[ro + 6], v13 = r[ro + 7];
+
+        F.mul(r, ro + 4, sa0, sa1, sa2, sa3, sb0, sb1, sb2, sb3);
+        F.sub(r, ro + 4, r, ro + 4, r, ro);
+        F.sub(r, ro + 4, r[ro + 4], r[ro + 5], r[ro + 6], r[ro + 7], v10, v11, v12, v13);
+        F.sub(r, ro, r[ro], r[ro + 1], r[ro + 2], r[ro + 3], v10, v11, v12, v13);
+    }
+
+    /**
+     * r = a^2, using (a0 + a1 i)^2 = (a0 + a1)(a0 - a1) + 2 a0 a1 i.
+     */
+    public static void square(long[] r, int ro, long[] a, int ao) {
+        long a00 = a[ao], a01 = a[ao + 1], a02 = a[ao + 2], a03 = a[ao + 3];
+        long a10 = a[ao + 4], a11 = a[ao + 5], a12 = a[ao + 6], a13 = a[ao + 7];
+
+        // s = a0 + a1, unreduced
+        long s0 = a00 + a10;
+        long c = MontgomeryField.carry(s0, a00);
+        long s1 = a01 + a11 + c;
+        c = MontgomeryField.carryIn(a01, a11, s1);
+        long s2 = a02 + a12 + c;
+        c = MontgomeryField.carryIn(a02, a12, s2);
+        long s3 = a03 + a13 + c;
+
+        // r1 = 2 a0 a1, computed first so that the reduced difference can be staged in r0
+        F.mul(r, ro + 4, a00, a01, a02, a03, a10, a11, a12, a13);
+        F.add(r, ro + 4, r, ro + 4, r, ro + 4);
+
+        F.sub(r, ro, a00, a01, a02, a03, a10, a11, a12, a13);
+        F.mul(r, ro, s0, s1, s2, s3, r[ro], r[ro + 1], r[ro + 2], r[ro + 3]);
+    }
+
+    /**
+     * r = a^-1 = (a0 - a1 i) / (a0^2 + a1^2), or zero if a is zero.
+     */
+    public static void inverse(long[] r, int ro, long[] a, int ao) {
+        long a00 = a[ao], a01 = a[ao + 1], a02 = a[ao + 2], a03 = a[ao + 3];
+        long a10 = a[ao + 4], a11 = a[ao + 5], a12 = a[ao + 6], a13 = a[ao + 7];
+
+        F.mul(r, ro, a00, a01, a02, a03, a00, a01, a02, a03);
+        F.mul(r, ro + 4, a10, a11, a12, a13, a10, a11, a12, a13);
+        F.add(r, ro, r, ro, r, ro + 4);
+        F.inverse(r, ro, r, ro);
+
+        F.mul(r, ro + 4, a10, a11, a12, a13, r[ro], r[ro + 1], r[ro + 2], r[ro + 3]);
+        F.neg(r, ro + 4, r, ro + 4);
+        F.mul(r, ro, a00, a01, a02, a03, r[ro], r[ro + 1], r[ro + 2], r[ro + 3]);
+    }
+
+    /**
+     * r = sqrt(a), if it exists. Since p = 3 mod 4, with n = sqrt(a0^2 + a1^2):
+     * <pre>
+     * r0 = sqrt((a0 + n) / 2), or sqrt((a0 - n) / 2) if that one does not exist
+     * r1 = a1 / (2 r0)
+     * </pre>
+     *
+     * @return false if a is not a square, in which case r is left undefined
+     */
+    public static boolean sqrt(long[] r, int ro, long[] a, int ao) {
+        // t12 is scratch for the square roots in F_p
+        long[] t = new long[4 * MontgomeryField.LIMBS];
+        if (MontgomeryField.isZero(a, ao + 4)) {
+            // -1 is not a square in F_p, so if a0 is not a square, -a0 is: r = sqrt(-a0) i
+            if (F.sqrt(t, 0, a, ao, t, 12)) {
+                MontgomeryField.copy(r, ro, t, 0);
+                F.setZero(r, ro + 4);
+            } else {
+                F.neg(t, 0, a, ao);
+                F.sqrt(r, ro + 4, t, 0, t, 12);
+                F.setZero(r, ro);
+            }
+            return true;
+        }
+
+        // t0 = n
+        F.square(t, 0, a, ao);
+        F.square(t, 4, a, ao + 4);
+        F.add(t, 0, t, 0, t, 4);
+        if (!F.sqrt(t, 0, t, 0, t, 12)) {
+            return false;
+        }
+        // t8 = r0; it is not zero, since a1 = 2 r0 r1 is not
+        F.add(t, 4, a, ao, t, 0);
+        F.mul(t, 4, t, 4, HALF, 0);
+        if (!F.sqrt(t, 8, t, 4, t, 12)) {
+            F.sub(t, 4, a, ao, t, 0);
+            F.mul(t, 4, t, 4, HALF, 0);
+            if (!F.sqrt(t, 8, t, 4, t, 12)) {
+                return false;
+            }
+        }
+        F.add(t, 0, t, 8, t, 8);
+        F.inverse(t, 0, t, 0);
+        F.mul(r, ro + 4, a, ao + 4, t, 0);
+        MontgomeryField.copy(r, ro, t, 8);
+        return true;
     }
 
     @Override
@@ -94,32 +356,21 @@ public class Fp2 {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Fp2 that = (Fp2) o;
-        return this.a.equals(that.a) && this.b.equals(that.b);
+        return equal(this.limbs, 0, that.limbs, 0);
     }
 
     @Override
     public int hashCode() {
         int result = 1;
-        result = 31 * result + this.a.hashCode();
-        result = 31 * result + this.b.hashCode();
+        for (long limb : limbs) {
+            result = 31 * result + Long.hashCode(limb);
+        }
 
         return result;
     }
 
-    private static BigInteger addmod(BigInteger a, BigInteger b, BigInteger c) {
-        return a.add(b).mod(c);
-    }
-
-    private static BigInteger submod(BigInteger a, BigInteger b, BigInteger c) {
-        return a.subtract(b).mod(c);
-    }
-
-    private static BigInteger mulmod(BigInteger a, BigInteger b, BigInteger c) {
-        return a.multiply(b).mod(c);
-    }
-
     @Override
     public String toString() {
-        return "(" + Util.bytesToHex(a.toByteArray()) + ", " + Util.bytesToHex(b.toByteArray()) + ")";
+        return "(" + Util.bytesToHex(a().toByteArray()) + ", " + Util.bytesToHex(b().toByteArray()) + ")";
     }
 }
@@ -0,0 +1,172 @@
+package org.aion.tetryon;
+
+/**
+ * Arithmetic in F_p^6 = F_p^2[v]/(v^3 - xi), xi = 9 + i, on limb arrays.
+ * <p>
+ * An element c0 + c1 v + c2 v^2 is stored as three {@link Fp2} elements in a row. Like {@link Fp2}, all operations run
+ * in place and outputs may alias inputs; operations that need temporaries take a scratch array {@code t} and use
+ * the limbs from {@code to} on, which must not overlap any operand.
+ */
+final class Fp6 {
+    static final int LIMBS = 3 * Fp2.LIMBS;
+
+    private static final int C0 = 0, C1 = Fp2.LIMBS, C2 = 2 * Fp2.LIMBS;
+
+    static final int MUL_SCRATCH = 8 * Fp2.LIMBS;
+    static final int MUL_BY_01_SCRATCH = 4 * Fp2.LIMBS;
+    static final int INVERSE_SCRATCH = 5 * Fp2.LIMBS;
+    static final int MUL_BY_V_SCRATCH = Fp2.LIMBS;
+
+    private Fp6() { }
+
+    static boolean isZero(long[] a, int ao) {
+        return Fp2.isZero(a, ao + C0) && Fp2.isZero(a, ao + C1) && Fp2.isZero(a, ao + C2);
+    }
+
+    static boolean equal(long[] a, int ao, long[] b, int bo) {
+        return Fp2.equal(a, ao + C0, b, bo + C0) && Fp2.equal(a, ao + C1, b, bo + C1) && Fp2.equal(a, ao + C2, b, bo + C2);
+    }
+
+    /**
+     * r = a + b
+     */
+    static void add(long[] r, int ro, long[] a, int ao, long[] b, int bo) {
+        Fp2.add(r, ro + C0, a, ao + C0, b, bo + C0);
+        Fp2.add(r, ro + C1, a, ao + C1, b, bo + C1);
+        Fp2.add(r, ro + C2, a, ao + C2, b, bo + C2);
+    }
+
+    /**
+     * r = a - b
+     */
+    static void sub(long[] r, int ro, long[] a, int ao, long[] b, int bo) {
+        Fp2.sub(r, ro + C0, a, ao + C0, b, bo + C0);
+        Fp2.sub(r, ro + C1, a, ao + C1, b, bo + C1);
+        Fp2.sub(r, ro + C2, a, ao + C2, b, bo + C2);
+    }
+
+    /**
+     * r = -a
+     */
+    static void neg(long[] r, int ro, long[] a, int ao) {
+        Fp2.neg(r, ro + C0, a, ao + C0);
+        Fp2.neg(r, ro + C1, a, ao + C1);
+        Fp2.neg(r, ro + C2, a, ao + C2);
+    }
+
+    /**
+     * r = a * k for k in F_p^2
+     */
+    static void mulByFp2(long[] r, int ro, long[] a, int ao, long[] k, int ko) {
+        Fp2.mul(r, ro + C0, a, ao + C0, k, ko);
+        Fp2.mul(r, ro + C1, a, ao + C1, k, ko);
+        Fp2.mul(r, ro + C2, a, ao + C2, k, ko);
+    }
+
+    /**
+     * r = a * v = xi a2 + a0 v + a1 v^2
+     */
+    static void mulByV(long[] r, int ro, long[] a, int ao, long[] t, int to) {
+        Fp2.mulByNonResidue(t, to, a, ao + C2);
+        System.arraycopy(a, ao + C1, r, ro + C2, Fp2.LIMBS);
+        System.arraycopy(a, ao + C0, r, ro + C1, Fp2.LIMBS);
+        System.arraycopy(t, to, r, ro + C0, Fp2.LIMBS);
+    }
+
+    /**
+     * r = a * b, using Karatsuba:
+     * <pre>
+     * v0 = a0 b0, v1 = a1 b1, v2 = a2 b2
+     * r0 = v0 + xi ((a1 + a2)(b1 + b2) - v1 - v2)
+     * r1 = (a0 + a1)(b0 + b1) - v0 - v1 + xi v2
+     * r2 = (a0 + a2)(b0 + b2) - v0 - v2 + v1
+     * </pre>
+     */
+    static void mul(long[] r, int ro, long[] a, int ao, long[] b, int bo, long[] t, int to) {
+        final int v0 = to, v1 = to + 8, v2 = to + 16, s = to + 24, u = to + 32, r0 = to + 40, r1 = to + 48, r2 = to + 56;
+        Fp2.mul(t, v0, a, ao + C0, b, bo + C0);
+        Fp2.mul(t, v1, a, ao + C1, b, bo + C1);
+        Fp2.mul(t, v2, a, ao + C2, b, bo + C2);
+
+        Fp2.add(t, s, a, ao + C1, a, ao + C2);
+        Fp2.add(t, u, b, bo + C1, b, bo + C2);
+        Fp2.mul(t, s, t, s, t, u);
+        Fp2.sub(t, s, t, s, t, v1);
+        Fp2.sub(t, s, t, s, t, v2);
+        Fp2.mulByNonResidue(t, s, t, s);
+        Fp2.add(t, r0, t, s, t, v0);
+
+        Fp2.add(t, s, a, ao + C0, a, ao + C1);
+        Fp2.add(t, u, b, bo + C0, b, bo + C1);
+        Fp2.mul(t, s, t, s, t, u);
+        Fp2.sub(t, s, t, s, t, v0);
+        Fp2.sub(t, s, t, s, t, v1);
+        Fp2.mulByNonResidue(t, u, t, v2);
+        Fp2.add(t, r1, t, s, t, u);
+
+        Fp2.add(t, s, a, ao + C0, a, ao + C2);
+        Fp2.add(t, u, b, bo + C0, b, bo + C2);
+        Fp2.mul(t, s, t, s, t, u);
+        Fp2.sub(t, s, t, s, t, v0);
+        Fp2.sub(t, s, t, s, t, v2);
+        Fp2.add(t, r2, t, s, t, v1);
+
+        System.arraycopy(t, r0, r, ro, LIMBS);
+    }
+
+    /**
+     * r = a * (b0 + b1 v), for sparse multipliers such as Miller loop lines.
+     */
+    static void mulBy01(long[] r, int ro, long[] a, int ao, long[] b0, int b0o, long[] b1, int b1o, long[] t, int to) {
+        final int r0 = to, r1 = to + 8, r2 = to + 16, x = to + 24;
+        // r0 = a0 b0 + xi a2 b1
+        Fp2.mul(t, r0, a, ao + C0, b0, b0o);
+        Fp2.mul(t, x, a, ao + C2, b1, b1o);
+        Fp2.mulByNonResidue(t, x, t, x);
+        Fp2.add(t, r0, t, r0, t, x);
+        // r1 = a0 b1 + a1 b0
+        Fp2.mul(t, r1, a, ao + C0, b1, b1o);
+        Fp2.mul(t, x, a, ao + C1, b0, b0o);
+        Fp2.add(t, r1, t, r1, t, x);
+        // r2 = a1 b1 + a2 b0
+        Fp2.mul(t, r2, a, ao + C1, b1, b1o);
+        Fp2.mul(t, x, a, ao + C2, b0, b0o);
+        Fp2.add(t, r2, t, r2, t, x);
+
+        System.arraycopy(t, r0, r, ro, LIMBS);
+    }
+
+    /**
+     * r = a^-1, or zero if a is zero.
+     */
+    static void inverse(long[] r, int ro, long[] a, int ao, long[] t, int to) {
+        final int t0 = to, t1 = to + 8, t2 = to + 16, d = to + 24, x = to + 32;
+        // t0 = a0^2 - xi a1 a2
+        Fp2.square(t, t0, a, ao + C0);
+        Fp2.mul(t, x, a, ao + C1, a, ao + C2);
+        Fp2.mulByNonResidue(t, x, t, x);
+        Fp2.sub(t, t0, t, t0, t, x);
+        // t1 = xi a2^2 - a0 a1
+        Fp2.square(t, t1, a, ao + C2);
+        Fp2.mulByNonResidue(t, t1, t, t1);
+        Fp2.mul(t, x, a, ao + C0, a, ao + C1);
+        Fp2.sub(t, t1, t, t1, t, x);
+        // t2 = a1^2 - a0 a2
+        Fp2.square(t, t2, a, ao + C1);
+        Fp2.mul(t, x, a, ao + C0, a, ao + C2);
+        Fp2.sub(t, t2, t, t2, t, x);
+
+        // d = a0 t0 + xi (a2 t1 + a1 t2)
+        Fp2.mul(t, d, a, ao + C2, t, t1);
+        Fp2.mul(t, x, a, ao + C1, t, t2);
+        Fp2.add(t, d, t, d, t, x);
+        Fp2.mulByNonResidue(t, d, t, d);
+        Fp2.mul(t, x, a, ao + C0, t, t0);
+        Fp2.add(t, d, t, d, t, x);
+        Fp2.inverse(t, d, t, d);
+
+        Fp2.mul(r, ro + C0, t, t0, t, d);
+        Fp2.mul(r, ro + C1, t, t1, t, d);
+        Fp2.mul(r, ro + C2, t, t2, t, d);
+    }
+}
@@ -0,0 +1,246 @@
+package org.aion.tetryon;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Represents an element of the scalar field F_r, where r is the order of G1, G2 and Gt.
+ * <p>
+ * Elements are immutable and kept as Montgomery limbs of {@link MontgomeryField#FR}, so arithmetic on scalars, such
+ * as combining public inputs with random coefficients, runs without {@code BigInteger}. {@link #toBytes()} is the
+ * canonical 32-byte big-endian encoding that the native scalar multiplications read, so an element passes into
+ * {@link G1#mul(G1Point, Fr)}, {@link AltBn128#g1EcMul(byte[], Fr)} and friends as is.
+ */
+public final class Fr {
+    private static final MontgomeryField F = MontgomeryField.FR;
+
+    public static final BigInteger MODULUS = F.modulus();
+
+    public static final Fr ZERO = new Fr(new long[MontgomeryField.LIMBS]);
+    public static final Fr ONE;
+
+    static {
+        long[] one = new long[MontgomeryField.LIMBS];
+        F.setOne(one, 0);
+        ONE = new Fr(one);
+    }
+
+    private final long[] limbs;
+
+    private Fr(long[] limbs) {
+        this.limbs = limbs;
+    }
+
+    public static Fr valueOf(long value) {
+        return valueOf(BigInteger.valueOf(value));
+    }
+
+    /**
+     * Returns value mod r; use {@link #inRange(BigInteger)} first where a value at or above r is an error.
+     */
+    public static Fr valueOf(BigInteger value) {
+        long[] r = new long[MontgomeryField.LIMBS];
+        F.fromBigInteger(r, 0, value);
+        return new Fr(r);
+    }
+
+    /**
+     * Whether a value is a canonical scalar, in [0, r).
+     */
+    public static boolean inRange(BigInteger value) {
+        return value.signum() >= 0 && value.compareTo(MODULUS) < 0;
+    }
+
+    /**
+     * Reads a 32-byte big-endian scalar.
+     *
+     * @throws IllegalArgumentException if the value is not below r
+     */
+    public static Fr fromBytes(byte[] data) {
+        if (data.length != Util.FP_SIZE) {
+            throw new IllegalArgumentException("Scalars take " + Util.FP_SIZE + " bytes");
+        }
+        return fromBytes(data, 0);
+    }
+
+    /**
+     * Reads a 32-byte big-endian scalar at an offset.
+     *
+     * @throws IllegalArgumentException if the value is not below r
+     */
+    public static Fr fromBytes(byte[] data, int off) {
+        long[] r = new long[MontgomeryField.LIMBS];
+        if (!F.fromBytes(r, 0, data, off)) {
+            throw new IllegalArgumentException("Scalar is not below the group order");
+        }
+        return new Fr(r);
+    }
+
+    /**
+     * Returns a uniformly random element.
+     */
+    public static Fr random(Random random) {
+        return random(random, MODULUS.bitLength());
+    }
+
+    /**
+     * Returns a uniformly random element below min(2^bits, r), e.g. a short coefficient for batch verification.
+     */
+    public static Fr random(Random random, int bits) {
+        if (bits <= 0 || bits > MODULUS.bitLength()) {
+            throw new IllegalArgumentException("bits must be in [1, " + MODULUS.bitLength() + "]");
+        }
+        byte[] data = new byte[Util.FP_SIZE];
+        long[] r = new long[MontgomeryField.LIMBS];
+        int top = Util.FP_SIZE - (bits + 7) / 8;
+        do {
+            random.nextBytes(data);
+            Arrays.fill(data, 0, top, (byte) 0);
+            if (bits % 8 != 0) {
+                data[top] &= (1 << (bits % 8)) - 1;
+            }
+            // only full-width values can reach r; they are rejected and drawn again
+        } while (!F.fromBytes(r, 0, data, 0));
+        return new Fr(r);
+    }
+
+    public boolean isZero() {
+        return MontgomeryField.isZero(limbs, 0);
+    }
+
+    public boolean isOne() {
+        return F.isOne(limbs, 0);
+    }
+
+    public Fr add(Fr other) {
+        long[] r = new long[MontgomeryField.LIMBS];
+        F.add(r, 0, limbs, 0, other.limbs, 0);
+        return new Fr(r);
+    }
+
+    public Fr sub(Fr other) {
+        long[] r = new long[MontgomeryField.LIMBS];
+        F.sub(r, 0, limbs, 0, other.limbs, 0);
+        return new Fr(r);
+    }
+
+    public Fr neg() {
+        long[] r = new long[MontgomeryField.LIMBS];
+        F.neg(r, 0, limbs, 0);
+        return new Fr(r);
+    }
+
+    public Fr mul(Fr other) {
+        long[] r = new long[MontgomeryField.LIMBS];
+        F.mul(r, 0, limbs, 0, other.limbs, 0);
+        return new Fr(r);
+    }
+
+    public Fr square() {
+        long[] r = new long[MontgomeryField.LIMBS];
+        F.square(r, 0, limbs, 0);
+        return new Fr(r);
+    }
+
+    /**
+     * @throws ArithmeticException if this is zero
+     */
+    public Fr inverse() {
+        if (isZero()) {
+            throw new ArithmeticException("Zero has no inverse");
+        }
+        long[] r = new long[MontgomeryField.LIMBS];
+        F.inverse(r, 0, limbs, 0);
+        return new Fr(r);
+    }
+
+    /**
+     * Raises this element to a non-negative power.
+     */
+    public Fr pow(BigInteger e) {
+        if (e.signum() < 0) {
+            throw new IllegalArgumentException("Exponent must not be negative");
+        }
+        long[] exponent = new long[Math.max((e.bitLength() + 63) / 64, 1)];
+        for (int i = 0; i < exponent.length; i++) {
+            exponent[i] = e.shiftRight(64 * i).longValue();
+        }
+        long[] r = new long[MontgomeryField.LIMBS];
+        F.pow(r, 0, limbs, 0, exponent);
+        return new Fr(r);
+    }
+
+    /**
+     * Inverts all elements with a single field inversion, using Montgomery's trick: with prefix products
+     * c_i = a_0 ... a_i, the inverse of a_i is c_(i-1) / c_i, and 1 / c_i follows from 1 / c_(i+1) by one more
+     * multiplication.
+     *
+     * @throws ArithmeticException if any element is zero
+     */
+    public static Fr[] batchInverse(Fr[] a) {
+        Fr[] result = new Fr[a.length];
+        if (a.length == 0) {
+            return result;
+        }
+
+        final int L = MontgomeryField.LIMBS;
+        long[] prefix = new long[a.length * L];
+        MontgomeryField.copy(prefix, 0, a[0].limbs, 0);
+        for (int i = 1; i < a.length; i++) {
+            F.mul(prefix, i * L, prefix, (i - 1) * L, a[i].limbs, 0);
+        }
+        if (MontgomeryField.isZero(prefix, (a.length - 1) * L)) {
+            throw new ArithmeticException("Zero has no inverse");
+        }
+
+        long[] inv = new long[L];
+        F.inverse(inv, 0, prefix, (a.length - 1) * L);
+        for (int i = a.length - 1; i > 0; i--) {
+            long[] r = new long[L];
+            F.mul(r, 0, inv, 0, prefix, (i - 1) * L);
+            result[i] = new Fr(r);
+            F.mul(inv, 0, inv, 0, a[i].limbs, 0);
+        }
+        result[0] = new Fr(inv);
+        return result;
+    }
+
+    /**
+     * Returns the canonical 32-byte big-endian encoding.
+     */
+    public byte[] toBytes() {
+        byte[] data = new byte[Util.FP_SIZE];
+        F.toBytes(data, 0, limbs, 0);
+        return data;
+    }
+
+    /**
+     * Writes the canonical 32-byte big-endian encoding at an offset, e.g. into a list of scalars.
+     */
+    public void toBytes(byte[] out, int off) {
+        F.toBytes(out, off, limbs, 0);
+    }
+
+    public BigInteger toBigInteger() {
+        return F.toBigInteger(limbs, 0);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Fr that = (Fr) o;
+        return MontgomeryField.equal(limbs, 0, that.limbs, 0);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(limbs);
+    }
+
+    @Override
+    public String toString() {
+        return Util.bytesToHex(toBytes());
+    }
+}
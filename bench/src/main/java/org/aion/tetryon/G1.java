@@ -36,4 +36,30 @@ public class G1 {
         G1Point result = Util.deserializeG1(resultData);
         return result;
     }
+
+    public static G1Point mul(G1Point p, Fr s) throws Exception {
+        byte[] pdata = Util.serializeG1(p);
+        byte[] resultData = AltBn128.g1EcMul(pdata, s);
+        G1Point result = Util.deserializeG1(resultData);
+        return result;
+    }
+
+    /**
+     * Computes s[0] * p[0] + s[1] * p[1] + ... in a single native call.
+     */
+    public static G1Point multiExp(G1Point[] p, BigInteger[] s) throws Exception {
+        if (p.length != s.length) {
+            throw new IllegalArgumentException("Points and scalars are not in pair");
+        }
+
+        byte[] pdata = new byte[p.length * Util.FP_SIZE * 2];
+        byte[] sdata = new byte[s.length * Util.FP_SIZE];
+        for (int i = 0; i < p.length; i++) {
+            PointCodec.encodeG1(p[i], pdata, i * PointCodec.G1_SIZE);
+            PointCodec.encodeScalar(s[i], sdata, i * PointCodec.SCALAR_SIZE);
+        }
+        byte[] resultData = AltBn128.g1MultiExp(pdata, sdata);
+        G1Point result = Util.deserializeG1(resultData);
+        return result;
+    }
 }
@@ -0,0 +1,97 @@
+package org.aion.tetryon;
+
+import java.lang.ref.Reference;
+import java.math.BigInteger;
+
+/**
+ * A point in G1 with a precomputed table of its multiples in native memory, for points that are multiplied by a
+ * fresh scalar over and over, such as the generator or the gamma_abc points of a verifying key.
+ * <p>
+ * The table holds k * 2^(w j) * P for every w-bit window j of a scalar and every digit k, so {@link #mul(BigInteger)}
+ * takes one addition per window and no doublings. It grows as (2^w - 1) * ceil(254 / w) points of 96 bytes each,
+ * and w is the widest window that fits the memory budget: the default of 1 MiB gives 8-bit windows, 32 additions
+ * per product.
+ * <p>
+ * The native memory is released by {@link #close()}, or by a cleaner once this object becomes unreachable.
+ * Closing while another thread is multiplying with this table is not allowed.
+ */
+public final class G1FixedBase implements AutoCloseable {
+
+    public static final long DEFAULT_MEMORY_BUDGET = 1L << 20;
+
+    public final G1Point point;
+    private final NativeHandle handle;
+
+    private G1FixedBase(G1Point point, long handle) {
+        this.point = point;
+        this.handle = new NativeHandle(this, handle, AltBn128::freeG1FixedBase);
+    }
+
+    /**
+     * Validates a point and builds its table within the default memory budget.
+     *
+     * Failure Mode: Any illegal point yields an Exception.
+     */
+    public static G1FixedBase create(G1Point p) throws Exception {
+        return create(p, DEFAULT_MEMORY_BUDGET);
+    }
+
+    /**
+     * Validates a point and builds its table within a memory budget, in bytes.
+     *
+     * Failure Mode: Any illegal point, or a budget too small for one-bit windows (about 24 KiB), yields an Exception.
+     */
+    public static G1FixedBase create(G1Point p, long memoryBudget) throws Exception {
+        return new G1FixedBase(p, AltBn128.prepareG1FixedBase(Util.serializeG1(p), memoryBudget));
+    }
+
+    /**
+     * Computes s * point.
+     *
+     * Failure Mode: A scalar outside [0, group order) yields an Exception.
+     */
+    public G1Point mul(BigInteger s) throws Exception {
+        return multiExp(new G1FixedBase[]{this}, new BigInteger[]{s});
+    }
+
+    /**
+     * Computes s[0] * p[0].point + s[1] * p[1].point + ... in a single native call.
+     *
+     * Failure Mode: A scalar outside [0, group order) yields an Exception.
+     */
+    public static G1Point multiExp(G1FixedBase[] p, BigInteger[] s) throws Exception {
+        if (p.length != s.length) {
+            throw new IllegalArgumentException("Points and scalars are not in pair");
+        }
+
+        long[] handles = new long[p.length];
+        byte[] sdata = new byte[s.length * Util.FP_SIZE];
+        for (int i = 0; i < p.length; i++) {
+            handles[i] = p[i].handle();
+            PointCodec.encodeScalar(s[i], sdata, i * PointCodec.SCALAR_SIZE);
+        }
+        try {
+            return Util.deserializeG1(AltBn128.g1FixedBaseMul(handles, sdata));
+        } finally {
+            // the tables must not be cleaned while native code holds their handles
+            Reference.reachabilityFence(p);
+        }
+    }
+
+    /**
+     * Returns the native handle, for use in a call that keeps this object reachable until it returns.
+     */
+    long handle() {
+        return handle.get();
+    }
+
+    @Override
+    public void close() {
+        handle.close();
+    }
+
+    @Override
+    public String toString() {
+        return "FixedBase" + point;
+    }
+}
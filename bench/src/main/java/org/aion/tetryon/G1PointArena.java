@@ -0,0 +1,135 @@
+package org.aion.tetryon;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A list of points in G1 stored off-heap, back to back in the 64-byte encoding [p.x || p.y] used by
+ * {@link AltBn128}, for point sets too large to keep as {@link G1Point} objects (a structured reference string,
+ * say). The memory is a direct buffer, so multi-exponentiations and pairing checks read it in place, without a copy.
+ * <p>
+ * Slices share memory with the arena they come from. A single arena holds up to 2^31 bytes, about 33 million
+ * points. Points are not validated on the way in; the native calls that use them do that.
+ */
+public final class G1PointArena {
+
+    public static final int POINT_SIZE = 2 * Util.FP_SIZE;
+
+    // position 0, limit at the end of the last point
+    private final ByteBuffer buffer;
+
+    private G1PointArena(ByteBuffer buffer) {
+        if (!buffer.isDirect() || buffer.remaining() % POINT_SIZE != 0) {
+            throw new IllegalArgumentException("Expected a direct buffer of whole points");
+        }
+        this.buffer = buffer.slice();
+    }
+
+    /**
+     * Allocates an arena of points at infinity (all zeros).
+     */
+    public static G1PointArena allocate(int size) {
+        return new G1PointArena(ByteBuffer.allocateDirect(Math.multiplyExact(size, POINT_SIZE)));
+    }
+
+    /**
+     * Wraps the remaining bytes of a direct buffer, which must hold whole points. The arena shares its memory.
+     */
+    public static G1PointArena wrap(ByteBuffer buffer) {
+        return new G1PointArena(buffer);
+    }
+
+    /**
+     * Reads a file of encoded points into a new arena.
+     */
+    public static G1PointArena load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(Math.toIntExact(channel.size()));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("Unexpected end of " + file);
+                }
+            }
+            buffer.flip();
+            return new G1PointArena(buffer);
+        }
+    }
+
+    /**
+     * Maps a file of encoded points into memory, read-only, without reading it up front.
+     */
+    public static G1PointArena map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new G1PointArena(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public int size() {
+        return buffer.limit() / POINT_SIZE;
+    }
+
+    public G1Point get(int i) {
+        byte[] data = new byte[POINT_SIZE];
+        ByteBuffer b = buffer.duplicate();
+        b.position(Math.multiplyExact(i, POINT_SIZE));
+        b.get(data);
+        return Util.deserializeG1(data);
+    }
+
+    public void set(int i, G1Point p) {
+        ByteBuffer b = buffer.duplicate();
+        b.position(Math.multiplyExact(i, POINT_SIZE));
+        b.put(Util.serializeG1(p));
+    }
+
+    /**
+     * Returns the points from index {@code from}, inclusive, to {@code to}, exclusive, sharing this arena's memory.
+     */
+    public G1PointArena slice(int from, int to) {
+        if (from < 0 || from > to || to > size()) {
+            throw new IndexOutOfBoundsException("Slice [" + from + ", " + to + ") of " + size() + " points");
+        }
+        ByteBuffer b = buffer.duplicate();
+        b.limit(to * POINT_SIZE);
+        b.position(from * POINT_SIZE);
+        return new G1PointArena(b);
+    }
+
+    /**
+     * Computes s[0] * p[0] + s[1] * p[1] + ... over all the points of this arena.
+     *
+     * Failure Mode: Any illegal points or scalars (>= group order) yield an Exception.
+     */
+    public G1Point multiExp(BigInteger[] s) throws Exception {
+        ByteBuffer scalars = ByteBuffer.allocateDirect(Math.multiplyExact(s.length, Util.FP_SIZE));
+        for (BigInteger scalar : s) {
+            scalars.put(Util.serializeScalar(scalar));
+        }
+        scalars.flip();
+        return multiExp(scalars);
+    }
+
+    /**
+     * Computes the multi-exponentiation with scalars read from the remaining bytes of a direct buffer, each 32 bytes
+     * big-endian, one per point.
+     *
+     * Failure Mode: Any illegal points or scalars (>= group order) yield an Exception.
+     */
+    public G1Point multiExp(ByteBuffer scalars) throws Exception {
+        if (scalars.remaining() != size() * Util.FP_SIZE) {
+            throw new IllegalArgumentException("Expected " + size() + " scalars");
+        }
+        return Util.deserializeG1(AltBn128.g1MultiExp(buffer(), scalars));
+    }
+
+    /**
+     * Returns a view of the encoded points, which shares this arena's memory.
+     */
+    public ByteBuffer buffer() {
+        return buffer.duplicate();
+    }
+}
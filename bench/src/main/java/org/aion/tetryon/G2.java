@@ -1,6 +1,7 @@
 package org.aion.tetryon;
 
 import java.math.BigInteger;
+import java.util.Arrays;
 
 /**
  * A collection of Elliptic Curve operations on G2 for alt_bn128.
@@ -16,8 +17,67 @@ public class G2 {
             new BigInteger("9713b03af0fed4cd2cafadeed8fdf4a74fa084e52d1852e4a2bd0685c315d2", 16)
     );
 
+    // The order r of the G2 subgroup
+    private static final BigInteger r = new BigInteger("21888242871839275222246405745257275088548364400416034343698204186575808495617");
+
+    /**
+     * Adds two points in native code.
+     *
+     * @param p1 the first point
+     * @param p2 the second point
+     * @return p1 + p2
+     */
+    public static G2Point add(G2Point p1, G2Point p2) throws Exception {
+        byte[] p1data = Util.serializeG2(p1);
+        byte[] p2data = Util.serializeG2(p2);
+        byte[] resultData = AltBn128.g2EcAdd(p1data, p2data);
+        G2Point result = Util.deserializeG2(resultData);
+        return result;
+    }
+
+    /**
+     * Multiplies a point by a scalar in native code. The scalar is reduced modulo the group order,
+     * which is safe since the native side only accepts points in the order-r subgroup.
+     *
+     * @param p the point
+     * @param s the multiplier
+     * @return s * p
+     */
+    public static G2Point mul(G2Point p, BigInteger s) throws Exception {
+        byte[] pdata = Util.serializeG2(p);
+        byte[] resultData = AltBn128.g2EcMul(pdata, s.mod(r));
+        G2Point result = Util.deserializeG2(resultData);
+        return result;
+    }
+
+    /**
+     * Multiplies a point by a scalar in native code.
+     *
+     * @param p the point
+     * @param s the multiplier
+     * @return s * p
+     */
+    public static G2Point mul(G2Point p, Fr s) throws Exception {
+        byte[] pdata = Util.serializeG2(p);
+        byte[] resultData = AltBn128.g2EcMul(pdata, s);
+        G2Point result = Util.deserializeG2(resultData);
+        return result;
+    }
+
     /**
-     * Adds two points.
+     * Negates a point in native code.
+     *
+     * @param p the point
+     * @return -p
+     */
+    public static G2Point negate(G2Point p) throws Exception {
+        byte[] resultData = AltBn128.g2Negate(Util.serializeG2(p));
+        G2Point result = Util.deserializeG2(resultData);
+        return result;
+    }
+
+    /**
+     * Adds two points. Pure-Java reference implementation; see {@link #add(G2Point, G2Point)}.
      *
      * @param p1 the first point
      * @param p2 the second point
@@ -43,7 +103,7 @@ public class G2 {
     }
 
     /**
-     * Multiplies a point by a scalar.
+     * Multiplies a point by a scalar. Pure-Java reference implementation; see {@link #mul(G2Point, BigInteger)}.
      *
      * @param p the point
      * @param s the multiplier
@@ -59,6 +119,66 @@ public class G2 {
         return p2;
     }
 
+    /**
+     * Adds any number of points. Pure-Java; the sum stays in Jacobian form until the end, so that only a single
+     * field inversion is spent, instead of one per addition.
+     *
+     * @param points the points
+     * @return the sum of the points, or infinity if there are none
+     */
+    public static G2Point sum(G2Point... points) {
+        long[] r = toJacobian(new G2Point(Fp2.zero(), Fp2.zero())).toLimbs();
+        long[] t = new long[ADD_SCRATCH];
+        for (G2Point p : points) {
+            if (!p.isZero()) {
+                assert isOnCurve(p);
+                add(r, toJacobian(p).toLimbs(), t);
+            }
+        }
+        return new JacobianPoint(r).toAffine();
+    }
+
+    /**
+     * Converts many points to affine form with a single field inversion (Montgomery's trick): the z coordinates are
+     * multiplied together, the product is inverted once, and each z^-1 is peeled off the inverted product with two
+     * multiplications.
+     *
+     * @param points the points; points at infinity convert to the all-zero point
+     * @return the affine points, in the same order
+     */
+    public static G2Point[] toAffineBatch(JacobianPoint[] points) {
+        int n = points.length;
+        long[] z = new long[n * Fp2.LIMBS];
+        // prefix[i] = the product of the non-zero z[j] for j < i
+        long[] prefix = new long[n * Fp2.LIMBS];
+        long[] acc = new long[Fp2.LIMBS];
+        MontgomeryField.FP.setOne(acc, 0);
+        for (int i = 0; i < n; i++) {
+            points[i].z.toLimbs(z, i * Fp2.LIMBS);
+            System.arraycopy(acc, 0, prefix, i * Fp2.LIMBS, Fp2.LIMBS);
+            if (!Fp2.isZero(z, i * Fp2.LIMBS)) {
+                Fp2.mul(acc, 0, acc, 0, z, i * Fp2.LIMBS);
+            }
+        }
+
+        // acc = (z[0] * ... * z[i])^-1 while walking back from the last point
+        Fp2.inverse(acc, 0, acc, 0);
+        G2Point[] result = new G2Point[n];
+        long[] inv = new long[Fp2.LIMBS];
+        for (int i = n - 1; i >= 0; i--) {
+            if (Fp2.isZero(z, i * Fp2.LIMBS)) {
+                result[i] = new G2Point(Fp2.zero(), Fp2.zero());
+                continue;
+            }
+            Fp2.mul(inv, 0, acc, 0, prefix, i * Fp2.LIMBS);
+            Fp2.mul(acc, 0, acc, 0, z, i * Fp2.LIMBS);
+
+            Fp2 zInv = Fp2.fromLimbs(inv, 0);
+            result[i] = new G2Point(points[i].x.multiply(zInv), points[i].y.multiply(zInv));
+        }
+        return result;
+    }
+
     protected static boolean isOnCurve(G2Point p) {
         Fp2 y2 = p.y.multiply(p.y); // y^2
         Fp2 x3 = p.x.multiply(p.x).multiply(p.x); // x^3
@@ -74,71 +194,148 @@ public class G2 {
             return p1;
         }
 
-        Fp2 U1 = p2.y.multiply(p1.z); // U1 = p2.y * p1.z
-        Fp2 U2 = p1.y.multiply(p2.z); // U2 = p1.y * p2.z
-        Fp2 V1 = p2.x.multiply(p1.z); // V1 = p2.x * p1.z
-        Fp2 V2 = p1.x.multiply(p2.z); // V2 = p1.x * p2.z
+        long[] r = p1.toLimbs();
+        add(r, p2.toLimbs(), new long[ADD_SCRATCH]);
+        return new JacobianPoint(r);
+    }
 
-        if (p2.x.equals(V2)) {
-            if (p2.y.equals(U2)) {
-                return ECTwistDouble(p1);
-            }
+    protected static JacobianPoint ECTwistMul(JacobianPoint p, BigInteger s) {
+        long[] r = new long[POINT_LIMBS];
+        mul(r, p.toLimbs(), s);
+        return new JacobianPoint(r);
+    }
 
-            return new JacobianPoint(Fp2.one(), Fp2.one(), Fp2.zero());
-        }
+    protected static JacobianPoint ECTwistDouble(JacobianPoint p) {
+        long[] r = p.toLimbs();
+        doubleInPlace(r, new long[DOUBLE_SCRATCH]);
+        return new JacobianPoint(r);
+    }
 
-        Fp2 W = p1.z.multiply(p2.z); // W = p1.z * p2.z
-        Fp2 V = V1.subtract(V2); // V = V1 - V2
-        Fp2 V_2 = V.multiply(V);
-        Fp2 V_3 = V_2.multiply(V);
-        // z = V^3 * W
-        Fp2 z = V_3.multiply(W);
+    // A point in limb form is x, y, z of Fp2.LIMBS each.
+    static final int POINT_LIMBS = 3 * Fp2.LIMBS;
+    private static final int X = 0, Y = Fp2.LIMBS, Z = 2 * Fp2.LIMBS;
+    static final int DOUBLE_SCRATCH = 5 * Fp2.LIMBS;
+    static final int ADD_SCRATCH = 8 * Fp2.LIMBS;
 
-        Fp2 U = U1.subtract(U2); // U = U1 - U2
-        Fp2 U_2 = U.multiply(U);
-        Fp2 A = U_2.multiply(W).subtract(V_3).subtract(V_2.multiply(V2).multiply(BigInteger.TWO));
-        // x = V * (U^2 * W - V^3 - 2 * V^2 * V2)
-        Fp2 x = V.multiply(A);
+    /**
+     * p1 = p1 + p2, in place on limb arrays.
+     *
+     * @param t scratch space of at least {@link #ADD_SCRATCH} limbs
+     */
+    static void add(long[] p1, long[] p2, long[] t) {
+        if (Fp2.isZero(p1, Z)) {
+            System.arraycopy(p2, 0, p1, 0, POINT_LIMBS);
+            return;
+        } else if (Fp2.isZero(p2, Z)) {
+            return;
+        }
 
-        // y = U * (v^2 * V2 - A) - V^3 * U2
-        Fp2 y = U.multiply(V_2.multiply(V2).subtract(A)).subtract(V_3.multiply(U2));
+        final int U1 = 0, U2 = 8, V1 = 16, V2 = 24, W = 32, V_2 = 40, V_3 = 48, T = 56;
+        Fp2.mul(t, U1, p2, Y, p1, Z); // U1 = p2.y * p1.z
+        Fp2.mul(t, U2, p1, Y, p2, Z); // U2 = p1.y * p2.z
+        Fp2.mul(t, V1, p2, X, p1, Z); // V1 = p2.x * p1.z
+        Fp2.mul(t, V2, p1, X, p2, Z); // V2 = p1.x * p2.z
 
-        return new JacobianPoint(x, y, z);
-    }
+        if (Fp2.equal(t, V1, t, V2)) {
+            if (Fp2.equal(t, U1, t, U2)) {
+                doubleInPlace(p1, t);
+                return;
+            }
 
-    protected static JacobianPoint ECTwistMul(JacobianPoint p, BigInteger s) {
-        JacobianPoint p2 = new JacobianPoint(Fp2.zero(), Fp2.zero(), Fp2.zero());
+            setInfinity(p1);
+            return;
+        }
 
-        while (!s.equals(BigInteger.ZERO)) {
-            if (s.testBit(0)) {
-                p2 = ECTwistAdd(p2, p);
-            }
+        Fp2.mul(t, W, p1, Z, p2, Z); // W = p1.z * p2.z
+        Fp2.sub(t, V1, t, V1, t, V2); // V = V1 - V2
+        Fp2.square(t, V_2, t, V1);
+        Fp2.mul(t, V_3, t, V_2, t, V1);
+        Fp2.sub(t, U1, t, U1, t, U2); // U = U1 - U2
 
-            p = ECTwistDouble(p);
+        // A = U^2 * W - V^3 - 2 * V^2 * V2
+        Fp2.square(t, T, t, U1);
+        Fp2.mul(t, T, t, T, t, W);
+        Fp2.sub(t, T, t, T, t, V_3);
+        Fp2.mul(t, V_2, t, V_2, t, V2);
+        Fp2.sub(t, T, t, T, t, V_2);
+        Fp2.sub(t, T, t, T, t, V_2);
 
-            s = s.divide(BigInteger.TWO);
-        }
+        // z = V^3 * W
+        Fp2.mul(p1, Z, t, V_3, t, W);
+        // x = V * A
+        Fp2.mul(p1, X, t, V1, t, T);
+        // y = U * (V^2 * V2 - A) - V^3 * U2
+        Fp2.sub(t, V_2, t, V_2, t, T);
+        Fp2.mul(t, V_2, t, U1, t, V_2);
+        Fp2.mul(t, V_3, t, V_3, t, U2);
+        Fp2.sub(p1, Y, t, V_2, t, V_3);
+    }
 
-        return p2;
+    /**
+     * r = s * p on limb arrays. p is left unchanged.
+     */
+    static void mul(long[] r, long[] p, BigInteger s) {
+        long[] base = p.clone();
+        long[] scratch = new long[ADD_SCRATCH];
+        Arrays.fill(r, 0, POINT_LIMBS, 0);
+
+        for (int i = 0, bits = s.bitLength(); i < bits; i++) {
+            if (s.testBit(i)) {
+                add(r, base, scratch);
+            }
+            doubleInPlace(base, scratch);
+        }
     }
 
-    protected static JacobianPoint ECTwistDouble(JacobianPoint p) {
-        Fp2 W = p.x.multiply(p.x).multiply(BigInteger.valueOf(3)); // W = 3 * x * x
-        Fp2 S = p.y.multiply(p.z); // S = y * z
-        Fp2 B = p.x.multiply(p.y).multiply(S); // B = x * y * S
-        Fp2 H = W.multiply(W).subtract(B.multiply(BigInteger.valueOf(8))); // H = W * W - 8 * B
-        Fp2 S_2 = S.multiply(S); // S^2
-        Fp2 S_3 = S_2.multiply(S); // S^3
+    /**
+     * p = 2 * p, in place on a limb array.
+     *
+     * @param t scratch space of at least {@link #DOUBLE_SCRATCH} limbs
+     */
+    static void doubleInPlace(long[] p, long[] t) {
+        final int W = 0, S = 8, B = 16, H = 24, T = 32;
+        Fp2.square(t, W, p, X);
+        Fp2.add(t, T, t, W, t, W);
+        Fp2.add(t, W, t, T, t, W); // W = 3 * x * x
+        Fp2.mul(t, S, p, Y, p, Z); // S = y * z
+        Fp2.mul(t, B, p, X, p, Y);
+        Fp2.mul(t, B, t, B, t, S); // B = x * y * S
+
+        // H = W * W - 8 * B
+        Fp2.square(t, H, t, W);
+        times8(t, T, t, B);
+        Fp2.sub(t, H, t, H, t, T);
 
         // y = W * (4 * B - H) - 8 * y * y * S^2
-        Fp2 y = W.multiply(B.multiply(BigInteger.valueOf(4)).subtract(H))
-                .subtract(p.y.multiply(p.y).multiply(BigInteger.valueOf(8)).multiply(S_2));
+        Fp2.add(t, T, t, B, t, B);
+        Fp2.add(t, T, t, T, t, T);
+        Fp2.sub(t, T, t, T, t, H);
+        Fp2.mul(t, T, t, W, t, T);
+        Fp2.square(t, W, p, Y);
+        times8(t, W, t, W);
+        Fp2.square(t, B, t, S); // S^2
+        Fp2.mul(t, W, t, W, t, B);
+        Fp2.sub(p, Y, t, T, t, W);
+
         // x = 2 * H * S
-        Fp2 x = H.multiply(S).multiply(BigInteger.TWO);
+        Fp2.mul(p, X, t, H, t, S);
+        Fp2.add(p, X, p, X, p, X);
+
         // z = 8 * S^3
-        Fp2 z = S_3.multiply(BigInteger.valueOf(8));
+        Fp2.mul(t, B, t, B, t, S);
+        times8(p, Z, t, B);
+    }
+
+    private static void times8(long[] r, int ro, long[] a, int ao) {
+        Fp2.add(r, ro, a, ao, a, ao);
+        Fp2.add(r, ro, r, ro, r, ro);
+        Fp2.add(r, ro, r, ro, r, ro);
+    }
 
-        return new JacobianPoint(x, y, z);
+    private static void setInfinity(long[] p) {
+        Arrays.fill(p, 0);
+        MontgomeryField.FP.setOne(p, X);
+        MontgomeryField.FP.setOne(p, Y);
     }
 
     protected static JacobianPoint toJacobian(G2Point p) {
@@ -156,6 +353,18 @@ public class G2 {
             this.z = z;
         }
 
+        JacobianPoint(long[] limbs) {
+            this(Fp2.fromLimbs(limbs, X), Fp2.fromLimbs(limbs, Y), Fp2.fromLimbs(limbs, Z));
+        }
+
+        long[] toLimbs() {
+            long[] limbs = new long[POINT_LIMBS];
+            x.toLimbs(limbs, X);
+            y.toLimbs(limbs, Y);
+            z.toLimbs(limbs, Z);
+            return limbs;
+        }
+
         public G2Point toAffine() {
             if (z.isZero()) {
                 return new G2Point(Fp2.zero(), Fp2.zero());
@@ -185,7 +394,7 @@ public class G2 {
 
         @Override
         public String toString() {
-            return "((" + x.a + ", " + x.b + "), (" + y.a + ", " + y.b + "), (" + z.a + ", " + z.b + "))";
+            return "((" + x.a() + ", " + x.b() + "), (" + y.a() + ", " + y.b() + "), (" + z.a() + ", " + z.b() + "))";
         }
     }
 }
@@ -0,0 +1,44 @@
+package org.aion.tetryon;
+
+import java.util.Arrays;
+
+/**
+ * Results of a batched G2 operation: the packed output points, plus a status per item.
+ *
+ * A status of 0 means the item succeeded; any other value is the error code reported by the native
+ * library for that item, whose output point is then left as zeros.
+ */
+public class G2BatchResult {
+    private static final int G2_POINT_SIZE = 4 * Util.FP_SIZE;
+
+    // points, encoded like so: [p1.x || p1.y || p2.x || p2.y || ...], real parts first. Each coordinate is 64-byte aligned.
+    public final byte[] points;
+    public final int[] status;
+
+    public G2BatchResult(byte[] points, int[] status) {
+        this.points = points;
+        this.status = status;
+    }
+
+    public int size() {
+        return status.length;
+    }
+
+    public boolean isValid(int i) {
+        return status[i] == 0;
+    }
+
+    public boolean allValid() {
+        for (int s : status) {
+            if (s != 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the i-th output point, encoded like so: [p.x || p.y].
+     */
+    public byte[] get(int i) {
+        return Arrays.copyOfRange(points, i * G2_POINT_SIZE, (i + 1) * G2_POINT_SIZE);
+    }
+}
@@ -0,0 +1,107 @@
+package org.aion.tetryon;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A list of points in G2 stored off-heap, back to back in the 128-byte encoding
+ * [p[0].x || p[0].y || p[1].x || p[1].y] used by {@link AltBn128}, for point sets too large to keep as
+ * {@link G2Point} objects. The memory is a direct buffer, so pairing checks read it in place, without a copy.
+ * <p>
+ * Slices share memory with the arena they come from. A single arena holds up to 2^31 bytes, about 16 million
+ * points. Points are not validated on the way in; the native calls that use them do that.
+ */
+public final class G2PointArena {
+
+    public static final int POINT_SIZE = 4 * Util.FP_SIZE;
+
+    // position 0, limit at the end of the last point
+    private final ByteBuffer buffer;
+
+    private G2PointArena(ByteBuffer buffer) {
+        if (!buffer.isDirect() || buffer.remaining() % POINT_SIZE != 0) {
+            throw new IllegalArgumentException("Expected a direct buffer of whole points");
+        }
+        this.buffer = buffer.slice();
+    }
+
+    /**
+     * Allocates an arena of points at infinity (all zeros).
+     */
+    public static G2PointArena allocate(int size) {
+        return new G2PointArena(ByteBuffer.allocateDirect(Math.multiplyExact(size, POINT_SIZE)));
+    }
+
+    /**
+     * Wraps the remaining bytes of a direct buffer, which must hold whole points. The arena shares its memory.
+     */
+    public static G2PointArena wrap(ByteBuffer buffer) {
+        return new G2PointArena(buffer);
+    }
+
+    /**
+     * Reads a file of encoded points into a new arena.
+     */
+    public static G2PointArena load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(Math.toIntExact(channel.size()));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("Unexpected end of " + file);
+                }
+            }
+            buffer.flip();
+            return new G2PointArena(buffer);
+        }
+    }
+
+    /**
+     * Maps a file of encoded points into memory, read-only, without reading it up front.
+     */
+    public static G2PointArena map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new G2PointArena(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public int size() {
+        return buffer.limit() / POINT_SIZE;
+    }
+
+    public G2Point get(int i) {
+        byte[] data = new byte[POINT_SIZE];
+        ByteBuffer b = buffer.duplicate();
+        b.position(Math.multiplyExact(i, POINT_SIZE));
+        b.get(data);
+        return Util.deserializeG2(data);
+    }
+
+    public void set(int i, G2Point p) {
+        ByteBuffer b = buffer.duplicate();
+        b.position(Math.multiplyExact(i, POINT_SIZE));
+        b.put(Util.serializeG2(p));
+    }
+
+    /**
+     * Returns the points from index {@code from}, inclusive, to {@code to}, exclusive, sharing this arena's memory.
+     */
+    public G2PointArena slice(int from, int to) {
+        if (from < 0 || from > to || to > size()) {
+            throw new IndexOutOfBoundsException("Slice [" + from + ", " + to + ") of " + size() + " points");
+        }
+        ByteBuffer b = buffer.duplicate();
+        b.limit(to * POINT_SIZE);
+        b.position(from * POINT_SIZE);
+        return new G2PointArena(b);
+    }
+
+    /**
+     * Returns a view of the encoded points, which shares this arena's memory.
+     */
+    public ByteBuffer buffer() {
+        return buffer.duplicate();
+    }
+}
@@ -0,0 +1,331 @@
+package org.aion.tetryon;
+
+import java.lang.ref.Reference;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A Groth16 verifier, prepared once for a verifying key and reusable across proofs and threads.
+ * <p>
+ * The verification equation of [Groth16] is e(A, B) = e(alpha, beta) * e(X, gamma) * e(C, delta), where
+ * X = gamma_abc[0] + input[0] * gamma_abc[1] + input[1] * gamma_abc[2] + ... combines the public inputs.
+ * {@link #prepare(VerifyingKey)} validates the key, negates gamma and delta, and computes e(alpha, beta) once,
+ * so that {@link #verify(Proof, BigInteger[])} checks e(A, B) * e(X, -gamma) * e(C, -delta) == e(alpha, beta):
+ * one multi-exponentiation for X, three Miller loops and a single final exponentiation. The gamma_abc points get
+ * {@link G1FixedBase} tables, so that X takes additions only.
+ * <p>
+ * {@link #verifyBatch(List, List)} checks many proofs for the same key at once, folding them into a single
+ * pairing equation with random coefficients.
+ */
+public final class Groth16 implements AutoCloseable {
+
+    // The order r of G1 and G2; public inputs must be below it
+    public static final BigInteger SNARK_SCALAR_FIELD = Fr.MODULUS;
+
+    public static class VerifyingKey {
+        public final G1Point alpha;
+        public final G2Point beta;
+        public final G2Point gamma;
+        public final G2Point delta;
+        public final G1Point[] gamma_abc;
+
+        public VerifyingKey(G1Point alpha, G2Point beta, G2Point gamma, G2Point delta, G1Point[] gamma_abc) {
+            this.alpha = alpha;
+            this.beta = beta;
+            this.gamma = gamma;
+            this.delta = delta;
+            this.gamma_abc = gamma_abc;
+        }
+    }
+
+    public static class Proof {
+        public final G1Point a;
+        public final G2Point b;
+        public final G1Point c;
+
+        public Proof(G1Point a, G2Point b, G1Point c) {
+            this.a = a;
+            this.b = b;
+            this.c = c;
+        }
+    }
+
+    private static final int G1_POINT_SIZE = 2 * Util.FP_SIZE;
+    private static final int G2_POINT_SIZE = 4 * Util.FP_SIZE;
+    // bits of the random coefficients in a batch; a batch with an invalid proof passes with probability 2^-128
+    private static final int BATCH_COEFFICIENT_BITS = 128;
+    // memory for each fixed-base table: 5-bit windows, 51 additions per product
+    private static final long FIXED_BASE_BUDGET = 160L << 10;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    public final VerifyingKey vk;
+    // SHA-256 of the encoded key, which identifies it in a VerificationCache
+    private final byte[] keyId;
+    private final G1FixedBase[] gammaAbc;
+    private final G1FixedBase alpha;
+    private final PreparedG2 negGamma;
+    private final PreparedG2 negDelta;
+    private final PreparedG2 negBeta;
+    // e(alpha, beta)
+    private final GtElement alphaBeta;
+
+    private Groth16(VerifyingKey vk, G1FixedBase[] gammaAbc, G1FixedBase alpha, PreparedG2 negGamma, PreparedG2 negDelta,
+                    PreparedG2 negBeta, GtElement alphaBeta) throws Exception {
+        this.vk = vk;
+        this.keyId = keyId(vk);
+        this.gammaAbc = gammaAbc;
+        this.alpha = alpha;
+        this.negGamma = negGamma;
+        this.negDelta = negDelta;
+        this.negBeta = negBeta;
+        this.alphaBeta = alphaBeta;
+    }
+
+    /**
+     * Validates a verifying key and precomputes everything that does not depend on the proof.
+     *
+     * Failure Mode: Any illegal point in the key yields an Exception.
+     */
+    public static Groth16 prepare(VerifyingKey vk) throws Exception {
+        if (vk.gamma_abc.length == 0) {
+            throw new IllegalArgumentException("Verifying key has no gamma_abc points");
+        }
+
+        GtElement alphaBeta = GtElement.pairing(vk.alpha, vk.beta);
+        List<AutoCloseable> resources = new ArrayList<>(vk.gamma_abc.length + 4);
+        try {
+            // every point is validated as its table is built
+            G1FixedBase[] gammaAbc = new G1FixedBase[vk.gamma_abc.length];
+            for (int i = 0; i < gammaAbc.length; i++) {
+                gammaAbc[i] = G1FixedBase.create(vk.gamma_abc[i], FIXED_BASE_BUDGET);
+                resources.add(gammaAbc[i]);
+            }
+            G1FixedBase alpha = G1FixedBase.create(vk.alpha, FIXED_BASE_BUDGET);
+            resources.add(alpha);
+
+            PreparedG2[] prepared = new PreparedG2[3];
+            G2Point[] points = new G2Point[]{vk.gamma, vk.delta, vk.beta};
+            for (int i = 0; i < prepared.length; i++) {
+                prepared[i] = PreparedG2.prepare(G2.negate(points[i]));
+                resources.add(prepared[i]);
+            }
+            return new Groth16(vk, gammaAbc, alpha, prepared[0], prepared[1], prepared[2], alphaBeta);
+        } catch (Exception e) {
+            for (AutoCloseable r : resources) {
+                r.close();
+            }
+            alphaBeta.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Verifies a proof against public inputs.
+     *
+     * Failure Mode: Illegal points in the proof yield a result 'false'. Inputs of the wrong count, or not in
+     * [0, SNARK_SCALAR_FIELD), yield an IllegalArgumentException.
+     */
+    public boolean verify(Proof proof, BigInteger[] input) throws Exception {
+        byte[] x = fixedBaseMul(gammaAbc, inputScalars(input));
+
+        byte[] g1List = new byte[3 * G1_POINT_SIZE];
+        PointCodec.encodeG1(proof.a, g1List, 0);
+        System.arraycopy(x, 0, g1List, G1_POINT_SIZE, G1_POINT_SIZE);
+        PointCodec.encodeG1(proof.c, g1List, 2 * G1_POINT_SIZE);
+
+        // e(A, B) * e(X, -gamma) * e(C, -delta) == e(alpha, beta)
+        try {
+            return AltBn128.ecPairPreparedEquals(g1List, Util.serializeG2(proof.b),
+                    new long[]{negGamma.handle(), negDelta.handle()}, alphaBeta.handle());
+        } finally {
+            Reference.reachabilityFence(this);
+        }
+    }
+
+    /**
+     * Verifies many proofs at once, returning whether each one is valid.
+     * <p>
+     * With random coefficients r_i, the N equations are folded into
+     * prod_i e(r_i * A_i, B_i) * e(sum_i r_i * X_i, -gamma) * e(sum_i r_i * C_i, -delta) * e(sum_i r_i * alpha, -beta) == 1,
+     * which costs N + 3 Miller loops and a single final exponentiation. The combined X is a single
+     * multi-exponentiation over gamma_abc. If the combined check fails, the batch is split in halves and each half is
+     * checked again, down to single proofs, so that exactly the invalid proofs are reported.
+     *
+     * Failure Mode: Illegal points, or inputs of the wrong count or not in the scalar field, make that proof invalid.
+     */
+    public boolean[] verifyBatch(List<Proof> proofs, List<BigInteger[]> inputs) throws Exception {
+        if (proofs.size() != inputs.size()) {
+            throw new IllegalArgumentException("Proofs and inputs are not in pair");
+        }
+
+        boolean[] valid = new boolean[proofs.size()];
+        List<Integer> candidates = new ArrayList<>(proofs.size());
+        for (int i = 0; i < proofs.size(); i++) {
+            if (isValidInput(inputs.get(i))) {
+                candidates.add(i);
+            }
+        }
+        verifyBatch(proofs, inputs, candidates, valid);
+        return valid;
+    }
+
+    private void verifyBatch(List<Proof> proofs, List<BigInteger[]> inputs, List<Integer> indices, boolean[] valid) throws Exception {
+        if (indices.isEmpty()) {
+            return;
+        }
+        if (indices.size() == 1) {
+            int i = indices.get(0);
+            valid[i] = verify(proofs.get(i), inputs.get(i));
+            return;
+        }
+
+        if (verifyCombined(proofs, inputs, indices)) {
+            for (int i : indices) {
+                valid[i] = true;
+            }
+            return;
+        }
+        int mid = indices.size() / 2;
+        verifyBatch(proofs, inputs, indices.subList(0, mid), valid);
+        verifyBatch(proofs, inputs, indices.subList(mid, indices.size()), valid);
+    }
+
+    private boolean verifyCombined(List<Proof> proofs, List<BigInteger[]> inputs, List<Integer> indices) throws Exception {
+        int n = indices.size();
+        byte[] aList = new byte[n * G1_POINT_SIZE];
+        byte[] cList = new byte[n * G1_POINT_SIZE];
+        byte[] bList = new byte[n * G2_POINT_SIZE];
+        byte[] rList = new byte[n * Util.FP_SIZE];
+
+        // xScalars[0] = sum_i r_i, xScalars[j + 1] = sum_i r_i * input_i[j], reduced as they are summed
+        Fr[] xScalars = new Fr[vk.gamma_abc.length];
+        Arrays.fill(xScalars, Fr.ZERO);
+        for (int k = 0; k < n; k++) {
+            Proof proof = proofs.get(indices.get(k));
+            BigInteger[] input = inputs.get(indices.get(k));
+            Fr r = randomCoefficient();
+
+            PointCodec.encodeG1(proof.a, aList, k * G1_POINT_SIZE);
+            PointCodec.encodeG1(proof.c, cList, k * G1_POINT_SIZE);
+            PointCodec.encodeG2(proof.b, bList, k * G2_POINT_SIZE);
+            r.toBytes(rList, k * Util.FP_SIZE);
+
+            xScalars[0] = xScalars[0].add(r);
+            for (int j = 0; j < input.length; j++) {
+                xScalars[j + 1] = xScalars[j + 1].add(r.mul(Fr.valueOf(input[j])));
+            }
+        }
+        byte[] xScalarList = new byte[xScalars.length * Util.FP_SIZE];
+        for (int j = 0; j < xScalars.length; j++) {
+            xScalars[j].toBytes(xScalarList, j * Util.FP_SIZE);
+        }
+
+        // r_i * A_i; an illegal A_i fails the combined check and is isolated by bisection
+        G1BatchResult ra = AltBn128.g1EcMulBatch(aList, rList);
+        if (!ra.allValid()) {
+            return false;
+        }
+        byte[] x = fixedBaseMul(gammaAbc, xScalarList);
+        byte[] c;
+        try {
+            c = AltBn128.g1MultiExp(cList, rList);
+        } catch (Exception e) {
+            return false;
+        }
+        byte[] alpha = fixedBaseMul(new G1FixedBase[]{this.alpha}, xScalars[0].toBytes());
+
+        byte[] g1List = new byte[(n + 3) * G1_POINT_SIZE];
+        System.arraycopy(ra.points, 0, g1List, 0, n * G1_POINT_SIZE);
+        System.arraycopy(x, 0, g1List, n * G1_POINT_SIZE, G1_POINT_SIZE);
+        System.arraycopy(c, 0, g1List, (n + 1) * G1_POINT_SIZE, G1_POINT_SIZE);
+        System.arraycopy(alpha, 0, g1List, (n + 2) * G1_POINT_SIZE, G1_POINT_SIZE);
+
+        try {
+            return AltBn128.ecPairPrepared(g1List, bList, new long[]{negGamma.handle(), negDelta.handle(), negBeta.handle()});
+        } finally {
+            Reference.reachabilityFence(this);
+        }
+    }
+
+    byte[] keyId() {
+        return keyId;
+    }
+
+    private static byte[] keyId(VerifyingKey vk) throws Exception {
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        md.update(Util.serializeG1(vk.alpha));
+        md.update(Util.serializeG2(vk.beta));
+        md.update(Util.serializeG2(vk.gamma));
+        md.update(Util.serializeG2(vk.delta));
+        for (G1Point p : vk.gamma_abc) {
+            md.update(Util.serializeG1(p));
+        }
+        return md.digest();
+    }
+
+    private static byte[] fixedBaseMul(G1FixedBase[] bases, byte[] scalars) throws Exception {
+        long[] handles = new long[bases.length];
+        for (int i = 0; i < bases.length; i++) {
+            handles[i] = bases[i].handle();
+        }
+        try {
+            return AltBn128.g1FixedBaseMul(handles, scalars);
+        } finally {
+            Reference.reachabilityFence(bases);
+        }
+    }
+
+    private static Fr randomCoefficient() {
+        Fr r;
+        do {
+            r = Fr.random(RANDOM, BATCH_COEFFICIENT_BITS);
+        } while (r.isZero());
+        return r;
+    }
+
+    private boolean isValidInput(BigInteger[] input) {
+        if (input.length + 1 != vk.gamma_abc.length) {
+            return false;
+        }
+        for (BigInteger in : input) {
+            if (!Fr.inRange(in)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // [1 || input[0] || input[1] || ...], the scalars of the public-input combination
+    private byte[] inputScalars(BigInteger[] input) {
+        if (input.length + 1 != vk.gamma_abc.length) {
+            throw new IllegalArgumentException("Expected " + (vk.gamma_abc.length - 1) + " public inputs, got " + input.length);
+        }
+
+        byte[] scalars = new byte[(input.length + 1) * Util.FP_SIZE];
+        scalars[Util.FP_SIZE - 1] = 1;
+        for (int i = 0; i < input.length; i++) {
+            if (!Fr.inRange(input[i])) {
+                throw new IllegalArgumentException("Public input " + i + " is not in the scalar field");
+            }
+            PointCodec.encodeScalar(input[i], scalars, (i + 1) * Util.FP_SIZE);
+        }
+        return scalars;
+    }
+
+    @Override
+    public void close() {
+        alphaBeta.close();
+        for (G1FixedBase p : gammaAbc) {
+            p.close();
+        }
+        alpha.close();
+        negGamma.close();
+        negDelta.close();
+        negBeta.close();
+    }
+}
@@ -0,0 +1,180 @@
+package org.aion.tetryon;
+
+import java.lang.ref.Reference;
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * An element of F_p^12 kept in native memory: a pairing value in Gt, or a Miller loop value on its way there.
+ * <p>
+ * Pairing values can be kept and combined instead of being collapsed into a yes/no check. Constant factors of a
+ * pairing equation, such as e(alpha, beta) of a verifying key, are computed once; and since e(p1, q1) * e(p2, q2)
+ * is the final exponentiation of the product of the two Miller loops, the loops of one equation can run at
+ * different times or on different threads, with {@link #finalExponentiation()} applied once to their product.
+ * <p>
+ * Elements are immutable and every operation returns a new one. The encoding of {@link #toBytes()} takes
+ * {@link #ENCODED_SIZE} bytes: the six F_p^2 coefficients of g + h w in tower order (g0, g1, g2, h0, h1, h2), each
+ * real part first, as 32-byte big-endian coordinates. Miller loop values depend on how the loop scales its lines,
+ * so only values in Gt have a canonical encoding.
+ * <p>
+ * The native memory is released by {@link #close()}, or by a cleaner once this object becomes unreachable.
+ * Closing while another thread is using this element is not allowed.
+ */
+public final class GtElement implements AutoCloseable {
+
+    public static final int ENCODED_SIZE = 12 * Util.FP_SIZE;
+
+    private static final byte[] ONE = new byte[ENCODED_SIZE];
+
+    static {
+        ONE[Util.FP_SIZE - 1] = 1;
+    }
+
+    private final NativeHandle handle;
+    // the encoding, read back lazily for hashCode()
+    private volatile byte[] encoded;
+
+    private GtElement(long handle) {
+        this.handle = new NativeHandle(this, handle, AltBn128::freeGt);
+    }
+
+    /**
+     * The identity of Gt, which a pairing check compares against.
+     */
+    public static GtElement one() throws Exception {
+        return fromBytes(ONE);
+    }
+
+    /**
+     * Computes e(p, q).
+     *
+     * Failure Mode: Any illegal point yields an Exception.
+     */
+    public static GtElement pairing(G1Point p, G2Point q) throws Exception {
+        return pairing(new G1Point[]{p}, new G2Point[]{q});
+    }
+
+    /**
+     * Computes the pairing product e(p[0], q[0]) * e(p[1], q[1]) * ... with a single final exponentiation.
+     *
+     * Failure Mode: Any illegal point yields an Exception.
+     */
+    public static GtElement pairing(G1Point[] p, G2Point[] q) throws Exception {
+        byte[][] data = Pairing.serializePairs(p, q);
+        return new GtElement(AltBn128.pairingGt(data[0], data[1]));
+    }
+
+    /**
+     * Computes the product of the Miller loops of the pairs (p[i], q[i]), to be combined with other Miller loop
+     * values by {@link #mul(GtElement)} and mapped into Gt by {@link #finalExponentiation()}.
+     *
+     * Failure Mode: Any illegal point yields an Exception.
+     */
+    public static GtElement millerLoop(G1Point[] p, G2Point[] q) throws Exception {
+        byte[][] data = Pairing.serializePairs(p, q);
+        return new GtElement(AltBn128.millerLoopGt(data[0], data[1]));
+    }
+
+    /**
+     * Reads an element encoded by {@link #toBytes()}. Membership in Gt is not checked, as Miller loop values are not
+     * in it.
+     *
+     * Failure Mode: A coordinate not below the field modulus yields an Exception.
+     */
+    public static GtElement fromBytes(byte[] data) throws Exception {
+        if (data.length != ENCODED_SIZE) {
+            throw new IllegalArgumentException("Gt elements take " + ENCODED_SIZE + " bytes");
+        }
+        return new GtElement(AltBn128.gtFromBytes(data));
+    }
+
+    /**
+     * Raises a Miller loop value to (p^12 - 1) / r, which lands in Gt.
+     */
+    public GtElement finalExponentiation() throws Exception {
+        try {
+            return new GtElement(AltBn128.gtFinalExponentiation(handle()));
+        } finally {
+            Reference.reachabilityFence(this);
+        }
+    }
+
+    public GtElement mul(GtElement other) throws Exception {
+        try {
+            return new GtElement(AltBn128.gtMul(handle(), other.handle()));
+        } finally {
+            Reference.reachabilityFence(this);
+            Reference.reachabilityFence(other);
+        }
+    }
+
+    /**
+     * Failure Mode: An exponent outside [0, group order) yields an Exception.
+     */
+    public GtElement pow(BigInteger e) throws Exception {
+        try {
+            return new GtElement(AltBn128.gtPow(handle(), e));
+        } finally {
+            Reference.reachabilityFence(this);
+        }
+    }
+
+    public byte[] toBytes() throws Exception {
+        return encoding().clone();
+    }
+
+    private byte[] encoding() throws Exception {
+        byte[] data = encoded;
+        if (data == null) {
+            try {
+                data = AltBn128.gtToBytes(handle());
+            } finally {
+                Reference.reachabilityFence(this);
+            }
+            encoded = data;
+        }
+        return data;
+    }
+
+    long handle() {
+        return handle.get();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof GtElement)) {
+            return false;
+        }
+        GtElement other = (GtElement) o;
+        try {
+            return AltBn128.gtEquals(handle(), other.handle());
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            // only a missing handle fails natively, which handle() already rules out
+            throw new IllegalStateException(e);
+        } finally {
+            Reference.reachabilityFence(this);
+            Reference.reachabilityFence(other);
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        try {
+            return Arrays.hashCode(encoding());
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        handle.close();
+    }
+}
@@ -0,0 +1,355 @@
+package org.aion.tetryon;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * {@link Bn128Backend} in pure Java, for hosts without the native library.
+ * <p>
+ * Field arithmetic runs on {@link MontgomeryField} limbs, G1 in Jacobian coordinates, G2 on the limb routines of
+ * {@link G2}, and pairings through {@link OptimalAtePairing}. Inputs are validated like the native library does:
+ * coordinates must be below the field modulus, points must be on the curve, and G2 points must be in the order-r
+ * subgroup. The error messages match the native ones.
+ */
+public final class JavaBn128Backend implements Bn128Backend {
+
+    private static final MontgomeryField F = MontgomeryField.FP;
+
+    private static final int FP_SIZE = 32;
+    private static final int G1_POINT_SIZE = 2 * FP_SIZE;
+    private static final int G2_POINT_SIZE = 4 * FP_SIZE;
+
+    // the order r of G1 and G2
+    private static final BigInteger ORDER = new BigInteger("21888242871839275222246405745257275088548364400416034343698204186575808495617");
+
+    // G1 points in Jacobian coordinates (X, Y, Z), x = X / Z^2, y = Y / Z^3
+    private static final int X = 0, Y = MontgomeryField.LIMBS, Z = 2 * MontgomeryField.LIMBS;
+    private static final int G1_LIMBS = 3 * MontgomeryField.LIMBS;
+    private static final int G1_SCRATCH = 8 * MontgomeryField.LIMBS;
+
+    private static final long[] B = new long[MontgomeryField.LIMBS];
+    private static final long[] TWIST_B = new long[Fp2.LIMBS];
+
+    static {
+        F.fromBigInteger(B, 0, BigInteger.valueOf(3));
+        G2.TWIST_B.toLimbs(TWIST_B, 0);
+    }
+
+    @Override
+    public String name() {
+        return "java";
+    }
+
+    @Override
+    public int g1EcAddInto(byte[] point1, byte[] point2, byte[] result, int resultOffset) {
+        if (!fits(point1, 0, G1_POINT_SIZE) || !fits(point2, 0, G1_POINT_SIZE)
+                || !fits(result, resultOffset, G1_POINT_SIZE)) {
+            return AltBn128.STATUS_INVALID_LENGTH;
+        }
+
+        long[] p = new long[G1_LIMBS];
+        long[] q = new long[G1_LIMBS];
+        int status = decodeG1(point1, 0, p, 0);
+        if (status == AltBn128.STATUS_OK) {
+            status = decodeG1(point2, 0, q, 0);
+        }
+        if (status != AltBn128.STATUS_OK) {
+            return status;
+        }
+        F.setOne(p, Z);
+
+        long[] t = new long[G1_SCRATCH];
+        g1AddAffine(p, q, 0, t);
+        encodeG1(p, t, result, resultOffset);
+        return AltBn128.STATUS_OK;
+    }
+
+    @Override
+    public int g1EcMulInto(byte[] point, byte[] scalar, byte[] result, int resultOffset) {
+        if (!fits(point, 0, G1_POINT_SIZE) || !fits(scalar, 0, FP_SIZE) || !fits(result, resultOffset, G1_POINT_SIZE)) {
+            return AltBn128.STATUS_INVALID_LENGTH;
+        }
+
+        long[] q = new long[G1_LIMBS];
+        int status = decodeG1(point, 0, q, 0);
+        if (status != AltBn128.STATUS_OK) {
+            return status;
+        }
+        if (new BigInteger(1, scalar, 0, FP_SIZE).compareTo(ORDER) >= 0) {
+            return AltBn128.STATUS_NOT_MEMBER;
+        }
+
+        long[] p = new long[G1_LIMBS];
+        long[] t = new long[G1_SCRATCH];
+        for (int i = 0; i < 8 * FP_SIZE; i++) {
+            g1Double(p, t);
+            if (((scalar[i >>> 3] >>> (7 - (i & 7))) & 1) != 0) {
+                g1AddAffine(p, q, 0, t);
+            }
+        }
+        encodeG1(p, t, result, resultOffset);
+        return AltBn128.STATUS_OK;
+    }
+
+    @Override
+    public byte[] g2EcAdd(byte[] point1, byte[] point2) throws Exception {
+        checkLength(point1, G2_POINT_SIZE);
+        checkLength(point2, G2_POINT_SIZE);
+
+        long[] p = decodeG2OrZero(point1);
+        long[] q = decodeG2OrZero(point2);
+        G2.add(p, q, new long[G2.ADD_SCRATCH]);
+        return encodeG2(p);
+    }
+
+    @Override
+    public byte[] g2EcMul(byte[] point, byte[] scalar) throws Exception {
+        checkLength(point, G2_POINT_SIZE);
+        checkLength(scalar, FP_SIZE);
+
+        long[] p = decodeG2OrZero(point);
+        BigInteger s = new BigInteger(1, Arrays.copyOfRange(scalar, 0, FP_SIZE));
+        if (s.compareTo(ORDER) >= 0) {
+            throw new Exception("NotMember");
+        }
+
+        long[] r = new long[G2.POINT_LIMBS];
+        G2.mul(r, p, s);
+        return encodeG2(r);
+    }
+
+    @Override
+    public byte[] g2Negate(byte[] point) throws Exception {
+        checkLength(point, G2_POINT_SIZE);
+
+        long[] p = decodeG2OrZero(point);
+        Fp2.neg(p, Fp2.LIMBS, p, Fp2.LIMBS);
+        return encodeG2(p);
+    }
+
+    @Override
+    public int ecPairStatus(byte[] g1_point_list, byte[] g2_point_list) {
+        if (g1_point_list == null || g2_point_list == null) {
+            return AltBn128.STATUS_INVALID_LENGTH;
+        }
+        int n = g1_point_list.length / G1_POINT_SIZE;
+        if (g2_point_list.length < n * G2_POINT_SIZE) {
+            return AltBn128.STATUS_INVALID_LENGTH;
+        }
+
+        long[] g1 = new long[n * OptimalAtePairing.G1_LIMBS];
+        long[] g2 = new long[n * OptimalAtePairing.G2_LIMBS];
+        long[] q = new long[G2.POINT_LIMBS];
+        for (int i = 0; i < n; i++) {
+            int status = decodeG1(g1_point_list, i * G1_POINT_SIZE, g1, i * OptimalAtePairing.G1_LIMBS);
+            if (status == AltBn128.STATUS_OK) {
+                status = decodeG2(g2_point_list, i * G2_POINT_SIZE, q);
+            }
+            if (status != AltBn128.STATUS_OK) {
+                return status;
+            }
+            if (!inSubgroup(q)) {
+                return AltBn128.STATUS_INVALID_POINT;
+            }
+            System.arraycopy(q, 0, g2, i * OptimalAtePairing.G2_LIMBS, OptimalAtePairing.G2_LIMBS);
+        }
+
+        return OptimalAtePairing.check(g1, g2, n) ? 1 : 0;
+    }
+
+    private static boolean fits(byte[] data, int offset, int size) {
+        return data != null && offset >= 0 && data.length - offset >= size;
+    }
+
+    private static void checkLength(byte[] data, int size) throws Exception {
+        if (!fits(data, 0, size)) {
+            throw new Exception("InvalidInputLength");
+        }
+    }
+
+    /**
+     * Reads an affine G1 point into (x, y) limbs at ro, and returns {@link AltBn128#STATUS_OK} or why it is illegal.
+     */
+    private static int decodeG1(byte[] data, int offset, long[] r, int ro) {
+        if (!F.fromBytes(r, ro + X, data, offset) || !F.fromBytes(r, ro + Y, data, offset + FP_SIZE)) {
+            return AltBn128.STATUS_NOT_MEMBER;
+        }
+
+        // y^2 = x^3 + 3
+        long[] lhs = new long[MontgomeryField.LIMBS];
+        long[] rhs = new long[MontgomeryField.LIMBS];
+        F.square(lhs, 0, r, ro + Y);
+        F.square(rhs, 0, r, ro + X);
+        F.mul(rhs, 0, rhs, 0, r, ro + X);
+        F.add(rhs, 0, rhs, 0, B, 0);
+        if (!MontgomeryField.equal(lhs, 0, rhs, 0)) {
+            return AltBn128.STATUS_INVALID_POINT;
+        }
+        return AltBn128.STATUS_OK;
+    }
+
+    private static void encodeG1(long[] p, long[] t, byte[] data, int offset) {
+        if (MontgomeryField.isZero(p, Z)) {
+            Arrays.fill(data, offset, offset + G1_POINT_SIZE, (byte) 0);
+            return;
+        }
+
+        // x = X / Z^2, y = Y / Z^3
+        F.inverse(t, 0, p, Z);
+        F.square(t, 4, t, 0);
+        F.mul(t, 8, p, X, t, 4);
+        F.toBytes(data, offset, t, 8);
+        F.mul(t, 4, t, 4, t, 0);
+        F.mul(t, 8, p, Y, t, 4);
+        F.toBytes(data, offset + FP_SIZE, t, 8);
+    }
+
+    /**
+     * p = 2p in Jacobian coordinates (dbl-2009-l).
+     */
+    private static void g1Double(long[] p, long[] t) {
+        final int a = 0, b = 4, c = 8, d = 12, e = 16, f = 20, x = 24;
+        F.square(t, a, p, X);
+        F.square(t, b, p, Y);
+        F.square(t, c, t, b);
+
+        // D = 2 ((X + B)^2 - A - C), E = 3A, F = E^2
+        F.add(t, d, p, X, t, b);
+        F.square(t, d, t, d);
+        F.sub(t, d, t, d, t, a);
+        F.sub(t, d, t, d, t, c);
+        F.add(t, d, t, d, t, d);
+        F.add(t, e, t, a, t, a);
+        F.add(t, e, t, e, t, a);
+        F.square(t, f, t, e);
+
+        // Z3 = 2 Y Z, X3 = F - 2D, Y3 = E (D - X3) - 8C
+        F.mul(p, Z, p, Y, p, Z);
+        F.add(p, Z, p, Z, p, Z);
+        F.sub(p, X, t, f, t, d);
+        F.sub(p, X, p, X, t, d);
+        F.sub(t, x, t, d, p, X);
+        F.mul(t, x, t, e, t, x);
+        F.add(t, c, t, c, t, c);
+        F.add(t, c, t, c, t, c);
+        F.add(t, c, t, c, t, c);
+        F.sub(p, Y, t, x, t, c);
+    }
+
+    /**
+     * p = p + q for an affine q at qo, in Jacobian coordinates.
+     */
+    private static void g1AddAffine(long[] p, long[] q, int qo, long[] t) {
+        if (MontgomeryField.isZero(p, Z)) {
+            System.arraycopy(q, qo, p, X, 2 * MontgomeryField.LIMBS);
+            F.setOne(p, Z);
+            return;
+        }
+
+        final int zz = 0, h = 4, r = 8, hh = 12, hhh = 16, v = 20, x = 24;
+        // H = xq Z^2 - X, R = yq Z^3 - Y
+        F.square(t, zz, p, Z);
+        F.mul(t, h, q, qo + X, t, zz);
+        F.sub(t, h, t, h, p, X);
+        F.mul(t, r, q, qo + Y, p, Z);
+        F.mul(t, r, t, r, t, zz);
+        F.sub(t, r, t, r, p, Y);
+
+        if (MontgomeryField.isZero(t, h)) {
+            if (MontgomeryField.isZero(t, r)) {
+                g1Double(p, t);
+            } else {
+                Arrays.fill(p, 0, G1_LIMBS, 0);
+            }
+            return;
+        }
+
+        // X3 = R^2 - H^3 - 2 X H^2, Y3 = R (X H^2 - X3) - Y H^3, Z3 = Z H
+        F.square(t, hh, t, h);
+        F.mul(t, hhh, t, h, t, hh);
+        F.mul(t, v, p, X, t, hh);
+        F.mul(p, Z, p, Z, t, h);
+        F.square(p, X, t, r);
+        F.sub(p, X, p, X, t, hhh);
+        F.sub(p, X, p, X, t, v);
+        F.sub(p, X, p, X, t, v);
+        F.sub(t, x, t, v, p, X);
+        F.mul(t, x, t, r, t, x);
+        F.mul(t, hhh, p, Y, t, hhh);
+        F.sub(p, Y, t, x, t, hhh);
+    }
+
+    /**
+     * Reads a G2 point into p as projective limbs with z = 1, and returns {@link AltBn128#STATUS_OK} or why it is
+     * illegal. Only the twist equation is checked; see {@link #inSubgroup(long[])}.
+     */
+    private static int decodeG2(byte[] data, int offset, long[] p) {
+        for (int i = 0; i < 4; i++) {
+            if (!F.fromBytes(p, i * MontgomeryField.LIMBS, data, offset + i * FP_SIZE)) {
+                return AltBn128.STATUS_NOT_MEMBER;
+            }
+        }
+        F.setOne(p, 2 * Fp2.LIMBS);
+
+        // y^2 = x^3 + b / xi
+        long[] lhs = new long[Fp2.LIMBS];
+        long[] rhs = new long[Fp2.LIMBS];
+        Fp2.square(lhs, 0, p, Fp2.LIMBS);
+        Fp2.square(rhs, 0, p, 0);
+        Fp2.mul(rhs, 0, rhs, 0, p, 0);
+        Fp2.add(rhs, 0, rhs, 0, TWIST_B, 0);
+        if (!Fp2.equal(lhs, 0, rhs, 0)) {
+            return AltBn128.STATUS_INVALID_POINT;
+        }
+        return AltBn128.STATUS_OK;
+    }
+
+    private static boolean inSubgroup(long[] p) {
+        long[] check = new long[G2.POINT_LIMBS];
+        G2.mul(check, p, ORDER);
+        return Fp2.isZero(check, 2 * Fp2.LIMBS);
+    }
+
+    /**
+     * Reads a G2 point, checking it is on the twist and in the order-r subgroup, as projective limbs with z = 1.
+     */
+    private static long[] decodeG2(byte[] data, int offset) throws Exception {
+        long[] p = new long[G2.POINT_LIMBS];
+        int status = decodeG2(data, offset, p);
+        if (status != AltBn128.STATUS_OK) {
+            throw new Exception(AltBn128.statusMessage(status));
+        }
+        if (!inSubgroup(p)) {
+            throw new Exception("NotInSubgroup");
+        }
+        return p;
+    }
+
+    // the all-zero encoding stands for the point at infinity, as with G2Point.isZero()
+    private static long[] decodeG2OrZero(byte[] data) throws Exception {
+        for (int i = 0; i < G2_POINT_SIZE; i++) {
+            if (data[i] != 0) {
+                return decodeG2(data, 0);
+            }
+        }
+        return new long[G2.POINT_LIMBS];
+    }
+
+    private static byte[] encodeG2(long[] p) {
+        byte[] data = new byte[G2_POINT_SIZE];
+        if (Fp2.isZero(p, 2 * Fp2.LIMBS)) {
+            return data;
+        }
+
+        // x = X / Z, y = Y / Z
+        long[] t = new long[2 * Fp2.LIMBS];
+        Fp2.inverse(t, 0, p, 2 * Fp2.LIMBS);
+        Fp2.mul(t, Fp2.LIMBS, p, 0, t, 0);
+        F.toBytes(data, 0, t, Fp2.LIMBS);
+        F.toBytes(data, FP_SIZE, t, Fp2.LIMBS + MontgomeryField.LIMBS);
+        Fp2.mul(t, Fp2.LIMBS, p, Fp2.LIMBS, t, 0);
+        F.toBytes(data, 2 * FP_SIZE, t, Fp2.LIMBS);
+        F.toBytes(data, 3 * FP_SIZE, t, Fp2.LIMBS + MontgomeryField.LIMBS);
+        return data;
+    }
+}
@@ -0,0 +1,55 @@
+package org.aion.tetryon;
+
+/**
+ * {@link Bn128Backend} over the native library (https://github.com/paritytech/bn through JNI).
+ * <p>
+ * Constructing it loads the library, and throws {@link UnsatisfiedLinkError} if that is not on java.library.path.
+ */
+public final class JniBn128Backend implements Bn128Backend {
+
+    private final AltBn128Jni jni;
+
+    public JniBn128Backend() {
+        loadLibrary();
+        this.jni = new AltBn128Jni();
+    }
+
+    static void loadLibrary() {
+        System.loadLibrary("bn_jni");
+    }
+
+    @Override
+    public String name() {
+        return "jni";
+    }
+
+    @Override
+    public int g1EcAddInto(byte[] point1, byte[] point2, byte[] result, int resultOffset) {
+        return jni.g1EcAddInto(point1, point2, result, resultOffset);
+    }
+
+    @Override
+    public int g1EcMulInto(byte[] point, byte[] scalar, byte[] result, int resultOffset) {
+        return jni.g1EcMulInto(point, scalar, result, resultOffset);
+    }
+
+    @Override
+    public int ecPairStatus(byte[] g1_point_list, byte[] g2_point_list) {
+        return jni.ecPairStatus(g1_point_list, g2_point_list);
+    }
+
+    @Override
+    public byte[] g2EcAdd(byte[] point1, byte[] point2) throws Exception {
+        return jni.g2EcAdd(point1, point2);
+    }
+
+    @Override
+    public byte[] g2EcMul(byte[] point, byte[] scalar) throws Exception {
+        return jni.g2EcMul(point, scalar);
+    }
+
+    @Override
+    public byte[] g2Negate(byte[] point) throws Exception {
+        return jni.g2Negate(point);
+    }
+}
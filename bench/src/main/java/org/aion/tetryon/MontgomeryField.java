@@ -0,0 +1,402 @@
+package org.aion.tetryon;
+
+import java.math.BigInteger;
+
+/**
+ * Fixed-width arithmetic in a prime field below 2^254, using four 64-bit little-endian limbs in Montgomery form.
+ * <p>
+ * Elements live in caller-provided {@code long[]} arrays at a given offset, so a single array can hold a whole
+ * point and every operation runs in place without allocating. Outputs may alias inputs. All elements are kept
+ * fully reduced, so two elements are equal iff their limbs are equal.
+ * <p>
+ * Multiplication is CIOS Montgomery multiplication without the final carry word, which is valid because the top
+ * limb of the modulus leaves two spare bits. The same headroom lets {@link Fp2} feed unreduced sums (less than
+ * 2p) into {@link #mul(long[], int, long, long, long, long, long, long, long, long)}.
+ */
+public final class MontgomeryField {
+    public static final int LIMBS = 4;
+
+    /** The base field of alt_bn128. */
+    public static final MontgomeryField FP = new MontgomeryField(Fp.FIELD_MODULUS);
+
+    /** The scalar field of alt_bn128, whose modulus is the group order r; see {@link Fr}. */
+    public static final MontgomeryField FR = new MontgomeryField(
+            new BigInteger("21888242871839275222246405745257275088548364400416034343698204186575808495617"));
+
+    private final BigInteger modulus;
+    private final long p0, p1, p2, p3;
+    private final long inv; // -p^-1 mod 2^64
+    private final long[] r2; // R^2 mod p, for conversion into Montgomery form
+    private final long[] one; // R mod p
+    private final long[] pMinus2; // exponent for inversion
+    private final long[] sqrtExp; // (p + 1) / 4, if p = 3 mod 4
+
+    MontgomeryField(BigInteger modulus) {
+        if (modulus.signum() <= 0 || !modulus.testBit(0) || modulus.bitLength() > 254) {
+            throw new IllegalArgumentException("modulus must be an odd number below 2^254");
+        }
+        this.modulus = modulus;
+        long[] p = toLimbs(modulus);
+        this.p0 = p[0];
+        this.p1 = p[1];
+        this.p2 = p[2];
+        this.p3 = p[3];
+
+        // Newton iteration for p^-1 mod 2^64, each step doubles the number of correct bits
+        long x = p0;
+        for (int i = 0; i < 5; i++) {
+            x *= 2 - p0 * x;
+        }
+        this.inv = -x;
+
+        BigInteger r = BigInteger.ONE.shiftLeft(64 * LIMBS);
+        this.r2 = toLimbs(r.multiply(r).mod(modulus));
+        this.one = toLimbs(r.mod(modulus));
+        this.pMinus2 = toLimbs(modulus.subtract(BigInteger.TWO));
+        this.sqrtExp = modulus.testBit(1) ? toLimbs(modulus.add(BigInteger.ONE).shiftRight(2)) : null;
+    }
+
+    public BigInteger modulus() {
+        return modulus;
+    }
+
+    public void setZero(long[] r, int ro) {
+        r[ro] = 0;
+        r[ro + 1] = 0;
+        r[ro + 2] = 0;
+        r[ro + 3] = 0;
+    }
+
+    public void setOne(long[] r, int ro) {
+        System.arraycopy(one, 0, r, ro, LIMBS);
+    }
+
+    public static void copy(long[] r, int ro, long[] a, int ao) {
+        System.arraycopy(a, ao, r, ro, LIMBS);
+    }
+
+    public static boolean isZero(long[] a, int ao) {
+        return (a[ao] | a[ao + 1] | a[ao + 2] | a[ao + 3]) == 0;
+    }
+
+    public boolean isOne(long[] a, int ao) {
+        return equal(a, ao, one, 0);
+    }
+
+    public static boolean equal(long[] a, int ao, long[] b, int bo) {
+        return ((a[ao] ^ b[bo]) | (a[ao + 1] ^ b[bo + 1]) | (a[ao + 2] ^ b[bo + 2]) | (a[ao + 3] ^ b[bo + 3])) == 0;
+    }
+
+    /**
+     * r = a + b
+     */
+    public void add(long[] r, int ro, long[] a, int ao, long[] b, int bo) {
+        add(r, ro, a[ao], a[ao + 1], a[ao + 2], a[ao + 3], b[bo], b[bo + 1], b[bo + 2], b[bo + 3]);
+    }
+
+    void add(long[] r, int ro, long a0, long a1, long a2, long a3, long b0, long b1, long b2, long b3) {
+        // cannot overflow 256 bits since both operands are below 2^254
+        long s0 = a0 + b0;
+        long c = carry(s0, a0);
+        long s1 = a1 + b1 + c;
+        c = carryIn(a1, b1, s1);
+        long s2 = a2 + b2 + c;
+        c = carryIn(a2, b2, s2);
+        long s3 = a3 + b3 + c;
+
+        reduceOnce(r, ro, s0, s1, s2, s3);
+    }
+
+    /**
+     * r = a - b
+     */
+    public void sub(long[] r, int ro, long[] a, int ao, long[] b, int bo) {
+        sub(r, ro, a[ao], a[ao + 1], a[ao + 2], a[ao + 3], b[bo], b[bo + 1], b[bo + 2], b[bo + 3]);
+    }
+
+    void sub(long[] r, int ro, long a0, long a1, long a2, long a3, long b0, long b1, long b2, long b3) {
+        long d0 = a0 - b0;
+        long c = borrow(a0, b0, d0);
+        long d1 = a1 - b1 - c;
+        c = borrow(a1, b1, d1);
+        long d2 = a2 - b2 - c;
+        c = borrow(a2, b2, d2);
+        long d3 = a3 - b3 - c;
+        c = borrow(a3, b3, d3);
+
+        // add p back if we went below zero
+        long mask = -c;
+        long s0 = d0 + (p0 & mask);
+        c = carry(s0, d0);
+        long s1 = d1 + (p1 & mask) + c;
+        c = carryIn(d1, p1 & mask, s1);
+        long s2 = d2 + (p2 & mask) + c;
+        c = carryIn(d2, p2 & mask, s2);
+        long s3 = d3 + (p3 & mask) + c;
+
+        r[ro] = s0;
+        r[ro + 1] = s1;
+        r[ro + 2] = s2;
+        r[ro + 3] = s3;
+    }
+
+    /**
+     * r = -a
+     */
+    public void neg(long[] r, int ro, long[] a, int ao) {
+        sub(r, ro, 0, 0, 0, 0, a[ao], a[ao + 1], a[ao + 2], a[ao + 3]);
+    }
+
+    /**
+     * r = a * b
+     */
+    public void mul(long[] r, int ro, long[] a, int ao, long[] b, int bo) {
+        mul(r, ro, a[ao], a[ao + 1], a[ao + 2], a[ao + 3], b[bo], b[bo + 1], b[bo + 2], b[bo + 3]);
+    }
+
+    /**
+     * r = a^2
+     */
+    public void square(long[] r, int ro, long[] a, int ao) {
+        long a0 = a[ao], a1 = a[ao + 1], a2 = a[ao + 2], a3 = a[ao + 3];
+        mul(r, ro, a0, a1, a2, a3, a0, a1, a2, a3);
+    }
+
+    /**
+     * Montgomery product of two operands given as limbs. The operands may be unreduced as long as they are below
+     * 2p; the result is always fully reduced.
+     */
+    void mul(long[] r, int ro, long a0, long a1, long a2, long a3, long b0, long b1, long b2, long b3) {
+        final long p0 = this.p0, p1 = this.p1, p2 = this.p2, p3 = this.p3, inv = this.inv;
+        long t0 = 0, t1 = 0, t2 = 0, t3 = 0;
+        long lo, hi, m, A, C;
+
+        lo = a0 * b0; hi = mulHi(a0, b0); lo += t0; hi += carry(lo, t0); t0 = lo; A = hi;
+        m = t0 * inv;
+        lo = m * p0; hi = mulHi(m, p0); lo += t0; hi += carry(lo, t0); C = hi;
+        lo = a1 * b0; hi = mulHi(a1, b0); lo += t1; hi += carry(lo, t1); lo += A; hi += carry(lo, A); t1 = lo; A = hi;
+        lo = m * p1; hi = mulHi(m, p1); lo += t1; hi += carry(lo, t1); lo += C; hi += carry(lo, C); t0 = lo; C = hi;
+        lo = a2 * b0; hi = mulHi(a2, b0); lo += t2; hi += carry(lo, t2); lo += A; hi += carry(lo, A); t2 = lo; A = hi;
+        lo = m * p2; hi = mulHi(m, p2); lo += t2; hi += carry(lo, t2); lo += C; hi += carry(lo, C); t1 = lo; C = hi;
+        lo = a3 * b0; hi = mulHi(a3, b0); lo += t3; hi += carry(lo, t3); lo += A; hi += carry(lo, A); t3 = lo; A = hi;
+        lo = m * p3; hi = mulHi(m, p3); lo += t3; hi += carry(lo, t3); lo += C; hi += carry(lo, C); t2 = lo; C = hi;
+        t3 = C + A;
+
+        lo = a0 * b1; hi = mulHi(a0, b1); lo += t0; hi += carry(lo, t0); t0 = lo; A = hi;
+        m = t0 * inv;
+        lo = m * p0; hi = mulHi(m, p0); lo += t0; hi += carry(lo, t0); C = hi;
+        lo = a1 * b1; hi = mulHi(a1, b1); lo += t1; hi += carry(lo, t1); lo += A; hi += carry(lo, A); t1 = lo; A = hi;
+        lo = m * p1; hi = mulHi(m, p1); lo += t1; hi += carry(lo, t1); lo += C; hi += carry(lo, C); t0 = lo; C = hi;
+        lo = a2 * b1; hi = mulHi(a2, b1); lo += t2; hi += carry(lo, t2); lo += A; hi += carry(lo, A); t2 = lo; A = hi;
+        lo = m * p2; hi = mulHi(m, p2); lo += t2; hi += carry(lo, t2); lo += C; hi += carry(lo, C); t1 = lo; C = hi;
+        lo = a3 * b1; hi = mulHi(a3, b1); lo += t3; hi += carry(lo, t3); lo += A; hi += carry(lo, A); t3 = lo; A = hi;
+        lo = m * p3; hi = mulHi(m, p3); lo += t3; hi += carry(lo, t3); lo += C; hi += carry(lo, C); t2 = lo; C = hi;
+        t3 = C + A;
+
+        lo = a0 * b2; hi = mulHi(a0, b2); lo += t0; hi += carry(lo, t0); t0 = lo; A = hi;
+        m = t0 * inv;
+        lo = m * p0; hi = mulHi(m, p0); lo += t0; hi += carry(lo, t0); C = hi;
+        lo = a1 * b2; hi = mulHi(a1, b2); lo += t1; hi += carry(lo, t1); lo += A; hi += carry(lo, A); t1 = lo; A = hi;
+        lo = m * p1; hi = mulHi(m, p1); lo += t1; hi += carry(lo, t1); lo += C; hi += carry(lo, C); t0 = lo; C = hi;
+        lo = a2 * b2; hi = mulHi(a2, b2); lo += t2; hi += carry(lo, t2); lo += A; hi += carry(lo, A); t2 = lo; A = hi;
+        lo = m * p2; hi = mulHi(m, p2); lo += t2; hi += carry(lo, t2); lo += C; hi += carry(lo, C); t1 = lo; C = hi;
+        lo = a3 * b2; hi = mulHi(a3, b2); lo += t3; hi += carry(lo, t3); lo += A; hi += carry(lo, A); t3 = lo; A = hi;
+        lo = m * p3; hi = mulHi(m, p3); lo += t3; hi += carry(lo, t3); lo += C; hi += carry(lo, C); t2 = lo; C = hi;
+        t3 = C + A;
+
+        lo = a0 * b3; hi = mulHi(a0, b3); lo += t0; hi += carry(lo, t0); t0 = lo; A = hi;
+        m = t0 * inv;
+        lo = m * p0; hi = mulHi(m, p0); lo += t0; hi += carry(lo, t0); C = hi;
+        lo = a1 * b3; hi = mulHi(a1, b3); lo += t1; hi += carry(lo, t1); lo += A; hi += carry(lo, A); t1 = lo; A = hi;
+        lo = m * p1; hi = mulHi(m, p1); lo += t1; hi += carry(lo, t1); lo += C; hi += carry(lo, C); t0 = lo; C = hi;
+        lo = a2 * b3; hi = mulHi(a2, b3); lo += t2; hi += carry(lo, t2); lo += A; hi += carry(lo, A); t2 = lo; A = hi;
+        lo = m * p2; hi = mulHi(m, p2); lo += t2; hi += carry(lo, t2); lo += C; hi += carry(lo, C); t1 = lo; C = hi;
+        lo = a3 * b3; hi = mulHi(a3, b3); lo += t3; hi += carry(lo, t3); lo += A; hi += carry(lo, A); t3 = lo; A = hi;
+        lo = m * p3; hi = mulHi(m, p3); lo += t3; hi += carry(lo, t3); lo += C; hi += carry(lo, C); t2 = lo; C = hi;
+        t3 = C + A;
+
+
+        reduceOnce(r, ro, t0, t1, t2, t3);
+    }
+
+    /**
+     * r = a^-1, or zero if a is zero.
+     */
+    public void inverse(long[] r, int ro, long[] a, int ao) {
+        pow(r, ro, a, ao, pMinus2);
+    }
+
+    /**
+     * r = sqrt(a), if it exists, using t[to .. to + LIMBS) as scratch, which may overlap a but not r. Only
+     * supported when p = 3 mod 4.
+     *
+     * @return false if a is not a square, in which case r is left undefined
+     */
+    public boolean sqrt(long[] r, int ro, long[] a, int ao, long[] t, int to) {
+        if (sqrtExp == null) {
+            throw new UnsupportedOperationException("sqrt requires p = 3 mod 4");
+        }
+        long a0 = a[ao], a1 = a[ao + 1], a2 = a[ao + 2], a3 = a[ao + 3];
+        pow(r, ro, a, ao, sqrtExp);
+
+        square(t, to, r, ro);
+        return t[to] == a0 && t[to + 1] == a1 && t[to + 2] == a2 && t[to + 3] == a3;
+    }
+
+    /**
+     * r = a^e, with the exponent given as little-endian limbs.
+     */
+    public void pow(long[] r, int ro, long[] a, int ao, long[] e) {
+        long a0 = a[ao], a1 = a[ao + 1], a2 = a[ao + 2], a3 = a[ao + 3];
+        setOne(r, ro);
+        for (int i = 64 * e.length - 1; i >= 0; i--) {
+            square(r, ro, r, ro);
+            if (((e[i >>> 6] >>> (i & 63)) & 1) != 0) {
+                mul(r, ro, r[ro], r[ro + 1], r[ro + 2], r[ro + 3], a0, a1, a2, a3);
+            }
+        }
+    }
+
+    /**
+     * Converts a canonical residue into Montgomery form.
+     */
+    public void toMont(long[] r, int ro, long[] a, int ao) {
+        mul(r, ro, a, ao, r2, 0);
+    }
+
+    /**
+     * Converts an element out of Montgomery form into a canonical residue.
+     */
+    public void fromMont(long[] r, int ro, long[] a, int ao) {
+        mul(r, ro, a[ao], a[ao + 1], a[ao + 2], a[ao + 3], 1, 0, 0, 0);
+    }
+
+    public void fromBigInteger(long[] r, int ro, BigInteger value) {
+        long[] limbs = toLimbs(value.mod(modulus));
+        toMont(r, ro, limbs, 0);
+    }
+
+    public BigInteger toBigInteger(long[] a, int ao) {
+        byte[] data = new byte[8 * LIMBS];
+        toBytes(data, 0, a, ao);
+        return new BigInteger(1, data);
+    }
+
+    /**
+     * Reads a 32-byte big-endian canonical residue.
+     *
+     * @return false if the value is not below the modulus, in which case r is left unchanged
+     */
+    public boolean fromBytes(long[] r, int ro, byte[] in, int off) {
+        long a3 = readLong(in, off);
+        long a2 = readLong(in, off + 8);
+        long a1 = readLong(in, off + 16);
+        long a0 = readLong(in, off + 24);
+
+        // a < p iff a - p borrows
+        long c = borrow(a0, p0, a0 - p0);
+        c = borrow(a1, p1, a1 - p1 - c);
+        c = borrow(a2, p2, a2 - p2 - c);
+        c = borrow(a3, p3, a3 - p3 - c);
+        if (c == 0) {
+            return false;
+        }
+
+        mul(r, ro, a0, a1, a2, a3, r2[0], r2[1], r2[2], r2[3]);
+        return true;
+    }
+
+    /**
+     * Writes the canonical residue as 32 big-endian bytes.
+     */
+    public void toBytes(byte[] out, int off, long[] a, int ao) {
+        // fromMont on locals: the reduction rounds of a * (1, 0, 0, 0), which for a < p end below p
+        final long p0 = this.p0, p1 = this.p1, p2 = this.p2, p3 = this.p3, inv = this.inv;
+        long t0 = a[ao], t1 = a[ao + 1], t2 = a[ao + 2], t3 = a[ao + 3];
+        long lo, hi, m, C;
+        for (int i = 0; i < LIMBS; i++) {
+            m = t0 * inv;
+            lo = m * p0; hi = mulHi(m, p0); lo += t0; hi += carry(lo, t0); C = hi;
+            lo = m * p1; hi = mulHi(m, p1); lo += t1; hi += carry(lo, t1); lo += C; hi += carry(lo, C); t0 = lo; C = hi;
+            lo = m * p2; hi = mulHi(m, p2); lo += t2; hi += carry(lo, t2); lo += C; hi += carry(lo, C); t1 = lo; C = hi;
+            lo = m * p3; hi = mulHi(m, p3); lo += t3; hi += carry(lo, t3); lo += C; hi += carry(lo, C); t2 = lo; C = hi;
+            t3 = C;
+        }
+        writeLong(out, off, t3);
+        writeLong(out, off + 8, t2);
+        writeLong(out, off + 16, t1);
+        writeLong(out, off + 24, t0);
+    }
+
+    /**
+     * Writes (s0, s1, s2, s3) - p if that does not go below zero, otherwise (s0, s1, s2, s3). Requires s < 2p.
+     */
+    private void reduceOnce(long[] r, int ro, long s0, long s1, long s2, long s3) {
+        long d0 = s0 - p0;
+        long c = borrow(s0, p0, d0);
+        long d1 = s1 - p1 - c;
+        c = borrow(s1, p1, d1);
+        long d2 = s2 - p2 - c;
+        c = borrow(s2, p2, d2);
+        long d3 = s3 - p3 - c;
+        c = borrow(s3, p3, d3);
+
+        // keep s if the subtraction borrowed
+        long mask = -c;
+        r[ro] = (s0 & mask) | (d0 & ~mask);
+        r[ro + 1] = (s1 & mask) | (d1 & ~mask);
+        r[ro + 2] = (s2 & mask) | (d2 & ~mask);
+        r[ro + 3] = (s3 & mask) | (d3 & ~mask);
+    }
+
+    /**
+     * High 64 bits of the unsigned 128-bit product x * y.
+     */
+    static long mulHi(long x, long y) {
+        return Math.multiplyHigh(x, y) + ((x >> 63) & y) + ((y >> 63) & x);
+    }
+
+    /**
+     * Carry out of sum = addend + something, i.e. 1 if the unsigned addition wrapped.
+     */
+    static long carry(long sum, long addend) {
+        return Long.compareUnsigned(sum, addend) < 0 ? 1 : 0;
+    }
+
+    /**
+     * Carry out of s = x + y + c for a carry-in c of 0 or 1.
+     */
+    static long carryIn(long x, long y, long s) {
+        return ((x & y) | ((x | y) & ~s)) >>> 63;
+    }
+
+    /**
+     * Borrow out of d = x - y - b for a borrow-in b of 0 or 1.
+     */
+    static long borrow(long x, long y, long d) {
+        return ((~x & y) | (~(x ^ y) & d)) >>> 63;
+    }
+
+    private static long[] toLimbs(BigInteger value) {
+        long[] limbs = new long[LIMBS];
+        for (int i = 0; i < LIMBS; i++) {
+            limbs[i] = value.shiftRight(64 * i).longValue();
+        }
+        return limbs;
+    }
+
+    static long readLong(byte[] in, int off) {
+        long v = 0;
+        for (int i = 0; i < 8; i++) {
+            v = (v << 8) | (in[off + i] & 0xFF);
+        }
+        return v;
+    }
+
+    static void writeLong(byte[] out, int off, long v) {
+        for (int i = 7; i >= 0; i--) {
+            out[off + i] = (byte) v;
+            v >>>= 8;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.aion.tetryon;
+
+import java.lang.ref.Reference;
+import java.math.BigInteger;
+
+/**
+ * A point in G1 kept in native memory in Jacobian form.
+ * <p>
+ * A point is validated once, when it is created from bytes, and every operation returns a new native point without
+ * converting to affine coordinates. Chains of operations therefore cost no serialization, validation or inversion
+ * until the result is read back with {@link #toAffineBytes()}.
+ * <p>
+ * The native memory is released by {@link #close()}, or by a cleaner once this object becomes unreachable.
+ * Closing while another thread is using this point is not allowed.
+ */
+public final class NativeG1 implements AutoCloseable {
+
+    private final NativeHandle handle;
+
+    private NativeG1(long handle) {
+        this.handle = new NativeHandle(this, handle, AltBn128::freeG1Handle);
+    }
+
+    /**
+     * Validates a point and keeps it natively.
+     *
+     * Failure Mode: Any illegal point yields an Exception.
+     */
+    public static NativeG1 of(G1Point p) throws Exception {
+        return fromAffineBytes(Util.serializeG1(p));
+    }
+
+    /**
+     * Validates an encoded point and keeps it natively. The all-zero encoding stands for the point at infinity.
+     *
+     * Failure Mode: Any illegal point yields an Exception.
+     */
+    public static NativeG1 fromAffineBytes(byte[] point) throws Exception {
+        return new NativeG1(AltBn128.newG1Handle(point));
+    }
+
+    public NativeG1 add(NativeG1 other) throws Exception {
+        try {
+            return new NativeG1(AltBn128.g1HandleAdd(handle(), other.handle()));
+        } finally {
+            Reference.reachabilityFence(this);
+            Reference.reachabilityFence(other);
+        }
+    }
+
+    /**
+     * Failure Mode: A scalar outside [0, group order) yields an Exception.
+     */
+    public NativeG1 mul(BigInteger s) throws Exception {
+        try {
+            return new NativeG1(AltBn128.g1HandleMul(handle(), s));
+        } finally {
+            Reference.reachabilityFence(this);
+        }
+    }
+
+    public NativeG1 mul(Fr s) throws Exception {
+        try {
+            return new NativeG1(AltBn128.g1HandleMul(handle(), s));
+        } finally {
+            Reference.reachabilityFence(this);
+        }
+    }
+
+    public NativeG1 neg() throws Exception {
+        try {
+            return new NativeG1(AltBn128.g1HandleNeg(handle()));
+        } finally {
+            Reference.reachabilityFence(this);
+        }
+    }
+
+    /**
+     * Converts to affine coordinates and returns the encoding used by {@link AltBn128}; the point at infinity is
+     * all zeros.
+     */
+    public byte[] toAffineBytes() throws Exception {
+        try {
+            return AltBn128.g1HandleToAffine(handle());
+        } finally {
+            Reference.reachabilityFence(this);
+        }
+    }
+
+    public G1Point toPoint() throws Exception {
+        return Util.deserializeG1(toAffineBytes());
+    }
+
+    private long handle() {
+        return handle.get();
+    }
+
+    @Override
+    public void close() {
+        handle.close();
+    }
+}
@@ -0,0 +1,102 @@
+package org.aion.tetryon;
+
+import java.lang.ref.Reference;
+import java.math.BigInteger;
+
+/**
+ * A point in G2 kept in native memory in Jacobian form.
+ * <p>
+ * A point is validated once, when it is created from bytes, and every operation returns a new native point without
+ * converting to affine coordinates. Chains of operations therefore cost no serialization, validation or inversion
+ * until the result is read back with {@link #toAffineBytes()}.
+ * <p>
+ * The native memory is released by {@link #close()}, or by a cleaner once this object becomes unreachable.
+ * Closing while another thread is using this point is not allowed.
+ */
+public final class NativeG2 implements AutoCloseable {
+
+    private final NativeHandle handle;
+
+    private NativeG2(long handle) {
+        this.handle = new NativeHandle(this, handle, AltBn128::freeG2Handle);
+    }
+
+    /**
+     * Validates a point and keeps it natively.
+     *
+     * Failure Mode: Any illegal point yields an Exception.
+     */
+    public static NativeG2 of(G2Point p) throws Exception {
+        return fromAffineBytes(Util.serializeG2(p));
+    }
+
+    /**
+     * Validates an encoded point and keeps it natively. The all-zero encoding stands for the point at infinity.
+     *
+     * Failure Mode: Any illegal point yields an Exception.
+     */
+    public static NativeG2 fromAffineBytes(byte[] point) throws Exception {
+        return new NativeG2(AltBn128.newG2Handle(point));
+    }
+
+    public NativeG2 add(NativeG2 other) throws Exception {
+        try {
+            return new NativeG2(AltBn128.g2HandleAdd(handle(), other.handle()));
+        } finally {
+            Reference.reachabilityFence(this);
+            Reference.reachabilityFence(other);
+        }
+    }
+
+    /**
+     * Failure Mode: A scalar outside [0, group order) yields an Exception.
+     */
+    public NativeG2 mul(BigInteger s) throws Exception {
+        try {
+            return new NativeG2(AltBn128.g2HandleMul(handle(), s));
+        } finally {
+            Reference.reachabilityFence(this);
+        }
+    }
+
+    public NativeG2 mul(Fr s) throws Exception {
+        try {
+            return new NativeG2(AltBn128.g2HandleMul(handle(), s));
+        } finally {
+            Reference.reachabilityFence(this);
+        }
+    }
+
+    public NativeG2 neg() throws Exception {
+        try {
+            return new NativeG2(AltBn128.g2HandleNeg(handle()));
+        } finally {
+            Reference.reachabilityFence(this);
+        }
+    }
+
+    /**
+     * Converts to affine coordinates and returns the encoding used by {@link AltBn128}; the point at infinity is
+     * all zeros.
+     */
+    public byte[] toAffineBytes() throws Exception {
+        try {
+            return AltBn128.g2HandleToAffine(handle());
+        } finally {
+            Reference.reachabilityFence(this);
+        }
+    }
+
+    public G2Point toPoint() throws Exception {
+        return Util.deserializeG2(toAffineBytes());
+    }
+
+    private long handle() {
+        return handle.get();
+    }
+
+    @Override
+    public void close() {
+        handle.close();
+    }
+}
@@ -0,0 +1,65 @@
+package org.aion.tetryon;
+
+import java.lang.ref.Cleaner;
+import java.util.function.LongConsumer;
+
+/**
+ * A handle to native memory owned by a Java object, such as a {@link NativeG1} or a {@link GtElement}.
+ * <p>
+ * The memory is freed by {@link #close()}, or by a shared cleaner once the owner becomes unreachable, whichever
+ * comes first. An owner passing {@link #get()} to native code must keep itself reachable until the call returns,
+ * with {@link java.lang.ref.Reference#reachabilityFence(Object)}.
+ */
+final class NativeHandle {
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    // must not refer to the owner, or the owner would never become unreachable
+    private static final class State implements Runnable {
+        private final LongConsumer free;
+        private volatile long value;
+
+        private State(long value, LongConsumer free) {
+            this.value = value;
+            this.free = free;
+        }
+
+        @Override
+        public void run() {
+            long h = value;
+            value = 0;
+            if (h != 0) {
+                free.accept(h);
+            }
+        }
+    }
+
+    private final State state;
+    private final Cleaner.Cleanable cleanable;
+    private final String ownerName;
+
+    /**
+     * @param owner the object whose reachability keeps the memory alive
+     * @param value the handle returned by native code
+     * @param free  the native function that frees the handle, e.g. {@code AltBn128::freeG1Handle}
+     */
+    NativeHandle(Object owner, long value, LongConsumer free) {
+        this.state = new State(value, free);
+        this.cleanable = CLEANER.register(owner, state);
+        this.ownerName = owner.getClass().getSimpleName();
+    }
+
+    /**
+     * Returns the handle, for use in a call that keeps the owner reachable until it returns.
+     */
+    long get() {
+        long h = state.value;
+        if (h == 0) {
+            throw new IllegalStateException(ownerName + " is closed");
+        }
+        return h;
+    }
+
+    void close() {
+        cleanable.clean();
+    }
+}
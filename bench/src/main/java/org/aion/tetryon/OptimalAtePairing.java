@@ -0,0 +1,290 @@
+package org.aion.tetryon;
+
+import java.math.BigInteger;
+
+/**
+ * Optimal ate pairing on alt_bn128 in pure Java, on the limb arrays of {@link MontgomeryField}, {@link Fp2} and
+ * {@link Fp12}.
+ * <p>
+ * G1 points are passed as affine (x, y) in F_p, 8 limbs each. G2 points are passed as affine (x, y) on the twist
+ * y^2 = x^3 + 3 / (9 + i) over F_p^2, 16 limbs each. Callers must have checked that all points are finite and in
+ * their groups.
+ * <p>
+ * The Miller loop keeps the twist point in Jacobian coordinates and evaluates every line at the G1 point, scaled by
+ * an F_p^2 factor that the final exponentiation removes. Lines of all pairs are multiplied into one accumulator, so
+ * a product of n pairings costs one squaring per step and one final exponentiation in total.
+ */
+final class OptimalAtePairing {
+    static final int G1_LIMBS = 2 * MontgomeryField.LIMBS;
+    static final int G2_LIMBS = 2 * Fp2.LIMBS;
+
+    // the BN parameter x of alt_bn128
+    private static final long X = 4965661367192848881L;
+
+    // 6x + 2 in non-adjacent form, least significant digit first
+    private static final byte[] LOOP_NAF = naf(BigInteger.valueOf(X).multiply(BigInteger.valueOf(6)).add(BigInteger.TWO));
+
+    private static final int TX = 0, TY = Fp2.LIMBS, TZ = 2 * Fp2.LIMBS, T_LIMBS = 3 * Fp2.LIMBS;
+    private static final int LINE_LIMBS = 3 * Fp2.LIMBS;
+
+    private OptimalAtePairing() { }
+
+    /**
+     * Checks whether the product of e(g1[i], g2[i]) over n pairs is one.
+     */
+    static boolean check(long[] g1, long[] g2, int n) {
+        long[] f = new long[Fp12.LIMBS];
+        millerLoop(f, g1, g2, n);
+        finalExponentiation(f, f);
+        return Fp12.isOne(f, 0);
+    }
+
+    /**
+     * f = the product of the Miller loops of n pairs.
+     */
+    static void millerLoop(long[] f, long[] g1, long[] g2, int n) {
+        long[] t = new long[Fp12.SCRATCH];
+        long[] line = new long[LINE_LIMBS];
+        long[] T = new long[n * T_LIMBS];
+        long[] negQ = new long[n * G2_LIMBS];
+        for (int k = 0; k < n; k++) {
+            System.arraycopy(g2, k * G2_LIMBS, T, k * T_LIMBS, G2_LIMBS);
+            MontgomeryField.FP.setOne(T, k * T_LIMBS + TZ);
+            System.arraycopy(g2, k * G2_LIMBS, negQ, k * G2_LIMBS, Fp2.LIMBS);
+            Fp2.neg(negQ, k * G2_LIMBS + Fp2.LIMBS, g2, k * G2_LIMBS + Fp2.LIMBS);
+        }
+
+        Fp12.setOne(f, 0);
+        for (int i = LOOP_NAF.length - 2; i >= 0; i--) {
+            Fp12.square(f, 0, f, 0, t, 0);
+            for (int k = 0; k < n; k++) {
+                doublingStep(T, k * T_LIMBS, g1, k * G1_LIMBS, line, t);
+                Fp12.mulByLine(f, 0, f, 0, line, 0, t, 0);
+            }
+
+            if (LOOP_NAF[i] != 0) {
+                long[] q = LOOP_NAF[i] > 0 ? g2 : negQ;
+                for (int k = 0; k < n; k++) {
+                    additionStep(T, k * T_LIMBS, q, k * G2_LIMBS, g1, k * G1_LIMBS, line, t);
+                    Fp12.mulByLine(f, 0, f, 0, line, 0, t, 0);
+                }
+            }
+        }
+
+        // the two extra lines of the optimal ate pairing, through Q1 = pi(Q) and Q2 = -pi^2(Q)
+        long[] q = new long[G2_LIMBS];
+        for (int k = 0; k < n; k++) {
+            twistFrobenius(q, g2, k * G2_LIMBS, 1);
+            additionStep(T, k * T_LIMBS, q, 0, g1, k * G1_LIMBS, line, t);
+            Fp12.mulByLine(f, 0, f, 0, line, 0, t, 0);
+
+            twistFrobenius(q, g2, k * G2_LIMBS, 2);
+            Fp2.neg(q, Fp2.LIMBS, q, Fp2.LIMBS);
+            additionStep(T, k * T_LIMBS, q, 0, g1, k * G1_LIMBS, line, t);
+            Fp12.mulByLine(f, 0, f, 0, line, 0, t, 0);
+        }
+    }
+
+    /**
+     * r = f^((p^12 - 1) / r), split into the easy part (p^6 - 1)(p^2 + 1) and the hard part (p^4 - p^2 + 1) / r.
+     * The hard part follows Scott et al., "On the final exponentiation for calculating pairings on ordinary elliptic
+     * curves", which writes it in base p with coefficients that are polynomials in x.
+     */
+    static void finalExponentiation(long[] r, long[] f) {
+        long[] t = new long[Fp12.SCRATCH];
+        long[] t0 = new long[Fp12.LIMBS], t1 = new long[Fp12.LIMBS];
+
+        // easy part: t1 = f^((p^6 - 1)(p^2 + 1)), which is in the cyclotomic subgroup, where inversion is conjugation
+        Fp12.inverse(t0, 0, f, 0, t, 0);
+        Fp12.conjugate(t1, 0, f, 0);
+        Fp12.mul(t1, 0, t1, 0, t0, 0, t, 0);
+        Fp12.frobenius(t0, 0, t1, 0, 2);
+        Fp12.mul(t1, 0, t1, 0, t0, 0, t, 0);
+
+        long[] fu = new long[Fp12.LIMBS], fu2 = new long[Fp12.LIMBS], fu3 = new long[Fp12.LIMBS];
+        Fp12.pow(fu, 0, t1, 0, X, t, 0);
+        Fp12.pow(fu2, 0, fu, 0, X, t, 0);
+        Fp12.pow(fu3, 0, fu2, 0, X, t, 0);
+
+        // y0 = f^p f^(p^2) f^(p^3)
+        long[] y0 = new long[Fp12.LIMBS];
+        Fp12.frobenius(y0, 0, t1, 0, 1);
+        Fp12.frobenius(t0, 0, t1, 0, 2);
+        Fp12.mul(y0, 0, y0, 0, t0, 0, t, 0);
+        Fp12.frobenius(t0, 0, t1, 0, 3);
+        Fp12.mul(y0, 0, y0, 0, t0, 0, t, 0);
+
+        // y1 = 1 / f
+        long[] y1 = new long[Fp12.LIMBS];
+        Fp12.conjugate(y1, 0, t1, 0);
+
+        // y2 = (f^(x^2))^(p^2)
+        long[] y2 = new long[Fp12.LIMBS];
+        Fp12.frobenius(y2, 0, fu2, 0, 2);
+
+        // y3 = 1 / (f^x)^p
+        long[] y3 = new long[Fp12.LIMBS];
+        Fp12.frobenius(y3, 0, fu, 0, 1);
+        Fp12.conjugate(y3, 0, y3, 0);
+
+        // y4 = 1 / (f^x (f^(x^2))^p)
+        long[] y4 = new long[Fp12.LIMBS];
+        Fp12.frobenius(y4, 0, fu2, 0, 1);
+        Fp12.mul(y4, 0, y4, 0, fu, 0, t, 0);
+        Fp12.conjugate(y4, 0, y4, 0);
+
+        // y5 = 1 / f^(x^2)
+        long[] y5 = new long[Fp12.LIMBS];
+        Fp12.conjugate(y5, 0, fu2, 0);
+
+        // y6 = 1 / (f^(x^3) (f^(x^3))^p)
+        long[] y6 = new long[Fp12.LIMBS];
+        Fp12.frobenius(y6, 0, fu3, 0, 1);
+        Fp12.mul(y6, 0, y6, 0, fu3, 0, t, 0);
+        Fp12.conjugate(y6, 0, y6, 0);
+
+        // result = y0 y1^2 y2^6 y3^12 y4^18 y5^30 y6^36, as a short addition chain
+        Fp12.square(t0, 0, y6, 0, t, 0);
+        Fp12.mul(t0, 0, t0, 0, y4, 0, t, 0);
+        Fp12.mul(t0, 0, t0, 0, y5, 0, t, 0);
+        Fp12.mul(t1, 0, y3, 0, y5, 0, t, 0);
+        Fp12.mul(t1, 0, t1, 0, t0, 0, t, 0);
+        Fp12.mul(t0, 0, t0, 0, y2, 0, t, 0);
+        Fp12.square(t1, 0, t1, 0, t, 0);
+        Fp12.mul(t1, 0, t1, 0, t0, 0, t, 0);
+        Fp12.square(t1, 0, t1, 0, t, 0);
+        Fp12.mul(t0, 0, t1, 0, y1, 0, t, 0);
+        Fp12.mul(t1, 0, t1, 0, y0, 0, t, 0);
+        Fp12.square(t0, 0, t0, 0, t, 0);
+        Fp12.mul(r, 0, t0, 0, t1, 0, t, 0);
+    }
+
+    /**
+     * T = 2T, and line = the tangent at T evaluated at P, scaled by 2 Y Z^3:
+     * <pre>
+     * c0 = 2 Y Z^3 yP,  c1 = -3 X^2 Z^2 xP,  c3 = 3 X^3 - 2 Y^2
+     * </pre>
+     */
+    private static void doublingStep(long[] T, int to, long[] P, int po, long[] line, long[] t) {
+        final int X = to + TX, Y = to + TY, Z = to + TZ;
+        final int zz = 0, a = 8, b = 16, c = 24, d = 32, e = 40, f = 48, x = 56;
+        final int c0 = 0, c1 = Fp2.LIMBS, c3 = 2 * Fp2.LIMBS;
+
+        Fp2.square(t, zz, T, Z);
+        Fp2.square(t, a, T, X);
+        Fp2.square(t, b, T, Y);
+        Fp2.square(t, c, t, b);
+
+        // D = 2 ((X + B)^2 - A - C), E = 3A, F = E^2
+        Fp2.add(t, d, T, X, t, b);
+        Fp2.square(t, d, t, d);
+        Fp2.sub(t, d, t, d, t, a);
+        Fp2.sub(t, d, t, d, t, c);
+        Fp2.add(t, d, t, d, t, d);
+        Fp2.add(t, e, t, a, t, a);
+        Fp2.add(t, e, t, e, t, a);
+        Fp2.square(t, f, t, e);
+
+        Fp2.mul(line, c3, t, e, T, X);
+        Fp2.add(t, x, t, b, t, b);
+        Fp2.sub(line, c3, line, c3, t, x);
+
+        Fp2.mul(line, c1, t, e, t, zz);
+        Fp2.mulScalar(line, c1, line, c1, P, po);
+        Fp2.neg(line, c1, line, c1);
+
+        // Z3 = 2 Y Z
+        Fp2.mul(T, Z, T, Y, T, Z);
+        Fp2.add(T, Z, T, Z, T, Z);
+
+        Fp2.mul(line, c0, T, Z, t, zz);
+        Fp2.mulScalar(line, c0, line, c0, P, po + MontgomeryField.LIMBS);
+
+        // X3 = F - 2D, Y3 = E (D - X3) - 8C
+        Fp2.sub(T, X, t, f, t, d);
+        Fp2.sub(T, X, T, X, t, d);
+        Fp2.sub(t, x, t, d, T, X);
+        Fp2.mul(t, x, t, e, t, x);
+        Fp2.add(t, c, t, c, t, c);
+        Fp2.add(t, c, t, c, t, c);
+        Fp2.add(t, c, t, c, t, c);
+        Fp2.sub(T, Y, t, x, t, c);
+    }
+
+    /**
+     * T = T + Q for an affine Q, and line = the line through T and Q evaluated at P, scaled by Z3 = Z H:
+     * <pre>
+     * c0 = Z3 yP,  c1 = -R xP,  c3 = R xQ - Z3 yQ
+     * </pre>
+     * where H = xQ Z^2 - X and R = yQ Z^3 - Y.
+     */
+    private static void additionStep(long[] T, int to, long[] Q, int qo, long[] P, int po, long[] line, long[] t) {
+        final int X = to + TX, Y = to + TY, Z = to + TZ;
+        final int xq = qo, yq = qo + Fp2.LIMBS;
+        final int zz = 0, u2 = 8, s2 = 16, h = 24, r = 32, hh = 40, hhh = 48, v = 56, x = 64;
+        final int c0 = 0, c1 = Fp2.LIMBS, c3 = 2 * Fp2.LIMBS;
+
+        Fp2.square(t, zz, T, Z);
+        Fp2.mul(t, u2, Q, xq, t, zz);
+        Fp2.mul(t, s2, Q, yq, T, Z);
+        Fp2.mul(t, s2, t, s2, t, zz);
+        Fp2.sub(t, h, t, u2, T, X);
+        Fp2.sub(t, r, t, s2, T, Y);
+
+        Fp2.mul(T, Z, T, Z, t, h);
+
+        Fp2.mulScalar(line, c0, T, Z, P, po + MontgomeryField.LIMBS);
+        Fp2.mulScalar(line, c1, t, r, P, po);
+        Fp2.neg(line, c1, line, c1);
+        Fp2.mul(line, c3, t, r, Q, xq);
+        Fp2.mul(t, x, T, Z, Q, yq);
+        Fp2.sub(line, c3, line, c3, t, x);
+
+        // X3 = R^2 - H^3 - 2 X H^2, Y3 = R (X H^2 - X3) - Y H^3
+        Fp2.square(t, hh, t, h);
+        Fp2.mul(t, hhh, t, h, t, hh);
+        Fp2.mul(t, v, T, X, t, hh);
+        Fp2.square(T, X, t, r);
+        Fp2.sub(T, X, T, X, t, hhh);
+        Fp2.sub(T, X, T, X, t, v);
+        Fp2.sub(T, X, T, X, t, v);
+        Fp2.sub(t, x, t, v, T, X);
+        Fp2.mul(t, x, t, r, t, x);
+        Fp2.mul(t, hhh, T, Y, t, hhh);
+        Fp2.sub(T, Y, t, x, t, hhh);
+    }
+
+    /**
+     * r = pi^j(Q) for the p-power Frobenius pi, expressed on the twist:
+     * (x, y) -> (x^(p^j) xi^(2 (p^j - 1) / 6), y^(p^j) xi^(3 (p^j - 1) / 6)).
+     */
+    private static void twistFrobenius(long[] r, long[] q, int qo, int j) {
+        long[] gamma = Fp12.FROBENIUS[j - 1];
+        if ((j & 1) == 1) {
+            Fp2.conjugate(r, 0, q, qo);
+            Fp2.conjugate(r, Fp2.LIMBS, q, qo + Fp2.LIMBS);
+        } else {
+            System.arraycopy(q, qo, r, 0, G2_LIMBS);
+        }
+        Fp2.mul(r, 0, r, 0, gamma, 2 * Fp2.LIMBS);
+        Fp2.mul(r, Fp2.LIMBS, r, Fp2.LIMBS, gamma, 3 * Fp2.LIMBS);
+    }
+
+    private static byte[] naf(BigInteger k) {
+        byte[] digits = new byte[k.bitLength() + 1];
+        int len = 0;
+        while (k.signum() > 0) {
+            if (k.testBit(0)) {
+                // pick the digit that leaves a multiple of 4
+                int d = 2 - k.mod(BigInteger.valueOf(4)).intValue();
+                digits[len] = (byte) d;
+                k = k.subtract(BigInteger.valueOf(d));
+            }
+            len++;
+            k = k.shiftRight(1);
+        }
+        byte[] result = new byte[len];
+        System.arraycopy(digits, 0, result, 0, len);
+        return result;
+    }
+}
@@ -1,7 +1,8 @@
 package org.aion.tetryon;
 
-import java.io.ByteArrayOutputStream;
+import java.lang.ref.Reference;
 import java.math.BigInteger;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * A library of pairing utilities.
@@ -37,18 +38,77 @@ public class Pairing {
      * @return
      */
     public static boolean pairing(G1Point[] p1, G2Point[] p2) throws Exception {
+        byte[][] data = serializePairs(p1, p2);
+        return AltBn128.ecPair(data[0], data[1]);
+    }
+
+    /**
+     * Bilinear pairing check over off-heap point lists, read in place by the native library.
+     *
+     * @param p1
+     * @param p2
+     * @return
+     */
+    public static boolean pairing(G1PointArena p1, G2PointArena p2) throws Exception {
+        if (p1.size() != p2.size()) {
+            throw new IllegalArgumentException("Points are not in pair");
+        }
+        return AltBn128.ecPair(p1.buffer(), p2.buffer());
+    }
+
+    /**
+     * Bilinear pairing check on the {@link AltBn128Async} worker pool. The points are serialized on the calling
+     * thread.
+     *
+     * @param p1
+     * @param p2
+     * @return
+     */
+    public static CompletableFuture<Boolean> pairingAsync(G1Point[] p1, G2Point[] p2) {
+        byte[][] data = serializePairs(p1, p2);
+        return AltBn128Async.ecPair(data[0], data[1]);
+    }
+
+    static byte[][] serializePairs(G1Point[] p1, G2Point[] p2) {
         if (p1.length != p2.length) {
             throw new IllegalArgumentException("Points are not in pair");
         }
 
-        ByteArrayOutputStream g1ListData = new ByteArrayOutputStream(p1.length * Util.FP_SIZE*2);
-        ByteArrayOutputStream g2ListData = new ByteArrayOutputStream(p1.length * Util.FP_SIZE*4);
+        return new byte[][]{PointCodec.encodeG1List(p1), PointCodec.encodeG2List(p2)};
+    }
+
+    /**
+     * Bilinear pairing check over raw pairs (p1[i], p2[i]) followed by pairs (q1[i], q2[i]) against prepared points.
+     *
+     * @param p1
+     * @param p2
+     * @param q1
+     * @param q2
+     * @return
+     */
+    public static boolean pairing(G1Point[] p1, G2Point[] p2, G1Point[] q1, PreparedG2[] q2) throws Exception {
+        if (p1.length != p2.length || q1.length != q2.length) {
+            throw new IllegalArgumentException("Points are not in pair");
+        }
+
+        byte[] g1ListData = new byte[(p1.length + q1.length) * Util.FP_SIZE*2];
+        byte[] g2ListData = new byte[p1.length * Util.FP_SIZE*4];
         for (int i = 0; i < p1.length; i++) {
-            g1ListData.write(Util.serializeG1(p1[i]), 0, Util.FP_SIZE*2);
-            g2ListData.write(Util.serializeG2(p2[i]), 0, Util.FP_SIZE*4);
+            PointCodec.encodeG1(p1[i], g1ListData, i * PointCodec.G1_SIZE);
+            PointCodec.encodeG2(p2[i], g2ListData, i * PointCodec.G2_SIZE);
+        }
+        long[] handles = new long[q2.length];
+        for (int i = 0; i < q1.length; i++) {
+            PointCodec.encodeG1(q1[i], g1ListData, (p1.length + i) * PointCodec.G1_SIZE);
+            handles[i] = q2[i].handle();
         }
 
-        return AltBn128.ecPair(g1ListData.toByteArray(), g2ListData.toByteArray());
+        try {
+            return AltBn128.ecPairPrepared(g1ListData, g2ListData, handles);
+        } finally {
+            // the prepared points must not be cleaned while native code holds their handles
+            Reference.reachabilityFence(q2);
+        }
     }
 
     public static boolean pairingProd1(G1Point a1, G2Point a2) throws Exception {
@@ -66,4 +126,20 @@ public class Pairing {
     public static boolean pairingProd4(G1Point a1, G2Point a2, G1Point b1, G2Point b2, G1Point c1, G2Point c2, G1Point d1, G2Point d2) throws Exception {
         return pairing(new G1Point[]{a1, b1, c1, d1}, new G2Point[]{a2, b2, c2, d2});
     }
+
+    public static CompletableFuture<Boolean> pairingProd1Async(G1Point a1, G2Point a2) {
+        return pairingAsync(new G1Point[]{a1}, new G2Point[]{a2});
+    }
+
+    public static CompletableFuture<Boolean> pairingProd2Async(G1Point a1, G2Point a2, G1Point b1, G2Point b2) {
+        return pairingAsync(new G1Point[]{a1, b1}, new G2Point[]{a2, b2});
+    }
+
+    public static CompletableFuture<Boolean> pairingProd3Async(G1Point a1, G2Point a2, G1Point b1, G2Point b2, G1Point c1, G2Point c2) {
+        return pairingAsync(new G1Point[]{a1, b1, c1}, new G2Point[]{a2, b2, c2});
+    }
+
+    public static CompletableFuture<Boolean> pairingProd4Async(G1Point a1, G2Point a2, G1Point b1, G2Point b2, G1Point c1, G2Point c2, G1Point d1, G2Point d2) {
+        return pairingAsync(new G1Point[]{a1, b1, c1, d1}, new G2Point[]{a2, b2, c2, d2});
+    }
 }
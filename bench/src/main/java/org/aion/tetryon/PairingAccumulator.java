@@ -0,0 +1,207 @@
+package org.aion.tetryon;
+
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * A pairing check that consumes its pairs incrementally.
+ * <p>
+ * The product e(p1, q1) * e(p2, q2) * ... is the final exponentiation of the product of the Miller loops of its
+ * pairs. The accumulator keeps that running Fp12 product natively: every chunk of pairs added is validated and run
+ * through its Miller loop right away, and {@link #check()} runs the single final exponentiation. Memory use does not
+ * grow with the number of pairs, and a caller producing pairs gets its work overlapped with theirs; reading from a
+ * channel does so by itself, parsing the next chunk while the previous one is folded in on the
+ * {@link AltBn128Async} worker pool, or on the calling thread while that pool's queue is full.
+ * <p>
+ * Calls on one accumulator are serialized. The native memory is released by {@link #close()}, or by a cleaner once
+ * this object becomes unreachable.
+ */
+public final class PairingAccumulator implements AutoCloseable {
+
+    private static final int G1_POINT_SIZE = 2 * Util.FP_SIZE;
+    private static final int G2_POINT_SIZE = 4 * Util.FP_SIZE;
+
+    /**
+     * Size of a pair read from a channel: [p.x || p.y || q.x || q.y], with the G2 coordinates real part first.
+     */
+    public static final int PAIR_SIZE = G1_POINT_SIZE + G2_POINT_SIZE;
+
+    // pairs per chunk read from a channel; enough to keep the JNI crossing and hand-off to the pool negligible
+    static final int CHANNEL_CHUNK_PAIRS = 64;
+
+    // a chunk of pairs read from a channel, and the same pairs split into the two lists the native side reads
+    private static final class Chunk {
+        private final ByteBuffer raw = ByteBuffer.allocateDirect(CHANNEL_CHUNK_PAIRS * PAIR_SIZE);
+        private final ByteBuffer g1 = ByteBuffer.allocateDirect(CHANNEL_CHUNK_PAIRS * G1_POINT_SIZE);
+        private final ByteBuffer g2 = ByteBuffer.allocateDirect(CHANNEL_CHUNK_PAIRS * G2_POINT_SIZE);
+
+        // returns the number of pairs read, zero at the end of the stream
+        private int fill(ReadableByteChannel channel) throws IOException {
+            raw.clear();
+            while (raw.hasRemaining() && channel.read(raw) >= 0) {
+                // a blocking channel returns at least one byte until the end of the stream
+            }
+            raw.flip();
+            if (raw.remaining() % PAIR_SIZE != 0) {
+                throw new IllegalArgumentException("Stream ends within a pair");
+            }
+
+            int n = raw.remaining() / PAIR_SIZE;
+            g1.clear();
+            g2.clear();
+            for (int i = 0; i < n; i++) {
+                raw.limit(raw.position() + G1_POINT_SIZE);
+                g1.put(raw);
+                raw.limit(raw.position() + G2_POINT_SIZE);
+                g2.put(raw);
+            }
+            g1.flip();
+            g2.flip();
+            return n;
+        }
+    }
+
+    private final NativeHandle handle;
+    private long pairs;
+
+    private PairingAccumulator(long handle) {
+        this.handle = new NativeHandle(this, handle, AltBn128::freePairingAccumulator);
+    }
+
+    /**
+     * Starts an empty pairing check, which holds as long as no pairs are added.
+     */
+    public static PairingAccumulator create() {
+        return new PairingAccumulator(AltBn128.newPairingAccumulator());
+    }
+
+    /**
+     * Adds the pair (p, q).
+     *
+     * Failure Mode: Any illegal point yields an Exception, and leaves the accumulator unchanged.
+     */
+    public PairingAccumulator add(G1Point p, G2Point q) throws Exception {
+        return add(Util.serializeG1(p), Util.serializeG2(q));
+    }
+
+    /**
+     * Adds a chunk of pairs, encoded as for {@link AltBn128#ecPair(byte[], byte[])}.
+     *
+     * Failure Mode: Any illegal point yields an Exception, and leaves the accumulator unchanged.
+     */
+    public synchronized PairingAccumulator add(byte[] g1_point_list, byte[] g2_point_list) throws Exception {
+        try {
+            AltBn128.pairingAccumulatorAdd(handle(), g1_point_list, g2_point_list);
+            pairs += g1_point_list.length / G1_POINT_SIZE;
+            return this;
+        } finally {
+            Reference.reachabilityFence(this);
+        }
+    }
+
+    /**
+     * Adds the pairs remaining in two direct buffers, which are read in place and then consumed.
+     *
+     * Failure Mode: Any illegal point, or a buffer that is not direct, yields an Exception, and leaves the
+     * accumulator and the buffers unchanged.
+     */
+    public synchronized PairingAccumulator add(ByteBuffer g1_point_list, ByteBuffer g2_point_list) throws Exception {
+        try {
+            AltBn128.pairingAccumulatorAdd(handle(), g1_point_list, g2_point_list);
+            pairs += g1_point_list.remaining() / G1_POINT_SIZE;
+            g1_point_list.position(g1_point_list.limit());
+            g2_point_list.position(g2_point_list.limit());
+            return this;
+        } finally {
+            Reference.reachabilityFence(this);
+        }
+    }
+
+    /**
+     * Adds every pair read from a blocking channel until the end of its stream, each pair encoded in
+     * {@link #PAIR_SIZE} bytes. Chunks of pairs are folded in on the worker pool while the next chunk is read; a
+     * full pool queue makes this thread fold them in itself rather than fail.
+     *
+     * Failure Mode: An illegal point yields an Exception; the chunks before the one holding it stay added. A
+     * stream that ends within a pair yields an IllegalArgumentException.
+     */
+    public PairingAccumulator add(ReadableByteChannel channel) throws Exception {
+        return add(channel, AltBn128Async.executor());
+    }
+
+    synchronized PairingAccumulator add(ReadableByteChannel channel, ThreadPoolExecutor executor) throws Exception {
+        long h = handle();
+        Chunk[] chunks = new Chunk[]{new Chunk(), new Chunk()};
+        CompletableFuture<Void> pending = null;
+        int pendingPairs = 0;
+        try {
+            for (int i = 0; ; i ^= 1) {
+                // the other chunk is folded in meanwhile; this one was done two rounds ago
+                Chunk chunk = chunks[i];
+                int n = chunk.fill(channel);
+                if (pending != null) {
+                    await(pending);
+                    pending = null;
+                    pairs += pendingPairs;
+                }
+                if (n == 0) {
+                    return this;
+                }
+
+                pending = AltBn128Async.submitOrRun(executor, () -> {
+                    AltBn128.pairingAccumulatorAdd(h, chunk.g1, chunk.g2);
+                    return null;
+                });
+                pendingPairs = n;
+            }
+        } finally {
+            // native code must be done with this accumulator and the buffers before returning, even on failure
+            if (pending != null) {
+                pending.handle((v, e) -> null).join();
+            }
+            Reference.reachabilityFence(this);
+        }
+    }
+
+    private static void await(CompletableFuture<Void> future) throws Exception {
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
+    /**
+     * Checks that the product of the pairings of every pair added so far is one. Pairs can still be added
+     * afterwards.
+     */
+    public synchronized boolean check() throws Exception {
+        try {
+            return AltBn128.pairingAccumulatorCheck(handle());
+        } finally {
+            Reference.reachabilityFence(this);
+        }
+    }
+
+    /**
+     * Number of pairs added so far.
+     */
+    public synchronized long pairCount() {
+        return pairs;
+    }
+
+    private long handle() {
+        return handle.get();
+    }
+
+    @Override
+    public synchronized void close() {
+        handle.close();
+    }
+}
@@ -0,0 +1,180 @@
+package org.aion.tetryon;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Encodes and decodes points, scalars and point lists in the layouts documented on {@link AltBn128}, writing into and
+ * reading from caller-supplied arrays or buffers instead of allocating an array per value.
+ * <p>
+ * A G1 point takes {@link #G1_SIZE} bytes [x || y] and a G2 point {@link #G2_SIZE} bytes [x.a || x.b || y.a || y.b],
+ * with 32-byte big-endian coordinates; a scalar takes {@link #SCALAR_SIZE} bytes. G2 coordinates are written straight
+ * from their Montgomery limbs through per-thread scratch. G1 coordinates are BigIntegers, which expose their
+ * magnitude only through {@code toByteArray()}, so that copy remains; its sign byte is handled, unlike the plain
+ * copy into a 32-byte slot that a 256-bit value used to overflow.
+ * <p>
+ * Array methods take an offset and leave the rest of the array alone. Buffer methods use relative gets and puts, so
+ * they advance the buffer's position, and work on heap and direct buffers alike.
+ */
+public final class PointCodec {
+    public static final int G1_SIZE = 2 * Util.FP_SIZE;
+    public static final int G2_SIZE = 4 * Util.FP_SIZE;
+    public static final int SCALAR_SIZE = Util.FP_SIZE;
+
+    private static final MontgomeryField F = MontgomeryField.FP;
+
+    private static final class Scratch {
+        private final long[] limbs = new long[2 * Fp2.LIMBS];
+        private final byte[] bytes = new byte[G2_SIZE];
+    }
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    // non-instantiable class
+    private PointCodec() { }
+
+    // G1
+
+    public static void encodeG1(G1Point p, byte[] out, int off) {
+        writeUnsigned(p.x.c0, out, off);
+        writeUnsigned(p.y.c0, out, off + Util.FP_SIZE);
+    }
+
+    public static void encodeG1(G1Point p, ByteBuffer out) {
+        byte[] bytes = SCRATCH.get().bytes;
+        encodeG1(p, bytes, 0);
+        out.put(bytes, 0, G1_SIZE);
+    }
+
+    /**
+     * Decodes a G1 point. As with {@link G1Point} itself, coordinates are not checked against the field modulus.
+     */
+    public static G1Point decodeG1(byte[] in, int off) {
+        return new G1Point(new Fp(new BigInteger(1, in, off, Util.FP_SIZE)),
+                new Fp(new BigInteger(1, in, off + Util.FP_SIZE, Util.FP_SIZE)));
+    }
+
+    public static G1Point decodeG1(ByteBuffer in) {
+        byte[] bytes = SCRATCH.get().bytes;
+        in.get(bytes, 0, G1_SIZE);
+        return decodeG1(bytes, 0);
+    }
+
+    // G2
+
+    public static void encodeG2(G2Point p, byte[] out, int off) {
+        long[] limbs = SCRATCH.get().limbs;
+        p.x.toLimbs(limbs, 0);
+        p.y.toLimbs(limbs, Fp2.LIMBS);
+        for (int i = 0; i < 4; i++) {
+            int lo = i * MontgomeryField.LIMBS;
+            F.fromMont(limbs, lo, limbs, lo);
+            int o = off + i * Util.FP_SIZE;
+            MontgomeryField.writeLong(out, o, limbs[lo + 3]);
+            MontgomeryField.writeLong(out, o + 8, limbs[lo + 2]);
+            MontgomeryField.writeLong(out, o + 16, limbs[lo + 1]);
+            MontgomeryField.writeLong(out, o + 24, limbs[lo]);
+        }
+    }
+
+    public static void encodeG2(G2Point p, ByteBuffer out) {
+        byte[] bytes = SCRATCH.get().bytes;
+        encodeG2(p, bytes, 0);
+        out.put(bytes, 0, G2_SIZE);
+    }
+
+    /**
+     * Decodes a G2 point.
+     *
+     * @throws IllegalArgumentException if a coordinate is not below the field modulus
+     */
+    public static G2Point decodeG2(byte[] in, int off) {
+        return new G2Point(Fp2.fromBytes(in, off), Fp2.fromBytes(in, off + 2 * Util.FP_SIZE));
+    }
+
+    public static G2Point decodeG2(ByteBuffer in) {
+        byte[] bytes = SCRATCH.get().bytes;
+        in.get(bytes, 0, G2_SIZE);
+        return decodeG2(bytes, 0);
+    }
+
+    // Scalars
+
+    /**
+     * @throws IllegalArgumentException if the scalar is negative or does not fit in 32 bytes
+     */
+    public static void encodeScalar(BigInteger s, byte[] out, int off) {
+        writeUnsigned(s, out, off);
+    }
+
+    public static void encodeScalar(BigInteger s, ByteBuffer out) {
+        byte[] bytes = SCRATCH.get().bytes;
+        writeUnsigned(s, bytes, 0);
+        out.put(bytes, 0, SCALAR_SIZE);
+    }
+
+    // Point lists
+
+    public static byte[] encodeG1List(G1Point[] points) {
+        byte[] data = new byte[points.length * G1_SIZE];
+        for (int i = 0; i < points.length; i++) {
+            encodeG1(points[i], data, i * G1_SIZE);
+        }
+        return data;
+    }
+
+    public static void encodeG1List(G1Point[] points, ByteBuffer out) {
+        for (G1Point p : points) {
+            encodeG1(p, out);
+        }
+    }
+
+    public static byte[] encodeG2List(G2Point[] points) {
+        byte[] data = new byte[points.length * G2_SIZE];
+        for (int i = 0; i < points.length; i++) {
+            encodeG2(points[i], data, i * G2_SIZE);
+        }
+        return data;
+    }
+
+    public static void encodeG2List(G2Point[] points, ByteBuffer out) {
+        for (G2Point p : points) {
+            encodeG2(p, out);
+        }
+    }
+
+    public static G1Point[] decodeG1List(byte[] in) {
+        if (in.length % G1_SIZE != 0) {
+            throw new IllegalArgumentException("Not a whole number of G1 points");
+        }
+        G1Point[] points = new G1Point[in.length / G1_SIZE];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = decodeG1(in, i * G1_SIZE);
+        }
+        return points;
+    }
+
+    public static G2Point[] decodeG2List(byte[] in) {
+        if (in.length % G2_SIZE != 0) {
+            throw new IllegalArgumentException("Not a whole number of G2 points");
+        }
+        G2Point[] points = new G2Point[in.length / G2_SIZE];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = decodeG2(in, i * G2_SIZE);
+        }
+        return points;
+    }
+
+    // writes a value in [0, 2^256) as 32 big-endian bytes
+    private static void writeUnsigned(BigInteger v, byte[] out, int off) {
+        if (v.signum() < 0 || v.bitLength() > 8 * Util.FP_SIZE) {
+            throw new IllegalArgumentException("Value does not fit in " + Util.FP_SIZE + " unsigned bytes");
+        }
+        byte[] data = v.toByteArray();
+        // a 33rd byte can only be the leading zero of the sign
+        int len = Math.min(data.length, Util.FP_SIZE);
+        Arrays.fill(out, off, off + Util.FP_SIZE - len, (byte) 0);
+        System.arraycopy(data, data.length - len, out, off + Util.FP_SIZE - len, len);
+    }
+}
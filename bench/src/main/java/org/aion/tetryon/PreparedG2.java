@@ -0,0 +1,46 @@
+package org.aion.tetryon;
+
+
+/**
+ * A point in G2 that has been deserialized and validated (on the twist and in the order-r subgroup) once,
+ * and is kept in native memory for repeated pairings, e.g. the fixed points of a verifying key.
+ *
+ * The native memory is released by {@link #close()}, or by a cleaner once this object becomes unreachable.
+ * Closing while another thread is pairing against this point is not allowed.
+ */
+public final class PreparedG2 implements AutoCloseable {
+
+    public final G2Point point;
+    private final NativeHandle handle;
+
+    private PreparedG2(G2Point point, long handle) {
+        this.point = point;
+        this.handle = new NativeHandle(this, handle, AltBn128::freePreparedG2);
+    }
+
+    /**
+     * Validates a point and keeps it natively.
+     *
+     * Failure Mode: Any illegal point yields an Exception.
+     */
+    public static PreparedG2 prepare(G2Point p) throws Exception {
+        return new PreparedG2(p, AltBn128.prepareG2(Util.serializeG2(p)));
+    }
+
+    /**
+     * Returns the native handle, for use in a call that keeps this object reachable until it returns.
+     */
+    long handle() {
+        return handle.get();
+    }
+
+    @Override
+    public void close() {
+        handle.close();
+    }
+
+    @Override
+    public String toString() {
+        return "Prepared" + point;
+    }
+}
@@ -7,57 +7,153 @@ public class Util {
 
     public static final int FP_SIZE=32;
 
+    // compressed points: x alone, with the flags below in the top bits of the first byte
+    public static final int G1_COMPRESSED_SIZE = FP_SIZE;
+    public static final int G2_COMPRESSED_SIZE = FP_SIZE*2;
+
+    // y is the larger of its two possible values
+    private static final int SIGN_FLAG = 0x80;
+    // the point at infinity; no other bit may be set
+    private static final int INFINITY_FLAG = 0x40;
+
+    private static final BigInteger HALF_MODULUS = Fp.FIELD_MODULUS.shiftRight(1);
+    private static final BigInteger G1_B = BigInteger.valueOf(3);
+
+    // see PointCodec for variants that write into existing arrays and buffers
+
     public static byte[] serializeG1(G1Point p) {
         byte[] data = new byte[FP_SIZE*2];
+        PointCodec.encodeG1(p, data, 0);
+        return data;
+    }
+
+    public static G1Point deserializeG1(byte[] data) {
+        return PointCodec.decodeG1(data, 0);
+    }
 
-        byte[] px = p.x.c0.toByteArray();
-        System.arraycopy(px, 0, data, FP_SIZE - px.length, px.length);
+    public static byte[] serializeG2(G2Point p) {
+        byte[] data = new byte[FP_SIZE*4];
+        PointCodec.encodeG2(p, data, 0);
+        return data;
+    }
 
-        byte[] py = p.y.c0.toByteArray();
-        System.arraycopy(py, 0, data, FP_SIZE*2 - py.length, py.length);
+    public static G2Point deserializeG2(byte[] data) {
+        return PointCodec.decodeG2(data, 0);
+    }
 
+    /**
+     * Encodes a point as its x coordinate (32 bytes, big-endian) and a flag telling which of the two possible y it
+     * has. The flags take the two top bits of the first byte, which the coordinate never uses.
+     */
+    public static byte[] compressG1(G1Point p) {
+        byte[] data = new byte[G1_COMPRESSED_SIZE];
+        if (p.isZero()) {
+            data[0] = (byte) INFINITY_FLAG;
+            return data;
+        }
+        System.arraycopy(serializeScalar(p.x.c0), 0, data, 0, FP_SIZE);
+        if (isLarger(p.y.c0)) {
+            data[0] |= SIGN_FLAG;
+        }
         return data;
     }
 
-    public static G1Point deserializeG1(byte[] data) {
-        byte[] pxData = Arrays.copyOfRange(data, 0, FP_SIZE);
-        byte[] pyData = Arrays.copyOfRange(data, FP_SIZE, data.length);
+    /**
+     * Decodes a point encoded by {@link #compressG1(G1Point)}, recovering y as a square root of x^3 + 3.
+     *
+     * @throws IllegalArgumentException if the encoding is malformed, or x is not on the curve
+     */
+    public static G1Point decompressG1(byte[] data) {
+        byte[] x = Arrays.copyOf(data, G1_COMPRESSED_SIZE);
+        Boolean larger = stripFlags(x);
+        if (larger == null) {
+            return G1Point.INF;
+        }
 
-        Fp p1x = new Fp(new BigInteger(pxData));
-        Fp p1y = new Fp(new BigInteger(pyData));
+        Fp px = new Fp(new BigInteger(1, x));
+        Fp py = px.c0.compareTo(Fp.FIELD_MODULUS) < 0
+                ? new Fp(px.c0.pow(3).add(G1_B).mod(Fp.FIELD_MODULUS)).sqrt() : null;
+        if (py == null) {
+            throw new IllegalArgumentException("NotOnCurve");
+        }
+        if (isLarger(py.c0) != larger) {
+            py = new Fp(Fp.FIELD_MODULUS.subtract(py.c0).mod(Fp.FIELD_MODULUS));
+        }
+        return new G1Point(px, py);
+    }
 
-        G1Point p1 = new G1Point(p1x, p1y);
-        return p1;
+    /**
+     * Encodes a point as its x coordinate (64 bytes, real part first) and a flag telling which of the two possible y
+     * it has, as {@link #compressG1(G1Point)} does. The imaginary part of y decides which is larger, or the real part
+     * when the imaginary one is zero.
+     */
+    public static byte[] compressG2(G2Point p) {
+        byte[] data = new byte[G2_COMPRESSED_SIZE];
+        if (p.isZero()) {
+            data[0] = (byte) INFINITY_FLAG;
+            return data;
+        }
+        System.arraycopy(p.x.toBytes(), 0, data, 0, FP_SIZE*2);
+        if (isLarger(p.y)) {
+            data[0] |= SIGN_FLAG;
+        }
+        return data;
     }
 
-    public static byte[] serializeG2(G2Point p) {
-        byte[] data = new byte[FP_SIZE*4]; // zero byte array
+    /**
+     * Decodes a point encoded by {@link #compressG2(G2Point)}, recovering y as a square root of x^3 + b. The point is
+     * on the twist, but is not checked to be in the order-r subgroup; the backends check that when it is used.
+     *
+     * @throws IllegalArgumentException if the encoding is malformed, or x is not on the twist
+     */
+    public static G2Point decompressG2(byte[] data) {
+        byte[] x = Arrays.copyOf(data, G2_COMPRESSED_SIZE);
+        Boolean larger = stripFlags(x);
+        if (larger == null) {
+            return new G2Point(Fp2.zero(), Fp2.zero());
+        }
 
-        byte[] px1 = p.x.a.toByteArray();
-        System.arraycopy(px1, 0, data, FP_SIZE*1 - px1.length, px1.length);
+        Fp2 px = Fp2.fromBytes(x, 0);
+        Fp2 py = px.multiply(px).multiply(px).add(G2.TWIST_B).sqrt();
+        if (py == null) {
+            throw new IllegalArgumentException("NotOnCurve");
+        }
+        if (isLarger(py) != larger) {
+            py = Fp2.zero().subtract(py);
+        }
+        return new G2Point(px, py);
+    }
 
-        byte[] px2 = p.x.b.toByteArray();
-        System.arraycopy(px2, 0, data, FP_SIZE*2 - px2.length, px2.length);
+    // clears the flags of a compressed point; returns whether y is the larger value, or null for infinity
+    private static Boolean stripFlags(byte[] x) {
+        int flags = x[0] & (SIGN_FLAG | INFINITY_FLAG);
+        x[0] &= ~(SIGN_FLAG | INFINITY_FLAG);
+        if ((flags & INFINITY_FLAG) != 0) {
+            for (byte b : x) {
+                if (b != 0 || flags != INFINITY_FLAG) {
+                    throw new IllegalArgumentException("InvalidEncoding");
+                }
+            }
+            return null;
+        }
+        return (flags & SIGN_FLAG) != 0;
+    }
 
-        byte[] py1 = p.y.a.toByteArray();
-        System.arraycopy(py1, 0, data, FP_SIZE*3 - py1.length, py1.length);
+    private static boolean isLarger(BigInteger y) {
+        return y.compareTo(HALF_MODULUS) > 0;
+    }
 
-        byte[] py2 = p.y.b.toByteArray();
-        System.arraycopy(py2, 0, data, FP_SIZE*4 - py2.length, py2.length);
-        return data;
+    private static boolean isLarger(Fp2 y) {
+        BigInteger b = y.b();
+        return b.signum() != 0 ? isLarger(b) : isLarger(y.a());
     }
 
     public static byte[] serializeScalar(BigInteger scalar) {
         assert (scalar.signum() != -1); // scalar can't be negative (it can be zero or positive)
 
-        byte[] sdata = scalar.toByteArray();
-        assert (sdata.length <= FP_SIZE);
-
         byte[] sdata_aligned = new byte[FP_SIZE];
-        System.arraycopy(sdata, 0, sdata_aligned, FP_SIZE - sdata.length, sdata.length);
-
+        PointCodec.encodeScalar(scalar, sdata_aligned, 0);
         return sdata_aligned;
-
     }
 
     private static final char[] HEX_ARRAY = "0123456789abcdef".toCharArray();
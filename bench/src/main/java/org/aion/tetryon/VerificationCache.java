@@ -0,0 +1,226 @@
+package org.aion.tetryon;
+
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * A bounded cache of verification results, for deployments that check the same proof several times (on admission,
+ * on block assembly and on import, say).
+ * <p>
+ * Results are keyed by a SHA-256 digest of everything that decides them: the point lists of a pairing check, or the
+ * verifying key, proof and public inputs of a Groth16 verification. A cryptographic digest is used on purpose: with
+ * a plain hash, a proof crafted to collide with a valid one would be answered from the cache. Both valid and invalid
+ * results are cached; checks that throw are not.
+ * <p>
+ * Entries expire after a fixed time to live, and each of the {@link #STRIPES} stripes evicts its least recently
+ * used entry once it holds its share of the capacity. Stripes are locked independently, and verification runs
+ * outside any lock, so two threads missing on the same key at once both verify.
+ */
+public final class VerificationCache {
+
+    public static final int STRIPES = 16;
+
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private static final byte PAIRING = 1;
+    private static final byte GROTH16 = 2;
+
+    private static final class Key {
+        private final byte[] digest;
+        private final int hash;
+
+        private Key(byte[] digest) {
+            this.digest = digest;
+            this.hash = Arrays.hashCode(digest);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && Arrays.equals(digest, ((Key) o).digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Result {
+        private final boolean result;
+        private final long expiresAt;
+
+        private Result(boolean result, long expiresAt) {
+            this.result = result;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    // one LRU map and its lock; it holds the map rather than extending it, as it is not meant to be serializable
+    private final class Stripe {
+        private final LinkedHashMap<Key, Result> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private final int capacity;
+
+        private Stripe(int capacity) {
+            this.capacity = capacity;
+        }
+
+        private void put(Key key, Result e) {
+            entries.put(key, e);
+            if (entries.size() > capacity) {
+                // in access order, the first entry is the least recently used
+                Iterator<Result> eldest = entries.values().iterator();
+                eldest.next();
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final long ttlNanos;
+    private final LongSupplier clock;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * @param maxEntries total capacity, split evenly between the stripes
+     * @param ttl        how long a result is kept after it was computed
+     */
+    public VerificationCache(int maxEntries, Duration ttl) {
+        this(maxEntries, ttl, System::nanoTime);
+    }
+
+    VerificationCache(int maxEntries, Duration ttl, LongSupplier clock) {
+        if (maxEntries < STRIPES || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("Cache needs at least " + STRIPES + " entries and a positive time to live");
+        }
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(maxEntries / STRIPES);
+        }
+        this.ttlNanos = ttl.toNanos();
+        this.clock = clock;
+    }
+
+    /**
+     * @see AltBn128#ecPair(byte[], byte[])
+     */
+    public boolean ecPair(byte[] g1_point_list, byte[] g2_point_list) throws Exception {
+        MessageDigest md = DIGEST.get();
+        md.update(PAIRING);
+        md.update(intBytes(g1_point_list.length));
+        md.update(g1_point_list);
+        md.update(g2_point_list);
+        return get(new Key(md.digest()), () -> AltBn128.ecPair(g1_point_list, g2_point_list));
+    }
+
+    /**
+     * @see Groth16#verify(Groth16.Proof, BigInteger[])
+     */
+    public boolean verify(Groth16 verifier, Groth16.Proof proof, BigInteger[] input) throws Exception {
+        MessageDigest md = DIGEST.get();
+        md.update(GROTH16);
+        md.update(verifier.keyId());
+        md.update(Util.serializeG1(proof.a));
+        md.update(Util.serializeG2(proof.b));
+        md.update(Util.serializeG1(proof.c));
+        md.update(intBytes(input.length));
+        for (BigInteger in : input) {
+            // inputs are not range-checked yet, so encode them in a form that cannot be ambiguous
+            byte[] data = in.toByteArray();
+            md.update(intBytes(data.length));
+            md.update(data);
+        }
+        return get(new Key(md.digest()), () -> verifier.verify(proof, input));
+    }
+
+    private boolean get(Key key, Callable<Boolean> check) throws Exception {
+        Stripe stripe = stripes[key.hash & (STRIPES - 1)];
+        long now = clock.getAsLong();
+        synchronized (stripe) {
+            Result e = stripe.entries.get(key);
+            if (e != null) {
+                if (now - e.expiresAt < 0) {
+                    hits.increment();
+                    return e.result;
+                }
+                stripe.entries.remove(key);
+                expirations.increment();
+            }
+        }
+        misses.increment();
+
+        boolean result = check.call();
+        Result e = new Result(result, clock.getAsLong() + ttlNanos);
+        synchronized (stripe) {
+            stripe.put(key, e);
+        }
+        return result;
+    }
+
+    private static byte[] intBytes(int v) {
+        return new byte[]{(byte) (v >>> 24), (byte) (v >>> 16), (byte) (v >>> 8), (byte) v};
+    }
+
+    /**
+     * Drops every entry.
+     */
+    public void invalidateAll() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.entries.clear();
+            }
+        }
+    }
+
+    /**
+     * Number of entries held, including expired ones that have not been looked up since.
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.entries.size();
+            }
+        }
+        return size;
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Number of entries dropped to make room for new ones.
+     */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Number of entries dropped because their time to live had passed.
+     */
+    public long expirationCount() {
+        return expirations.sum();
+    }
+}
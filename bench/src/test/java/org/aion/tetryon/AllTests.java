@@ -7,10 +7,19 @@ import org.junit.runners.Suite.SuiteClasses;
 @RunWith(Suite.class)
 @SuiteClasses({
     Fp2Test.class,
+    MontgomeryFieldTest.class,
+    FrTest.class,
+    PointCodecTest.class,
     G2Test.class,
     G1Test.class,
     JniTest.class,
+    JavaBn128BackendTest.class,
+    DirectBufferTest.class,
     PairingTest.class,
+    AltBn128AsyncTest.class,
+    VerificationCacheTest.class,
+    AltBn128MetricsTest.class,
     G16SquarePreimageTest.class,
+    Groth16Test.class,
 })
 public class AllTests {}
\ No newline at end of file
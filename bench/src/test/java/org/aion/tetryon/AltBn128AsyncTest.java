@@ -0,0 +1,84 @@
+package org.aion.tetryon;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.math.BigInteger;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class AltBn128AsyncTest {
+
+    @Test
+    public void testPairing() throws Exception {
+        G1Point g11 = new G1Point(new Fp(new BigInteger("2bcf154b010dedb450cfea4f635526973f39365ec204e4a8b0e3ecc29abb7e4e", 16)),
+                new Fp(new BigInteger("23db84b7ae4e35681e833b6a1f6903e28291d154af3ec5ddc787e0e6cb058912", 16)));
+        G1Point g12 = new G1Point(new Fp(new BigInteger("2bcf154b010dedb450cfea4f635526973f39365ec204e4a8b0e3ecc29abb7e4e", 16)),
+                new Fp(new BigInteger("0c88c9bb32e36ac199cd0a4c6218547b14ef993cb93304af7498ab300d777435", 16)));
+        G2Point g2 = new G2Point(
+                new Fp2(new BigInteger("27d2525616cd883a2e952616138e052125201826d45e179a9ae28655338ca2be", 16),
+                        new BigInteger("2167ff55d36a2ed92eb480b1b9365382ea2facea90c860d63211827f122fdc29", 16)),
+                new Fp2(new BigInteger("2c6e8b5d5da9a03f2d6b57bf2338168eca1e43409693b43659fe834149e506a9", 16),
+                        new BigInteger("020401d78e6fe746fe3d9512f9b4eedcfdd7eb5d08e307f1d6ee5d38f9a253ec", 16)));
+
+        CompletableFuture<Boolean> good = Pairing.pairingProd2Async(g11, g2, g12, g2);
+        CompletableFuture<Boolean> bad = Pairing.pairingProd2Async(g11, g2, g11, g2);
+        assertTrue(good.get());
+        assertFalse(bad.get());
+    }
+
+    @Test
+    public void testG1() throws Exception {
+        byte[] p = Util.serializeG1(Pairing.P1());
+        byte[] sum = AltBn128Async.g1EcAdd(p, p).get();
+        assertArrayEquals(sum, AltBn128Async.g1EcMul(p, BigInteger.TWO).get());
+
+        // failures surface through the future
+        byte[] bad = Util.serializeG1(new G1Point(new Fp(1), new Fp(3)));
+        try {
+            AltBn128Async.g1EcAdd(bad, p).get();
+            fail();
+        } catch (ExecutionException e) {
+            assertEquals("NotOnCurve", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void testRejection() throws Exception {
+        ThreadPoolExecutor executor = AltBn128Async.newExecutor(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            long rejected = AltBn128Async.rejectedCount();
+            CompletableFuture<Boolean> running = AltBn128Async.submit(executor, () -> release.await(10, TimeUnit.SECONDS));
+            // the worker may not have taken the first task yet, so submit until one is turned away
+            CompletableFuture<Boolean> last;
+            int submitted = 0;
+            do {
+                last = AltBn128Async.submit(executor, () -> true);
+                submitted++;
+            } while (!last.isDone() && submitted < 3);
+
+            try {
+                last.get();
+                fail();
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof RejectedExecutionException);
+            }
+            assertEquals(rejected + 1, AltBn128Async.rejectedCount());
+
+            release.countDown();
+            assertTrue(running.get());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package org.aion.tetryon;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import javax.management.ObjectName;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class AltBn128MetricsTest {
+
+    @Test
+    public void testHistogram() {
+        LatencyHistogram h = new LatencyHistogram();
+        assertEquals(0, h.percentile(0.5));
+        for (int i = 1; i <= 1000; i++) {
+            h.record(i * 1000L);
+        }
+        assertEquals(1000, h.count());
+        assertEquals(1_000_000, h.max());
+        assertEquals(500_500.0, h.mean(), 0.001);
+
+        // within the 12.5% precision of the buckets
+        long p50 = h.percentile(0.5);
+        assertTrue(p50 >= 500_000 && p50 <= 500_000 * 1.125);
+        long p99 = h.percentile(0.99);
+        assertTrue(p99 >= 990_000 && p99 <= 1_000_000);
+        assertEquals(1_000_000, h.percentile(1.0));
+
+        h.reset();
+        assertEquals(0, h.count());
+    }
+
+    @Test
+    public void testBuckets() {
+        // every value lands in a bucket whose range holds it, and buckets are ordered
+        long previous = -1;
+        for (long v : new long[]{0, 1, 7, 8, 9, 15, 16, 17, 1000, 123456789, Long.MAX_VALUE >>> 2}) {
+            int i = LatencyHistogram.index(v);
+            assertTrue(LatencyHistogram.highestEquivalent(i) >= v);
+            assertTrue(i == 0 || LatencyHistogram.highestEquivalent(i - 1) < v);
+            assertTrue(i >= previous);
+            previous = i;
+        }
+    }
+
+    @Test
+    public void testCounters() throws Exception {
+        AltBn128Metrics metrics = AltBn128Metrics.get();
+        long adds = metrics.getG1AddCount();
+        long muls = metrics.getG1MulCount();
+        long pairings = metrics.getPairingCount();
+        long pairs = metrics.getPairCount();
+        long invalid = metrics.getInvalidPointCount();
+
+        byte[] p = Util.serializeG1(Pairing.P1());
+        byte[] bad = Util.serializeG1(new G1Point(new Fp(1), new Fp(3)));
+        AltBn128.g1EcAdd(p, p);
+        AltBn128.ecPair(new byte[0], new byte[0]);
+        try {
+            AltBn128.g1EcAdd(bad, p);
+            fail();
+        } catch (Exception e) {
+            assertEquals("NotOnCurve", e.getMessage());
+        }
+
+        // g1EcMul and ecPair report illegal input as zeros and false, and still count it
+        assertArrayEquals(new byte[64], AltBn128.g1EcMul(bad, BigInteger.TWO));
+        assertFalse(AltBn128.ecPair(bad, new byte[128]));
+
+        assertEquals(adds + 2, metrics.getG1AddCount());
+        assertEquals(muls + 1, metrics.getG1MulCount());
+        assertEquals(pairings + 2, metrics.getPairingCount());
+        assertEquals(pairs + 1, metrics.getPairCount());
+        assertEquals(invalid + 3, metrics.getInvalidPointCount());
+        assertTrue(metrics.getG1AddMaxNanos() > 0);
+
+        ObjectName name = new ObjectName(AltBn128Metrics.OBJECT_NAME);
+        assertEquals(metrics.getG1AddCount(), ManagementFactory.getPlatformMBeanServer().getAttribute(name, "G1AddCount"));
+    }
+
+    @Test
+    public void testFlightRecorderEvents() throws Exception {
+        Path file = Files.createTempFile("bn128", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(CurveOperationEvent.NAME);
+            recording.start();
+            AltBn128.g1EcMul(Util.serializeG1(Pairing.P1()), BigInteger.valueOf(5));
+            recording.stop();
+            recording.dump(file);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            RecordedEvent mul = events.stream()
+                    .filter(e -> e.getEventType().getName().equals(CurveOperationEvent.NAME))
+                    .filter(e -> e.getString("operation").equals("g1EcMul"))
+                    .findFirst().orElseThrow(AssertionError::new);
+            assertEquals("SUCCESS", mul.getString("outcome"));
+            assertEquals(96, mul.getInt("inputSize"));
+            assertEquals(0, mul.getInt("pairs"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package org.aion.tetryon;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(JUnit4.class)
+public class DirectBufferTest {
+
+    @Test
+    public void addTest() throws Exception {
+        G1Point a = new G1Point(new Fp(new BigInteger("222480c9f95409bfa4ac6ae890b9c150bc88542b87b352e92950c340458b0c09", 16)),
+                new Fp(new BigInteger("2976efd698cf23b414ea622b3f720dd9080d679042482ff3668cb2e32cad8ae2", 16)));
+        G1Point b = new G1Point(new Fp(new BigInteger("1bd20beca3d8d28e536d2b5bd3bf36d76af68af5e6c96ca6e5519ba9ff8f5332", 16)),
+                new Fp(new BigInteger("2a53edf6b48bcf5cb1c0b4ad1d36dfce06a79dcd6526f1c386a14d8ce4649844", 16)));
+
+        // operands packed back to back in one buffer, result written at an offset of another
+        ByteBuffer in = ByteBuffer.allocateDirect(2 * Util.FP_SIZE * 2);
+        in.put(Util.serializeG1(a)).put(Util.serializeG1(b)).flip();
+        ByteBuffer out = ByteBuffer.allocateDirect(8 + Util.FP_SIZE * 2);
+        out.position(8);
+
+        ByteBuffer second = in.duplicate();
+        second.position(Util.FP_SIZE * 2);
+        AltBn128.g1EcAdd(in, second, out);
+
+        // positions are left alone
+        assertEquals(0, in.position());
+        assertEquals(8, out.position());
+
+        byte[] result = new byte[Util.FP_SIZE * 2];
+        out.get(result);
+        assertArrayEquals(AltBn128.g1EcAdd(Util.serializeG1(a), Util.serializeG1(b)), result);
+    }
+
+    @Test
+    public void inPlaceTest() throws Exception {
+        G1Point a = new G1Point(new Fp(new BigInteger("222480c9f95409bfa4ac6ae890b9c150bc88542b87b352e92950c340458b0c09", 16)),
+                new Fp(new BigInteger("2976efd698cf23b414ea622b3f720dd9080d679042482ff3668cb2e32cad8ae2", 16)));
+        G1Point b = new G1Point(new Fp(new BigInteger("1bd20beca3d8d28e536d2b5bd3bf36d76af68af5e6c96ca6e5519ba9ff8f5332", 16)),
+                new Fp(new BigInteger("2a53edf6b48bcf5cb1c0b4ad1d36dfce06a79dcd6526f1c386a14d8ce4649844", 16)));
+
+        // a = a + b, then a = 2 * a, with the result written over the first operand
+        ByteBuffer acc = ByteBuffer.allocateDirect(Util.FP_SIZE * 2).put(Util.serializeG1(a));
+        ByteBuffer other = ByteBuffer.allocateDirect(Util.FP_SIZE * 2).put(Util.serializeG1(b));
+        ByteBuffer two = ByteBuffer.allocateDirect(Util.FP_SIZE).put(Util.serializeScalar(BigInteger.valueOf(2)));
+        acc.flip();
+        other.flip();
+        two.flip();
+
+        AltBn128.g1EcAdd(acc, other, acc);
+        AltBn128.g1EcMul(acc, two, acc);
+
+        byte[] result = new byte[Util.FP_SIZE * 2];
+        acc.get(result);
+        assertEquals(G1.mul(G1.add(a, b), BigInteger.valueOf(2)), Util.deserializeG1(result));
+    }
+
+    @Test
+    public void readOnlyResultTest() throws Exception {
+        ByteBuffer in = ByteBuffer.allocateDirect(Util.FP_SIZE * 2);
+        ByteBuffer result = ByteBuffer.allocateDirect(Util.FP_SIZE * 2).asReadOnlyBuffer();
+        try {
+            AltBn128.g1EcAdd(in, in, result);
+            fail();
+        } catch (ReadOnlyBufferException e) {
+            // expected
+        }
+        try {
+            AltBn128.g1EcMul(in, in, result);
+            fail();
+        } catch (ReadOnlyBufferException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void mulTest() throws Exception {
+        G1Point p = new G1Point(new Fp(new BigInteger("1e462d01d1861f7ee499bf70ab12ade335d98586b52db847ee2ec1e790170e04", 16)),
+                new Fp(new BigInteger("14bd807f4e64904b29e874fd824ff16e465b5798b19aafe0cae60a2dbcf91333", 16)));
+        BigInteger s = new BigInteger("30586f85e8fcea91c0db1ed30aacf7350e72efd4cf756b3ce309f2159e275ff9", 16);
+
+        ByteBuffer point = ByteBuffer.allocateDirect(Util.FP_SIZE * 2).put(Util.serializeG1(p));
+        ByteBuffer scalar = ByteBuffer.allocateDirect(Util.FP_SIZE).put(Util.serializeScalar(s));
+        ByteBuffer out = ByteBuffer.allocateDirect(Util.FP_SIZE * 2);
+        point.flip();
+        scalar.flip();
+
+        AltBn128.g1EcMul(point, scalar, out);
+
+        byte[] result = new byte[Util.FP_SIZE * 2];
+        out.get(result);
+        assertArrayEquals(AltBn128.g1EcMul(Util.serializeG1(p), s), result);
+    }
+
+    @Test
+    public void pairTest() throws Exception {
+        G1Point g11 = new G1Point(new Fp(new BigInteger("2bcf154b010dedb450cfea4f635526973f39365ec204e4a8b0e3ecc29abb7e4e", 16)),
+                new Fp(new BigInteger("23db84b7ae4e35681e833b6a1f6903e28291d154af3ec5ddc787e0e6cb058912", 16)));
+        G1Point g12 = new G1Point(new Fp(new BigInteger("2bcf154b010dedb450cfea4f635526973f39365ec204e4a8b0e3ecc29abb7e4e", 16)),
+                new Fp(new BigInteger("0c88c9bb32e36ac199cd0a4c6218547b14ef993cb93304af7498ab300d777435", 16)));
+        G2Point g2 = new G2Point(
+                new Fp2(new BigInteger("27d2525616cd883a2e952616138e052125201826d45e179a9ae28655338ca2be", 16),
+                        new BigInteger("2167ff55d36a2ed92eb480b1b9365382ea2facea90c860d63211827f122fdc29", 16)),
+                new Fp2(new BigInteger("2c6e8b5d5da9a03f2d6b57bf2338168eca1e43409693b43659fe834149e506a9", 16),
+                        new BigInteger("020401d78e6fe746fe3d9512f9b4eedcfdd7eb5d08e307f1d6ee5d38f9a253ec", 16)));
+
+        ByteBuffer g1List = ByteBuffer.allocateDirect(2 * Util.FP_SIZE * 2);
+        g1List.put(Util.serializeG1(g11)).put(Util.serializeG1(g12)).flip();
+        ByteBuffer g2List = ByteBuffer.allocateDirect(2 * Util.FP_SIZE * 4);
+        g2List.put(Util.serializeG2(g2)).put(Util.serializeG2(g2)).flip();
+
+        assertTrue(AltBn128.ecPair(g1List, g2List));
+    }
+
+    @Test
+    public void arenaTest() throws Exception {
+        G1PointArena arena = G1PointArena.allocate(5);
+        for (int i = 0; i < arena.size(); i++) {
+            arena.set(i, new G1Point(new Fp(i + 1), new Fp(2 * i + 1)));
+        }
+
+        // slices share memory with their arena
+        G1PointArena slice = arena.slice(1, 4);
+        assertEquals(3, slice.size());
+        assertEquals(arena.get(2), slice.get(1));
+        slice.set(0, new G1Point(new Fp(7), new Fp(8)));
+        assertEquals(new G1Point(new Fp(7), new Fp(8)), arena.get(1));
+        assertEquals(0, arena.slice(5, 5).size());
+
+        Path file = Files.createTempFile("g1", ".bin");
+        try {
+            byte[] data = new byte[arena.size() * G1PointArena.POINT_SIZE];
+            arena.buffer().get(data);
+            Files.write(file, data);
+            for (G1PointArena loaded : new G1PointArena[]{G1PointArena.load(file), G1PointArena.map(file)}) {
+                assertEquals(arena.size(), loaded.size());
+                for (int i = 0; i < arena.size(); i++) {
+                    assertEquals(arena.get(i), loaded.get(i));
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void arenaNativeTest() throws Exception {
+        G1Point g = Pairing.P1();
+        G1Point[] points = new G1Point[6];
+        BigInteger[] scalars = new BigInteger[6];
+        G1PointArena arena = G1PointArena.allocate(points.length);
+        for (int i = 0; i < points.length; i++) {
+            points[i] = G1.mul(g, BigInteger.valueOf(i + 3));
+            scalars[i] = BigInteger.valueOf(1000 * i + 7);
+            arena.set(i, points[i]);
+        }
+        assertEquals(G1.multiExp(points, scalars), arena.multiExp(scalars));
+
+        G2Point g2 = new G2Point(
+                new Fp2(new BigInteger("27d2525616cd883a2e952616138e052125201826d45e179a9ae28655338ca2be", 16),
+                        new BigInteger("2167ff55d36a2ed92eb480b1b9365382ea2facea90c860d63211827f122fdc29", 16)),
+                new Fp2(new BigInteger("2c6e8b5d5da9a03f2d6b57bf2338168eca1e43409693b43659fe834149e506a9", 16),
+                        new BigInteger("020401d78e6fe746fe3d9512f9b4eedcfdd7eb5d08e307f1d6ee5d38f9a253ec", 16)));
+        G2PointArena g2List = G2PointArena.allocate(2);
+        g2List.set(0, g2);
+        g2List.set(1, g2);
+        G1PointArena g1List = G1PointArena.allocate(2);
+        g1List.set(0, points[0]);
+        g1List.set(1, G1.negate(points[0]));
+        assertTrue(Pairing.pairing(g1List, g2List));
+        assertFalse(Pairing.pairing(arena.slice(0, 2), g2List));
+    }
+}
@@ -3,7 +3,10 @@ package org.aion.tetryon;
 import org.junit.Test;
 
 import java.math.BigInteger;
+import java.util.Arrays;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -85,5 +88,46 @@ public class ErrorHandlingTest {
         assertFalse(r);
     }
 
-
+    @Test
+    public void statusCodes() {
+        Fp ax = new Fp(new BigInteger("222480c9f95409bfa4ac6ae890b9c150bc88542b87b352e92950c340458b0c09", 16));
+        Fp ay = new Fp(new BigInteger("2976efd698cf23b414ea622b3f720dd9080d679042482ff3668cb2e32cad8ae2", 16));
+        Fp bx = new Fp(new BigInteger("1bd20beca3d8d28e536d2b5bd3bf36d76af68af5e6c96ca6e5519ba9ff8f5332", 16));
+        Fp by = new Fp(new BigInteger("2a53edf6b48bcf5cb1c0b4ad1d36dfce06a79dcd6526f1c386a14d8ce4649844", 16));
+        Fp cx = new Fp(new BigInteger("16c7c4042e3a725ddbacf197c519c3dcad2bc87dfd9ac7e1e1631154ee0b7d9c", 16));
+        Fp cy = new Fp(new BigInteger("19cd640dd28c9811ebaaa095a16b16190d08d6906c4f926fce581985fe35be0e", 16));
+        byte[] a = Util.serializeG1(new G1Point(ax, ay));
+        byte[] b = Util.serializeG1(new G1Point(bx, by));
+        byte[] bad = Util.serializeG1(new G1Point(new Fp(new BigInteger("0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f", 16)), ay));
+
+        byte[] result = new byte[8 + 64];
+        assertEquals(AltBn128.STATUS_OK, AltBn128.g1EcAddInto(a, b, result, 8));
+        assertEquals(new G1Point(cx, cy), Util.deserializeG1(Arrays.copyOfRange(result, 8, 72)));
+
+        // failed calls report a status and leave the result alone
+        byte[] untouched = result.clone();
+        assertEquals(AltBn128.STATUS_INVALID_POINT, AltBn128.g1EcAddInto(a, bad, result, 8));
+        assertEquals(AltBn128.STATUS_INVALID_LENGTH, AltBn128.g1EcAddInto(a, b, result, 9));
+        assertEquals(AltBn128.STATUS_INVALID_LENGTH, AltBn128.g1EcAddInto(a, new byte[63], result, 0));
+        assertEquals(AltBn128.STATUS_NOT_MEMBER, AltBn128.g1EcMulInto(a, new byte[]{
+                -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+                -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1}, result, 8));
+        assertEquals(AltBn128.STATUS_INVALID_POINT, AltBn128.g1EcMulInto(bad, new byte[32], result, 8));
+        assertArrayEquals(untouched, result);
+        assertEquals("NotOnCurve", AltBn128.statusMessage(AltBn128.STATUS_INVALID_POINT));
+
+        byte[] scalar = new byte[32];
+        scalar[31] = 1;
+        assertEquals(AltBn128.STATUS_OK, AltBn128.g1EcMulInto(a, scalar, result, 0));
+        assertArrayEquals(a, Arrays.copyOfRange(result, 0, 64));
+
+        byte[] g2 = Util.serializeG2(new G2Point(
+                new Fp2(new BigInteger("10857046999023057135944570762232829481370756359578518086990519993285655852781"),
+                        new BigInteger("11559732032986387107991004021392285783925812861821192530917403151452391805634")),
+                new Fp2(new BigInteger("8495653923123431417604973247489272438418190587263600148770280649306958101930"),
+                        new BigInteger("4082367875863433681332203403145435568316851327593401208105741076214120093531"))));
+        assertEquals(AltBn128.STATUS_INVALID_POINT, AltBn128.ecPairStatus(bad, g2));
+        assertEquals(AltBn128.STATUS_INVALID_LENGTH, AltBn128.ecPairStatus(a, new byte[64]));
+        assertEquals(0, AltBn128.ecPairStatus(a, g2));
+    }
 }
@@ -5,16 +5,82 @@ import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
 import java.math.BigInteger;
+import java.util.Random;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 @RunWith(JUnit4.class)
 public class Fp2Test {
 
+    private static final BigInteger P = Fp2.FIELD_MODULUS;
+
     @Test
     public void testInverse() {
         Fp2 p1 = new Fp2(BigInteger.TWO, BigInteger.TEN);
         Fp2 p2 = p1.inverse();
         assertEquals(Fp2.one(), p1.multiply(p2));
     }
+
+    @Test
+    public void testMultiply() {
+        Random random = new Random(7);
+        for (int i = 0; i < 200; i++) {
+            BigInteger a = new BigInteger(256, random).mod(P), b = new BigInteger(256, random).mod(P);
+            BigInteger c = new BigInteger(256, random).mod(P), d = new BigInteger(256, random).mod(P);
+            Fp2 x = new Fp2(a, b);
+            Fp2 y = new Fp2(c, d);
+
+            // (a + bi)(c + di) = (ac - bd) + (ad + bc)i
+            Fp2 expected = new Fp2(a.multiply(c).subtract(b.multiply(d)), a.multiply(d).add(b.multiply(c)));
+            assertEquals(expected, x.multiply(y));
+            assertEquals(new Fp2(a.multiply(a).subtract(b.multiply(b)), a.multiply(b).shiftLeft(1)), x.multiply(x));
+        }
+    }
+
+    @Test
+    public void testInPlace() {
+        Fp2 x = new Fp2(BigInteger.valueOf(3), BigInteger.valueOf(4));
+        long[] limbs = new long[Fp2.LIMBS];
+        x.toLimbs(limbs, 0);
+
+        Fp2.square(limbs, 0, limbs, 0);
+        assertEquals(x.multiply(x), Fp2.fromLimbs(limbs, 0));
+        Fp2.mul(limbs, 0, limbs, 0, limbs, 0);
+        assertEquals(x.multiply(x).multiply(x.multiply(x)), Fp2.fromLimbs(limbs, 0));
+        Fp2.inverse(limbs, 0, limbs, 0);
+        assertEquals(Fp2.one(), Fp2.fromLimbs(limbs, 0).multiply(x.multiply(x).multiply(x.multiply(x))));
+    }
+
+    @Test
+    public void testBytes() {
+        Fp2 x = new Fp2(BigInteger.valueOf(5), P.subtract(BigInteger.ONE));
+        byte[] data = x.toBytes();
+        assertEquals(64, data.length);
+        assertEquals(x, Fp2.fromBytes(data, 0));
+        assertArrayEquals(data, Fp2.fromBytes(data, 0).toBytes());
+    }
+
+    @Test
+    public void testSqrt() {
+        Random random = new Random(11);
+        for (int i = 0; i < 20; i++) {
+            Fp2 x = new Fp2(new BigInteger(256, random).mod(P), new BigInteger(256, random).mod(P));
+            Fp2 s = x.multiply(x).sqrt();
+            assertEquals(x.multiply(x), s.multiply(s));
+        }
+
+        // real elements, square and not square in F_p
+        Fp2 four = new Fp2(BigInteger.valueOf(4), BigInteger.ZERO);
+        assertEquals(four, four.sqrt().multiply(four.sqrt()));
+        Fp2 three = new Fp2(BigInteger.valueOf(3), BigInteger.ZERO);
+        assertEquals(three, three.sqrt().multiply(three.sqrt()));
+        assertEquals(Fp2.zero(), Fp2.zero().sqrt());
+
+        // the non-residue of the tower is not a square, by construction
+        assertNull(new Fp2(BigInteger.valueOf(9), BigInteger.ONE).sqrt());
+        assertNull(new Fp(3).sqrt());
+        assertEquals(BigInteger.valueOf(4), new Fp(4).sqrt().c0.pow(2).mod(P));
+    }
 }
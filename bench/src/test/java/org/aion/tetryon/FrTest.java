@@ -0,0 +1,112 @@
+package org.aion.tetryon;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class FrTest {
+
+    private static final BigInteger R = Fr.MODULUS;
+
+    private final Random random = new Random(42);
+
+    @Test
+    public void testArithmetic() {
+        for (int i = 0; i < 1000; i++) {
+            BigInteger x = new BigInteger(256, random).mod(R);
+            BigInteger y = i == 0 ? R.subtract(BigInteger.ONE) : new BigInteger(256, random).mod(R);
+            Fr a = Fr.valueOf(x);
+            Fr b = Fr.valueOf(y);
+
+            assertEquals(x.add(y).mod(R), a.add(b).toBigInteger());
+            assertEquals(x.subtract(y).mod(R), a.sub(b).toBigInteger());
+            assertEquals(x.negate().mod(R), a.neg().toBigInteger());
+            assertEquals(x.multiply(y).mod(R), a.mul(b).toBigInteger());
+            assertEquals(x.multiply(x).mod(R), a.square().toBigInteger());
+        }
+        assertEquals(BigInteger.ONE, Fr.ONE.toBigInteger());
+        assertEquals(Fr.valueOf(R.subtract(BigInteger.ONE)), Fr.valueOf(-1));
+    }
+
+    @Test
+    public void testInverseAndPow() {
+        Fr a = Fr.random(random);
+        assertTrue(a.mul(a.inverse()).isOne());
+        assertEquals(a.toBigInteger().modPow(BigInteger.valueOf(12345), R), a.pow(BigInteger.valueOf(12345)).toBigInteger());
+        assertTrue(a.pow(R.subtract(BigInteger.ONE)).isOne());
+        assertTrue(a.pow(BigInteger.ZERO).isOne());
+
+        try {
+            Fr.ZERO.inverse();
+            fail();
+        } catch (ArithmeticException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testBatchInverse() {
+        Fr[] a = new Fr[17];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = i == 3 ? Fr.ONE : Fr.random(random);
+        }
+        Fr[] inv = Fr.batchInverse(a);
+        for (int i = 0; i < a.length; i++) {
+            assertEquals(a[i].inverse(), inv[i]);
+        }
+        assertEquals(0, Fr.batchInverse(new Fr[0]).length);
+
+        a[5] = Fr.ZERO;
+        try {
+            Fr.batchInverse(a);
+            fail();
+        } catch (ArithmeticException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testEncoding() {
+        Fr a = Fr.random(random);
+        byte[] data = a.toBytes();
+        assertArrayEquals(Util.serializeScalar(a.toBigInteger()), data);
+        assertEquals(a, Fr.fromBytes(data));
+
+        byte[] list = new byte[2 * Util.FP_SIZE];
+        a.toBytes(list, Util.FP_SIZE);
+        assertEquals(a, Fr.fromBytes(list, Util.FP_SIZE));
+
+        // the range check: r itself is not a scalar
+        assertFalse(Fr.inRange(R));
+        assertFalse(Fr.inRange(BigInteger.ONE.negate()));
+        assertTrue(Fr.inRange(R.subtract(BigInteger.ONE)));
+        try {
+            Fr.fromBytes(Util.serializeScalar(R));
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testRandomBits() {
+        for (int i = 0; i < 100; i++) {
+            assertTrue(Fr.random(random, 128).toBigInteger().bitLength() <= 128);
+            assertTrue(Fr.random(random, 5).toBigInteger().bitLength() <= 5);
+            assertTrue(Fr.inRange(Fr.random(random).toBigInteger()));
+        }
+    }
+
+    @Test
+    public void testG1Mul() throws Exception {
+        // an Fr multiplies exactly like its BigInteger value
+        BigInteger s = new BigInteger("1234567890123456789012345678901234567890");
+        assertEquals(G1.mul(Pairing.P1(), s), G1.mul(Pairing.P1(), Fr.valueOf(s)));
+    }
+}
@@ -155,16 +155,13 @@ public class G16SquarePreimageTest {
             require(input.length + 1 == vk.gamma_abc.length);
 
             // X = gamma_0 + gamma_1 * input_0 + gamma_2 * input_1
-            G1Point X = new G1Point(Fp.zero(), Fp.zero());
+            BigInteger[] scalars = new BigInteger[vk.gamma_abc.length];
+            scalars[0] = BigInteger.ONE;
             for (int i = 0; i < input.length; i++) {
                 require(input[i].compareTo(snarkScalarField) < 0);
-                G1Point tmp = G1.mul(vk.gamma_abc[i + 1], input[i]);
-                if (i == 0)
-                    X = tmp;
-                else
-                    X = G1.add(X, tmp);
+                scalars[i + 1] = input[i];
             }
-            X = G1.add(X, vk.gamma_abc[0]);
+            G1Point X = G1.multiExp(vk.gamma_abc, scalars);
 
             // See [Groth16]
             // [A]_1 * [B]_2 = [alpha]_1 * [beta]_2 + [X]_1 * [gamma]_2 + [C]_1 * [delta]_2
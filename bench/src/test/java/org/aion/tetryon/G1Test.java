@@ -4,10 +4,13 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 import java.math.BigInteger;
+import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 @RunWith(JUnit4.class)
 public class G1Test {
@@ -131,6 +134,173 @@ public class G1Test {
         assertEquals(q.y, new Fp(BigInteger.ZERO));
     }
 
+    @Test
+    public void multiExpTest() throws Exception {
+        Fp px = new Fp(new BigInteger("1e462d01d1861f7ee499bf70ab12ade335d98586b52db847ee2ec1e790170e04", 16));
+        Fp py = new Fp(new BigInteger("14bd807f4e64904b29e874fd824ff16e465b5798b19aafe0cae60a2dbcf91333", 16));
+        G1Point p = new G1Point(px, py);
+        G1Point g = Pairing.P1();
+
+        G1Point[] points = new G1Point[40];
+        BigInteger[] scalars = new BigInteger[40];
+        G1Point expected = G1.mul(p, BigInteger.valueOf(7));
+        points[0] = p;
+        scalars[0] = BigInteger.valueOf(7);
+        for (int i = 1; i < points.length; i++) {
+            points[i] = G1.mul(g, BigInteger.valueOf(i));
+            scalars[i] = new BigInteger("30586f85e8fcea91c0db1ed30aacf7350e72efd4cf756b3ce309f2159e275ff9", 16).shiftRight(i);
+            expected = G1.add(expected, G1.mul(points[i], scalars[i]));
+        }
+
+        long start = System.nanoTime();
+        G1Point q = G1.multiExp(points, scalars);
+        long ms = TimeUnit.MILLISECONDS.convert(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        System.out.println("g1MultiExp test took " + ms + " ms");
+
+        assertEquals(expected, q);
+        assertEquals(expected, Util.deserializeG1(AltBn128.g1MultiExp(serialize(points), serialize(scalars), true)));
+    }
+
+    @Test
+    public void batchTest() throws Exception {
+        G1Point g = Pairing.P1();
+        G1Point[] lhs = new G1Point[4];
+        G1Point[] rhs = new G1Point[4];
+        BigInteger[] scalars = new BigInteger[4];
+        for (int i = 0; i < lhs.length; i++) {
+            lhs[i] = G1.mul(g, BigInteger.valueOf(3 * i + 1));
+            rhs[i] = G1.mul(g, BigInteger.valueOf(5 * i + 2));
+            scalars[i] = BigInteger.valueOf(1000 + i);
+        }
+        // item 1 sums to infinity, item 2 is not on the curve
+        rhs[1] = G1.negate(lhs[1]);
+        rhs[2] = new G1Point(rhs[2].y, rhs[2].x);
+
+        G1BatchResult sums = AltBn128.g1EcAddBatch(serialize(lhs), serialize(rhs));
+        assertEquals(4, sums.size());
+        assertTrue(sums.isValid(0) && sums.isValid(1) && !sums.isValid(2) && sums.isValid(3));
+        assertEquals(G1.add(lhs[0], rhs[0]), Util.deserializeG1(sums.get(0)));
+        assertTrue(Util.deserializeG1(sums.get(1)).isZero());
+        assertTrue(Util.deserializeG1(sums.get(2)).isZero());
+        assertEquals(G1.add(lhs[3], rhs[3]), Util.deserializeG1(sums.get(3)));
+
+        G1BatchResult products = AltBn128.g1EcMulBatch(serialize(lhs), serialize(scalars));
+        assertTrue(products.allValid());
+        for (int i = 0; i < lhs.length; i++) {
+            assertEquals(G1.mul(lhs[i], scalars[i]), Util.deserializeG1(products.get(i)));
+        }
+    }
+
+    @Test
+    public void compressTest() {
+        G1Point g = Pairing.P1();
+        G1Point[] points = new G1Point[]{g, G1.negate(g), G1Point.INF};
+        for (G1Point p : points) {
+            byte[] data = Util.compressG1(p);
+            assertEquals(Util.G1_COMPRESSED_SIZE, data.length);
+            assertEquals(p, Util.decompressG1(data));
+        }
+        // P1 = (1, 2) has the smaller y, -P1 the larger
+        assertEquals(0, Util.compressG1(g)[0] & 0x80);
+        assertEquals(0x80, Util.compressG1(G1.negate(g))[0] & 0x80);
+
+        // x = 0 is off the curve, since 3 is not a square
+        try {
+            Util.decompressG1(new byte[Util.G1_COMPRESSED_SIZE]);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("NotOnCurve", e.getMessage());
+        }
+    }
+
+    @Test
+    public void decompressBatchTest() throws Exception {
+        G1Point g = Pairing.P1();
+        // enough points to take the multi-threaded path
+        G1Point[] points = new G1Point[20];
+        byte[] compressed = new byte[points.length * Util.G1_COMPRESSED_SIZE];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = i == 5 ? G1Point.INF : G1.mul(g, BigInteger.valueOf(7 * i + 1));
+            System.arraycopy(Util.compressG1(points[i]), 0, compressed, i * Util.G1_COMPRESSED_SIZE, Util.G1_COMPRESSED_SIZE);
+        }
+        // item 3 is off the curve
+        Arrays.fill(compressed, 3 * Util.G1_COMPRESSED_SIZE, 4 * Util.G1_COMPRESSED_SIZE, (byte) 0);
+
+        G1BatchResult result = AltBn128.decompressG1Batch(compressed);
+        assertEquals(points.length, result.size());
+        for (int i = 0; i < points.length; i++) {
+            if (i == 3) {
+                assertFalse(result.isValid(i));
+                assertTrue(Util.deserializeG1(result.get(i)).isZero());
+            } else {
+                assertTrue(result.isValid(i));
+                assertEquals(points[i], Util.deserializeG1(result.get(i)));
+            }
+        }
+    }
+
+    @Test
+    public void fixedBaseTest() throws Exception {
+        G1Point g = Pairing.P1();
+        G1Point p = G1.mul(g, BigInteger.valueOf(12345));
+        BigInteger s = new BigInteger("30586f85e8fcea91c0db1ed30aacf7350e72efd4cf756b3ce309f2159e275ff9", 16);
+        BigInteger t = BigInteger.valueOf(977);
+
+        // one-bit windows, the default, and wide windows
+        for (long budget : new long[]{24L << 10, G1FixedBase.DEFAULT_MEMORY_BUDGET, 4L << 20}) {
+            try (G1FixedBase fg = G1FixedBase.create(g, budget); G1FixedBase fp = G1FixedBase.create(p, budget)) {
+                assertEquals(G1.mul(g, s), fg.mul(s));
+                assertTrue(fg.mul(BigInteger.ZERO).isZero());
+                assertEquals(G1.multiExp(new G1Point[]{g, p}, new BigInteger[]{s, t}),
+                        G1FixedBase.multiExp(new G1FixedBase[]{fg, fp}, new BigInteger[]{s, t}));
+            }
+        }
+    }
+
+    @Test(expected = Exception.class)
+    public void fixedBaseBudgetTest() throws Exception {
+        G1FixedBase.create(Pairing.P1(), 1024);
+    }
+
+    @Test
+    public void nativeHandleTest() throws Exception {
+        G1Point g = Pairing.P1();
+        BigInteger s = new BigInteger("30586f85e8fcea91c0db1ed30aacf7350e72efd4cf756b3ce309f2159e275ff9", 16);
+        try (NativeG1 p = NativeG1.of(g);
+             NativeG1 sp = p.mul(s);
+             NativeG1 sum = sp.add(p);
+             NativeG1 zero = sum.add(sum.neg())) {
+            assertEquals(G1.add(G1.mul(g, s), g), sum.toPoint());
+            assertTrue(zero.toPoint().isZero());
+            try (NativeG1 back = NativeG1.fromAffineBytes(zero.toAffineBytes()).add(p)) {
+                assertEquals(g, back.toPoint());
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void closedNativeHandleTest() throws Exception {
+        NativeG1 p = NativeG1.of(Pairing.P1());
+        p.close();
+        p.neg();
+    }
+
+    private static byte[] serialize(G1Point[] points) {
+        byte[] data = new byte[points.length * Util.FP_SIZE * 2];
+        for (int i = 0; i < points.length; i++) {
+            System.arraycopy(Util.serializeG1(points[i]), 0, data, i * Util.FP_SIZE * 2, Util.FP_SIZE * 2);
+        }
+        return data;
+    }
+
+    private static byte[] serialize(BigInteger[] scalars) {
+        byte[] data = new byte[scalars.length * Util.FP_SIZE];
+        for (int i = 0; i < scalars.length; i++) {
+            System.arraycopy(Util.serializeScalar(scalars[i]), 0, data, i * Util.FP_SIZE, Util.FP_SIZE);
+        }
+        return data;
+    }
+
 
 
 
@@ -80,6 +80,107 @@ public class G2Test {
         assertTrue(isInfinity(ECTwistMul(ECTwistMul(G2_P, CURVE_ORDER), valueOf(2))));
     }
 
+    @Test
+    public void testNativeG2() throws Exception {
+        G2Point p2 = ECTwistMul(G2_P, valueOf(2));
+        assertEquals(ECTwistAdd(p2, G2_P), G2.add(p2, G2_P));
+        assertEquals(p2, G2.add(G2_P, G2_P));
+        assertEquals(G2_P, G2.add(G2_P, G2_INF));
+
+        BigInteger s = new BigInteger("30586f85e8fcea91c0db1ed30aacf7350e72efd4cf756b3ce309f2159e275ff9", 16);
+        assertEquals(ECTwistMul(G2_P, s), G2.mul(G2_P, s));
+        assertTrue(isInfinity(G2.mul(G2_P, CURVE_ORDER)));
+
+        assertTrue(isInfinity(G2.add(G2_P, G2.negate(G2_P))));
+    }
+
+    @Test(expected = Exception.class)
+    public void testNativeG2NotOnCurve() throws Exception {
+        G2Point bad = new G2Point(G2_P.x, G2_P.x);
+        G2.add(bad, G2_P);
+    }
+
+    @Test
+    public void testToAffineBatch() {
+        JacobianPoint[] points = new JacobianPoint[6];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = ECTwistMul(toJacobian(G2_P), valueOf(3 * i + 2));
+        }
+        points[2] = toJacobian(G2_INF);
+
+        G2Point[] affine = toAffineBatch(points);
+        for (int i = 0; i < points.length; i++) {
+            assertEquals(points[i].toAffine(), affine[i]);
+        }
+        assertTrue(isInfinity(affine[2]));
+        assertEquals(0, toAffineBatch(new JacobianPoint[0]).length);
+    }
+
+    @Test
+    public void testSum() {
+        G2Point p2 = ECTwistMul(G2_P, valueOf(2));
+        G2Point p5 = ECTwistMul(G2_P, valueOf(5));
+        assertEquals(ECTwistMul(G2_P, valueOf(8)), sum(G2_P, p2, G2_INF, p5));
+        // doubling inside the sum, and cancelling out
+        assertEquals(ECTwistMul(G2_P, valueOf(4)), sum(p2, p2));
+        assertTrue(isInfinity(sum(p5, ECTwistMul(G2_P, CURVE_ORDER.subtract(valueOf(5))))));
+        assertTrue(isInfinity(sum()));
+    }
+
+    @Test
+    public void testCompress() {
+        G2Point[] points = new G2Point[]{G2_P, ECTwistMul(G2_P, valueOf(5)), ECTwistMul(G2_P, CURVE_ORDER.subtract(valueOf(5))), G2_INF};
+        for (G2Point p : points) {
+            byte[] data = Util.compressG2(p);
+            assertEquals(Util.G2_COMPRESSED_SIZE, data.length);
+            assertEquals(p, Util.decompressG2(data));
+        }
+        // 5P and -5P share x, and differ in the flag only
+        byte[] a = Util.compressG2(points[1]);
+        byte[] b = Util.compressG2(points[2]);
+        assertEquals(0x80, (a[0] ^ b[0]) & 0xff);
+    }
+
+    @Test
+    public void testNativeDecompressBatch() throws Exception {
+        // enough points to take the multi-threaded path
+        G2Point[] points = new G2Point[20];
+        byte[] compressed = new byte[points.length * Util.G2_COMPRESSED_SIZE];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = i == 5 ? G2_INF : ECTwistMul(G2_P, valueOf(7 * i + 1));
+            System.arraycopy(Util.compressG2(points[i]), 0, compressed, i * Util.G2_COMPRESSED_SIZE, Util.G2_COMPRESSED_SIZE);
+        }
+        // item 3 has an infinity flag with a non-zero x
+        compressed[3 * Util.G2_COMPRESSED_SIZE] |= 0x40;
+
+        G2BatchResult result = AltBn128.decompressG2Batch(compressed);
+        assertEquals(points.length, result.size());
+        for (int i = 0; i < points.length; i++) {
+            if (i == 3) {
+                assertFalse(result.isValid(i));
+                assertArrayEquals(new byte[128], result.get(i));
+            } else {
+                assertTrue(result.isValid(i));
+                assertEquals(points[i], Util.deserializeG2(result.get(i)));
+            }
+        }
+    }
+
+    @Test
+    public void nativeHandleTest() throws Exception {
+        BigInteger s = new BigInteger("30586f85e8fcea91c0db1ed30aacf7350e72efd4cf756b3ce309f2159e275ff9", 16);
+        try (NativeG2 p = NativeG2.of(G2_P);
+             NativeG2 sp = p.mul(s);
+             NativeG2 sum = sp.add(p);
+             NativeG2 zero = sum.add(sum.neg())) {
+            assertEquals(ECTwistAdd(ECTwistMul(G2_P, s), G2_P), sum.toPoint());
+            assertArrayEquals(new byte[128], zero.toAffineBytes());
+            try (NativeG2 back = NativeG2.fromAffineBytes(zero.toAffineBytes()).add(p)) {
+                assertEquals(G2_P, back.toPoint());
+            }
+        }
+    }
+
     private boolean isInfinity(G2Point p) {
         return p.equals(G2_INF);
     }
@@ -0,0 +1,86 @@
+package org.aion.tetryon;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class Groth16Test {
+
+    static Groth16.VerifyingKey verifyingKey() {
+        G16SquarePreimageTest.G16Verifier.VerifyingKey vk = G16SquarePreimageTest.G16Verifier.verifyingKey();
+        return new Groth16.VerifyingKey(vk.alpha, vk.beta, vk.gamma, vk.delta, vk.gamma_abc);
+    }
+
+    // proof for the square pre-image circuit: a=337, b=113569 (a^2 == b)
+    static Groth16.Proof validProof() {
+        G1Point a = new G1Point(
+                new Fp(new BigInteger("07f4a1ab12b1211149fa0aed8ade3442b774893dcd1caffb8693ade54999c164", 16)),
+                new Fp(new BigInteger("23b7f10c5e1aeaffafa088f1412c0f307969ba3f8f9d5920214a4cb91693fab5", 16)));
+        G2Point b = new G2Point(
+                new Fp2(new BigInteger("1f6cc814cf1df1ceb663378c496f168bcd21e19bb529e90fcf3721f8df6b4128", 16),
+                        new BigInteger("079ee30e2c79e15be67645838a3177f681ab111edacf6f4867e8eed753ed9681", 16)),
+                new Fp2(new BigInteger("2779dd0accaa1391e29ad54bf065819cac3129edda4eaf909d6ea2c7495a47f7", 16),
+                        new BigInteger("20105b11ae5fbdc7067102d4260c8913cdcb512632680221d7644f9928a7e51d", 16)));
+        G1Point c = new G1Point(
+                new Fp(new BigInteger("153c3a313679a5c11010c3339ff4f787246ed2e8d736efb615aeb321f5a22432", 16)),
+                new Fp(new BigInteger("06691d8441c35768a4ca87a5f5ee7d721bf13115d2a16726c12cda295a19bf09", 16)));
+        return new Groth16.Proof(a, b, c);
+    }
+
+    static BigInteger[] validInput() {
+        return new BigInteger[]{BigInteger.valueOf(113569), BigInteger.ONE};
+    }
+
+    @Test
+    public void verifyTest() throws Exception {
+        try (Groth16 verifier = Groth16.prepare(verifyingKey())) {
+            assertTrue(verifier.verify(validProof(), validInput()));
+            // the prepared verifier is reusable
+            assertTrue(verifier.verify(validProof(), validInput()));
+        }
+    }
+
+    @Test
+    public void rejectTest() throws Exception {
+        try (Groth16 verifier = Groth16.prepare(verifyingKey())) {
+            assertFalse(verifier.verify(validProof(), new BigInteger[]{BigInteger.valueOf(113570), BigInteger.ONE}));
+
+            Groth16.Proof p = validProof();
+            assertFalse(verifier.verify(new Groth16.Proof(p.c, p.b, p.a), validInput()));
+        }
+    }
+
+    @Test
+    public void verifyBatchTest() throws Exception {
+        Groth16.Proof p = validProof();
+        Groth16.Proof swapped = new Groth16.Proof(p.c, p.b, p.a);
+        BigInteger[] wrongInput = new BigInteger[]{BigInteger.valueOf(113570), BigInteger.ONE};
+        BigInteger[] shortInput = new BigInteger[]{BigInteger.valueOf(113569)};
+
+        try (Groth16 verifier = Groth16.prepare(verifyingKey())) {
+            List<Groth16.Proof> proofs = Arrays.asList(p, p, p, swapped, p, p);
+            List<BigInteger[]> inputs = Arrays.asList(validInput(), wrongInput, validInput(), validInput(), shortInput, validInput());
+            assertArrayEquals(new boolean[]{true, false, true, false, false, true}, verifier.verifyBatch(proofs, inputs));
+
+            List<Groth16.Proof> allValid = Arrays.asList(p, p, p);
+            List<BigInteger[]> allValidInputs = Arrays.asList(validInput(), validInput(), validInput());
+            assertArrayEquals(new boolean[]{true, true, true}, verifier.verifyBatch(allValid, allValidInputs));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void inputOutOfFieldTest() throws Exception {
+        try (Groth16 verifier = Groth16.prepare(verifyingKey())) {
+            verifier.verify(validProof(), new BigInteger[]{Groth16.SNARK_SCALAR_FIELD, BigInteger.ONE});
+        }
+    }
+}
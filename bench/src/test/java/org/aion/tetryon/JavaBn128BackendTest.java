@@ -0,0 +1,173 @@
+package org.aion.tetryon;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class JavaBn128BackendTest {
+
+    private static final BigInteger CURVE_ORDER = new BigInteger("21888242871839275222246405745257275088548364400416034343698204186575808495617");
+    private static final G2Point G2_P = new G2Point(
+            new Fp2(
+                    new BigInteger("10857046999023057135944570762232829481370756359578518086990519993285655852781"),
+                    new BigInteger("11559732032986387107991004021392285783925812861821192530917403151452391805634")
+            ),
+            new Fp2(
+                    new BigInteger("8495653923123431417604973247489272438418190587263600148770280649306958101930"),
+                    new BigInteger("4082367875863433681332203403145435568316851327593401208105741076214120093531")
+            )
+    );
+
+    private final Bn128Backend backend = new JavaBn128Backend();
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] r = new byte[a.length + b.length];
+        System.arraycopy(a, 0, r, 0, a.length);
+        System.arraycopy(b, 0, r, a.length, b.length);
+        return r;
+    }
+
+    @Test
+    public void testG1() throws Exception {
+        byte[] p = Util.serializeG1(Pairing.P1());
+        byte[] p2 = backend.g1EcAdd(p, p);
+        assertArrayEquals(p2, backend.g1EcMul(p, Util.serializeScalar(BigInteger.TWO)));
+
+        byte[] p5 = backend.g1EcMul(p, Util.serializeScalar(BigInteger.valueOf(5)));
+        byte[] p3 = backend.g1EcAdd(p2, p);
+        assertArrayEquals(p5, backend.g1EcAdd(p3, p2));
+
+        // p + (-p) and (r - 1) p + p are both infinity, encoded as zeros
+        byte[] neg = Util.serializeG1(G1.negate(Pairing.P1()));
+        assertArrayEquals(new byte[64], backend.g1EcAdd(p, neg));
+        assertArrayEquals(neg, backend.g1EcMul(p, Util.serializeScalar(CURVE_ORDER.subtract(BigInteger.ONE))));
+    }
+
+    @Test
+    public void testG1FailureModes() throws Exception {
+        byte[] bad = Util.serializeG1(new G1Point(new Fp(1), new Fp(3)));
+        byte[] p = Util.serializeG1(Pairing.P1());
+        try {
+            backend.g1EcAdd(bad, p);
+            fail();
+        } catch (Exception e) {
+            assertEquals("NotOnCurve", e.getMessage());
+        }
+
+        assertArrayEquals(new byte[64], backend.g1EcMul(bad, Util.serializeScalar(BigInteger.TWO)));
+        assertArrayEquals(new byte[64], backend.g1EcMul(p, Util.serializeScalar(CURVE_ORDER)));
+    }
+
+    @Test
+    public void testStatusCodes() throws Exception {
+        byte[] bad = Util.serializeG1(new G1Point(new Fp(1), new Fp(3)));
+        byte[] p = Util.serializeG1(Pairing.P1());
+        byte[] q = Util.serializeG2(G2_P);
+
+        byte[] result = new byte[8 + 64];
+        assertEquals(AltBn128.STATUS_OK, backend.g1EcAddInto(p, p, result, 8));
+        assertArrayEquals(backend.g1EcAdd(p, p), Arrays.copyOfRange(result, 8, 72));
+
+        // failed calls report a status and leave the result alone
+        byte[] untouched = result.clone();
+        assertEquals(AltBn128.STATUS_INVALID_POINT, backend.g1EcAddInto(p, bad, result, 8));
+        assertEquals(AltBn128.STATUS_INVALID_LENGTH, backend.g1EcAddInto(p, p, result, 9));
+        assertEquals(AltBn128.STATUS_INVALID_POINT, backend.g1EcMulInto(bad, Util.serializeScalar(BigInteger.TWO), result, 8));
+        assertEquals(AltBn128.STATUS_NOT_MEMBER, backend.g1EcMulInto(p, Util.serializeScalar(CURVE_ORDER), result, 8));
+        assertArrayEquals(untouched, result);
+
+        assertEquals(AltBn128.STATUS_INVALID_POINT, backend.ecPairStatus(bad, q));
+        assertEquals(AltBn128.STATUS_INVALID_LENGTH, backend.ecPairStatus(p, new byte[64]));
+        assertEquals(0, backend.ecPairStatus(p, q));
+        assertEquals(1, backend.ecPairStatus(new byte[0], new byte[0]));
+    }
+
+    @Test
+    public void testG2() throws Exception {
+        byte[] p = Util.serializeG2(G2_P);
+        G2Point p2 = G2.ECTwistMul(G2_P, BigInteger.TWO);
+        assertEquals(p2, Util.deserializeG2(backend.g2EcAdd(p, p)));
+        assertEquals(G2.ECTwistAdd(p2, G2_P), Util.deserializeG2(backend.g2EcAdd(Util.serializeG2(p2), p)));
+
+        BigInteger s = new BigInteger("30586f85e8fcea91c0db1ed30aacf7350e72efd4cf756b3ce309f2159e275ff9", 16);
+        assertEquals(G2.ECTwistMul(G2_P, s), Util.deserializeG2(backend.g2EcMul(p, Util.serializeScalar(s))));
+
+        assertArrayEquals(new byte[128], backend.g2EcAdd(p, backend.g2Negate(p)));
+        assertArrayEquals(p, backend.g2EcAdd(p, new byte[128]));
+    }
+
+    @Test(expected = Exception.class)
+    public void testG2NotOnCurve() throws Exception {
+        backend.g2EcAdd(Util.serializeG2(new G2Point(G2_P.x, G2_P.x)), Util.serializeG2(G2_P));
+    }
+
+    @Test
+    public void testPairingBilinearity() throws Exception {
+        byte[] p = Util.serializeG1(Pairing.P1());
+        byte[] q = Util.serializeG2(G2_P);
+        BigInteger a = BigInteger.valueOf(6), b = new BigInteger("1234567890123456789");
+
+        // e(a P, b Q) * e(-ab P, Q) == 1
+        byte[] aP = backend.g1EcMul(p, Util.serializeScalar(a));
+        byte[] bQ = backend.g2EcMul(q, Util.serializeScalar(b));
+        byte[] abP = backend.g1EcMul(p, Util.serializeScalar(a.multiply(b)));
+        byte[] negAbP = Util.serializeG1(G1.negate(Util.deserializeG1(abP)));
+
+        assertTrue(backend.ecPair(concat(aP, negAbP), concat(bQ, q)));
+        assertFalse(backend.ecPair(concat(aP, abP), concat(bQ, q)));
+        assertFalse(backend.ecPair(p, q));
+        assertTrue(backend.ecPair(new byte[0], new byte[0]));
+
+        // illegal points yield false
+        assertFalse(backend.ecPair(new byte[64], q));
+    }
+
+    @Test
+    public void testFinalExponentiation() {
+        // compare the addition chain against a plain exponentiation by (p^12 - 1) / r
+        long[] g1 = new long[OptimalAtePairing.G1_LIMBS];
+        long[] g2 = new long[OptimalAtePairing.G2_LIMBS];
+        MontgomeryField.FP.fromBigInteger(g1, 0, BigInteger.ONE);
+        MontgomeryField.FP.fromBigInteger(g1, 4, BigInteger.TWO);
+        G2_P.x.toLimbs(g2, 0);
+        G2_P.y.toLimbs(g2, Fp2.LIMBS);
+
+        long[] f = new long[Fp12.LIMBS];
+        OptimalAtePairing.millerLoop(f, g1, g2, 1);
+
+        long[] expected = new long[Fp12.LIMBS];
+        long[] t = new long[Fp12.SCRATCH];
+        BigInteger e = Fp.FIELD_MODULUS.pow(12).subtract(BigInteger.ONE).divide(CURVE_ORDER);
+        Fp12.setOne(expected, 0);
+        for (int i = e.bitLength() - 1; i >= 0; i--) {
+            Fp12.square(expected, 0, expected, 0, t, 0);
+            if (e.testBit(i)) {
+                Fp12.mul(expected, 0, expected, 0, f, 0, t, 0);
+            }
+        }
+
+        long[] actual = new long[Fp12.LIMBS];
+        OptimalAtePairing.finalExponentiation(actual, f);
+        assertTrue(Fp12.equal(expected, 0, actual, 0));
+        assertFalse(Fp12.isOne(actual, 0));
+    }
+
+    @Test
+    public void testMatchesNative() throws Exception {
+        Bn128Backend jni = new JniBn128Backend();
+        byte[] p = Util.serializeG1(Pairing.P1());
+        byte[] q = Util.serializeG2(G2_P);
+        byte[] s = Util.serializeScalar(new BigInteger("30586f85e8fcea91c0db1ed30aacf7350e72efd4cf756b3ce309f2159e275ff9", 16));
+
+        assertArrayEquals(jni.g1EcMul(p, s), backend.g1EcMul(p, s));
+        assertArrayEquals(jni.g2EcMul(q, s), backend.g2EcMul(q, s));
+        byte[] sp = backend.g1EcMul(p, s);
+        assertEquals(jni.ecPair(concat(p, sp), concat(q, q)), backend.ecPair(concat(p, sp), concat(q, q)));
+    }
+}
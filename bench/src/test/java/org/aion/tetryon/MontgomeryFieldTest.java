@@ -0,0 +1,115 @@
+package org.aion.tetryon;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class MontgomeryFieldTest {
+
+    private static final MontgomeryField F = MontgomeryField.FP;
+    private static final BigInteger P = Fp.FIELD_MODULUS;
+
+    private final Random random = new Random(42);
+
+    private BigInteger randomElement() {
+        return new BigInteger(256, random).mod(P);
+    }
+
+    @Test
+    public void testArithmetic() {
+        long[] a = new long[4], b = new long[4], r = new long[4];
+        for (int i = 0; i < 1000; i++) {
+            BigInteger x = randomElement();
+            BigInteger y = i == 0 ? P.subtract(BigInteger.ONE) : randomElement();
+            F.fromBigInteger(a, 0, x);
+            F.fromBigInteger(b, 0, y);
+
+            F.add(r, 0, a, 0, b, 0);
+            assertEquals(x.add(y).mod(P), F.toBigInteger(r, 0));
+            F.sub(r, 0, a, 0, b, 0);
+            assertEquals(x.subtract(y).mod(P), F.toBigInteger(r, 0));
+            F.neg(r, 0, a, 0);
+            assertEquals(x.negate().mod(P), F.toBigInteger(r, 0));
+            F.mul(r, 0, a, 0, b, 0);
+            assertEquals(x.multiply(y).mod(P), F.toBigInteger(r, 0));
+            F.square(r, 0, a, 0);
+            assertEquals(x.multiply(x).mod(P), F.toBigInteger(r, 0));
+        }
+    }
+
+    @Test
+    public void testInPlace() {
+        long[] limbs = new long[8];
+        BigInteger x = randomElement();
+        BigInteger y = randomElement();
+        F.fromBigInteger(limbs, 0, x);
+        F.fromBigInteger(limbs, 4, y);
+
+        F.mul(limbs, 4, limbs, 0, limbs, 4);
+        assertEquals(x.multiply(y).mod(P), F.toBigInteger(limbs, 4));
+        F.square(limbs, 0, limbs, 0);
+        assertEquals(x.multiply(x).mod(P), F.toBigInteger(limbs, 0));
+    }
+
+    @Test
+    public void testInverse() {
+        long[] a = new long[4], r = new long[4];
+        for (int i = 0; i < 50; i++) {
+            BigInteger x = randomElement();
+            F.fromBigInteger(a, 0, x);
+            F.inverse(r, 0, a, 0);
+            assertEquals(x.modInverse(P), F.toBigInteger(r, 0));
+        }
+
+        F.setZero(a, 0);
+        F.inverse(r, 0, a, 0);
+        assertTrue(MontgomeryField.isZero(r, 0));
+    }
+
+    @Test
+    public void testSqrt() {
+        long[] a = new long[4], r = new long[4], s = new long[4], t = new long[4];
+        for (int i = 0; i < 50; i++) {
+            F.fromBigInteger(a, 0, randomElement());
+            F.square(s, 0, a, 0);
+            assertTrue(F.sqrt(r, 0, s, 0, t, 0));
+            F.square(r, 0, r, 0);
+            assertTrue(MontgomeryField.equal(s, 0, r, 0));
+        }
+
+        // -1 is not a square since p = 3 mod 4
+        F.setOne(a, 0);
+        F.neg(a, 0, a, 0);
+        assertFalse(F.sqrt(r, 0, a, 0, t, 0));
+    }
+
+    @Test
+    public void testBytes() {
+        BigInteger x = randomElement();
+        byte[] data = Util.serializeScalar(x);
+        long[] a = new long[4];
+        assertTrue(F.fromBytes(a, 0, data, 0));
+        assertEquals(x, F.toBigInteger(a, 0));
+
+        byte[] out = new byte[32];
+        F.toBytes(out, 0, a, 0);
+        assertArrayEquals(data, out);
+
+        // the extremes of both fields survive the round trip
+        for (MontgomeryField f : new MontgomeryField[]{MontgomeryField.FP, MontgomeryField.FR}) {
+            for (BigInteger v : new BigInteger[]{BigInteger.ZERO, BigInteger.ONE, f.modulus().subtract(BigInteger.ONE)}) {
+                f.fromBigInteger(a, 0, v);
+                f.toBytes(out, 0, a, 0);
+                assertArrayEquals(Util.serializeScalar(v), out);
+            }
+        }
+
+        assertFalse(F.fromBytes(a, 0, Util.serializeScalar(P), 0));
+    }
+}
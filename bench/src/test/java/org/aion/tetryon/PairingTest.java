@@ -2,10 +2,19 @@ package org.aion.tetryon;
 
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class PairingTest {
     @Test
@@ -37,4 +46,276 @@ public class PairingTest {
 
         assertTrue(r);
     }
+
+    @Test
+    public void preparedPairingTest() throws Exception {
+        G1Point g11 = new G1Point(new Fp(new BigInteger("2bcf154b010dedb450cfea4f635526973f39365ec204e4a8b0e3ecc29abb7e4e", 16)),
+                new Fp(new BigInteger("23db84b7ae4e35681e833b6a1f6903e28291d154af3ec5ddc787e0e6cb058912", 16)));
+        G1Point g12 = new G1Point(new Fp(new BigInteger("2bcf154b010dedb450cfea4f635526973f39365ec204e4a8b0e3ecc29abb7e4e", 16)),
+                new Fp(new BigInteger("0c88c9bb32e36ac199cd0a4c6218547b14ef993cb93304af7498ab300d777435", 16)));
+        G2Point g2 = new G2Point(
+                new Fp2(new BigInteger("27d2525616cd883a2e952616138e052125201826d45e179a9ae28655338ca2be", 16),
+                        new BigInteger("2167ff55d36a2ed92eb480b1b9365382ea2facea90c860d63211827f122fdc29", 16)),
+                new Fp2(new BigInteger("2c6e8b5d5da9a03f2d6b57bf2338168eca1e43409693b43659fe834149e506a9", 16),
+                        new BigInteger("020401d78e6fe746fe3d9512f9b4eedcfdd7eb5d08e307f1d6ee5d38f9a253ec", 16)));
+
+        try (PreparedG2 prepared = PreparedG2.prepare(g2)) {
+            // one raw pair and one prepared pair
+            assertTrue(Pairing.pairing(new G1Point[]{g11}, new G2Point[]{g2}, new G1Point[]{g12}, new PreparedG2[]{prepared}));
+            // both prepared
+            assertTrue(Pairing.pairing(new G1Point[0], new G2Point[0], new G1Point[]{g11, g12}, new PreparedG2[]{prepared, prepared}));
+            assertFalse(Pairing.pairing(new G1Point[0], new G2Point[0], new G1Point[]{g11, g11}, new PreparedG2[]{prepared, prepared}));
+        }
+    }
+
+    @Test
+    public void parallelPairingTest() throws Exception {
+        G1Point g11 = new G1Point(new Fp(new BigInteger("2bcf154b010dedb450cfea4f635526973f39365ec204e4a8b0e3ecc29abb7e4e", 16)),
+                new Fp(new BigInteger("23db84b7ae4e35681e833b6a1f6903e28291d154af3ec5ddc787e0e6cb058912", 16)));
+        G1Point g12 = G1.negate(g11);
+        G2Point g2 = new G2Point(
+                new Fp2(new BigInteger("27d2525616cd883a2e952616138e052125201826d45e179a9ae28655338ca2be", 16),
+                        new BigInteger("2167ff55d36a2ed92eb480b1b9365382ea2facea90c860d63211827f122fdc29", 16)),
+                new Fp2(new BigInteger("2c6e8b5d5da9a03f2d6b57bf2338168eca1e43409693b43659fe834149e506a9", 16),
+                        new BigInteger("020401d78e6fe746fe3d9512f9b4eedcfdd7eb5d08e307f1d6ee5d38f9a253ec", 16)));
+
+        // 16 pairs that cancel out, enough to take the multi-threaded path by default
+        int n = 16;
+        byte[] g1List = new byte[n * 64];
+        byte[] g2List = new byte[n * 128];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(Util.serializeG1(i % 2 == 0 ? g11 : g12), 0, g1List, i * 64, 64);
+            System.arraycopy(Util.serializeG2(g2), 0, g2List, i * 128, 128);
+        }
+
+        try {
+            for (int threads : new int[]{1, 3, 0}) {
+                AltBn128.setThreadCount(threads);
+                assertTrue(AltBn128.ecPair(g1List, g2List, true));
+            }
+            assertTrue(AltBn128.ecPair(g1List, g2List));
+            assertTrue(AltBn128.ecPair(g1List, g2List, false));
+
+            // break the last pair
+            System.arraycopy(Util.serializeG1(g11), 0, g1List, (n - 1) * 64, 64);
+            assertFalse(AltBn128.ecPair(g1List, g2List, true));
+            assertFalse(AltBn128.ecPair(g1List, g2List, false));
+        } finally {
+            AltBn128.setThreadCount(0);
+        }
+    }
+
+    @Test
+    public void validatedPointCacheTest() throws Exception {
+        G1Point g11 = new G1Point(new Fp(new BigInteger("2bcf154b010dedb450cfea4f635526973f39365ec204e4a8b0e3ecc29abb7e4e", 16)),
+                new Fp(new BigInteger("23db84b7ae4e35681e833b6a1f6903e28291d154af3ec5ddc787e0e6cb058912", 16)));
+        G1Point g12 = G1.negate(g11);
+        G2Point g2 = new G2Point(
+                new Fp2(new BigInteger("27d2525616cd883a2e952616138e052125201826d45e179a9ae28655338ca2be", 16),
+                        new BigInteger("2167ff55d36a2ed92eb480b1b9365382ea2facea90c860d63211827f122fdc29", 16)),
+                new Fp2(new BigInteger("2c6e8b5d5da9a03f2d6b57bf2338168eca1e43409693b43659fe834149e506a9", 16),
+                        new BigInteger("020401d78e6fe746fe3d9512f9b4eedcfdd7eb5d08e307f1d6ee5d38f9a253ec", 16)));
+
+        try {
+            AltBn128.setValidatedPointCache(16);
+            long hits = AltBn128.validatedPointCacheHits();
+            long misses = AltBn128.validatedPointCacheMisses();
+
+            // g2 misses once, then hits for the second pair and the whole second check
+            assertTrue(Pairing.pairingProd2(g11, g2, g12, g2));
+            assertTrue(Pairing.pairingProd2(g11, g2, g12, g2));
+            assertTrue(AltBn128.validatedPointCacheHits() >= hits + 3);
+            assertTrue(AltBn128.validatedPointCacheMisses() >= misses + 1);
+
+            // cached points do not change results
+            assertFalse(Pairing.pairingProd2(g11, g2, g11, g2));
+        } finally {
+            AltBn128.setValidatedPointCache(0);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void closedPreparedTest() throws Exception {
+        G2Point g2 = new G2Point(
+                new Fp2(new BigInteger("27d2525616cd883a2e952616138e052125201826d45e179a9ae28655338ca2be", 16),
+                        new BigInteger("2167ff55d36a2ed92eb480b1b9365382ea2facea90c860d63211827f122fdc29", 16)),
+                new Fp2(new BigInteger("2c6e8b5d5da9a03f2d6b57bf2338168eca1e43409693b43659fe834149e506a9", 16),
+                        new BigInteger("020401d78e6fe746fe3d9512f9b4eedcfdd7eb5d08e307f1d6ee5d38f9a253ec", 16)));
+        PreparedG2 prepared = PreparedG2.prepare(g2);
+        prepared.close();
+        Pairing.pairing(new G1Point[0], new G2Point[0], new G1Point[]{Pairing.P1()}, new PreparedG2[]{prepared});
+    }
+    @Test
+    public void accumulatorTest() throws Exception {
+        G1Point g11 = new G1Point(new Fp(new BigInteger("2bcf154b010dedb450cfea4f635526973f39365ec204e4a8b0e3ecc29abb7e4e", 16)),
+                new Fp(new BigInteger("23db84b7ae4e35681e833b6a1f6903e28291d154af3ec5ddc787e0e6cb058912", 16)));
+        G1Point g12 = G1.negate(g11);
+        G2Point g2 = new G2Point(
+                new Fp2(new BigInteger("27d2525616cd883a2e952616138e052125201826d45e179a9ae28655338ca2be", 16),
+                        new BigInteger("2167ff55d36a2ed92eb480b1b9365382ea2facea90c860d63211827f122fdc29", 16)),
+                new Fp2(new BigInteger("2c6e8b5d5da9a03f2d6b57bf2338168eca1e43409693b43659fe834149e506a9", 16),
+                        new BigInteger("020401d78e6fe746fe3d9512f9b4eedcfdd7eb5d08e307f1d6ee5d38f9a253ec", 16)));
+
+        // pairs one at a time; the check can be repeated as pairs come in
+        try (PairingAccumulator acc = PairingAccumulator.create()) {
+            assertTrue(acc.check());
+            acc.add(g11, g2);
+            assertFalse(acc.check());
+            acc.add(g12, g2);
+            assertTrue(acc.check());
+            assertEquals(2, acc.pairCount());
+        }
+
+        // chunks from arrays and direct buffers
+        byte[] g1List = new byte[2 * 64];
+        byte[] g2List = new byte[2 * 128];
+        System.arraycopy(Util.serializeG1(g11), 0, g1List, 0, 64);
+        System.arraycopy(Util.serializeG1(g12), 0, g1List, 64, 64);
+        System.arraycopy(Util.serializeG2(g2), 0, g2List, 0, 128);
+        System.arraycopy(Util.serializeG2(g2), 0, g2List, 128, 128);
+        try (PairingAccumulator acc = PairingAccumulator.create()) {
+            acc.add(g1List, g2List);
+            ByteBuffer g1 = ByteBuffer.allocateDirect(g1List.length).put(g1List);
+            ByteBuffer g2Buffer = ByteBuffer.allocateDirect(g2List.length).put(g2List);
+            g1.flip();
+            g2Buffer.flip();
+            acc.add(g1, g2Buffer);
+            assertFalse(g1.hasRemaining());
+            assertTrue(acc.check());
+
+            // an illegal point leaves the accumulator as it was
+            try {
+                acc.add(Util.serializeG1(new G1Point(new Fp(1), new Fp(3))), Util.serializeG2(g2));
+                fail();
+            } catch (Exception e) {
+                assertEquals("NotOnCurve", e.getMessage());
+            }
+            assertTrue(acc.check());
+            assertEquals(4, acc.pairCount());
+        }
+
+        // interleaved pairs from a channel, over several chunks
+        int n = 2 * PairingAccumulator.CHANNEL_CHUNK_PAIRS + 2;
+        byte[] stream = new byte[n * PairingAccumulator.PAIR_SIZE];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(Util.serializeG1(i % 2 == 0 ? g11 : g12), 0, stream, i * PairingAccumulator.PAIR_SIZE, 64);
+            System.arraycopy(Util.serializeG2(g2), 0, stream, i * PairingAccumulator.PAIR_SIZE + 64, 128);
+        }
+        try (PairingAccumulator acc = PairingAccumulator.create()) {
+            acc.add(Channels.newChannel(new ByteArrayInputStream(stream)));
+            assertEquals(n, acc.pairCount());
+            assertTrue(acc.check());
+            acc.add(g11, g2);
+            assertFalse(acc.check());
+        }
+
+        // a full pool queue makes the reading thread fold the chunks in, without failing or counting a rejection
+        ThreadPoolExecutor executor = AltBn128Async.newExecutor(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        try (PairingAccumulator acc = PairingAccumulator.create()) {
+            AltBn128Async.submit(executor, () -> release.await(10, TimeUnit.SECONDS));
+            while (executor.getActiveCount() == 0) {
+                Thread.onSpinWait();
+            }
+            AltBn128Async.submit(executor, () -> true);
+            assertEquals(0, executor.getQueue().remainingCapacity());
+            long rejected = AltBn128Async.rejectedCount();
+
+            acc.add(Channels.newChannel(new ByteArrayInputStream(stream)), executor);
+            assertEquals(n, acc.pairCount());
+            assertTrue(acc.check());
+            assertEquals(rejected, AltBn128Async.rejectedCount());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void closedAccumulatorTest() throws Exception {
+        PairingAccumulator acc = PairingAccumulator.create();
+        acc.close();
+        acc.check();
+    }
+
+    @Test
+    public void gtElementTest() throws Exception {
+        G1Point p = Pairing.P1();
+        G2Point q = Pairing.P2();
+        BigInteger s = new BigInteger("1234567890123456789");
+
+        try (GtElement e = GtElement.pairing(p, q);
+             GtElement es = GtElement.pairing(G1.mul(p, s), q);
+             GtElement one = GtElement.one()) {
+            // bilinearity: e(sP, Q) = e(P, Q)^s, and e(P, Q) e(-P, Q) = 1
+            try (GtElement pow = e.pow(s)) {
+                assertEquals(es, pow);
+            }
+            try (GtElement product = GtElement.pairing(new G1Point[]{p, G1.negate(p)}, new G2Point[]{q, q})) {
+                assertEquals(one, product);
+            }
+            assertFalse(e.equals(one));
+
+            // Miller loops run apart, multiplied, then mapped into Gt once
+            try (GtElement f1 = GtElement.millerLoop(new G1Point[]{p}, new G2Point[]{q});
+                 GtElement f2 = GtElement.millerLoop(new G1Point[]{G1.mul(p, s)}, new G2Point[]{q});
+                 GtElement f = f1.mul(f2);
+                 GtElement product = f.finalExponentiation();
+                 GtElement expected = e.mul(es)) {
+                assertEquals(expected, product);
+            }
+
+            byte[] encoded = e.toBytes();
+            assertEquals(GtElement.ENCODED_SIZE, encoded.length);
+            try (GtElement decoded = GtElement.fromBytes(encoded)) {
+                assertEquals(e, decoded);
+                assertEquals(e.hashCode(), decoded.hashCode());
+            }
+            assertEquals(1, one.toBytes()[Util.FP_SIZE - 1]);
+        }
+    }
+
+    @Test
+    public void gtEncodingKnownAnswerTest() throws Exception {
+        // the pure-Java pairing, serialized from its Fp12 limbs in the documented order (g0, g1, g2, h0, h1, h2)
+        G1Point p = Pairing.P1();
+        G2Point q = Pairing.P2();
+        long[] g1 = new long[OptimalAtePairing.G1_LIMBS];
+        MontgomeryField.FP.fromBigInteger(g1, 0, p.x.c0);
+        MontgomeryField.FP.fromBigInteger(g1, MontgomeryField.LIMBS, p.y.c0);
+        long[] g2 = new long[OptimalAtePairing.G2_LIMBS];
+        q.x.toLimbs(g2, 0);
+        q.y.toLimbs(g2, Fp2.LIMBS);
+        long[] f = new long[Fp12.LIMBS];
+        OptimalAtePairing.millerLoop(f, g1, g2, 1);
+        long[] e = new long[Fp12.LIMBS];
+        OptimalAtePairing.finalExponentiation(e, f);
+
+        try (GtElement gt = GtElement.pairing(p, q)) {
+            assertArrayEquals(fp12Bytes(e), gt.toBytes());
+        }
+
+        // a product depends on where every coefficient sits, unlike a round trip; the Miller loop value is not in
+        // Gt and exercises all twelve coordinates
+        long[] product = new long[Fp12.LIMBS];
+        Fp12.mul(product, 0, e, 0, f, 0, new long[Fp12.SCRATCH], 0);
+        try (GtElement a = GtElement.fromBytes(fp12Bytes(e));
+             GtElement b = GtElement.fromBytes(fp12Bytes(f));
+             GtElement ab = a.mul(b)) {
+            assertArrayEquals(fp12Bytes(product), ab.toBytes());
+        }
+    }
+
+    private static byte[] fp12Bytes(long[] f) {
+        byte[] data = new byte[GtElement.ENCODED_SIZE];
+        for (int i = 0; i < 12; i++) {
+            MontgomeryField.FP.toBytes(data, i * Util.FP_SIZE, f, i * MontgomeryField.LIMBS);
+        }
+        return data;
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void gtElementLengthTest() throws Exception {
+        GtElement.fromBytes(new byte[GtElement.ENCODED_SIZE - 1]);
+    }
 }
@@ -0,0 +1,131 @@
+package org.aion.tetryon;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class PointCodecTest {
+
+    private static final BigInteger FIELD_MODULUS = Fp.FIELD_MODULUS;
+
+    // coordinates with the top bit set, whose toByteArray() takes 33 bytes
+    private static final G1Point G1_HIGH = new G1Point(
+            new Fp(FIELD_MODULUS.subtract(BigInteger.ONE)),
+            new Fp(FIELD_MODULUS.subtract(BigInteger.valueOf(2))));
+    private static final G1Point G1_P = new G1Point(new Fp(BigInteger.ONE), new Fp(BigInteger.valueOf(2)));
+    private static final G2Point G2_P = new G2Point(
+            new Fp2(
+                    new BigInteger("10857046999023057135944570762232829481370756359578518086990519993285655852781"),
+                    new BigInteger("11559732032986387107991004021392285783925812861821192530917403151452391805634")
+            ),
+            new Fp2(
+                    new BigInteger("8495653923123431417604973247489272438418190587263600148770280649306958101930"),
+                    new BigInteger("4082367875863433681332203403145435568316851327593401208105741076214120093531")
+            )
+    );
+
+    @Test
+    public void testG1AtOffset() {
+        byte[] data = new byte[3 + PointCodec.G1_SIZE + 5];
+        Arrays.fill(data, (byte) 0x7f);
+        PointCodec.encodeG1(G1_HIGH, data, 3);
+
+        assertEquals(0x7f, data[2]);
+        assertEquals(0x7f, data[3 + PointCodec.G1_SIZE]);
+        assertEquals(G1_HIGH, PointCodec.decodeG1(data, 3));
+
+        // leading zeros overwrite whatever was in the array
+        PointCodec.encodeG1(G1_P, data, 3);
+        assertEquals(G1_P, PointCodec.decodeG1(data, 3));
+        assertEquals(0, data[3]);
+    }
+
+    @Test
+    public void testG2AtOffset() {
+        byte[] data = new byte[7 + PointCodec.G2_SIZE];
+        PointCodec.encodeG2(G2_P, data, 7);
+
+        assertArrayEquals(G2_P.x.toBytes(), Arrays.copyOfRange(data, 7, 7 + 2 * Util.FP_SIZE));
+        assertArrayEquals(G2_P.y.toBytes(), Arrays.copyOfRange(data, 7 + 2 * Util.FP_SIZE, data.length));
+        assertEquals(G2_P, PointCodec.decodeG2(data, 7));
+
+        Arrays.fill(data, 7, 7 + Util.FP_SIZE, (byte) 0xff);
+        try {
+            PointCodec.decodeG2(data, 7);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testBuffers() {
+        for (ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.allocate(512), ByteBuffer.allocateDirect(512)}) {
+            PointCodec.encodeG1(G1_HIGH, buffer);
+            PointCodec.encodeG2(G2_P, buffer);
+            PointCodec.encodeScalar(BigInteger.TEN, buffer);
+            assertEquals(PointCodec.G1_SIZE + PointCodec.G2_SIZE + PointCodec.SCALAR_SIZE, buffer.position());
+
+            buffer.flip();
+            assertEquals(G1_HIGH, PointCodec.decodeG1(buffer));
+            assertEquals(G2_P, PointCodec.decodeG2(buffer));
+            assertEquals(PointCodec.SCALAR_SIZE, buffer.remaining());
+        }
+    }
+
+    @Test
+    public void testScalar() {
+        BigInteger max = BigInteger.ONE.shiftLeft(256).subtract(BigInteger.ONE);
+        byte[] data = new byte[PointCodec.SCALAR_SIZE];
+        PointCodec.encodeScalar(max, data, 0);
+        for (byte b : data) {
+            assertEquals((byte) 0xff, b);
+        }
+        assertArrayEquals(Fr.valueOf(12345).toBytes(), Util.serializeScalar(BigInteger.valueOf(12345)));
+
+        for (BigInteger bad : new BigInteger[]{BigInteger.ONE.negate(), max.add(BigInteger.ONE)}) {
+            try {
+                PointCodec.encodeScalar(bad, data, 0);
+                fail();
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testLists() {
+        G1Point[] g1 = new G1Point[]{G1_P, G1_HIGH, G1_P};
+        G2Point[] g2 = new G2Point[]{G2_P, G2_P};
+
+        byte[] g1Data = PointCodec.encodeG1List(g1);
+        byte[] g2Data = PointCodec.encodeG2List(g2);
+        for (int i = 0; i < g1.length; i++) {
+            assertArrayEquals(Util.serializeG1(g1[i]),
+                    Arrays.copyOfRange(g1Data, i * PointCodec.G1_SIZE, (i + 1) * PointCodec.G1_SIZE));
+        }
+        assertArrayEquals(g1, PointCodec.decodeG1List(g1Data));
+        assertArrayEquals(g2, PointCodec.decodeG2List(g2Data));
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(g2Data.length);
+        PointCodec.encodeG2List(g2, buffer);
+        buffer.flip();
+        byte[] fromBuffer = new byte[g2Data.length];
+        buffer.get(fromBuffer);
+        assertArrayEquals(g2Data, fromBuffer);
+
+        try {
+            PointCodec.decodeG1List(new byte[PointCodec.G1_SIZE + 1]);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
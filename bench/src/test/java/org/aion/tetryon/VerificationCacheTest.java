@@ -0,0 +1,116 @@
+package org.aion.tetryon;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class VerificationCacheTest {
+
+    private static final G2Point G2_P = new G2Point(
+            new Fp2(
+                    new BigInteger("10857046999023057135944570762232829481370756359578518086990519993285655852781"),
+                    new BigInteger("11559732032986387107991004021392285783925812861821192530917403151452391805634")
+            ),
+            new Fp2(
+                    new BigInteger("8495653923123431417604973247489272438418190587263600148770280649306958101930"),
+                    new BigInteger("4082367875863433681332203403145435568316851327593401208105741076214120093531")
+            )
+    );
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] r = new byte[a.length + b.length];
+        System.arraycopy(a, 0, r, 0, a.length);
+        System.arraycopy(b, 0, r, a.length, b.length);
+        return r;
+    }
+
+    @Test
+    public void testPairing() throws Exception {
+        VerificationCache cache = new VerificationCache(64, Duration.ofMinutes(1));
+        byte[] p = Util.serializeG1(Pairing.P1());
+        byte[] negP = Util.serializeG1(G1.negate(Pairing.P1()));
+        byte[] q = Util.serializeG2(G2_P);
+
+        assertTrue(cache.ecPair(concat(p, negP), concat(q, q)));
+        assertTrue(cache.ecPair(concat(p, negP), concat(q, q)));
+        assertEquals(1, cache.missCount());
+        assertEquals(1, cache.hitCount());
+
+        // invalid results are cached too, and do not collide with valid ones
+        assertFalse(cache.ecPair(concat(p, p), concat(q, q)));
+        assertFalse(cache.ecPair(concat(p, p), concat(q, q)));
+        assertTrue(cache.ecPair(concat(p, negP), concat(q, q)));
+        assertEquals(2, cache.missCount());
+        assertEquals(3, cache.hitCount());
+        assertEquals(2, cache.size());
+
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testExpiry() throws Exception {
+        AtomicLong now = new AtomicLong();
+        VerificationCache cache = new VerificationCache(64, Duration.ofSeconds(10), now::get);
+
+        assertTrue(cache.ecPair(new byte[0], new byte[0]));
+        now.addAndGet(Duration.ofSeconds(9).toNanos());
+        assertTrue(cache.ecPair(new byte[0], new byte[0]));
+        assertEquals(1, cache.hitCount());
+
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertTrue(cache.ecPair(new byte[0], new byte[0]));
+        assertEquals(1, cache.expirationCount());
+        assertEquals(2, cache.missCount());
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        // one entry per stripe
+        VerificationCache cache = new VerificationCache(VerificationCache.STRIPES, Duration.ofMinutes(1));
+        byte[] q = Util.serializeG2(G2_P);
+
+        // k pairs of (infinity, Q) for k = 1..40 are 40 different keys
+        byte[] g1List = new byte[0];
+        byte[] g2List = new byte[0];
+        for (int k = 1; k <= 40; k++) {
+            g1List = concat(g1List, new byte[64]);
+            g2List = concat(g2List, q);
+            cache.ecPair(g1List, g2List);
+        }
+        assertTrue(cache.size() <= VerificationCache.STRIPES);
+        assertEquals(40, cache.size() + cache.evictionCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooSmall() {
+        new VerificationCache(VerificationCache.STRIPES - 1, Duration.ofMinutes(1));
+    }
+
+    @Test
+    public void testGroth16() throws Exception {
+        VerificationCache cache = new VerificationCache(64, Duration.ofMinutes(1));
+        try (Groth16 verifier = Groth16.prepare(Groth16Test.verifyingKey())) {
+            assertTrue(cache.verify(verifier, Groth16Test.validProof(), Groth16Test.validInput()));
+            assertTrue(cache.verify(verifier, Groth16Test.validProof(), Groth16Test.validInput()));
+            assertEquals(1, cache.hitCount());
+
+            BigInteger[] other = new BigInteger[]{BigInteger.valueOf(113570), BigInteger.ONE};
+            assertFalse(cache.verify(verifier, Groth16Test.validProof(), other));
+            assertEquals(2, cache.missCount());
+        }
+
+        // the same key prepared again shares the entries
+        try (Groth16 verifier = Groth16.prepare(Groth16Test.verifyingKey())) {
+            assertTrue(cache.verify(verifier, Groth16Test.validProof(), Groth16Test.validInput()));
+            assertEquals(2, cache.hitCount());
+        }
+    }
+}
@@ -0,0 +1,38 @@
+//! Batch conversion of Jacobian points to affine form.
+//!
+//! Converting a single point costs a field inversion, which dominates an addition. Montgomery's
+//! trick replaces the n inversions with one inversion and about 3n multiplications.
+
+use bn::{Group, Fq, G1};
+
+/// Returns the affine coordinates of every point, or `None` for the point at infinity.
+pub fn normalize_g1(points: &[G1]) -> Vec<Option<(Fq, Fq)>> {
+    // prefix[i] is the product of the z coordinates of the finite points before i
+    let mut prefix = Vec::with_capacity(points.len());
+    let mut acc = Fq::one();
+    for p in points {
+        prefix.push(acc);
+        if !p.is_zero() {
+            acc = acc * p.z();
+        }
+    }
+
+    let mut out = vec![None; points.len()];
+    // acc is a product of non-zero field elements, so it is always invertible
+    let mut inv = match acc.inverse() {
+        Some(inv) => inv,
+        None => return out,
+    };
+    for i in (0..points.len()).rev() {
+        let p = &points[i];
+        if p.is_zero() {
+            continue;
+        }
+        let z_inv = inv * prefix[i];
+        inv = inv * p.z();
+
+        let z_inv2 = z_inv * z_inv;
+        out[i] = Some((p.x() * z_inv2, p.y() * z_inv2 * z_inv));
+    }
+    out
+}
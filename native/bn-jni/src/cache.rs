@@ -0,0 +1,84 @@
+//! Cache of validated G2 points.
+//!
+//! Deserializing a G2 point checks that it is on the twist and in the order-r subgroup, which costs a
+//! scalar multiplication. Verifiers with a fixed verifying key send the same few points over and over,
+//! so points that passed validation are kept in least-recently-used maps from their encoding to the
+//! deserialized point. The cache is off until Java gives it a size, and points that fail validation are
+//! never cached.
+//!
+//! G1 points are not cached: their only check is the curve equation, a few field multiplications, which
+//! costs less than hashing a 64-byte key and updating an LRU map.
+//!
+//! Deserialization runs on every worker of a parallel pairing, so the cache is split into `STRIPES`
+//! independently locked maps, picked by a byte of the encoding, each holding its share of the capacity.
+
+use bn::G2;
+use lru::LruCache;
+use std::sync::Mutex;
+use std::sync::atomic::{AtomicBool, AtomicU64, Ordering};
+
+const STRIPES: usize = 16;
+
+type G2Key = [[u8; 32]; 4];
+
+lazy_static! {
+    static ref CACHES: Vec<Mutex<Option<LruCache<G2Key, G2>>>> = (0..STRIPES).map(|_| Mutex::new(None)).collect();
+}
+
+// lets lookups skip the locks while the cache is off
+static ENABLED: AtomicBool = AtomicBool::new(false);
+static HITS: AtomicU64 = AtomicU64::new(0);
+static MISSES: AtomicU64 = AtomicU64::new(0);
+
+/// Replaces the cache with an empty one holding up to about `entries` points; zero turns it off.
+pub fn set_capacity(entries: usize) {
+    // rounded up, so that a small cache still has room in every stripe
+    let per_stripe = (entries + STRIPES - 1) / STRIPES;
+    ENABLED.store(false, Ordering::Release);
+    for stripe in CACHES.iter() {
+        *stripe.lock().unwrap() = if entries == 0 { None } else { Some(LruCache::new(per_stripe)) };
+    }
+    ENABLED.store(entries != 0, Ordering::Release);
+}
+
+/// Returns the number of hits and misses since startup.
+pub fn stats() -> (u64, u64) {
+    (HITS.load(Ordering::Relaxed), MISSES.load(Ordering::Relaxed))
+}
+
+fn key(pt_byte: &[u8]) -> G2Key {
+    let mut k = G2Key::default();
+    for (i, word) in k.iter_mut().enumerate() {
+        word.copy_from_slice(&pt_byte[32*i..32*(i+1)]);
+    }
+    k
+}
+
+// the low byte of x.a, which is as good as a hash for points that passed the subgroup check
+fn stripe(k: &G2Key) -> &'static Mutex<Option<LruCache<G2Key, G2>>> {
+    &CACHES[k[0][31] as usize % STRIPES]
+}
+
+/// Returns the G2 point encoded in the first 128 bytes of `pt_byte`, from the cache or from `validate`.
+pub fn g2<E, F: FnOnce() -> Result<G2, E>>(pt_byte: &[u8], validate: F) -> Result<G2, E> {
+    if !ENABLED.load(Ordering::Acquire) {
+        return validate();
+    }
+
+    let k = key(pt_byte);
+    let stripe = stripe(&k);
+    if let Some(map) = stripe.lock().unwrap().as_mut() {
+        if let Some(pt) = map.get(&k) {
+            HITS.fetch_add(1, Ordering::Relaxed);
+            return Ok(*pt);
+        }
+    }
+    MISSES.fetch_add(1, Ordering::Relaxed);
+
+    // validate without holding the lock; a concurrent miss on the same point just validates it twice
+    let pt = validate()?;
+    if let Some(map) = stripe.lock().unwrap().as_mut() {
+        map.put(k, pt);
+    }
+    Ok(pt)
+}
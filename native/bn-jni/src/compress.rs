@@ -0,0 +1,170 @@
+//! Compressed point encodings.
+//!
+//! A compressed point is its x coordinate alone, big-endian, with two flags in the top bits of the
+//! first byte, which a coordinate never uses since the modulus is below 2^254: `0x80` is set when y
+//! is the larger of its two possible values (compared as integers, the imaginary part first for
+//! G2), and `0x40` marks the point at infinity, whose other bits must all be clear. A G1 point
+//! takes 32 bytes and a G2 point 64, real part of x first.
+//!
+//! Decompression recovers y as a square root of x^3 + b. Unlike inversions, square roots share no
+//! work across points, so a batch gains by crossing JNI once and spreading its points over the
+//! worker pool.
+
+use bn::{AffineG1, AffineG2, Fq, Fq2, G1, G2, Group};
+use rayon::prelude::*;
+
+use crate::{PairingErr, FP_SIZE};
+
+const SIGN_FLAG: u8 = 0x80;
+const INFINITY_FLAG: u8 = 0x40;
+
+// below this many points, a batch runs on the calling thread
+const PARALLEL_THRESHOLD: usize = 16;
+
+lazy_static! {
+    static ref G1_B: Fq = Fq::from_str("3").unwrap();
+    // 3 / (9 + i)
+    static ref G2_B: Fq2 = Fq2::new(
+        Fq::from_str("19485874751759354771024239261021720505790618469301721065564631296452457478373").unwrap(),
+        Fq::from_str("266929791119991161246907387137283842545076965332900288569378510910307636690").unwrap());
+    static ref HALF: Fq = Fq::from_str("2").unwrap().inverse().unwrap();
+}
+
+fn not_on_curve() -> PairingErr {
+    PairingErr::new(-3, "NotOnCurve")
+}
+
+fn invalid_encoding() -> PairingErr {
+    PairingErr::new(-4, "InvalidEncoding")
+}
+
+// Copies the coordinate without its flags into x_byte; returns whether y is the larger root, or None at infinity.
+fn strip_flags(data: &[u8], x_byte: &mut [u8]) -> Result<Option<bool>, PairingErr> {
+    let flags = data[0] & (SIGN_FLAG | INFINITY_FLAG);
+    x_byte.copy_from_slice(data);
+    x_byte[0] &= !(SIGN_FLAG | INFINITY_FLAG);
+    if flags & INFINITY_FLAG != 0 {
+        if flags & SIGN_FLAG != 0 || x_byte.iter().any(|b| *b != 0) {
+            return Err(invalid_encoding());
+        }
+        return Ok(None);
+    }
+    Ok(Some(flags & SIGN_FLAG != 0))
+}
+
+fn is_larger(y: Fq) -> Result<bool, PairingErr> {
+    let mut y_byte = [0u8; FP_SIZE];
+    let mut neg_byte = [0u8; FP_SIZE];
+    y.into_u256().to_big_endian(&mut y_byte)?;
+    (-y).into_u256().to_big_endian(&mut neg_byte)?;
+    Ok(y_byte > neg_byte)
+}
+
+fn is_larger_fq2(y: Fq2) -> Result<bool, PairingErr> {
+    if y.imaginary().is_zero() {
+        is_larger(y.real())
+    } else {
+        is_larger(y.imaginary())
+    }
+}
+
+// For p = 3 mod 4: with n = sqrt(a0^2 + a1^2), x0 = sqrt((a0 + n) / 2) or sqrt((a0 - n) / 2),
+// whichever exists, and x1 = a1 / (2 x0).
+fn sqrt_fq2(a: Fq2) -> Option<Fq2> {
+    let (a0, a1) = (a.real(), a.imaginary());
+    if a1.is_zero() {
+        return match a0.sqrt() {
+            Some(x0) => Some(Fq2::new(x0, Fq::zero())),
+            // -1 is not a square, so when a0 is not one either, -a0 is
+            None => (-a0).sqrt().map(|x1| Fq2::new(Fq::zero(), x1)),
+        };
+    }
+
+    let n = (a0 * a0 + a1 * a1).sqrt()?;
+    let x0 = match ((a0 + n) * *HALF).sqrt() {
+        Some(x0) => x0,
+        None => ((a0 - n) * *HALF).sqrt()?,
+    };
+    let x1 = a1 * (x0 + x0).inverse()?;
+    Some(Fq2::new(x0, x1))
+}
+
+/// Writes the 32-byte compressed form of a G1 point.
+pub fn compress_g1(pt: G1, out: &mut [u8]) -> Result<(), PairingErr> {
+    match AffineG1::from_jacobian(pt) {
+        Some(pt_af) => {
+            pt_af.x().into_u256().to_big_endian(&mut out[0..FP_SIZE])?;
+            if is_larger(pt_af.y())? {
+                out[0] |= SIGN_FLAG;
+            }
+        },
+        None => {
+            for b in out[0..FP_SIZE].iter_mut() {
+                *b = 0;
+            }
+            out[0] = INFINITY_FLAG;
+        },
+    }
+    Ok(())
+}
+
+/// Writes the 64-byte compressed form of a G2 point.
+pub fn compress_g2(pt: G2, out: &mut [u8]) -> Result<(), PairingErr> {
+    match AffineG2::from_jacobian(pt) {
+        Some(pt_af) => {
+            pt_af.x().real().into_u256().to_big_endian(&mut out[0..FP_SIZE])?;
+            pt_af.x().imaginary().into_u256().to_big_endian(&mut out[FP_SIZE..FP_SIZE*2])?;
+            if is_larger_fq2(pt_af.y())? {
+                out[0] |= SIGN_FLAG;
+            }
+        },
+        None => {
+            for b in out[0..FP_SIZE*2].iter_mut() {
+                *b = 0;
+            }
+            out[0] = INFINITY_FLAG;
+        },
+    }
+    Ok(())
+}
+
+pub fn decompress_g1(data: &[u8]) -> Result<G1, PairingErr> {
+    let mut x_byte = [0u8; FP_SIZE];
+    let larger = match strip_flags(&data[0..FP_SIZE], &mut x_byte)? {
+        Some(larger) => larger,
+        None => return Ok(G1::zero()),
+    };
+
+    let x = Fq::from_slice(&x_byte)?;
+    let mut y = (x * x * x + *G1_B).sqrt().ok_or_else(not_on_curve)?;
+    if is_larger(y)? != larger {
+        y = -y;
+    }
+    Ok(G1::from(AffineG1::new(x, y)?))
+}
+
+pub fn decompress_g2(data: &[u8]) -> Result<G2, PairingErr> {
+    let mut x_byte = [0u8; FP_SIZE*2];
+    let larger = match strip_flags(&data[0..FP_SIZE*2], &mut x_byte)? {
+        Some(larger) => larger,
+        None => return Ok(G2::zero()),
+    };
+
+    let x = Fq2::new(Fq::from_slice(&x_byte[0..FP_SIZE])?, Fq::from_slice(&x_byte[FP_SIZE..FP_SIZE*2])?);
+    let mut y = sqrt_fq2(x * x * x + *G2_B).ok_or_else(not_on_curve)?;
+    if is_larger_fq2(y)? != larger {
+        y = -y;
+    }
+    // the twist has points outside the order-r subgroup, which AffineG2::new rejects
+    Ok(G2::from(AffineG2::new(x, y)?))
+}
+
+/// Decompresses every `size`-byte point of `data`, each with its own result.
+pub fn decompress_batch<T, F>(data: &[u8], size: usize, decompress: F) -> Vec<Result<T, PairingErr>>
+    where T: Send, F: Fn(&[u8]) -> Result<T, PairingErr> + Sync + Send {
+    if data.len() / size < PARALLEL_THRESHOLD {
+        data.chunks(size).map(|pt| decompress(pt)).collect()
+    } else {
+        crate::pool::install(|| data.par_chunks(size).map(|pt| decompress(pt)).collect())
+    }
+}
@@ -0,0 +1,60 @@
+//! Fixed-base scalar multiplication in G1.
+//!
+//! For a base P and a window of w bits, the table holds k * 2^(w j) * P for every window j of the
+//! scalar and every digit k in 1..2^w. A product s * P is then the sum of one table entry per
+//! window of s: about 254 / w additions and no doublings. The table takes (2^w - 1) * ceil(254 / w)
+//! points, so w is the widest window whose table fits the memory budget given at construction.
+
+use bn::{Group, G1};
+use std::mem;
+
+use crate::msm::scalar_window;
+
+// scalars are elements of Fr, whose modulus is below 2^254
+const SCALAR_BITS: usize = 254;
+const MAX_WINDOW_BITS: usize = 16;
+
+pub struct FixedBase {
+    bits: usize,
+    table: Vec<G1>,
+}
+
+fn table_len(bits: usize) -> usize {
+    ((1 << bits) - 1) * ((SCALAR_BITS + bits - 1) / bits)
+}
+
+impl FixedBase {
+    /// Builds the table for `base`, or returns `None` if not even one-bit windows fit in `budget` bytes.
+    pub fn new(base: G1, budget: usize) -> Option<FixedBase> {
+        let point_size = mem::size_of::<G1>();
+        let bits = (1..=MAX_WINDOW_BITS).rev().find(|&b| table_len(b) * point_size <= budget)?;
+        let digits = (1 << bits) - 1;
+
+        let mut table = Vec::with_capacity(table_len(bits));
+        let mut window_base = base;
+        for _ in (0..SCALAR_BITS).step_by(bits) {
+            let mut acc = window_base;
+            for _ in 0..digits {
+                table.push(acc);
+                acc = acc + window_base;
+            }
+            // acc is now 2^w times the base of this window, the base of the next one
+            window_base = acc;
+        }
+        Some(FixedBase { bits, table })
+    }
+
+    /// Returns `acc + scalar * base`. The scalar is 32-byte big-endian and must already be
+    /// range-checked against the Fr modulus.
+    pub fn add_mul(&self, acc: G1, scalar: &[u8; 32]) -> G1 {
+        let digits = (1 << self.bits) - 1;
+        let mut acc = acc;
+        for (j, start) in (0..SCALAR_BITS).step_by(self.bits).enumerate() {
+            let digit = scalar_window(scalar, start, self.bits);
+            if digit != 0 {
+                acc = acc + self.table[j * digits + digit - 1];
+            }
+        }
+        acc
+    }
+}
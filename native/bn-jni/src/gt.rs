@@ -0,0 +1,49 @@
+//! The 384-byte encoding of Fp12 elements, where pairing values live.
+//!
+//! An element is written as its six Fq2 coefficients in tower order, g.c0, g.c1, g.c2, h.c0, h.c1,
+//! h.c2 for g + h w, each real part first and each Fq 32 bytes big-endian, the same order as the Java
+//! `Fp12` limbs. The bn crate keeps Gt opaque; its Fq12 is two #[repr(C)] Fq6 of three Fq2 each, so the
+//! coefficients are read and written through that layout, checked in size below.
+
+use bn::{Fq, Fq2, Gt};
+use std::mem;
+
+use crate::{invalid_length, PairingErr, FP_SIZE};
+
+pub const GT_SIZE: usize = FP_SIZE*12;
+
+// fails to compile if Gt stops being exactly six Fq2 coefficients
+const _GT_LAYOUT: [(); mem::size_of::<[Fq2; 6]>()] = [(); mem::size_of::<Gt>()];
+
+fn coefficients(gt: Gt) -> [Fq2; 6] {
+    unsafe { mem::transmute::<Gt, [Fq2; 6]>(gt) }
+}
+
+fn from_coefficients(c: [Fq2; 6]) -> Gt {
+    unsafe { mem::transmute::<[Fq2; 6], Gt>(c) }
+}
+
+pub fn serialize(gt: Gt, out: &mut [u8]) -> Result<(), PairingErr> {
+    if out.len() < GT_SIZE {
+        return Err(invalid_length());
+    }
+    for (i, c) in coefficients(gt).iter().enumerate() {
+        c.real().into_u256().to_big_endian(&mut out[FP_SIZE*2*i..FP_SIZE*(2*i+1)])?;
+        c.imaginary().into_u256().to_big_endian(&mut out[FP_SIZE*(2*i+1)..FP_SIZE*2*(i+1)])?;
+    }
+    Ok(())
+}
+
+/// Reads any element of Fp12 whose coordinates are below the modulus. Membership in Gt is not
+/// checked, since Miller loop values are not in it.
+pub fn deserialize(data: &[u8]) -> Result<Gt, PairingErr> {
+    if data.len() < GT_SIZE {
+        return Err(invalid_length());
+    }
+    let mut c = [Fq2::zero(); 6];
+    for i in 0..6 {
+        c[i] = Fq2::new(Fq::from_slice(&data[FP_SIZE*2*i..FP_SIZE*(2*i+1)])?,
+                        Fq::from_slice(&data[FP_SIZE*(2*i+1)..FP_SIZE*2*(i+1)])?);
+    }
+    Ok(from_coefficients(c))
+}
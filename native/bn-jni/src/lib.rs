@@ -2,6 +2,18 @@
 extern crate bn;
 extern crate rand;
 extern crate hex;
+extern crate rayon;
+#[macro_use]
+extern crate lazy_static;
+
+mod batch;
+mod cache;
+mod compress;
+mod fixed;
+mod gt;
+mod msm;
+mod pair;
+mod pool;
 
 use bn::{Group, Fr, Fq, Fq2, G1, G2, Gt, AffineG1, AffineG2, pairing, pairing_batch};
 use std::os::raw::c_uchar;
@@ -13,7 +25,7 @@ use std::error::Error;
 
 use jni::JNIEnv;
 use jni::objects::{JClass, JObject};
-use jni::sys::{jint, jbyteArray, jboolean};
+use jni::sys::{jint, jlong, jbyte, jbyteArray, jboolean, jintArray, jlongArray};
 
 #[derive(Debug)]
 struct PairingErr {
@@ -60,43 +72,1279 @@ impl From<bn::GroupError> for PairingErr {
 
 const FP_SIZE:usize = 32;
 
+fn invalid_length() -> PairingErr {
+    PairingErr::new(-4, "InvalidInputLength")
+}
+
+
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_ping(env: JNIEnv, class: JClass)-> jint {
+    1337 as jint
+}
+
+// not cached: the on-curve check costs less than hashing the encoding for a lookup
+fn deserialize_g1(pt_byte: &[u8]) -> Result<G1, PairingErr> {
+    let x = Fq::from_slice(&pt_byte[0..FP_SIZE])?;
+    let y = Fq::from_slice(&pt_byte[FP_SIZE..FP_SIZE*2])?;
+    let pt_af = AffineG1::new(x, y)?;
+    Ok(G1::from(pt_af))
+}
+
+fn deserialize_g2(pt_byte: &[u8]) -> Result<G2, PairingErr> {
+    cache::g2(pt_byte, || validate_g2(pt_byte))
+}
+
+fn validate_g2(pt_byte: &[u8]) -> Result<G2, PairingErr> {
+    let x1 = Fq::from_slice(&pt_byte[0..FP_SIZE])?;
+    let x2 = Fq::from_slice(&pt_byte[FP_SIZE..FP_SIZE*2])?;
+
+    let y1 = Fq::from_slice(&pt_byte[FP_SIZE*2..FP_SIZE*3])?;
+    let y2 = Fq::from_slice(&pt_byte[FP_SIZE*3..FP_SIZE*4])?;
+
+    let x = Fq2::new(x1, x2);
+    let y = Fq2::new(y1, y2);
+    let pt_af = AffineG2::new(x, y)?;
+    Ok(G2::from(pt_af))
+}
+
+// the all-zero encoding stands for the point at infinity, as with G1Point.isZero() on the Java side
+fn deserialize_g1_or_zero(pt_byte: &[u8]) -> Result<G1, PairingErr> {
+    if pt_byte[0..FP_SIZE*2].iter().all(|b| *b == 0) {
+        return Ok(G1::zero());
+    }
+    deserialize_g1(pt_byte)
+}
+
+// the all-zero encoding stands for the point at infinity, as with G2Point.isZero() on the Java side
+fn deserialize_g2_or_zero(pt_byte: &[u8]) -> Result<G2, PairingErr> {
+    if pt_byte[0..FP_SIZE*4].iter().all(|b| *b == 0) {
+        return Ok(G2::zero());
+    }
+    deserialize_g2(pt_byte)
+}
+
+fn serialize_g2(pt: G2, pt_byte: &mut [u8]) -> Result<(), PairingErr> {
+    if let Some(pt_af) = AffineG2::from_jacobian(pt) {
+        pt_af.x().real().into_u256().to_big_endian(&mut pt_byte[0..FP_SIZE])?;
+        pt_af.x().imaginary().into_u256().to_big_endian(&mut pt_byte[FP_SIZE..FP_SIZE*2])?;
+        pt_af.y().real().into_u256().to_big_endian(&mut pt_byte[FP_SIZE*2..FP_SIZE*3])?;
+        pt_af.y().imaginary().into_u256().to_big_endian(&mut pt_byte[FP_SIZE*3..FP_SIZE*4])?;
+    } else {
+        for b in pt_byte[0..FP_SIZE*4].iter_mut() {
+            *b = 0;
+        }
+    }
+    Ok(())
+}
+
+fn serialize_g1(pt: G1, pt_byte: &mut [u8]) -> Result<(), PairingErr> {
+    // the point at infinity has no affine form; it is encoded as all zeros
+    if let Some(pt_af) = AffineG1::from_jacobian(pt) {
+        pt_af.x().into_u256().to_big_endian(&mut pt_byte[0..FP_SIZE])?;
+        pt_af.y().into_u256().to_big_endian(&mut pt_byte[FP_SIZE..FP_SIZE*2])?;
+    } else {
+        for b in pt_byte[0..FP_SIZE*2].iter_mut() {
+            *b = 0;
+        }
+    }
+    Ok(())
+}
+
+
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_g1EcAdd(env: JNIEnv, class: JClass,
+        point1_j: jbyteArray, point2_j: jbyteArray)-> jbyteArray {
+    
+    let p1_byte = env.convert_byte_array(point1_j).unwrap();
+    let p2_byte = env.convert_byte_array(point2_j).unwrap();
+
+    let mut p3_byte: [u8; FP_SIZE*2] = [0; FP_SIZE*2];
+    let ret = alt_bn128_add_internal(&p1_byte, &p2_byte, &mut p3_byte);
+
+    match ret {
+        Err(e) => {
+            env.throw(format!("{}", e)).unwrap();
+            return JObject::null().into_inner();
+        },
+        Ok(_) => {
+            let output = env.byte_array_from_slice(&p3_byte).unwrap();
+            return output;
+        },
+    }
+}
+
+// Borrows `len` bytes at `offset` of a direct ByteBuffer without copying. The buffer must not be
+// released or resized by the JVM while the slice is in use, which holds for the duration of a native call.
+// Java may pass the same memory as several arguments, so a mutable borrow must never coexist with
+// another borrow: operands are read through direct_buffer_ref and copied out before the result is
+// borrowed through direct_buffer_mut. Read-only buffers are rejected on the Java side, as the JNI
+// address of a read-only mapping is writable only in type.
+fn direct_buffer_ref<'a>(env: &'a JNIEnv, buf: JObject, offset: jint, len: usize) -> Result<&'a [u8], PairingErr> {
+    let data = direct_buffer_address(env, buf, offset, len)?;
+    Ok(unsafe { slice::from_raw_parts(data, len) })
+}
+
+fn direct_buffer_mut<'a>(env: &'a JNIEnv, buf: JObject, offset: jint, len: usize) -> Result<&'a mut [u8], PairingErr> {
+    let data = direct_buffer_address(env, buf, offset, len)?;
+    Ok(unsafe { slice::from_raw_parts_mut(data, len) })
+}
+
+// The address of `len` bytes at `offset`, taken from the raw JNI functions rather than
+// JNIEnv::get_direct_buffer_address, which hands out a mutable slice even for an operand.
+fn direct_buffer_address(env: &JNIEnv, buf: JObject, offset: jint, len: usize) -> Result<*mut u8, PairingErr> {
+    if buf.is_null() {
+        return Err(PairingErr::new(-4, "NotDirectBuffer"));
+    }
+    let raw = env.get_native_interface();
+    let (data, capacity) = unsafe {
+        let fns = **raw;
+        match (fns.GetDirectBufferAddress, fns.GetDirectBufferCapacity) {
+            (Some(address), Some(capacity)) => (address(raw, buf.into_inner()) as *mut u8, capacity(raw, buf.into_inner())),
+            _ => (std::ptr::null_mut(), -1),
+        }
+    };
+    if data.is_null() || capacity < 0 {
+        return Err(PairingErr::new(-4, "NotDirectBuffer"));
+    }
+    if offset < 0 || (offset as usize) + len > capacity as usize {
+        return Err(invalid_length());
+    }
+    Ok(unsafe { data.add(offset as usize) })
+}
+
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_g1EcAddDirect(env: JNIEnv, class: JClass,
+        point1_j: JObject, offset1: jint, point2_j: JObject, offset2: jint, result_j: JObject, result_offset: jint) {
+
+    let ret = g1_add_direct(&env, point1_j, offset1, point2_j, offset2, result_j, result_offset);
+    if let Err(e) = ret {
+        env.throw(format!("{}", e)).unwrap();
+    }
+}
+
+fn g1_add_direct(env: &JNIEnv, point1_j: JObject, offset1: jint, point2_j: JObject, offset2: jint,
+                 result_j: JObject, result_offset: jint) -> Result<(), PairingErr> {
+    // copied out first, so that the result may be one of the operands, as in p = p + q
+    let mut p1_byte: [u8; FP_SIZE*2] = [0; FP_SIZE*2];
+    let mut p2_byte: [u8; FP_SIZE*2] = [0; FP_SIZE*2];
+    p1_byte.copy_from_slice(direct_buffer_ref(env, point1_j, offset1, FP_SIZE*2)?);
+    p2_byte.copy_from_slice(direct_buffer_ref(env, point2_j, offset2, FP_SIZE*2)?);
+
+    let mut p3_byte: [u8; FP_SIZE*2] = [0; FP_SIZE*2];
+    alt_bn128_add_internal(&p1_byte, &p2_byte, &mut p3_byte)?;
+    direct_buffer_mut(env, result_j, result_offset, FP_SIZE*2)?.copy_from_slice(&p3_byte);
+    Ok(())
+}
+
+#[no_mangle]
+pub extern "C" fn alt_bn128_add(
+    point1: *const c_uchar,
+    len1: c_ulong,
+    point2: *const c_uchar,
+    len2: c_ulong,
+    result: *mut c_uchar,
+    result_len: *mut c_ulong,
+) -> c_int {
+    let p1_byte = unsafe { slice::from_raw_parts(point1, len1 as usize) };
+    let p2_byte = unsafe { slice::from_raw_parts(point2, len2 as usize) };
+    let p3_byte = unsafe { slice::from_raw_parts_mut(result, *result_len as usize) };
+
+    let ret =  alt_bn128_add_internal(p1_byte, p2_byte, p3_byte);
+    match ret {
+        Err(e) => return e.code,
+        Ok(_) => return 0 as c_int,
+    }
+}
+
+fn alt_bn128_add_internal(p1_byte: &[u8], p2_byte: &[u8], p3_byte: &mut [u8]) -> Result<(), PairingErr> {
+    let p1 = deserialize_g1(p1_byte)?;
+    let p2 = deserialize_g1(p2_byte)?;
+
+    let p3 = p1 + p2;
+    serialize_g1(p3, p3_byte)
+}
+
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_g1EcMul(env: JNIEnv, class: JClass,
+        point_j: jbyteArray, scalar_j: jbyteArray)-> jbyteArray {
+    
+    let pt_byte = env.convert_byte_array(point_j).unwrap();
+    let scalar_byte = env.convert_byte_array(scalar_j).unwrap();
+
+    let mut p3_byte: [u8; FP_SIZE*2] = [0; FP_SIZE*2];
+    let ret = alt_bn128_mul_internal(&pt_byte, &scalar_byte, &mut p3_byte);
+
+    let output = env.byte_array_from_slice(&p3_byte).unwrap();
+    output
+}
+
+// Returns 0, or the PairingErr code of illegal input, which the caller can count without an exception.
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_g1EcMulDirect(env: JNIEnv, class: JClass,
+        point_j: JObject, point_offset: jint, scalar_j: JObject, scalar_offset: jint, result_j: JObject, result_offset: jint)-> jint {
+
+    let ret = g1_mul_direct(&env, point_j, point_offset, scalar_j, scalar_offset, result_j, result_offset);
+    if let Err(e) = ret {
+        // same failure mode as g1EcMul: illegal input yields zeros, unless the output itself is unusable
+        match direct_buffer_mut(&env, result_j, result_offset, FP_SIZE*2) {
+            Ok(p3_byte) => {
+                for b in p3_byte.iter_mut() {
+                    *b = 0;
+                }
+            },
+            Err(_) => env.throw(format!("{}", e)).unwrap(),
+        }
+        return e.code as jint;
+    }
+    0 as jint
+}
+
+fn g1_mul_direct(env: &JNIEnv, point_j: JObject, point_offset: jint, scalar_j: JObject, scalar_offset: jint,
+                 result_j: JObject, result_offset: jint) -> Result<(), PairingErr> {
+    // copied out first, so that the result may be the point operand, as in p = s * p
+    let mut pt_byte: [u8; FP_SIZE*2] = [0; FP_SIZE*2];
+    let mut scalar_byte: [u8; FP_SIZE] = [0; FP_SIZE];
+    pt_byte.copy_from_slice(direct_buffer_ref(env, point_j, point_offset, FP_SIZE*2)?);
+    scalar_byte.copy_from_slice(direct_buffer_ref(env, scalar_j, scalar_offset, FP_SIZE)?);
+
+    let mut p3_byte: [u8; FP_SIZE*2] = [0; FP_SIZE*2];
+    alt_bn128_mul_internal(&pt_byte, &scalar_byte, &mut p3_byte)?;
+    direct_buffer_mut(env, result_j, result_offset, FP_SIZE*2)?.copy_from_slice(&p3_byte);
+    Ok(())
+}
+
+#[no_mangle]
+pub extern "C" fn alt_bn128_mul(
+    point: *const c_uchar,
+    len: c_ulong,
+    scalar: *const c_uchar,
+    scalar_len: c_ulong,
+    result: *mut c_uchar,
+    result_len: *mut c_ulong,
+) -> c_int {
+    let pt_byte = unsafe { slice::from_raw_parts(point, len as usize) };
+    let scalar_byte = unsafe { slice::from_raw_parts(scalar, scalar_len as usize) };
+    let p3_byte = unsafe { slice::from_raw_parts_mut(result, *result_len as usize) };
+
+    let ret = alt_bn128_mul_internal(pt_byte, scalar_byte, p3_byte);
+    match ret {
+        Err(e) => return e.code,
+        Ok(_) => return 0 as c_int
+    }
+}
+
+fn alt_bn128_mul_internal(pt_byte: &[u8], scalar_byte: &[u8], p3_byte: &mut [u8]) -> Result<(), PairingErr> {
+    let pt = deserialize_g1(pt_byte)?;
+    let s = Fr::from_slice(&scalar_byte[0..FP_SIZE])?;
+
+    let p3 = pt * s;
+    // println!("{}", hex::encode(p3_byte));
+    serialize_g1(p3, p3_byte)
+}
+
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_g1EcAddBatch(env: JNIEnv, class: JClass,
+        lhs_j: jbyteArray, rhs_j: jbyteArray, status_j: jintArray)-> jbyteArray {
+
+    let lhs_byte = env.convert_byte_array(lhs_j).unwrap();
+    let rhs_byte = env.convert_byte_array(rhs_j).unwrap();
+    let count = lhs_byte.len()/(FP_SIZE*2);
+
+    let mut p3_byte = vec![0u8; count*FP_SIZE*2];
+    let mut status = vec![0 as jint; count];
+    let ret = alt_bn128_add_batch_internal(&lhs_byte, &rhs_byte, count, &mut p3_byte, &mut status);
+    batch_result_to_java(&env, ret, &p3_byte, status_j, &status)
+}
+
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_g1EcMulBatch(env: JNIEnv, class: JClass,
+        point_list_j: jbyteArray, scalar_list_j: jbyteArray, status_j: jintArray)-> jbyteArray {
+
+    let pt_list_byte = env.convert_byte_array(point_list_j).unwrap();
+    let scalar_list_byte = env.convert_byte_array(scalar_list_j).unwrap();
+    let count = pt_list_byte.len()/(FP_SIZE*2);
+
+    let mut p3_byte = vec![0u8; count*FP_SIZE*2];
+    let mut status = vec![0 as jint; count];
+    let ret = alt_bn128_mul_batch_internal(&pt_list_byte, &scalar_list_byte, count, &mut p3_byte, &mut status);
+    batch_result_to_java(&env, ret, &p3_byte, status_j, &status)
+}
+
+fn batch_result_to_java(env: &JNIEnv, ret: Result<(), PairingErr>, p3_byte: &[u8],
+                        status_j: jintArray, status: &[jint]) -> jbyteArray {
+    let ret = ret.and_then(|_| {
+        if (env.get_array_length(status_j).unwrap() as usize) < status.len() {
+            return Err(invalid_length());
+        }
+        Ok(())
+    });
+    match ret {
+        Err(e) => {
+            env.throw(format!("{}", e)).unwrap();
+            return JObject::null().into_inner();
+        },
+        Ok(_) => {
+            env.set_int_array_region(status_j, 0, status).unwrap();
+            let output = env.byte_array_from_slice(p3_byte).unwrap();
+            return output;
+        },
+    }
+}
+
+// Writes every point in affine form, sharing a single field inversion across the whole list.
+fn serialize_g1_batch(points: &[G1], pt_list_byte: &mut [u8]) -> Result<(), PairingErr> {
+    let affine = batch::normalize_g1(points);
+    for (i, pt_af) in affine.iter().enumerate() {
+        let pt_byte = &mut pt_list_byte[FP_SIZE*2*i..FP_SIZE*2*(i+1)];
+        match pt_af {
+            Some((x, y)) => {
+                x.into_u256().to_big_endian(&mut pt_byte[0..FP_SIZE])?;
+                y.into_u256().to_big_endian(&mut pt_byte[FP_SIZE..FP_SIZE*2])?;
+            },
+            None => {
+                for b in pt_byte.iter_mut() {
+                    *b = 0;
+                }
+            },
+        }
+    }
+    Ok(())
+}
+
+// Each item gets its own status (0, or the PairingErr code of its failure); failed items yield zeros.
+fn alt_bn128_add_batch_internal(lhs_byte: &[u8], rhs_byte: &[u8], count: usize,
+                                p3_byte: &mut [u8], status: &mut [jint]) -> Result<(), PairingErr> {
+    if lhs_byte.len() != FP_SIZE*2*count || rhs_byte.len() != FP_SIZE*2*count
+            || p3_byte.len() < FP_SIZE*2*count || status.len() < count {
+        return Err(invalid_length());
+    }
+
+    let mut results: Vec<G1> = Vec::with_capacity(count);
+    for i in 0..count {
+        let p1 = deserialize_g1(&lhs_byte[FP_SIZE*2*i..FP_SIZE*2*(i+1)]);
+        let p2 = deserialize_g1(&rhs_byte[FP_SIZE*2*i..FP_SIZE*2*(i+1)]);
+        match p1.and_then(|p1| p2.map(|p2| p1 + p2)) {
+            Ok(p3) => {
+                status[i] = 0;
+                results.push(p3);
+            },
+            Err(e) => {
+                status[i] = e.code;
+                results.push(G1::zero());
+            },
+        }
+    }
+
+    serialize_g1_batch(&results, p3_byte)
+}
+
+fn alt_bn128_mul_batch_internal(pt_list_byte: &[u8], scalar_list_byte: &[u8], count: usize,
+                                p3_byte: &mut [u8], status: &mut [jint]) -> Result<(), PairingErr> {
+    if pt_list_byte.len() != FP_SIZE*2*count || scalar_list_byte.len() != FP_SIZE*count
+            || p3_byte.len() < FP_SIZE*2*count || status.len() < count {
+        return Err(invalid_length());
+    }
+
+    let mut results: Vec<G1> = Vec::with_capacity(count);
+    for i in 0..count {
+        let pt = deserialize_g1(&pt_list_byte[FP_SIZE*2*i..FP_SIZE*2*(i+1)]);
+        let s = Fr::from_slice(&scalar_list_byte[FP_SIZE*i..FP_SIZE*(i+1)]).map_err(PairingErr::from);
+        match pt.and_then(|pt| s.map(|s| pt * s)) {
+            Ok(p3) => {
+                status[i] = 0;
+                results.push(p3);
+            },
+            Err(e) => {
+                status[i] = e.code;
+                results.push(G1::zero());
+            },
+        }
+    }
+
+    serialize_g1_batch(&results, p3_byte)
+}
+
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_decompressG1Batch(env: JNIEnv, class: JClass,
+        compressed_j: jbyteArray, status_j: jintArray)-> jbyteArray {
+
+    let compressed_byte = env.convert_byte_array(compressed_j).unwrap();
+    let count = compressed_byte.len()/FP_SIZE;
+
+    let mut p3_byte = vec![0u8; count*FP_SIZE*2];
+    let mut status = vec![0 as jint; count];
+    let ret = alt_bn128_decompress_g1_batch_internal(&compressed_byte, count, &mut p3_byte, &mut status);
+    batch_result_to_java(&env, ret, &p3_byte, status_j, &status)
+}
+
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_decompressG2Batch(env: JNIEnv, class: JClass,
+        compressed_j: jbyteArray, status_j: jintArray)-> jbyteArray {
+
+    let compressed_byte = env.convert_byte_array(compressed_j).unwrap();
+    let count = compressed_byte.len()/(FP_SIZE*2);
+
+    let mut p3_byte = vec![0u8; count*FP_SIZE*4];
+    let mut status = vec![0 as jint; count];
+    let ret = alt_bn128_decompress_g2_batch_internal(&compressed_byte, count, &mut p3_byte, &mut status);
+    batch_result_to_java(&env, ret, &p3_byte, status_j, &status)
+}
+
+// Points that fail to decompress get their error code as status and zeros as output, like the other batches.
+fn alt_bn128_decompress_g1_batch_internal(compressed_byte: &[u8], count: usize,
+                                          p3_byte: &mut [u8], status: &mut [jint]) -> Result<(), PairingErr> {
+    if compressed_byte.len() != FP_SIZE*count || p3_byte.len() < FP_SIZE*2*count || status.len() < count {
+        return Err(invalid_length());
+    }
+
+    let mut results: Vec<G1> = Vec::with_capacity(count);
+    for (i, pt) in compress::decompress_batch(compressed_byte, FP_SIZE, compress::decompress_g1).into_iter().enumerate() {
+        match pt {
+            Ok(pt) => {
+                status[i] = 0;
+                results.push(pt);
+            },
+            Err(e) => {
+                status[i] = e.code;
+                results.push(G1::zero());
+            },
+        }
+    }
+
+    serialize_g1_batch(&results, p3_byte)
+}
+
+fn alt_bn128_decompress_g2_batch_internal(compressed_byte: &[u8], count: usize,
+                                          p3_byte: &mut [u8], status: &mut [jint]) -> Result<(), PairingErr> {
+    if compressed_byte.len() != FP_SIZE*2*count || p3_byte.len() < FP_SIZE*4*count || status.len() < count {
+        return Err(invalid_length());
+    }
+
+    for (i, pt) in compress::decompress_batch(compressed_byte, FP_SIZE*2, compress::decompress_g2).into_iter().enumerate() {
+        let pt_byte = &mut p3_byte[FP_SIZE*4*i..FP_SIZE*4*(i+1)];
+        match pt {
+            Ok(pt) => {
+                status[i] = 0;
+                serialize_g2(pt, pt_byte)?;
+            },
+            Err(e) => {
+                status[i] = e.code;
+                serialize_g2(G2::zero(), pt_byte)?;
+            },
+        }
+    }
+    Ok(())
+}
+
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_g1MultiExp(env: JNIEnv, class: JClass,
+        point_list_j: jbyteArray, scalar_list_j: jbyteArray, parallel: jboolean)-> jbyteArray {
+
+    let pt_list_byte = env.convert_byte_array(point_list_j).unwrap();
+    let scalar_list_byte = env.convert_byte_array(scalar_list_j).unwrap();
+
+    let mut p3_byte: [u8; FP_SIZE*2] = [0; FP_SIZE*2];
+    let ret = alt_bn128_multiexp_internal(&pt_list_byte, &scalar_list_byte, pt_list_byte.len()/(FP_SIZE*2),
+                                          parallel != 0, &mut p3_byte);
+
+    match ret {
+        Err(e) => {
+            env.throw(format!("{}", e)).unwrap();
+            return JObject::null().into_inner();
+        },
+        Ok(_) => {
+            let output = env.byte_array_from_slice(&p3_byte).unwrap();
+            return output;
+        },
+    }
+}
+
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_g1MultiExpDirect(env: JNIEnv, class: JClass,
+        point_list_j: JObject, point_offset: jint, scalar_list_j: JObject, scalar_offset: jint, point_list_len: jint,
+        parallel: jboolean)-> jbyteArray {
+
+    let mut p3_byte: [u8; FP_SIZE*2] = [0; FP_SIZE*2];
+    let ret = multiexp_direct(&env, point_list_j, point_offset, scalar_list_j, scalar_offset, point_list_len,
+                              parallel != 0, &mut p3_byte);
+
+    match ret {
+        Err(e) => {
+            env.throw(format!("{}", e)).unwrap();
+            return JObject::null().into_inner();
+        },
+        Ok(_) => {
+            let output = env.byte_array_from_slice(&p3_byte).unwrap();
+            return output;
+        },
+    }
+}
+
+fn multiexp_direct(env: &JNIEnv, point_list_j: JObject, point_offset: jint, scalar_list_j: JObject, scalar_offset: jint,
+                   point_list_len: jint, parallel: bool, p3_byte: &mut [u8]) -> Result<(), PairingErr> {
+    if point_list_len < 0 {
+        return Err(invalid_length());
+    }
+    let len = point_list_len as usize;
+    let pt_list_byte = direct_buffer_ref(env, point_list_j, point_offset, len*FP_SIZE*2)?;
+    let scalar_list_byte = direct_buffer_ref(env, scalar_list_j, scalar_offset, len*FP_SIZE)?;
+
+    alt_bn128_multiexp_internal(pt_list_byte, scalar_list_byte, len, parallel, p3_byte)
+}
+
+#[no_mangle]
+pub extern "C" fn alt_bn128_multiexp(
+    point_list: *const c_uchar,
+    scalar_list: *const c_uchar,
+    point_list_len: c_ulong,
+    result: *mut c_uchar,
+    result_len: *mut c_ulong,
+) -> c_int {
+    let pt_list_byte = unsafe { slice::from_raw_parts(point_list, (point_list_len as usize)*FP_SIZE*2) };
+    let scalar_list_byte = unsafe { slice::from_raw_parts(scalar_list, (point_list_len as usize)*FP_SIZE) };
+    let p3_byte = unsafe { slice::from_raw_parts_mut(result, *result_len as usize) };
+
+    let ret = alt_bn128_multiexp_internal(pt_list_byte, scalar_list_byte, point_list_len as usize, false, p3_byte);
+    match ret {
+        Err(e) => return e.code,
+        Ok(_) => return 0 as c_int
+    }
+}
+
+fn alt_bn128_multiexp_internal(pt_list_byte: &[u8], scalar_list_byte: &[u8], point_list_len: usize,
+                               parallel: bool, p3_byte: &mut [u8]) -> Result<(), PairingErr> {
+    if pt_list_byte.len() < FP_SIZE*2*point_list_len || scalar_list_byte.len() < FP_SIZE*point_list_len
+            || p3_byte.len() < FP_SIZE*2 {
+        return Err(invalid_length());
+    }
+
+    let mut points: Vec<G1> = Vec::with_capacity(point_list_len);
+    let mut scalars: Vec<[u8; FP_SIZE]> = Vec::with_capacity(point_list_len);
+    for i in 0..point_list_len {
+        let pt_byte = &pt_list_byte[FP_SIZE*2*i..FP_SIZE*2*(i+1)];
+        let scalar_byte = &scalar_list_byte[FP_SIZE*i..FP_SIZE*(i+1)];
+
+        // range check only; the bucket method reads the scalar bits straight from the encoding
+        Fr::from_slice(scalar_byte)?;
+        let mut s = [0u8; FP_SIZE];
+        s.copy_from_slice(scalar_byte);
+
+        points.push(deserialize_g1(pt_byte)?);
+        scalars.push(s);
+    }
+
+    let p3 = msm::multiexp(&points, &scalars, parallel);
+    serialize_g1(p3, p3_byte)
+}
+
+fn g2_result_to_java(env: &JNIEnv, ret: Result<(), PairingErr>, p3_byte: &[u8]) -> jbyteArray {
+    match ret {
+        Err(e) => {
+            env.throw(format!("{}", e)).unwrap();
+            return JObject::null().into_inner();
+        },
+        Ok(_) => {
+            let output = env.byte_array_from_slice(p3_byte).unwrap();
+            return output;
+        },
+    }
+}
+
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_g2EcAdd(env: JNIEnv, class: JClass,
+        point1_j: jbyteArray, point2_j: jbyteArray)-> jbyteArray {
+
+    let p1_byte = env.convert_byte_array(point1_j).unwrap();
+    let p2_byte = env.convert_byte_array(point2_j).unwrap();
+
+    let mut p3_byte: [u8; FP_SIZE*4] = [0; FP_SIZE*4];
+    let ret = alt_bn128_g2_add_internal(&p1_byte, &p2_byte, &mut p3_byte);
+    g2_result_to_java(&env, ret, &p3_byte)
+}
+
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_g2EcMul(env: JNIEnv, class: JClass,
+        point_j: jbyteArray, scalar_j: jbyteArray)-> jbyteArray {
+
+    let pt_byte = env.convert_byte_array(point_j).unwrap();
+    let scalar_byte = env.convert_byte_array(scalar_j).unwrap();
+
+    let mut p3_byte: [u8; FP_SIZE*4] = [0; FP_SIZE*4];
+    let ret = alt_bn128_g2_mul_internal(&pt_byte, &scalar_byte, &mut p3_byte);
+    g2_result_to_java(&env, ret, &p3_byte)
+}
+
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_g2Negate(env: JNIEnv, class: JClass,
+        point_j: jbyteArray)-> jbyteArray {
+
+    let pt_byte = env.convert_byte_array(point_j).unwrap();
+
+    let mut p3_byte: [u8; FP_SIZE*4] = [0; FP_SIZE*4];
+    let ret = alt_bn128_g2_negate_internal(&pt_byte, &mut p3_byte);
+    g2_result_to_java(&env, ret, &p3_byte)
+}
+
+#[no_mangle]
+pub extern "C" fn alt_bn128_g2_add(
+    point1: *const c_uchar,
+    len1: c_ulong,
+    point2: *const c_uchar,
+    len2: c_ulong,
+    result: *mut c_uchar,
+    result_len: *mut c_ulong,
+) -> c_int {
+    let p1_byte = unsafe { slice::from_raw_parts(point1, len1 as usize) };
+    let p2_byte = unsafe { slice::from_raw_parts(point2, len2 as usize) };
+    let p3_byte = unsafe { slice::from_raw_parts_mut(result, *result_len as usize) };
+
+    let ret = alt_bn128_g2_add_internal(p1_byte, p2_byte, p3_byte);
+    match ret {
+        Err(e) => return e.code,
+        Ok(_) => return 0 as c_int,
+    }
+}
+
+#[no_mangle]
+pub extern "C" fn alt_bn128_g2_mul(
+    point: *const c_uchar,
+    len: c_ulong,
+    scalar: *const c_uchar,
+    scalar_len: c_ulong,
+    result: *mut c_uchar,
+    result_len: *mut c_ulong,
+) -> c_int {
+    let pt_byte = unsafe { slice::from_raw_parts(point, len as usize) };
+    let scalar_byte = unsafe { slice::from_raw_parts(scalar, scalar_len as usize) };
+    let p3_byte = unsafe { slice::from_raw_parts_mut(result, *result_len as usize) };
+
+    let ret = alt_bn128_g2_mul_internal(pt_byte, scalar_byte, p3_byte);
+    match ret {
+        Err(e) => return e.code,
+        Ok(_) => return 0 as c_int
+    }
+}
+
+fn alt_bn128_g2_add_internal(p1_byte: &[u8], p2_byte: &[u8], p3_byte: &mut [u8]) -> Result<(), PairingErr> {
+    if p1_byte.len() < FP_SIZE*4 || p2_byte.len() < FP_SIZE*4 || p3_byte.len() < FP_SIZE*4 {
+        return Err(invalid_length());
+    }
+    let p1 = deserialize_g2_or_zero(p1_byte)?;
+    let p2 = deserialize_g2_or_zero(p2_byte)?;
+
+    serialize_g2(p1 + p2, p3_byte)
+}
+
+fn alt_bn128_g2_mul_internal(pt_byte: &[u8], scalar_byte: &[u8], p3_byte: &mut [u8]) -> Result<(), PairingErr> {
+    if pt_byte.len() < FP_SIZE*4 || scalar_byte.len() < FP_SIZE || p3_byte.len() < FP_SIZE*4 {
+        return Err(invalid_length());
+    }
+    let pt = deserialize_g2_or_zero(pt_byte)?;
+    let s = Fr::from_slice(&scalar_byte[0..FP_SIZE])?;
+
+    serialize_g2(pt * s, p3_byte)
+}
+
+fn alt_bn128_g2_negate_internal(pt_byte: &[u8], p3_byte: &mut [u8]) -> Result<(), PairingErr> {
+    if pt_byte.len() < FP_SIZE*4 || p3_byte.len() < FP_SIZE*4 {
+        return Err(invalid_length());
+    }
+    let pt = deserialize_g2_or_zero(pt_byte)?;
+
+    serialize_g2(-pt, p3_byte)
+}
+
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_ecPair(env: JNIEnv, class: JClass,
+         g1_point_list: jbyteArray, g2_point_list: jbyteArray)-> jboolean {
+
+    let g1_list_byte = env.convert_byte_array(g1_point_list).unwrap();
+    let g2_list_byte = env.convert_byte_array(g2_point_list).unwrap();
+
+    let ret = alt_bn128_pair_internal(&g1_list_byte, &g2_list_byte, g1_list_byte.len()/(FP_SIZE*2));
+    match ret {
+        Err(e) => return 0 as jboolean,
+        Ok(val) => {
+            val as jboolean
+        }
+    }
+}
+
+// Returns 1 if the pairing product is one, 0 if it is not, or the PairingErr code of illegal input or buffers.
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_ecPairDirectStatus(env: JNIEnv, class: JClass,
+        g1_point_list: JObject, g1_offset: jint, g2_point_list: JObject, g2_offset: jint, point_list_len: jint)-> jint {
+
+    let ret = pair_direct(&env, g1_point_list, g1_offset, g2_point_list, g2_offset, point_list_len);
+    match ret {
+        Err(e) => e.code as jint,
+        Ok(val) => val as jint,
+    }
+}
+
+fn pair_direct(env: &JNIEnv, g1_point_list: JObject, g1_offset: jint, g2_point_list: JObject, g2_offset: jint,
+               point_list_len: jint) -> Result<bool, PairingErr> {
+    if point_list_len < 0 {
+        return Err(invalid_length());
+    }
+    let len = point_list_len as usize;
+    let g1_list_byte = direct_buffer_ref(env, g1_point_list, g1_offset, len*FP_SIZE*2)?;
+    let g2_list_byte = direct_buffer_ref(env, g2_point_list, g2_offset, len*FP_SIZE*4)?;
+
+    alt_bn128_pair_internal(g1_list_byte, g2_list_byte, len)
+}
+
+#[no_mangle]
+pub extern "C" fn alt_bn128_pair(
+    g1_point_list: *const c_uchar,
+    g2_point_list: *const c_uchar,
+    point_list_len: c_ulong,
+    is_one: *mut c_int,
+) -> c_int {
+    let g1_list_byte = unsafe { slice::from_raw_parts(g1_point_list, (point_list_len as usize)*FP_SIZE*2 as usize) };
+    let g2_list_byte = unsafe { slice::from_raw_parts(g2_point_list, (point_list_len as usize)*FP_SIZE*4 as usize) };
+
+    let ret = alt_bn128_pair_internal(g1_list_byte, g2_list_byte, point_list_len as usize);
+    match ret {
+        Err(e) => return e.code,
+        Ok(val) => {
+            if val {
+                unsafe {*is_one = 1};
+            } else {
+                unsafe {*is_one = 0};
+            }
+            0 as c_int
+        }
+    }
+}
+
+fn deserialize_pairs(g1_list_byte: &[u8], g2_list_byte: &[u8], point_list_len: usize,
+                     pair_list: &mut Vec<(G1, G2)>) -> Result<(), PairingErr> {
+    for i in 0..point_list_len {
+        let g1_byte = &g1_list_byte[FP_SIZE*2*i..FP_SIZE*2*(i+1)];
+        let g2_byte = &g2_list_byte[FP_SIZE*4*i..FP_SIZE*4*(i+1)];
+
+        let g1 = deserialize_g1(g1_byte)?;
+        let g2 = deserialize_g2(g2_byte)?;
+
+        pair_list.push((g1,g2));
+    }
+    Ok(())
+}
+
+fn alt_bn128_pair_internal(g1_list_byte: &[u8], g2_list_byte: &[u8], point_list_len: usize) -> Result<bool, PairingErr> {
+    let mut pair_list : Vec<(G1, G2)> = Vec::with_capacity(point_list_len);
+    deserialize_pairs(g1_list_byte, g2_list_byte, point_list_len, &mut pair_list)?;
+
+    let gt = pairing_batch(&pair_list);
+
+    Ok(gt == Gt::one())
+}
+
+// Status-code variants of g1EcAdd, g1EcMul and ecPair, for callers that cannot afford a Java exception
+// per illegal input. Like the alt_bn128_* functions above they return 0 or the PairingErr code, and write
+// into memory the caller owns; lengths are checked first, so no JNI call leaves an exception pending.
+
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_g1EcAddInto(env: JNIEnv, class: JClass,
+        point1_j: jbyteArray, point2_j: jbyteArray, result_j: jbyteArray, result_offset: jint)-> jint {
+
+    let mut p1_byte: [u8; FP_SIZE*2] = [0; FP_SIZE*2];
+    let mut p2_byte: [u8; FP_SIZE*2] = [0; FP_SIZE*2];
+    let mut p3_byte: [u8; FP_SIZE*2] = [0; FP_SIZE*2];
+    let ret = read_byte_array(&env, point1_j, &mut p1_byte)
+        .and_then(|_| read_byte_array(&env, point2_j, &mut p2_byte))
+        .and_then(|_| alt_bn128_add_internal(&p1_byte, &p2_byte, &mut p3_byte))
+        .and_then(|_| write_byte_array(&env, result_j, result_offset, &p3_byte));
+    status_to_java(ret)
+}
+
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_g1EcMulInto(env: JNIEnv, class: JClass,
+        point_j: jbyteArray, scalar_j: jbyteArray, result_j: jbyteArray, result_offset: jint)-> jint {
+
+    let mut pt_byte: [u8; FP_SIZE*2] = [0; FP_SIZE*2];
+    let mut scalar_byte: [u8; FP_SIZE] = [0; FP_SIZE];
+    let mut p3_byte: [u8; FP_SIZE*2] = [0; FP_SIZE*2];
+    let ret = read_byte_array(&env, point_j, &mut pt_byte)
+        .and_then(|_| read_byte_array(&env, scalar_j, &mut scalar_byte))
+        .and_then(|_| alt_bn128_mul_internal(&pt_byte, &scalar_byte, &mut p3_byte))
+        .and_then(|_| write_byte_array(&env, result_j, result_offset, &p3_byte));
+    status_to_java(ret)
+}
+
+// Returns 1 if the pairing product is one, 0 if it is not, or the PairingErr code of an illegal input.
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_ecPairStatus(env: JNIEnv, class: JClass,
+        g1_point_list: jbyteArray, g2_point_list: jbyteArray)-> jint {
+
+    let ret = pair_status(&env, g1_point_list, g2_point_list);
+    match ret {
+        Err(e) => e.code as jint,
+        Ok(val) => val as jint,
+    }
+}
+
+fn pair_status(env: &JNIEnv, g1_point_list: jbyteArray, g2_point_list: jbyteArray) -> Result<bool, PairingErr> {
+    let g1_list_byte = env.convert_byte_array(g1_point_list).map_err(|_| invalid_length())?;
+    let g2_list_byte = env.convert_byte_array(g2_point_list).map_err(|_| invalid_length())?;
+    let len = g1_list_byte.len()/(FP_SIZE*2);
+    if g2_list_byte.len() < len*FP_SIZE*4 {
+        return Err(invalid_length());
+    }
+
+    alt_bn128_pair_internal(&g1_list_byte, &g2_list_byte, len)
+}
+
+fn status_to_java(ret: Result<(), PairingErr>) -> jint {
+    match ret {
+        Err(e) => e.code as jint,
+        Ok(_) => 0 as jint,
+    }
+}
+
+// Fills `buf` from the start of a Java byte array, which may be longer. A null or shorter array is an
+// invalid length rather than an ArrayIndexOutOfBoundsException.
+fn read_byte_array(env: &JNIEnv, array: jbyteArray, buf: &mut [u8]) -> Result<(), PairingErr> {
+    let len = env.get_array_length(array).map_err(|_| invalid_length())?;
+    if (len as usize) < buf.len() {
+        return Err(invalid_length());
+    }
+    let buf_j = unsafe { slice::from_raw_parts_mut(buf.as_mut_ptr() as *mut jbyte, buf.len()) };
+    env.get_byte_array_region(array, 0, buf_j).map_err(|_| invalid_length())
+}
+
+// Copies `data` into a Java byte array at `offset`, which must leave room for all of it.
+fn write_byte_array(env: &JNIEnv, array: jbyteArray, offset: jint, data: &[u8]) -> Result<(), PairingErr> {
+    let len = env.get_array_length(array).map_err(|_| invalid_length())?;
+    if offset < 0 || (offset as usize) + data.len() > len as usize {
+        return Err(invalid_length());
+    }
+    let data_j = unsafe { slice::from_raw_parts(data.as_ptr() as *const jbyte, data.len()) };
+    env.set_byte_array_region(array, offset, data_j).map_err(|_| invalid_length())
+}
+
+// Like ecPairStatus, with the Miller loops on the pool.
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_ecPairParallelStatus(env: JNIEnv, class: JClass,
+         g1_point_list: jbyteArray, g2_point_list: jbyteArray)-> jint {
+
+    let ret = pair_parallel_status(&env, g1_point_list, g2_point_list);
+    match ret {
+        Err(e) => e.code as jint,
+        Ok(val) => val as jint,
+    }
+}
+
+fn pair_parallel_status(env: &JNIEnv, g1_point_list: jbyteArray, g2_point_list: jbyteArray) -> Result<bool, PairingErr> {
+    let g1_list_byte = env.convert_byte_array(g1_point_list).map_err(|_| invalid_length())?;
+    let g2_list_byte = env.convert_byte_array(g2_point_list).map_err(|_| invalid_length())?;
+
+    let gt = pair::pairing_product(&g1_list_byte, &g2_list_byte, g1_list_byte.len()/(FP_SIZE*2))?;
+    Ok(gt == Gt::one())
+}
+
+// Sizes the cache of validated G2 points; zero turns it off.
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_setValidatedPointCache(env: JNIEnv, class: JClass, entries: jint) {
+    if entries < 0 {
+        env.throw(format!("{}", invalid_length())).unwrap();
+        return;
+    }
+    cache::set_capacity(entries as usize);
+}
+
+// Returns [hits, misses] of the validated point cache.
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_validatedPointCacheStats(env: JNIEnv, class: JClass)-> jlongArray {
+    let (hits, misses) = cache::stats();
+    let output = env.new_long_array(2).unwrap();
+    env.set_long_array_region(output, 0, &[hits as jlong, misses as jlong]).unwrap();
+    output
+}
+
+// Sizes the pool shared by the multi-threaded operations; zero goes back to one thread per core.
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_setThreadCount(env: JNIEnv, class: JClass, threads: jint) {
+    if threads < 0 {
+        env.throw(format!("{}", invalid_length())).unwrap();
+        return;
+    }
+    if let Err(e) = pool::set_threads(threads as usize) {
+        env.throw(format!("{}", e)).unwrap();
+    }
+}
+
+// Prepared G2 points.
+//
+// A handle is a pointer to a boxed G2 point that passed the curve and subgroup checks when it was prepared,
+// so pairings against it skip deserialization and validation. The Java side owns the handle and must free it
+// exactly once, after its last use.
+//
+// todo: also keep the Miller loop line coefficients once the bn crate exposes its G2 precomputation.
+
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_prepareG2(env: JNIEnv, class: JClass,
+        point_j: jbyteArray)-> jlong {
+
+    let pt_byte = env.convert_byte_array(point_j).unwrap();
+
+    let ret = if pt_byte.len() < FP_SIZE*4 { Err(invalid_length()) } else { deserialize_g2(&pt_byte) };
+    match ret {
+        Err(e) => {
+            env.throw(format!("{}", e)).unwrap();
+            return 0 as jlong;
+        },
+        Ok(pt) => {
+            Box::into_raw(Box::new(pt)) as jlong
+        }
+    }
+}
+
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_freePreparedG2(env: JNIEnv, class: JClass, handle: jlong) {
+    if handle != 0 {
+        unsafe { drop(Box::from_raw(handle as *mut G2)); }
+    }
+}
+
+fn prepared_g2_list<'a>(env: &JNIEnv, handles_j: jlongArray) -> Result<Vec<&'a G2>, PairingErr> {
+    let len = env.get_array_length(handles_j).unwrap() as usize;
+    let mut handles = vec![0 as jlong; len];
+    env.get_long_array_region(handles_j, 0, &mut handles).unwrap();
+
+    handles.iter().map(|h| {
+        if *h == 0 {
+            Err(PairingErr::new(-4, "NullHandle"))
+        } else {
+            Ok(unsafe { &*(*h as *const G2) })
+        }
+    }).collect()
+}
+
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_ecPairPrepared(env: JNIEnv, class: JClass,
+         g1_point_list: jbyteArray, g2_point_list: jbyteArray, prepared_g2_j: jlongArray)-> jboolean {
+
+    let g1_list_byte = env.convert_byte_array(g1_point_list).unwrap();
+    let g2_list_byte = env.convert_byte_array(g2_point_list).unwrap();
+
+    let ret = prepared_g2_list(&env, prepared_g2_j).and_then(|prepared| {
+        alt_bn128_pair_prepared_internal(&g1_list_byte, &g2_list_byte, g2_list_byte.len()/(FP_SIZE*4), &prepared)
+    });
+    match ret {
+        Err(e) => return 0 as jboolean,
+        Ok(val) => {
+            val as jboolean
+        }
+    }
+}
+
+// The first point_list_len G1 points pair with the raw G2 list; the remaining ones pair with the prepared points.
+fn alt_bn128_pair_prepared_internal(g1_list_byte: &[u8], g2_list_byte: &[u8], point_list_len: usize,
+                                    prepared: &[&G2]) -> Result<bool, PairingErr> {
+    let gt = pair_prepared_product(g1_list_byte, g2_list_byte, point_list_len, prepared)?;
+
+    Ok(gt == Gt::one())
+}
+
+fn pair_prepared_product(g1_list_byte: &[u8], g2_list_byte: &[u8], point_list_len: usize,
+                         prepared: &[&G2]) -> Result<Gt, PairingErr> {
+    let total_len = point_list_len + prepared.len();
+    if g1_list_byte.len() != FP_SIZE*2*total_len || g2_list_byte.len() != FP_SIZE*4*point_list_len {
+        return Err(invalid_length());
+    }
+
+    let mut pair_list : Vec<(G1, G2)> = Vec::with_capacity(total_len);
+    deserialize_pairs(g1_list_byte, g2_list_byte, point_list_len, &mut pair_list)?;
+    for (j, g2) in prepared.iter().enumerate() {
+        let i = point_list_len + j;
+        let g1 = deserialize_g1(&g1_list_byte[FP_SIZE*2*i..FP_SIZE*2*(i+1)])?;
+        pair_list.push((g1, **g2));
+    }
+
+    Ok(pairing_batch(&pair_list))
+}
+
+// Pairing values in Gt.
+//
+// A handle is a pointer to a boxed Gt element, owned by the Java side like prepared G2 handles are.
+
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_pairingGt(env: JNIEnv, class: JClass,
+         g1_point_list: jbyteArray, g2_point_list: jbyteArray)-> jlong {
+
+    let g1_list_byte = env.convert_byte_array(g1_point_list).unwrap();
+    let g2_list_byte = env.convert_byte_array(g2_point_list).unwrap();
+
+    let ret = pair_prepared_product(&g1_list_byte, &g2_list_byte, g2_list_byte.len()/(FP_SIZE*4), &[]);
+    match ret {
+        Err(e) => {
+            env.throw(format!("{}", e)).unwrap();
+            return 0 as jlong;
+        },
+        Ok(gt) => {
+            Box::into_raw(Box::new(gt)) as jlong
+        }
+    }
+}
+
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_freeGt(env: JNIEnv, class: JClass, handle: jlong) {
+    if handle != 0 {
+        unsafe { drop(Box::from_raw(handle as *mut Gt)); }
+    }
+}
+
+// Checks that the pairing product equals the Gt element behind `target`, rather than one.
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_ecPairPreparedEquals(env: JNIEnv, class: JClass,
+         g1_point_list: jbyteArray, g2_point_list: jbyteArray, prepared_g2_j: jlongArray, target: jlong)-> jboolean {
+
+    let g1_list_byte = env.convert_byte_array(g1_point_list).unwrap();
+    let g2_list_byte = env.convert_byte_array(g2_point_list).unwrap();
+
+    if target == 0 {
+        return 0 as jboolean;
+    }
+    let target = unsafe { &*(target as *const Gt) };
+
+    let ret = prepared_g2_list(&env, prepared_g2_j).and_then(|prepared| {
+        pair_prepared_product(&g1_list_byte, &g2_list_byte, g2_list_byte.len()/(FP_SIZE*4), &prepared)
+    });
+    match ret {
+        Err(e) => return 0 as jboolean,
+        Ok(gt) => {
+            (gt == *target) as jboolean
+        }
+    }
+}
+
+
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_millerLoopGt(env: JNIEnv, class: JClass,
+         g1_point_list: jbyteArray, g2_point_list: jbyteArray)-> jlong {
+
+    let g1_list_byte = env.convert_byte_array(g1_point_list).unwrap();
+    let g2_list_byte = env.convert_byte_array(g2_point_list).unwrap();
+
+    let ret = pair::miller_loop(&g1_list_byte, &g2_list_byte, g2_list_byte.len()/(FP_SIZE*4));
+    handle_to_java(&env, ret)
+}
+
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_gtFinalExponentiation(env: JNIEnv, class: JClass,
+         a: jlong)-> jlong {
+
+    // only zero has no final exponentiation, and no pairing or Miller loop yields it
+    let ret = handle_ref::<Gt>(a).and_then(|a| a.final_exponentiation().ok_or_else(|| PairingErr::new(-3, "NotInvertible")));
+    handle_to_java(&env, ret)
+}
+
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_gtMul(env: JNIEnv, class: JClass, a: jlong, b: jlong)-> jlong {
+    let ret = handle_ref::<Gt>(a).and_then(|a| Ok(*a * *handle_ref::<Gt>(b)?));
+    handle_to_java(&env, ret)
+}
+
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_gtPow(env: JNIEnv, class: JClass,
+         a: jlong, scalar_j: jbyteArray)-> jlong {
+
+    let scalar_byte = env.convert_byte_array(scalar_j).unwrap();
+    let ret = handle_ref::<Gt>(a).and_then(|a| Ok(a.pow(Fr::from_slice(&scalar_byte)?)));
+    handle_to_java(&env, ret)
+}
+
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_gtEquals(env: JNIEnv, class: JClass, a: jlong, b: jlong)-> jboolean {
+    let ret = handle_ref::<Gt>(a).and_then(|a| Ok(*a == *handle_ref::<Gt>(b)?));
+    match ret {
+        Err(e) => {
+            env.throw(format!("{}", e)).unwrap();
+            return 0 as jboolean;
+        },
+        Ok(val) => {
+            val as jboolean
+        }
+    }
+}
+
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_gtToBytes(env: JNIEnv, class: JClass, a: jlong)-> jbyteArray {
+    let mut gt_byte: [u8; gt::GT_SIZE] = [0; gt::GT_SIZE];
+    let ret = handle_ref::<Gt>(a).and_then(|a| gt::serialize(*a, &mut gt_byte));
+    match ret {
+        Err(e) => {
+            env.throw(format!("{}", e)).unwrap();
+            return JObject::null().into_inner();
+        },
+        Ok(_) => {
+            let output = env.byte_array_from_slice(&gt_byte).unwrap();
+            return output;
+        },
+    }
+}
+
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_gtFromBytes(env: JNIEnv, class: JClass,
+         gt_j: jbyteArray)-> jlong {
+
+    let gt_byte = env.convert_byte_array(gt_j).unwrap();
+    let ret = gt::deserialize(&gt_byte);
+    handle_to_java(&env, ret)
+}
+
+
+// Fixed-base tables.
+//
+// A handle is a pointer to a boxed FixedBase built from a validated G1 point, owned by the Java side like
+// prepared G2 handles are.
+
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_prepareG1FixedBase(env: JNIEnv, class: JClass,
+        point_j: jbyteArray, memory_budget: jlong)-> jlong {
+
+    let pt_byte = env.convert_byte_array(point_j).unwrap();
+
+    let ret = prepare_g1_fixed_base(&pt_byte, memory_budget);
+    match ret {
+        Err(e) => {
+            env.throw(format!("{}", e)).unwrap();
+            return 0 as jlong;
+        },
+        Ok(table) => {
+            Box::into_raw(Box::new(table)) as jlong
+        }
+    }
+}
+
+fn prepare_g1_fixed_base(pt_byte: &[u8], memory_budget: jlong) -> Result<fixed::FixedBase, PairingErr> {
+    if pt_byte.len() < FP_SIZE*2 || memory_budget < 0 {
+        return Err(invalid_length());
+    }
+    let pt = deserialize_g1(pt_byte)?;
+    fixed::FixedBase::new(pt, memory_budget as usize).ok_or_else(|| PairingErr::new(-4, "MemoryBudgetTooSmall"))
+}
 
 #[no_mangle]
-pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_ping(env: JNIEnv, class: JClass)-> jint {
-    1337 as jint
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_freeG1FixedBase(env: JNIEnv, class: JClass, handle: jlong) {
+    if handle != 0 {
+        unsafe { drop(Box::from_raw(handle as *mut fixed::FixedBase)); }
+    }
 }
 
-fn deserialize_g1(pt_byte: &[u8]) -> Result<G1, PairingErr> {
-    let x = Fq::from_slice(&pt_byte[0..FP_SIZE])?;
-    let y = Fq::from_slice(&pt_byte[FP_SIZE..FP_SIZE*2])?;
-    let pt_af = AffineG1::new(x, y)?;
-    Ok(G1::from(pt_af))
+// Computes s1 * P1 + s2 * P2 + ... for the bases behind the handles, with additions only.
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_g1FixedBaseMul(env: JNIEnv, class: JClass,
+        handles_j: jlongArray, scalar_list_j: jbyteArray)-> jbyteArray {
+
+    let scalar_list_byte = env.convert_byte_array(scalar_list_j).unwrap();
+    let len = env.get_array_length(handles_j).unwrap() as usize;
+    let mut handles = vec![0 as jlong; len];
+    env.get_long_array_region(handles_j, 0, &mut handles).unwrap();
+
+    let mut p3_byte: [u8; FP_SIZE*2] = [0; FP_SIZE*2];
+    let ret = g1_fixed_base_mul_internal(&handles, &scalar_list_byte, &mut p3_byte);
+    match ret {
+        Err(e) => {
+            env.throw(format!("{}", e)).unwrap();
+            return JObject::null().into_inner();
+        },
+        Ok(_) => {
+            let output = env.byte_array_from_slice(&p3_byte).unwrap();
+            return output;
+        },
+    }
 }
 
-fn deserialize_g2(pt_byte: &[u8]) -> Result<G2, PairingErr> {
-    let x1 = Fq::from_slice(&pt_byte[0..FP_SIZE])?;
-    let x2 = Fq::from_slice(&pt_byte[FP_SIZE..FP_SIZE*2])?;
+fn g1_fixed_base_mul_internal(handles: &[jlong], scalar_list_byte: &[u8], p3_byte: &mut [u8]) -> Result<(), PairingErr> {
+    if scalar_list_byte.len() != FP_SIZE*handles.len() {
+        return Err(invalid_length());
+    }
 
-    let y1 = Fq::from_slice(&pt_byte[FP_SIZE*2..FP_SIZE*3])?;
-    let y2 = Fq::from_slice(&pt_byte[FP_SIZE*3..FP_SIZE*4])?;
+    let mut acc = G1::zero();
+    for (i, h) in handles.iter().enumerate() {
+        if *h == 0 {
+            return Err(PairingErr::new(-4, "NullHandle"));
+        }
+        let table = unsafe { &*(*h as *const fixed::FixedBase) };
 
-    let x = Fq2::new(x1, x2);
-    let y = Fq2::new(y1, y2);
-    let pt_af = AffineG2::new(x, y)?;
-    Ok(G2::from(pt_af))
+        let scalar_byte = &scalar_list_byte[FP_SIZE*i..FP_SIZE*(i+1)];
+        Fr::from_slice(scalar_byte)?;
+        let mut s = [0u8; FP_SIZE];
+        s.copy_from_slice(scalar_byte);
+
+        acc = table.add_mul(acc, &s);
+    }
+    serialize_g1(acc, p3_byte)
+}
+
+
+// Point handles.
+//
+// A handle is a pointer to a boxed G1 or G2 point in Jacobian form, validated when it was created from bytes.
+// Operations on handles return new handles, so a chain of them needs no validation and no inversion until
+// the result is read back in affine form. The Java side owns every handle, like prepared G2 handles.
+
+fn handle_ref<'a, T>(handle: jlong) -> Result<&'a T, PairingErr> {
+    if handle == 0 {
+        Err(PairingErr::new(-4, "NullHandle"))
+    } else {
+        Ok(unsafe { &*(handle as *const T) })
+    }
 }
 
+fn handle_to_java<T>(env: &JNIEnv, ret: Result<T, PairingErr>) -> jlong {
+    match ret {
+        Err(e) => {
+            env.throw(format!("{}", e)).unwrap();
+            0 as jlong
+        },
+        Ok(val) => {
+            Box::into_raw(Box::new(val)) as jlong
+        }
+    }
+}
 
 #[no_mangle]
-pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_g1EcAdd(env: JNIEnv, class: JClass,
-        point1_j: jbyteArray, point2_j: jbyteArray)-> jbyteArray {
-    
-    let p1_byte = env.convert_byte_array(point1_j).unwrap();
-    let p2_byte = env.convert_byte_array(point2_j).unwrap();
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_newG1Handle(env: JNIEnv, class: JClass,
+        point_j: jbyteArray)-> jlong {
 
-    let mut p3_byte: [u8; FP_SIZE*2] = [0; FP_SIZE*2];
-    let ret = alt_bn128_add_internal(&p1_byte, &p2_byte, &mut p3_byte);
+    let pt_byte = env.convert_byte_array(point_j).unwrap();
+    let ret = if pt_byte.len() < FP_SIZE*2 { Err(invalid_length()) } else { deserialize_g1_or_zero(&pt_byte) };
+    handle_to_java(&env, ret)
+}
 
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_g1HandleAdd(env: JNIEnv, class: JClass,
+        a: jlong, b: jlong)-> jlong {
+
+    let ret = handle_ref::<G1>(a).and_then(|a| Ok(*a + *handle_ref::<G1>(b)?));
+    handle_to_java(&env, ret)
+}
+
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_g1HandleMul(env: JNIEnv, class: JClass,
+        a: jlong, scalar_j: jbyteArray)-> jlong {
+
+    let scalar_byte = env.convert_byte_array(scalar_j).unwrap();
+    let ret = handle_ref::<G1>(a).and_then(|a| Ok(*a * Fr::from_slice(&scalar_byte)?));
+    handle_to_java(&env, ret)
+}
+
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_g1HandleNeg(env: JNIEnv, class: JClass, a: jlong)-> jlong {
+    let ret = handle_ref::<G1>(a).map(|a| -*a);
+    handle_to_java(&env, ret)
+}
+
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_g1HandleToAffine(env: JNIEnv, class: JClass,
+        a: jlong)-> jbyteArray {
+
+    let mut p3_byte: [u8; FP_SIZE*2] = [0; FP_SIZE*2];
+    let ret = handle_ref::<G1>(a).and_then(|a| serialize_g1(*a, &mut p3_byte));
     match ret {
         Err(e) => {
             env.throw(format!("{}", e)).unwrap();
@@ -110,143 +1358,137 @@ pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_g1EcAdd(env: JNIEnv, cl
 }
 
 #[no_mangle]
-pub extern "C" fn alt_bn128_add(
-    point1: *const c_uchar,
-    len1: c_ulong,
-    point2: *const c_uchar,
-    len2: c_ulong,
-    result: *mut c_uchar,
-    result_len: *mut c_ulong,
-) -> c_int {
-    let p1_byte = unsafe { slice::from_raw_parts(point1, len1 as usize) };
-    let p2_byte = unsafe { slice::from_raw_parts(point2, len2 as usize) };
-    let p3_byte = unsafe { slice::from_raw_parts_mut(result, *result_len as usize) };
-
-    let ret =  alt_bn128_add_internal(p1_byte, p2_byte, p3_byte);
-    match ret {
-        Err(e) => return e.code,
-        Ok(_) => return 0 as c_int,
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_freeG1Handle(env: JNIEnv, class: JClass, handle: jlong) {
+    if handle != 0 {
+        unsafe { drop(Box::from_raw(handle as *mut G1)); }
     }
 }
 
-fn alt_bn128_add_internal(p1_byte: &[u8], p2_byte: &[u8], p3_byte: &mut [u8]) -> Result<(), PairingErr> {
-    let p1 = deserialize_g1(p1_byte)?;
-    let p2 = deserialize_g1(p2_byte)?;
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_newG2Handle(env: JNIEnv, class: JClass,
+        point_j: jbyteArray)-> jlong {
 
-    let p3 = p1 + p2;
-    if let Some(p3_af) = AffineG1::from_jacobian(p3) {
-        p3_af.x().into_u256().to_big_endian(&mut p3_byte[0..FP_SIZE])?;
-        p3_af.y().into_u256().to_big_endian(&mut p3_byte[FP_SIZE..FP_SIZE*2])?;
-    }
+    let pt_byte = env.convert_byte_array(point_j).unwrap();
+    let ret = if pt_byte.len() < FP_SIZE*4 { Err(invalid_length()) } else { deserialize_g2_or_zero(&pt_byte) };
+    handle_to_java(&env, ret)
+}
 
-    Ok(())
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_g2HandleAdd(env: JNIEnv, class: JClass,
+        a: jlong, b: jlong)-> jlong {
+
+    let ret = handle_ref::<G2>(a).and_then(|a| Ok(*a + *handle_ref::<G2>(b)?));
+    handle_to_java(&env, ret)
 }
 
 #[no_mangle]
-pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_g1EcMul(env: JNIEnv, class: JClass,
-        point_j: jbyteArray, scalar_j: jbyteArray)-> jbyteArray {
-    
-    let pt_byte = env.convert_byte_array(point_j).unwrap();
-    let scalar_byte = env.convert_byte_array(scalar_j).unwrap();
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_g2HandleMul(env: JNIEnv, class: JClass,
+        a: jlong, scalar_j: jbyteArray)-> jlong {
 
-    let mut p3_byte: [u8; FP_SIZE*2] = [0; FP_SIZE*2];
-    let ret = alt_bn128_mul_internal(&pt_byte, &scalar_byte, &mut p3_byte);
+    let scalar_byte = env.convert_byte_array(scalar_j).unwrap();
+    let ret = handle_ref::<G2>(a).and_then(|a| Ok(*a * Fr::from_slice(&scalar_byte)?));
+    handle_to_java(&env, ret)
+}
 
-    let output = env.byte_array_from_slice(&p3_byte).unwrap();
-    output
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_g2HandleNeg(env: JNIEnv, class: JClass, a: jlong)-> jlong {
+    let ret = handle_ref::<G2>(a).map(|a| -*a);
+    handle_to_java(&env, ret)
 }
 
 #[no_mangle]
-pub extern "C" fn alt_bn128_mul(
-    point: *const c_uchar,
-    len: c_ulong,
-    scalar: *const c_uchar,
-    scalar_len: c_ulong,
-    result: *mut c_uchar,
-    result_len: *mut c_ulong,
-) -> c_int {
-    let pt_byte = unsafe { slice::from_raw_parts(point, len as usize) };
-    let scalar_byte = unsafe { slice::from_raw_parts(scalar, scalar_len as usize) };
-    let p3_byte = unsafe { slice::from_raw_parts_mut(result, *result_len as usize) };
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_g2HandleToAffine(env: JNIEnv, class: JClass,
+        a: jlong)-> jbyteArray {
 
-    let ret = alt_bn128_mul_internal(pt_byte, scalar_byte, p3_byte);
-    match ret {
-        Err(e) => return e.code,
-        Ok(_) => return 0 as c_int
+    let mut p3_byte: [u8; FP_SIZE*4] = [0; FP_SIZE*4];
+    let ret = handle_ref::<G2>(a).and_then(|a| serialize_g2(*a, &mut p3_byte));
+    g2_result_to_java(&env, ret, &p3_byte)
+}
+
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_freeG2Handle(env: JNIEnv, class: JClass, handle: jlong) {
+    if handle != 0 {
+        unsafe { drop(Box::from_raw(handle as *mut G2)); }
     }
 }
 
-fn alt_bn128_mul_internal(pt_byte: &[u8], scalar_byte: &[u8], p3_byte: &mut [u8]) -> Result<(), PairingErr> {
-    let pt = deserialize_g1(pt_byte)?;
-    let s = Fr::from_slice(&scalar_byte[0..FP_SIZE])?;
+// Streaming pairing checks
+//
+// An accumulator handle refers to a pair::Accumulator. Java serializes calls on one accumulator, so
+// the mutable borrow below is never shared.
 
-    let p3 = pt * s;
-    if let Some(p3_af) = AffineG1::from_jacobian(p3) {
-        p3_af.x().into_u256().to_big_endian(&mut p3_byte[0..FP_SIZE])?;
-        p3_af.y().into_u256().to_big_endian(&mut p3_byte[FP_SIZE..FP_SIZE*2])?;
+fn handle_mut<'a, T>(handle: jlong) -> Result<&'a mut T, PairingErr> {
+    if handle == 0 {
+        Err(PairingErr::new(-4, "NullHandle"))
+    } else {
+        Ok(unsafe { &mut *(handle as *mut T) })
     }
-    // println!("{}", hex::encode(p3_byte));
+}
 
-    Ok(())
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_newPairingAccumulator(env: JNIEnv, class: JClass)-> jlong {
+    Box::into_raw(Box::new(pair::Accumulator::new())) as jlong
 }
 
 #[no_mangle]
-pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_ecPair(env: JNIEnv, class: JClass,
-         g1_point_list: jbyteArray, g2_point_list: jbyteArray)-> jboolean {
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_pairingAccumulatorAdd(env: JNIEnv, class: JClass,
+        handle: jlong, g1_point_list: jbyteArray, g2_point_list: jbyteArray) {
 
     let g1_list_byte = env.convert_byte_array(g1_point_list).unwrap();
     let g2_list_byte = env.convert_byte_array(g2_point_list).unwrap();
 
-    let ret = alt_bn128_pair_internal(&g1_list_byte, &g2_list_byte, g1_list_byte.len()/(FP_SIZE*2));
-    match ret {
-        Err(e) => return 0 as jboolean,
-        Ok(val) => {
-            val as jboolean
-        }
+    let ret = handle_mut::<pair::Accumulator>(handle)
+        .and_then(|acc| acc.add(&g1_list_byte, &g2_list_byte, g2_list_byte.len()/(FP_SIZE*4)));
+    if let Err(e) = ret {
+        env.throw(format!("{}", e)).unwrap();
     }
 }
 
 #[no_mangle]
-pub extern "C" fn alt_bn128_pair(
-    g1_point_list: *const c_uchar,
-    g2_point_list: *const c_uchar,
-    point_list_len: c_ulong,
-    is_one: *mut c_int,
-) -> c_int {
-    let g1_list_byte = unsafe { slice::from_raw_parts(g1_point_list, (point_list_len as usize)*FP_SIZE*2 as usize) };
-    let g2_list_byte = unsafe { slice::from_raw_parts(g2_point_list, (point_list_len as usize)*FP_SIZE*4 as usize) };
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_pairingAccumulatorAddDirect(env: JNIEnv, class: JClass,
+        handle: jlong, g1_point_list: JObject, g1_offset: jint, g2_point_list: JObject, g2_offset: jint, point_list_len: jint) {
 
-    let ret = alt_bn128_pair_internal(g1_list_byte, g2_list_byte, point_list_len as usize);
-    match ret {
-        Err(e) => return e.code,
-        Ok(val) => {
-            if val {
-                unsafe {*is_one = 1};
-            } else {
-                unsafe {*is_one = 0};
-            }
-            0 as c_int
-        }
+    let ret = accumulator_add_direct(&env, handle, g1_point_list, g1_offset, g2_point_list, g2_offset, point_list_len);
+    if let Err(e) = ret {
+        env.throw(format!("{}", e)).unwrap();
     }
 }
 
-fn alt_bn128_pair_internal(g1_list_byte: &[u8], g2_list_byte: &[u8], point_list_len: usize) -> Result<bool, PairingErr> {
-    let mut pair_list : Vec<(G1, G2)> = vec![];
-    for i in 0..point_list_len {
-        let g1_byte = &g1_list_byte[FP_SIZE*2*i..FP_SIZE*2*(i+1)];
-        let g2_byte = &g2_list_byte[FP_SIZE*4*i..FP_SIZE*4*(i+1)];
-
-        let g1 = deserialize_g1(g1_byte)?;
-        let g2 = deserialize_g2(g2_byte)?;
-
-        pair_list.push((g1,g2));
+fn accumulator_add_direct(env: &JNIEnv, handle: jlong, g1_point_list: JObject, g1_offset: jint, g2_point_list: JObject,
+                          g2_offset: jint, point_list_len: jint) -> Result<(), PairingErr> {
+    if point_list_len < 0 {
+        return Err(invalid_length());
     }
+    let len = point_list_len as usize;
+    let acc = handle_mut::<pair::Accumulator>(handle)?;
+    let g1_list_byte = direct_buffer_ref(env, g1_point_list, g1_offset, len*FP_SIZE*2)?;
+    let g2_list_byte = direct_buffer_ref(env, g2_point_list, g2_offset, len*FP_SIZE*4)?;
 
-    let gt = pairing_batch(&pair_list);
+    acc.add(g1_list_byte, g2_list_byte, len)
+}
 
-    Ok(gt == Gt::one())
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_pairingAccumulatorCheck(env: JNIEnv, class: JClass,
+        handle: jlong)-> jboolean {
+
+    let ret = handle_ref::<pair::Accumulator>(handle).and_then(|acc| acc.check());
+    match ret {
+        Err(e) => {
+            env.throw(format!("{}", e)).unwrap();
+            return 0 as jboolean;
+        },
+        Ok(val) => {
+            val as jboolean
+        }
+    }
 }
 
+#[no_mangle]
+pub extern "system" fn Java_org_aion_tetryon_AltBn128Jni_freePairingAccumulator(env: JNIEnv, class: JClass, handle: jlong) {
+    if handle != 0 {
+        unsafe { drop(Box::from_raw(handle as *mut pair::Accumulator)); }
+    }
+}
 
 #[no_mangle]
 pub extern "C" fn call_test_from_c() {
@@ -413,6 +1655,316 @@ mod tests {
 
     }
 
+    #[test]
+    fn multiexp_test() {
+        let rng = &mut rand::thread_rng();
+        for &n in [1usize, 7, 64, 300].iter() {
+            let mut points = Vec::with_capacity(n);
+            let mut scalars = Vec::with_capacity(n);
+            let mut expected = G1::zero();
+            for _ in 0..n {
+                let p = G1::one() * Fr::random(rng);
+                let s = Fr::random(rng);
+                let mut buffer: [u8; 32] = [0; 32];
+                s.into_u256().to_big_endian(&mut buffer).unwrap();
+                expected = expected + p * s;
+                points.push(p);
+                scalars.push(buffer);
+            }
+            assert!(msm::multiexp(&points, &scalars, false) == expected);
+            assert!(msm::multiexp(&points, &scalars, true) == expected);
+        }
+    }
+
+    #[test]
+    fn g2_ops_test() {
+        let rng = &mut rand::thread_rng();
+        let a = G2::one() * Fr::random(rng);
+        let s = Fr::random(rng);
+        let mut a_byte = [0u8; 128];
+        let mut s_byte = [0u8; 32];
+        serialize_g2(a, &mut a_byte).unwrap();
+        s.into_u256().to_big_endian(&mut s_byte).unwrap();
+
+        let mut sum_byte = [0u8; 128];
+        alt_bn128_g2_add_internal(&a_byte, &a_byte, &mut sum_byte).unwrap();
+        let mut dbl_byte = [0u8; 128];
+        let mut two_byte = [0u8; 32];
+        two_byte[31] = 2;
+        alt_bn128_g2_mul_internal(&a_byte, &two_byte, &mut dbl_byte).unwrap();
+        assert!(sum_byte[..] == dbl_byte[..]);
+
+        let mut prod_byte = [0u8; 128];
+        alt_bn128_g2_mul_internal(&a_byte, &s_byte, &mut prod_byte).unwrap();
+        assert!(deserialize_g2(&prod_byte).unwrap() == a * s);
+
+        // a + (-a) is the point at infinity, encoded as zeros
+        let mut neg_byte = [0u8; 128];
+        alt_bn128_g2_negate_internal(&a_byte, &mut neg_byte).unwrap();
+        alt_bn128_g2_add_internal(&a_byte, &neg_byte, &mut sum_byte).unwrap();
+        assert!(sum_byte.iter().all(|b| *b == 0));
+    }
+
+    #[test]
+    fn batch_test() {
+        let rng = &mut rand::thread_rng();
+        let count = 5;
+        let mut lhs = vec![0u8; 64*count];
+        let mut rhs = vec![0u8; 64*count];
+        let mut expected = Vec::with_capacity(count);
+        for i in 0..count {
+            let a = G1::one() * Fr::random(rng);
+            // item 3 sums to infinity
+            let b = if i == 3 { -a } else { G1::one() * Fr::random(rng) };
+            serialize_g1(a, &mut lhs[64*i..64*(i+1)]).unwrap();
+            serialize_g1(b, &mut rhs[64*i..64*(i+1)]).unwrap();
+            expected.push(a + b);
+        }
+        // item 1 is not on the curve
+        rhs[64 + 63] ^= 1;
+
+        let mut out = vec![0u8; 64*count];
+        let mut status = vec![0 as jint; count];
+        alt_bn128_add_batch_internal(&lhs, &rhs, count, &mut out, &mut status).unwrap();
+        for i in 0..count {
+            let mut single = [0u8; 64];
+            if i == 1 {
+                assert!(status[i] != 0);
+            } else {
+                assert!(status[i] == 0);
+                serialize_g1(expected[i], &mut single).unwrap();
+            }
+            assert!(out[64*i..64*(i+1)] == single[..]);
+        }
+    }
+
+    #[test]
+    fn prepared_pair_test() {
+        let rng = &mut rand::thread_rng();
+        let a = G1::one() * Fr::random(rng);
+        let b = G2::one() * Fr::random(rng);
+
+        // e(a, b) * e(-a, b) == 1, with the second b prepared
+        let mut g1_list = [0u8; 128];
+        let mut g2_list = [0u8; 128];
+        serialize_g1(a, &mut g1_list[0..64]).unwrap();
+        serialize_g1(-a, &mut g1_list[64..128]).unwrap();
+        serialize_g2(b, &mut g2_list).unwrap();
+        let prepared = deserialize_g2(&g2_list).unwrap();
+
+        assert!(alt_bn128_pair_prepared_internal(&g1_list, &g2_list, 1, &[&prepared]).unwrap());
+        serialize_g1(a, &mut g1_list[64..128]).unwrap();
+        assert!(!alt_bn128_pair_prepared_internal(&g1_list, &g2_list, 1, &[&prepared]).unwrap());
+    }
+
+    #[test]
+    fn parallel_pair_test() {
+        let rng = &mut rand::thread_rng();
+        let count = 9;
+        let mut g1_list = vec![0u8; 64*count];
+        let mut g2_list = vec![0u8; 128*count];
+        let mut pair_list = Vec::with_capacity(count);
+        for i in 0..count {
+            let a = G1::one() * Fr::random(rng);
+            let b = G2::one() * Fr::random(rng);
+            serialize_g1(a, &mut g1_list[64*i..64*(i+1)]).unwrap();
+            serialize_g2(b, &mut g2_list[128*i..128*(i+1)]).unwrap();
+            pair_list.push((a, b));
+        }
+
+        let expected = pairing_batch(&pair_list);
+        for &threads in [1usize, 2, 4, 0].iter() {
+            pool::set_threads(threads).unwrap();
+            assert!(pair::pairing_product(&g1_list, &g2_list, count).unwrap() == expected);
+        }
+
+        // an invalid point in any chunk fails the whole check
+        g1_list[64*7 + 63] ^= 1;
+        assert!(pair::pairing_product(&g1_list, &g2_list, count).is_err());
+    }
+
+    #[test]
+    fn fixed_base_test() {
+        let rng = &mut rand::thread_rng();
+        let p = G1::one() * Fr::random(rng);
+        let q = G1::one() * Fr::random(rng);
+        let s = Fr::random(rng);
+        let t = Fr::random(rng);
+        let mut s_byte = [0u8; 32];
+        let mut t_byte = [0u8; 32];
+        s.into_u256().to_big_endian(&mut s_byte).unwrap();
+        t.into_u256().to_big_endian(&mut t_byte).unwrap();
+
+        // budgets that give 1-bit, mid-sized and wide windows
+        for &budget in [30_000usize, 200_000, 4_000_000].iter() {
+            let fp = fixed::FixedBase::new(p, budget).unwrap();
+            let fq = fixed::FixedBase::new(q, budget).unwrap();
+            assert!(fp.add_mul(G1::zero(), &s_byte) == p * s);
+            assert!(fq.add_mul(fp.add_mul(G1::zero(), &s_byte), &t_byte) == p * s + q * t);
+            assert!(fp.add_mul(G1::zero(), &[0u8; 32]).is_zero());
+        }
+        assert!(fixed::FixedBase::new(p, 1000).is_none());
+    }
+
+    #[test]
+    fn cache_test() {
+        let rng = &mut rand::thread_rng();
+        let a = G2::one() * Fr::random(rng);
+        let mut a_byte = [0u8; 128];
+        serialize_g2(a, &mut a_byte).unwrap();
+
+        cache::set_capacity(2);
+        let (hits, misses) = cache::stats();
+        assert!(deserialize_g2(&a_byte).unwrap() == a);
+        assert!(deserialize_g2(&a_byte).unwrap() == a);
+        let (hits2, misses2) = cache::stats();
+        assert!(hits2 >= hits + 1 && misses2 >= misses + 1);
+
+        // invalid points are rejected on every call
+        a_byte[127] ^= 1;
+        assert!(deserialize_g2(&a_byte).is_err());
+        assert!(deserialize_g2(&a_byte).is_err());
+
+        // concurrent lookups, spread over the stripes, all see the points they asked for
+        let points: Vec<(G2, [u8; 128])> = (0..32).map(|_| {
+            let p = G2::one() * Fr::random(rng);
+            let mut p_byte = [0u8; 128];
+            serialize_g2(p, &mut p_byte).unwrap();
+            (p, p_byte)
+        }).collect();
+        let points = std::sync::Arc::new(points);
+        cache::set_capacity(1024);
+        let (hits, _) = cache::stats();
+        let workers: Vec<_> = (0..8).map(|t| {
+            let points = points.clone();
+            std::thread::spawn(move || {
+                for i in 0..200 {
+                    let (p, p_byte) = &points[(i * 7 + t) % points.len()];
+                    assert!(deserialize_g2(p_byte).unwrap() == *p);
+                }
+            })
+        }).collect();
+        for w in workers {
+            w.join().unwrap();
+        }
+        let (hits2, _) = cache::stats();
+        // each point misses at most once per worker, when workers race on its first lookup
+        assert!(hits2 >= hits + 8 * 200 - 8 * 32);
+        cache::set_capacity(0);
+    }
+
+    #[test]
+    fn compress_test() {
+        let rng = &mut rand::thread_rng();
+        let points: Vec<(G1, G2)> = (0..40).map(|_| {
+            let s = Fr::random(rng);
+            (G1::one() * s, G2::one() * s)
+        }).chain(std::iter::once((G1::zero(), G2::zero()))).collect();
+
+        // 41 points take the parallel path
+        let mut g1_byte = vec![0u8; points.len()*FP_SIZE];
+        let mut g2_byte = vec![0u8; points.len()*FP_SIZE*2];
+        for (i, (a, b)) in points.iter().enumerate() {
+            compress::compress_g1(*a, &mut g1_byte[FP_SIZE*i..FP_SIZE*(i+1)]).unwrap();
+            compress::compress_g2(*b, &mut g2_byte[FP_SIZE*2*i..FP_SIZE*2*(i+1)]).unwrap();
+        }
+        let mut p1_byte = vec![0u8; points.len()*FP_SIZE*2];
+        let mut p2_byte = vec![0u8; points.len()*FP_SIZE*4];
+        let mut status = vec![0 as jint; points.len()];
+        alt_bn128_decompress_g1_batch_internal(&g1_byte, points.len(), &mut p1_byte, &mut status).unwrap();
+        assert!(status.iter().all(|s| *s == 0));
+        alt_bn128_decompress_g2_batch_internal(&g2_byte, points.len(), &mut p2_byte, &mut status).unwrap();
+        assert!(status.iter().all(|s| *s == 0));
+        for (i, (a, b)) in points.iter().enumerate() {
+            assert!(deserialize_g1_or_zero(&p1_byte[FP_SIZE*2*i..FP_SIZE*2*(i+1)]).unwrap() == *a);
+            assert!(deserialize_g2_or_zero(&p2_byte[FP_SIZE*4*i..FP_SIZE*4*(i+1)]).unwrap() == *b);
+        }
+
+        // x = 0 is not on G1: 3 is not a square
+        let bad = [0u8; FP_SIZE];
+        assert_eq!(compress::decompress_g1(&bad).unwrap_err().code, -3);
+        // infinity with a stray bit
+        let mut bad = [0u8; FP_SIZE];
+        bad[0] = 0x40;
+        bad[31] = 1;
+        assert_eq!(compress::decompress_g1(&bad).unwrap_err().code, -4);
+    }
+
+    #[test]
+    fn accumulator_test() {
+        let rng = &mut rand::thread_rng();
+        let s = Fr::random(rng);
+        let mut g1_byte = [0u8; FP_SIZE*2*4];
+        let mut g2_byte = [0u8; FP_SIZE*4*4];
+        // e(sP, Q) e(-P, sQ) e(P, Q) e(-P, Q) == 1
+        let pairs = [(G1::one() * s, G2::one()), (-G1::one(), G2::one() * s), (G1::one(), G2::one()), (-G1::one(), G2::one())];
+        for (i, (a, b)) in pairs.iter().enumerate() {
+            serialize_g1(*a, &mut g1_byte[FP_SIZE*2*i..FP_SIZE*2*(i+1)]).unwrap();
+            serialize_g2(*b, &mut g2_byte[FP_SIZE*4*i..FP_SIZE*4*(i+1)]).unwrap();
+        }
+
+        let mut acc = pair::Accumulator::new();
+        assert!(acc.check().unwrap());
+        acc.add(&g1_byte[0..FP_SIZE*2*3], &g2_byte[0..FP_SIZE*4*3], 3).unwrap();
+        assert!(!acc.check().unwrap());
+
+        // a chunk with an illegal point leaves the accumulator as it was
+        let mut bad = g1_byte;
+        bad[FP_SIZE*2*3] ^= 1;
+        assert!(acc.add(&bad[FP_SIZE*2*3..], &g2_byte[FP_SIZE*4*3..], 1).is_err());
+        acc.add(&g1_byte[FP_SIZE*2*3..], &g2_byte[FP_SIZE*4*3..], 1).unwrap();
+        assert!(acc.check().unwrap());
+    }
+
+    #[test]
+    fn gt_test() {
+        let rng = &mut rand::thread_rng();
+        let s = Fr::random(rng);
+        let e = pairing(G1::one(), G2::one());
+
+        let mut g1_byte = [0u8; FP_SIZE*2];
+        let mut g2_byte = [0u8; FP_SIZE*4];
+        serialize_g1(G1::one(), &mut g1_byte).unwrap();
+        serialize_g2(G2::one(), &mut g2_byte).unwrap();
+        let f = pair::miller_loop(&g1_byte, &g2_byte, 1).unwrap();
+        assert!(f.final_exponentiation().unwrap() == e);
+        assert!(e.pow(s) == pairing(G1::one() * s, G2::one()));
+
+        let mut gt_byte = [0u8; gt::GT_SIZE];
+        gt::serialize(e, &mut gt_byte).unwrap();
+        assert!(gt::deserialize(&gt_byte).unwrap() == e);
+
+        // one is 1 in the first coordinate
+        gt::serialize(Gt::one(), &mut gt_byte).unwrap();
+        assert_eq!(gt_byte[FP_SIZE-1], 1);
+        assert_eq!(gt_byte.iter().filter(|b| **b != 0).count(), 1);
+
+        // coordinates must be below the modulus
+        let bad = [0xffu8; gt::GT_SIZE];
+        assert_eq!(gt::deserialize(&bad).unwrap_err().code, -2);
+    }
+
+    // Known answers for the coefficient order, which a round trip cannot catch: with w encoded as h0 = 1,
+    // Fp12 = Fp6[w]/(w^2 - v) and Fp6 = Fp2[v]/(v^3 - xi) give w^2 = v, i.e. g1 = 1, and w^6 = xi = 9 + i,
+    // i.e. g0 = (9, 1). A reordering of the bn crate's fields puts these anywhere else.
+    #[test]
+    fn gt_layout_test() {
+        let coefficient = |k: usize, real: u8, imaginary: u8| {
+            let mut gt_byte = [0u8; gt::GT_SIZE];
+            gt_byte[FP_SIZE*2*k + FP_SIZE-1] = real;
+            gt_byte[FP_SIZE*(2*k+1) + FP_SIZE-1] = imaginary;
+            gt_byte
+        };
+        let w = gt::deserialize(&coefficient(3, 1, 0)).unwrap();
+
+        let mut gt_byte = [0u8; gt::GT_SIZE];
+        gt::serialize(w * w, &mut gt_byte).unwrap();
+        assert_eq!(&gt_byte[..], &coefficient(1, 1, 0)[..]);
+
+        gt::serialize(w.pow(Fr::from_str("6").unwrap()), &mut gt_byte).unwrap();
+        assert_eq!(&gt_byte[..], &coefficient(0, 9, 1)[..]);
+    }
+
     #[test]
     fn zero_test() {
         let buffer: [u8; 32] = [0; 32];
@@ -0,0 +1,79 @@
+//! Multi-scalar multiplication in G1 using Pippenger's bucket method.
+//!
+//! The scalar is cut into windows of `c` bits. For every window, each point is dropped into the
+//! bucket matching its window digit; the buckets are then folded with a running sum, so a window
+//! costs roughly `n + 2^(c+1)` additions instead of the `n * c` doublings and additions of
+//! independent double-and-add. Windows are independent of each other, which is what the
+//! multi-threaded mode splits on.
+
+use bn::{Group, G1};
+use rayon::prelude::*;
+
+// scalars are elements of Fr, whose modulus is below 2^254
+const SCALAR_BITS: usize = 254;
+
+fn window_bits(n: usize) -> usize {
+    if n < 32 {
+        3
+    } else {
+        // ln(n) + 2 is close to optimal for the bucket method; larger windows only grow the bucket array
+        std::cmp::min((n as f64).ln().ceil() as usize + 2, 16)
+    }
+}
+
+// extracts bits [start, start + bits) of a 32-byte big-endian scalar
+pub(crate) fn scalar_window(scalar: &[u8; 32], start: usize, bits: usize) -> usize {
+    let mut digit = 0usize;
+    for b in 0..bits {
+        let i = start + b;
+        if i >= SCALAR_BITS {
+            break;
+        }
+        if (scalar[31 - i / 8] >> (i % 8)) & 1 == 1 {
+            digit |= 1 << b;
+        }
+    }
+    digit
+}
+
+fn window_sum(points: &[G1], scalars: &[[u8; 32]], start: usize, bits: usize) -> G1 {
+    let mut buckets = vec![G1::zero(); (1 << bits) - 1];
+    for (p, s) in points.iter().zip(scalars.iter()) {
+        let digit = scalar_window(s, start, bits);
+        if digit != 0 {
+            buckets[digit - 1] = buckets[digit - 1] + *p;
+        }
+    }
+
+    // sum_j j * bucket[j], computed as a suffix sum of suffix sums
+    let mut running = G1::zero();
+    let mut acc = G1::zero();
+    for bucket in buckets.into_iter().rev() {
+        running = running + bucket;
+        acc = acc + running;
+    }
+    acc
+}
+
+/// Computes `sum_i scalars[i] * points[i]`. Scalars are 32-byte big-endian and must already be
+/// range-checked against the Fr modulus.
+pub fn multiexp(points: &[G1], scalars: &[[u8; 32]], parallel: bool) -> G1 {
+    let bits = window_bits(points.len());
+    let starts: Vec<usize> = (0..SCALAR_BITS).step_by(bits).collect();
+
+    let sums: Vec<G1> = if parallel {
+        crate::pool::install(|| starts.par_iter().map(|&start| window_sum(points, scalars, start, bits)).collect())
+    } else {
+        starts.iter().map(|&start| window_sum(points, scalars, start, bits)).collect()
+    };
+
+    // Horner over the windows, most significant first
+    let mut result = G1::zero();
+    for sum in sums.into_iter().rev() {
+        for _ in 0..bits {
+            result = result + result;
+        }
+        result = result + sum;
+    }
+    result
+}
@@ -0,0 +1,106 @@
+//! Pairing checks split across threads.
+//!
+//! The product e(P1, Q1) ... e(Pn, Qn) is the final exponentiation of the product of the Miller loops,
+//! so the pairs are cut into one chunk per thread; each chunk is deserialized, validated and run through
+//! its own Miller loop, and only the partial Fp12 products are combined before the single final
+//! exponentiation. Splitting gives up the squarings a single batched loop shares between pairs, which
+//! is why chunks hold at least MIN_CHUNK pairs.
+
+use bn::{G1, G2, Gt, miller_loop_batch};
+use rayon::prelude::*;
+
+use crate::{deserialize_g1, deserialize_g2, invalid_length, pool, PairingErr, FP_SIZE};
+
+const MIN_CHUNK: usize = 2;
+
+fn miller_loop_chunk(g1_list_byte: &[u8], g2_list_byte: &[u8], start: usize, end: usize) -> Result<Gt, PairingErr> {
+    let mut pair_list: Vec<(G2, G1)> = Vec::with_capacity(end - start);
+    for i in start..end {
+        let g1 = deserialize_g1(&g1_list_byte[FP_SIZE*2*i..FP_SIZE*2*(i+1)])?;
+        let g2 = deserialize_g2(&g2_list_byte[FP_SIZE*4*i..FP_SIZE*4*(i+1)])?;
+        pair_list.push((g2, g1));
+    }
+
+    // deserialized points are affine, never at infinity, so the conversion inside cannot fail
+    miller_loop_batch(&pair_list).map_err(|e| PairingErr::new(-3, &format!("{:?}", e)))
+}
+
+/// Computes the product of the Miller loops of the first `point_list_len` pairs, without the final
+/// exponentiation, on the calling thread.
+pub fn miller_loop(g1_list_byte: &[u8], g2_list_byte: &[u8], point_list_len: usize) -> Result<Gt, PairingErr> {
+    if g1_list_byte.len() < FP_SIZE*2*point_list_len || g2_list_byte.len() < FP_SIZE*4*point_list_len {
+        return Err(invalid_length());
+    }
+    if point_list_len == 0 {
+        return Ok(Gt::one());
+    }
+    miller_loop_chunk(g1_list_byte, g2_list_byte, 0, point_list_len)
+}
+
+/// Computes the product of the pairings of the first `point_list_len` pairs on the pool threads.
+pub fn pairing_product(g1_list_byte: &[u8], g2_list_byte: &[u8], point_list_len: usize) -> Result<Gt, PairingErr> {
+    if g1_list_byte.len() < FP_SIZE*2*point_list_len || g2_list_byte.len() < FP_SIZE*4*point_list_len {
+        return Err(invalid_length());
+    }
+    if point_list_len == 0 {
+        return Ok(Gt::one());
+    }
+
+    pool::install(|| {
+        let threads = std::cmp::max(pool::threads(), 1);
+        let chunk = std::cmp::max((point_list_len + threads - 1) / threads, MIN_CHUNK);
+        let starts: Vec<usize> = (0..point_list_len).step_by(chunk).collect();
+
+        let partials = starts.par_iter()
+            .map(|&start| {
+                let end = std::cmp::min(start + chunk, point_list_len);
+                miller_loop_chunk(g1_list_byte, g2_list_byte, start, end)
+            })
+            .collect::<Result<Vec<Gt>, PairingErr>>()?;
+
+        let mut f = Gt::one();
+        for partial in partials {
+            f = f * partial;
+        }
+        // the Miller loop value is never zero for valid points, which is all that reaches this point
+        f.final_exponentiation().ok_or_else(|| PairingErr::new(-3, "NotInvertible"))
+    })
+}
+
+/// A running product of Miller loops, so that a pairing check can consume its pairs as they arrive
+/// and only pay for the final exponentiation in `check`. Its size does not depend on the number of
+/// pairs.
+pub struct Accumulator {
+    f: Gt,
+    pairs: usize,
+}
+
+impl Accumulator {
+    pub fn new() -> Accumulator {
+        Accumulator { f: Gt::one(), pairs: 0 }
+    }
+
+    /// Folds in the first `point_list_len` pairs. A chunk with an illegal point is rejected as a
+    /// whole and leaves the accumulator unchanged.
+    pub fn add(&mut self, g1_list_byte: &[u8], g2_list_byte: &[u8], point_list_len: usize) -> Result<(), PairingErr> {
+        if g1_list_byte.len() < FP_SIZE*2*point_list_len || g2_list_byte.len() < FP_SIZE*4*point_list_len {
+            return Err(invalid_length());
+        }
+        if point_list_len == 0 {
+            return Ok(());
+        }
+
+        let partial = miller_loop_chunk(g1_list_byte, g2_list_byte, 0, point_list_len)?;
+        self.f = self.f * partial;
+        self.pairs += point_list_len;
+        Ok(())
+    }
+
+    pub fn check(&self) -> Result<bool, PairingErr> {
+        if self.pairs == 0 {
+            return Ok(true);
+        }
+        let gt = self.f.final_exponentiation().ok_or_else(|| PairingErr::new(-3, "NotInvertible"))?;
+        Ok(gt == Gt::one())
+    }
+}
@@ -0,0 +1,41 @@
+//! The thread pool behind the multi-threaded operations.
+//!
+//! Java sizes the pool through `AltBn128Jni.setThreadCount`. Until then, or after a count of zero,
+//! work runs on rayon's global pool, which has one thread per core. Replacing the pool does not
+//! disturb operations already running on the old one: they hold a reference to it until they finish.
+
+use rayon::{ThreadPool, ThreadPoolBuildError, ThreadPoolBuilder};
+use std::sync::{Arc, RwLock};
+
+lazy_static! {
+    static ref POOL: RwLock<Option<Arc<ThreadPool>>> = RwLock::new(None);
+}
+
+pub fn set_threads(threads: usize) -> Result<(), ThreadPoolBuildError> {
+    let pool = if threads == 0 {
+        None
+    } else {
+        Some(Arc::new(ThreadPoolBuilder::new()
+            .num_threads(threads)
+            .thread_name(|i| format!("bn-jni-{}", i))
+            .build()?))
+    };
+    *POOL.write().unwrap() = pool;
+    Ok(())
+}
+
+pub fn threads() -> usize {
+    match POOL.read().unwrap().as_ref() {
+        Some(pool) => pool.current_num_threads(),
+        None => rayon::current_num_threads(),
+    }
+}
+
+/// Runs `op` on the configured pool, so that the parallel iterators inside it use that pool's threads.
+pub fn install<R: Send, F: FnOnce() -> R + Send>(op: F) -> R {
+    let pool = POOL.read().unwrap().clone();
+    match pool {
+        Some(pool) => pool.install(op),
+        None => op(),
+    }
+}